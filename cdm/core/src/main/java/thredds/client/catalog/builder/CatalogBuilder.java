@@ -284,7 +284,7 @@ public class CatalogBuilder {
   /////////////////////////////////////////////////////////////////////
   // JDOM
 
-  private void readXML(String location) {
+  protected void readXML(String location) {
     try {
       SAXBuilder saxBuilder = new SAXBuilder();
       saxBuilder.setExpandEntities(false);
@@ -295,7 +295,7 @@ public class CatalogBuilder {
     }
   }
 
-  private void readXML(URI uri) {
+  protected void readXML(URI uri) {
     try {
       SAXBuilder saxBuilder = new SAXBuilder();
       saxBuilder.setExpandEntities(false);
@@ -306,7 +306,7 @@ public class CatalogBuilder {
     }
   }
 
-  private void readXMLfromString(String catalogAsString) {
+  protected void readXMLfromString(String catalogAsString) {
     try {
       StringReader in = new StringReader(catalogAsString);
       SAXBuilder saxBuilder = new SAXBuilder(); // LOOK non-validating
@@ -318,7 +318,7 @@ public class CatalogBuilder {
     }
   }
 
-  private void readXML(InputStream stream) {
+  protected void readXML(InputStream stream) {
     try {
       SAXBuilder saxBuilder = new SAXBuilder();
       saxBuilder.setExpandEntities(false);
@@ -329,7 +329,7 @@ public class CatalogBuilder {
     }
   }
 
-  private void logError(Exception e, String message) {
+  protected void logError(Exception e, String message) {
     errlog.format(message + ", err=" + e);
     logger.error(message);
     if (logger.isTraceEnabled()) {
@@ -354,7 +354,23 @@ public class CatalogBuilder {
    * </xsd:element>
    */
   private void readCatalog(Element catalogElem) {
+    readCatalogInfo(catalogElem);
 
+    // look for top-level dataset and catalogRefs elements (keep them in order)
+    java.util.List<Element> allChildren = catalogElem.getChildren();
+    for (Element e : allChildren) {
+      if (e.getName().equals("dataset")) {
+        addDataset(readDataset(null, e));
+      } else if (e.getName().equals("catalogRef")) {
+        addDataset(readCatalogRef(null, e));
+      } else {
+        addDataset(buildOtherDataset(null, e));
+      }
+    }
+  }
+
+  // the catalog attributes, and top-level services and properties
+  protected void readCatalogInfo(Element catalogElem) {
     String name = catalogElem.getAttributeValue("name");
     String catSpecifiedBaseURL = catalogElem.getAttributeValue("base"); // LOOK what is this ??
     String expiresS = catalogElem.getAttributeValue("expires");
@@ -395,18 +411,6 @@ public class CatalogBuilder {
     for (Element e : pList) {
       addProperty(readProperty(e));
     }
-
-    // look for top-level dataset and catalogRefs elements (keep them in order)
-    java.util.List<Element> allChildren = catalogElem.getChildren();
-    for (Element e : allChildren) {
-      if (e.getName().equals("dataset")) {
-        addDataset(readDataset(null, e));
-      } else if (e.getName().equals("catalogRef")) {
-        addDataset(readCatalogRef(null, e));
-      } else {
-        addDataset(buildOtherDataset(null, e));
-      }
-    }
   }
 
   // for overridding
@@ -0,0 +1,347 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package thredds.client.catalog.builder;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import javax.annotation.Nullable;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.jdom2.CDATA;
+import org.jdom2.Element;
+import org.jdom2.IllegalAddException;
+import org.jdom2.Namespace;
+import org.jdom2.Text;
+import thredds.client.catalog.Catalog;
+import thredds.client.catalog.Dataset;
+import thredds.client.catalog.DatasetNode;
+
+/**
+ * Builds client Catalogs with a streaming StAX parser, instead of reading the whole document into a JDOM tree.
+ * Only the elements of one dataset, not counting its nested datasets, are made into JDOM Elements, which are read by
+ * the methods of CatalogBuilder, so the Catalog is the same as CatalogBuilder makes.
+ * <p>
+ * {@link #readDatasets} passes each dataset to a {@link DatasetListener} as soon as it has been read, and does not
+ * keep it, so catalogs with any number of datasets can be read in bounded memory.
+ * <p>
+ * Metadata elements should come before the nested datasets of a dataset, as the catalog schema requires. When they
+ * don't, they are still read into the Catalog, but are not seen by a DatasetListener.
+ *
+ * @since 5.5.4
+ */
+public class StaxCatalogBuilder extends CatalogBuilder {
+  private static final XMLInputFactory factory;
+
+  static {
+    factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+  }
+
+  /** Gets the datasets of a catalog as they are read. */
+  public interface DatasetListener {
+    /**
+     * Called for each dataset and catalogRef, in document order.
+     * The parent of the Dataset is the Dataset of the enclosing element, or the Catalog, so inherited metadata and
+     * services can be found. Nested datasets are not attached, they are passed to the listener in turn.
+     *
+     * @param dataset the dataset.
+     * @return false to stop reading the catalog.
+     */
+    boolean dataset(Dataset dataset);
+  }
+
+  private DatasetListener listener;
+  private boolean stopped;
+  private Catalog catalog; // without datasets, made when reading to a listener
+
+  /**
+   * Read a catalog, passing its datasets to a listener instead of keeping them.
+   *
+   * @param uri read from here.
+   * @param listener gets each dataset.
+   * @return the Catalog without its datasets, or null if there was a fatal error.
+   */
+  @Nullable
+  public Catalog readDatasets(URI uri, DatasetListener listener) {
+    this.baseURI = uri;
+    this.listener = listener;
+    try {
+      readXML(uri);
+    } finally {
+      this.listener = null;
+    }
+    return fatalError ? null : catalog;
+  }
+
+  /**
+   * Read a catalog, passing its datasets to a listener instead of keeping them.
+   *
+   * @param stream read from here, not closed.
+   * @param docBaseUri base URI of the catalog.
+   * @param listener gets each dataset.
+   * @return the Catalog without its datasets, or null if there was a fatal error.
+   */
+  @Nullable
+  public Catalog readDatasets(InputStream stream, URI docBaseUri, DatasetListener listener) {
+    this.baseURI = docBaseUri;
+    this.listener = listener;
+    try {
+      readXML(stream);
+    } finally {
+      this.listener = null;
+    }
+    return fatalError ? null : catalog;
+  }
+
+  /////////////////////////////////////////////////////////////////////
+  // StAX
+
+  @Override
+  protected void readXML(String location) {
+    try (InputStream in = openLocation(location)) {
+      readXML(createReader(in, location));
+    } catch (Exception e) {
+      logError(e, "failed to read xml catalog at " + location);
+    }
+  }
+
+  @Override
+  protected void readXML(URI uri) {
+    try (InputStream in = uri.toURL().openStream()) {
+      readXML(createReader(in, uri.toString()));
+    } catch (Exception e) {
+      logError(e, "failed to read xml catalog at " + uri);
+    }
+  }
+
+  @Override
+  protected void readXMLfromString(String catalogAsString) {
+    try {
+      XMLStreamReader reader;
+      synchronized (factory) {
+        reader = factory.createXMLStreamReader(new StringReader(catalogAsString));
+      }
+      readXML(reader);
+    } catch (Exception e) {
+      logError(e, "failed to read xml catalog at " + baseURI);
+    }
+  }
+
+  @Override
+  protected void readXML(InputStream stream) {
+    try {
+      readXML(createReader(stream, baseURI == null ? null : baseURI.toString()));
+    } catch (Exception e) {
+      logError(e, "failed to read xml catalog at " + baseURI);
+    }
+  }
+
+  private InputStream openLocation(String location) throws Exception {
+    try {
+      URI uri = new URI(location);
+      if (uri.getScheme() != null && uri.getScheme().length() > 1) { // not a windows drive letter
+        return uri.toURL().openStream();
+      }
+    } catch (URISyntaxException e) {
+      // a file path
+    }
+    return new FileInputStream(location);
+  }
+
+  private XMLStreamReader createReader(InputStream in, String systemId) throws XMLStreamException {
+    synchronized (factory) { // the factory is not guaranteed to be thread safe
+      return factory.createXMLStreamReader(systemId, in);
+    }
+  }
+
+  // A catalog, dataset or catalogRef element that has been started but not ended.
+  private static class Level {
+    final Level parent; // null for the catalog
+    final Element elem; // the attributes, and the child elements before the first nested dataset
+    boolean started; // true once the nested datasets have started, or the element has ended
+    DatasetBuilder dataset; // null for the catalog
+    DatasetNode node; // when reading to a listener
+
+    Level(Level parent, Element elem) {
+      this.parent = parent;
+      this.elem = elem;
+    }
+  }
+
+  private void readXML(XMLStreamReader reader) throws XMLStreamException {
+    this.stopped = false;
+    try {
+      Deque<Level> stack = new ArrayDeque<>();
+      while (reader.hasNext() && !stopped) {
+        int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          if (stack.isEmpty()) {
+            stack.push(new Level(null, makeElement(reader)));
+            continue;
+          }
+          Level level = stack.peek();
+          String name = reader.getLocalName();
+          if (name.equals("dataset") || name.equals("catalogRef")) {
+            startNested(level);
+            stack.push(new Level(level, makeElement(reader)));
+          } else {
+            Element child = readElement(reader);
+            if (level.started) {
+              readLateChild(level, child);
+            } else {
+              level.elem.addContent(child);
+            }
+          }
+
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          startNested(stack.pop());
+        }
+      }
+    } finally {
+      reader.close();
+    }
+  }
+
+  // Read the element of a level, once all its children before its nested datasets are known.
+  private void startNested(Level level) {
+    if (level.started) {
+      return;
+    }
+    level.started = true;
+
+    if (level.parent == null) {
+      readCatalogInfo(level.elem);
+      if (listener != null) {
+        catalog = makeCatalog();
+        level.node = catalog;
+      }
+      for (Element e : new ArrayList<>(level.elem.getChildren())) {
+        addNested(level, buildOtherDataset(null, e));
+      }
+      return;
+    }
+
+    DatasetBuilder parent = level.parent.dataset;
+    boolean isCatref = level.elem.getName().equals("catalogRef");
+    DatasetBuilder dataset = isCatref ? readCatalogRef(parent, level.elem) : readDataset(parent, level.elem);
+    level.dataset = dataset;
+    if (listener != null) {
+      Dataset ds = dataset.makeDataset(level.parent.node);
+      level.node = ds;
+      stopped = !listener.dataset(ds);
+    } else if (parent == null) {
+      addDataset(dataset);
+    } else {
+      parent.addDataset(dataset);
+    }
+  }
+
+  // A non-dataset element that comes after the nested datasets have started.
+  private void readLateChild(Level level, Element child) {
+    if (listener != null) {
+      // the Catalog or Dataset has already been made
+    } else if (level.parent == null) {
+      if (child.getName().equals("service")) {
+        addService(readService(child));
+      } else if (child.getName().equals("property")) {
+        addProperty(readProperty(child));
+      }
+    } else {
+      DatasetBuilder dataset = level.dataset;
+      if (child.getName().equals("access")) {
+        dataset.addAccess(readAccess(dataset, child));
+      } else {
+        Element holder = new Element(level.elem.getName(), level.elem.getNamespace());
+        holder.addContent(child);
+        readThreddsMetadataGroup(dataset.flds, dataset, holder);
+        child.detach();
+      }
+    }
+    addNested(level, buildOtherDataset(level.dataset, child));
+  }
+
+  private void addNested(Level level, DatasetBuilder nested) {
+    if (nested == null) {
+      return;
+    }
+    if (listener != null) {
+      stopped = !listener.dataset(nested.makeDataset(level.node));
+    } else if (level.dataset == null) {
+      addDataset(nested);
+    } else {
+      level.dataset.addDataset(nested);
+    }
+  }
+
+  // An Element with the name, namespaces and attributes of the current START_ELEMENT.
+  private Element makeElement(XMLStreamReader reader) {
+    Element elem = new Element(reader.getLocalName(), makeNamespace(reader.getPrefix(), reader.getNamespaceURI()));
+    for (int i = 0; i < reader.getNamespaceCount(); i++) {
+      Namespace ns = makeNamespace(reader.getNamespacePrefix(i), reader.getNamespaceURI(i));
+      if (ns != Namespace.NO_NAMESPACE && !ns.equals(elem.getNamespace())) {
+        try {
+          elem.addNamespaceDeclaration(ns);
+        } catch (IllegalAddException e) {
+          // conflicts with the prefix of the element, which wins
+        }
+      }
+    }
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      Namespace ns = makeNamespace(reader.getAttributePrefix(i), reader.getAttributeNamespace(i));
+      elem.setAttribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i), ns);
+    }
+    return elem;
+  }
+
+  private Namespace makeNamespace(String prefix, String uri) {
+    if (uri == null || uri.isEmpty()) {
+      return Namespace.NO_NAMESPACE;
+    }
+    return Namespace.getNamespace(prefix == null ? "" : prefix, uri);
+  }
+
+  // Read the current START_ELEMENT and all of its content, up to its END_ELEMENT.
+  private Element readElement(XMLStreamReader reader) throws XMLStreamException {
+    Element top = makeElement(reader);
+    List<Element> path = new ArrayList<>();
+    Element current = top;
+    while (true) {
+      switch (reader.next()) {
+        case XMLStreamConstants.START_ELEMENT:
+          Element child = makeElement(reader);
+          current.addContent(child);
+          path.add(current);
+          current = child;
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          if (path.isEmpty()) {
+            return top;
+          }
+          current = path.remove(path.size() - 1);
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.SPACE:
+          current.addContent(new Text(reader.getText()));
+          break;
+        case XMLStreamConstants.CDATA:
+          current.addContent(new CDATA(reader.getText()));
+          break;
+        default:
+          break;
+      }
+    }
+  }
+}
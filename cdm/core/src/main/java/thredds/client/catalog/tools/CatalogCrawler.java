@@ -9,8 +9,10 @@ import com.beust.jcommander.Parameter;
 import com.beust.jcommander.ParameterDescription;
 import com.beust.jcommander.ParameterException;
 import com.google.common.base.MoreObjects;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import thredds.client.catalog.*;
 import thredds.client.catalog.builder.CatalogBuilder;
+import thredds.client.catalog.builder.StaxCatalogBuilder;
 import ucar.ma2.Array;
 import ucar.ma2.InvalidRangeException;
 import ucar.nc2.Variable;
@@ -22,10 +24,17 @@ import ucar.nc2.util.Misc;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import ucar.nc2.write.Ncdump;
 
 /**
- * Crawl client catalogs
+ * Crawl client catalogs.
+ * CatalogRefs are read ahead of the crawl in background threads, see {@link #setReadAheadThreads}, but the datasets
+ * are passed to the Listener in the same order, and from the calling thread.
  *
  * @author caron
  * @since 1/11/2015
@@ -72,6 +81,13 @@ public class CatalogCrawler {
 
   private int numReadFailures;
 
+  // read catalogRefs ahead of the crawl
+  private static final Future<CatrefResult> SKIP = CompletableFuture.completedFuture(null);
+  private int readAheadThreads = 4;
+  private ExecutorService executor;
+  private final Map<CatalogRef, Future<CatrefResult>> readAhead = new IdentityHashMap<>();
+  private int countReadAhead; // number of catalogRefs in readAhead that are not SKIP
+
   /**
    * Constructor.
    *
@@ -97,6 +113,18 @@ public class CatalogCrawler {
       this.random = new Random(System.currentTimeMillis());
   }
 
+  /**
+   * Set the number of threads that read catalogRefs ahead of the crawl. Up to twice this many catalogs are read ahead
+   * and kept until they are crawled.
+   *
+   * @param nthreads number of threads, or 0 to read each catalogRef when it is crawled. Default is 4.
+   * @return this
+   */
+  public CatalogCrawler setReadAheadThreads(int nthreads) {
+    this.readAheadThreads = nthreads;
+    return this;
+  }
+
   /**
    * Open a catalog and crawl (depth first) all the datasets in it.
    * Any that pass the filter are sent to the Listener
@@ -107,7 +135,7 @@ public class CatalogCrawler {
    */
   public int crawl(String catUrl) throws IOException {
 
-    CatalogBuilder catFactory = new CatalogBuilder();
+    CatalogBuilder catFactory = new StaxCatalogBuilder();
     Catalog cat = catFactory.buildFromLocation(catUrl, null);
     boolean isValid = !catFactory.hasFatalError();
     if (out != null) {
@@ -132,19 +160,53 @@ public class CatalogCrawler {
    */
   public int crawl(Catalog cat) throws IOException {
     this.countCatrefs = 0;
-    crawl(cat, 0, new Indent(2));
+    if (readAheadThreads > 0) {
+      executor = Executors.newFixedThreadPool(readAheadThreads,
+          new ThreadFactoryBuilder().setNameFormat("CatalogCrawler-%d").setDaemon(true).build());
+    }
+    try {
+      crawl(cat, 0, new Indent(2));
+    } finally {
+      if (executor != null) {
+        executor.shutdownNow();
+        executor = null;
+      }
+      readAhead.clear();
+      countReadAhead = 0;
+    }
     return 1 + countCatrefs;
   }
 
   private int crawl(Catalog cat, int level, Indent indent) throws IOException {
-    for (Dataset ds : cat.getDatasetsLocal()) {
-      crawlDataset(ds, level, indent);
+    List<Dataset> datasets = cat.getDatasetsLocal();
+    for (int i = 0; i < datasets.size(); i++) {
+      readAhead(datasets, i, level);
+      crawlDataset(datasets.get(i), level, indent);
       if ((task != null) && task.isCancel())
         break;
     }
     return 1 + countCatrefs;
   }
 
+  // Start reading the catalogRefs in datasets, starting at index start, up to the limit of catalogs read ahead.
+  private void readAhead(List<Dataset> datasets, int start, int level) {
+    if (executor == null)
+      return;
+    for (int i = start; i < datasets.size() && countReadAhead < 2 * readAheadThreads; i++) {
+      Dataset ds = datasets.get(i);
+      if (!(ds instanceof CatalogRef) || readAhead.containsKey(ds))
+        continue;
+      CatalogRef catref = (CatalogRef) ds;
+      // the filter is called here instead of when the catalogRef is crawled
+      if (filter != null && (filter.skipAll(catref) || filter.skipCatref(catref, level + 1))) {
+        readAhead.put(catref, SKIP);
+      } else {
+        readAhead.put(catref, executor.submit(() -> readCatref(catref)));
+        countReadAhead++;
+      }
+    }
+  }
+
   /**
    * Crawl this dataset recursively.
    *
@@ -153,24 +215,35 @@ public class CatalogCrawler {
    * @param indent print indentation
    */
   private void crawlDataset(Dataset ds, int level, Indent indent) throws IOException {
-    if (filter != null && filter.skipAll(ds))
+    if (!(ds instanceof CatalogRef) && filter != null && filter.skipAll(ds))
       return;
 
     if (ds instanceof CatalogRef) {
       CatalogRef catref = (CatalogRef) ds;
-
-      if (filter != null && filter.skipCatref(catref, level + 1))
+      Future<CatrefResult> pending = readAhead.remove(catref);
+      if (pending == SKIP)
+        return;
+      if (pending == null && filter != null && (filter.skipAll(ds) || filter.skipCatref(catref, level + 1)))
         return;
 
       if (out != null)
         out.printf("%n%sCatalogRef %s (%s)%n", indent, catref.getURI(), ds.getName());
       countCatrefs++;
 
-      Catalog cat = readCatref(catref, out, indent);
-      if (cat == null) {
+      CatrefResult result;
+      if (pending == null) {
+        result = readCatref(catref);
+      } else {
+        countReadAhead--;
+        result = getReadAhead(catref, pending);
+      }
+      if (result.cat == null) {
+        if (out != null)
+          out.printf("%sError reading catref %s err=%s%n", indent, catref.getName(), result.errMessage);
         numReadFailures++;
         return;
       }
+      Catalog cat = result.cat;
 
       crawl(cat, level + 1, indent.incr());
       indent.decr();
@@ -186,7 +259,10 @@ public class CatalogCrawler {
     }
 
     if (type == Type.all) {
-      for (Dataset dds : ds.getDatasetsLocal()) {
+      List<Dataset> dlist = ds.getDatasetsLocal();
+      for (int i = 0; i < dlist.size(); i++) {
+        readAhead(dlist, i, level);
+        Dataset dds = dlist.get(i);
         if (!(dds instanceof CatalogRef))
           listen.getDataset(dds, context);
         crawlDataset(dds, level, indent.incr());
@@ -225,7 +301,9 @@ public class CatalogCrawler {
         }
       }
       // recurse
-      for (Dataset dds : ds.getDatasetsLocal()) {
+      for (int i = 0; i < dlist.size(); i++) {
+        readAhead(dlist, i, level);
+        Dataset dds = dlist.get(i);
         if (dds.hasNestedDatasets() || (dds instanceof CatalogRef)) {
           crawlDataset(dds, level, indent.incr());
           indent.decr();
@@ -236,15 +314,35 @@ public class CatalogCrawler {
     }
   }
 
-  private Catalog readCatref(CatalogRef catref, PrintWriter out, Indent indent) {
-    CatalogBuilder builder = new CatalogBuilder();
+  private static class CatrefResult {
+    final Catalog cat; // null if it failed
+    final String errMessage;
+
+    CatrefResult(Catalog cat, String errMessage) {
+      this.cat = cat;
+      this.errMessage = errMessage;
+    }
+  }
+
+  // may be called from the read ahead threads
+  private CatrefResult readCatref(CatalogRef catref) {
+    CatalogBuilder builder = new StaxCatalogBuilder();
     Catalog cat = builder.buildFromCatref(catref);
     if (builder.hasFatalError() || cat == null) {
-      if (out != null)
-        out.printf("%sError reading catref %s err=%s%n", indent, catref.getName(), builder.getErrorMessage());
-      return null;
+      return new CatrefResult(null, builder.getErrorMessage());
+    }
+    return new CatrefResult(cat, null);
+  }
+
+  private CatrefResult getReadAhead(CatalogRef catref, Future<CatrefResult> pending) throws IOException {
+    try {
+      return pending.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted reading catref " + catref.getName(), e);
+    } catch (ExecutionException e) {
+      return new CatrefResult(null, e.getCause().toString());
     }
-    return cat;
   }
 
   private Dataset chooseRandom(List datasets) {
@@ -97,6 +97,29 @@ public class ControllerOS implements MController {
     return new FilteredIterator(mc, new MFileIterator(cd), true); // return only subdirs
   }
 
+  @Override
+  public Iterator<MFile> getInventoryTopAndSubdirs(CollectionConfig mc, boolean recheck) {
+    String path = mc.getDirectoryName();
+    if (path.startsWith("file:")) {
+      path = path.substring(5);
+    }
+
+    File cd = new File(path);
+    if (!cd.exists())
+      return null;
+    if (!cd.isDirectory())
+      return null;
+
+    List<MFile> result = new ArrayList<>();
+    Iterator<MFile> iter = new MFileIterator(cd);
+    while (iter.hasNext()) {
+      MFile mfile = iter.next();
+      if (mfile.isDirectory() || mc.accept(mfile)) // only filter the leaves
+        result.add(mfile);
+    }
+    return result.iterator();
+  }
+
 
   public void close() {} // NOOP
 
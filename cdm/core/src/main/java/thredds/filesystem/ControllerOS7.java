@@ -6,13 +6,16 @@
 package thredds.filesystem;
 
 import thredds.inventory.CollectionConfig;
+import thredds.inventory.DirectoryScanner;
 import thredds.inventory.MController;
 import thredds.inventory.MFile;
 import javax.annotation.concurrent.ThreadSafe;
 import java.io.IOException;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 /**
  * Use Java 7 NIO for scanning the file system
@@ -28,11 +31,42 @@ public class ControllerOS7 implements MController {
 
   @Override
   public Iterator<MFile> getInventoryAll(CollectionConfig mc, boolean recheck) {
-    return null;
+    try {
+      return new DirectoryScanner(this, 1, null).scan(mc, Integer.MAX_VALUE);
+    } catch (IOException e) {
+      logger.error("Error scanning {}", mc.getDirectoryName(), e);
+      return null;
+    }
   }
 
   @Override
   public Iterator<MFile> getInventoryTop(CollectionConfig mc, boolean recheck) throws IOException {
+    Path cd = getDirectory(mc);
+    if (cd == null)
+      return null;
+    return new MFileIterator(cd, new CollectionFilter(mc)); // removes subdirs
+  }
+
+  public Iterator<MFile> getSubdirs(CollectionConfig mc, boolean recheck) {
+    Path cd = getDirectory(mc);
+    if (cd == null)
+      return null;
+    try {
+      return listDirectory(cd, mc, false).iterator();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public Iterator<MFile> getInventoryTopAndSubdirs(CollectionConfig mc, boolean recheck) throws IOException {
+    Path cd = getDirectory(mc);
+    if (cd == null)
+      return null;
+    return listDirectory(cd, mc, true).iterator();
+  }
+
+  private static Path getDirectory(CollectionConfig mc) {
     String path = mc.getDirectoryName();
     if (path.startsWith("file:")) {
       path = path.substring(5);
@@ -41,11 +75,25 @@ public class ControllerOS7 implements MController {
     Path cd = Paths.get(path);
     if (!Files.exists(cd))
       return null;
-    return new MFileIterator(cd, new CollectionFilter(mc)); // removes subdirs
+    return cd;
   }
 
-  public Iterator<MFile> getSubdirs(CollectionConfig mc, boolean recheck) {
-    return null;
+  // one pass through the directory, reading the attributes of each entry once
+  private static List<MFile> listDirectory(Path cd, CollectionConfig mc, boolean wantLeaves) throws IOException {
+    List<MFile> result = new ArrayList<>();
+    try (DirectoryStream<Path> dirStream = Files.newDirectoryStream(cd, new CollectionFilter(mc))) {
+      for (Path p : dirStream) {
+        BasicFileAttributes attr = Files.readAttributes(p, BasicFileAttributes.class);
+        if (attr.isDirectory()) {
+          result.add(new MFileOS7(p, attr));
+        } else if (wantLeaves) {
+          MFile mfile = new MFileOS7(p, attr);
+          if (mc.accept(mfile))
+            result.add(mfile);
+        }
+      }
+    }
+    return result;
   }
 
 
@@ -6,6 +6,7 @@
 package thredds.inventory;
 
 import org.slf4j.Logger;
+import thredds.filesystem.ControllerOS7;
 import thredds.filesystem.MFileOS7;
 import ucar.nc2.util.CloseableIterator;
 import java.io.IOException;
@@ -89,6 +90,14 @@ public class CollectionGlob extends CollectionAbstract {
 
   @Override
   public CloseableIterator<MFile> getFileIterator() throws IOException {
+    if (DirectoryScanner.isEnabled()) {
+      MFileFilter filter = mfile -> matcher.matches(Paths.get(mfile.getPath()));
+      CollectionConfig mc = new CollectionConfig(collectionName, this.root, depth > 0, filter, null);
+      CloseableIterator<MFile> iter = DirectoryScanner.create(new ControllerOS7()).scan(mc, depth);
+      if (iter == null)
+        throw new NoSuchFileException(this.root);
+      return iter;
+    }
     return new MyFileIterator(this.root);
   }
 
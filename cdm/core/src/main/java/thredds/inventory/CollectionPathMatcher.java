@@ -6,6 +6,7 @@ package thredds.inventory;
 
 import org.slf4j.Logger;
 import thredds.featurecollection.FeatureCollectionConfig;
+import thredds.filesystem.ControllerOS7;
 import thredds.filesystem.MFileOS7;
 import ucar.nc2.util.CloseableIterator;
 import java.io.IOException;
@@ -54,6 +55,17 @@ public class CollectionPathMatcher extends CollectionAbstract {
 
   @Override
   public CloseableIterator<MFile> getFileIterator() throws IOException {
+    if (DirectoryScanner.isEnabled()) {
+      long now = System.currentTimeMillis();
+      MFileFilter filter = mfile -> matcher.matches(Paths.get(mfile.getPath()))
+          && (olderThanMillis <= 0 || now - mfile.getLastModified() >= olderThanMillis);
+      CollectionConfig mc = new CollectionConfig(collectionName, this.root, wantSubdirs, filter, null);
+      CloseableIterator<MFile> iter =
+          DirectoryScanner.create(new ControllerOS7()).scan(mc, wantSubdirs ? Integer.MAX_VALUE : 0);
+      if (iter == null)
+        throw new NoSuchFileException(this.root);
+      return iter;
+    }
     return new AllFilesIterator();
   }
 
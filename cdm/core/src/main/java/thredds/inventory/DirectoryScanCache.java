@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.inventory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import thredds.filesystem.MFileOS7;
+
+/**
+ * Remembers the contents of local directories scanned by a {@link DirectoryScanner}, so that a directory whose last
+ * modified time has not changed does not have to be listed again. Only the directory itself is checked, so files
+ * that are rewritten in place (rather than written to a new name and moved) will show their old size and last modified
+ * time until something is added to or removed from the directory.
+ * The listings are unfiltered, so the same cache may be shared by collections with different filters.
+ * Optionally saved to a file, to be used by the next process that scans the same directories.
+ *
+ * @since 5.5.4
+ */
+@ThreadSafe
+public class DirectoryScanCache {
+  private static final Logger logger = LoggerFactory.getLogger(DirectoryScanCache.class);
+
+  private static final String MAGIC = "DirectoryScanCache";
+  private static final int VERSION = 1;
+
+  // Dont remember a directory modified this recently, since a file added in the same clock tick as the listing
+  // will not change its last modified time.
+  private static final long MIN_AGE_MSECS = 2000;
+
+  private static class Entry {
+    final String name;
+    final boolean isDirectory;
+    final long lastModified;
+    final long length;
+
+    Entry(String name, boolean isDirectory, long lastModified, long length) {
+      this.name = name;
+      this.isDirectory = isDirectory;
+      this.lastModified = lastModified;
+      this.length = length;
+    }
+  }
+
+  private static class Listing {
+    final long lastModified;
+    final List<Entry> entries;
+
+    Listing(long lastModified, List<Entry> entries) {
+      this.lastModified = lastModified;
+      this.entries = entries;
+    }
+  }
+
+  @Nullable
+  private final File file;
+  private final Map<String, Listing> map = new ConcurrentHashMap<>();
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  /** A cache held in memory only. */
+  public DirectoryScanCache() {
+    this.file = null;
+  }
+
+  /**
+   * A cache that is saved to a file with {@link #save()}.
+   *
+   * @param file read the cache from this file if it exists, and save it here.
+   */
+  public DirectoryScanCache(File file) throws IOException {
+    this.file = file;
+    if (file.exists())
+      read(file);
+  }
+
+  /**
+   * Get the remembered contents of a directory.
+   *
+   * @param dirName the directory name, as passed to the MController
+   * @param dir the local directory
+   * @param lastModified the current last modified time of the directory
+   * @return the files and subdirectories, or null if not known or the directory has changed.
+   */
+  @Nullable
+  List<MFile> get(String dirName, Path dir, long lastModified) {
+    Listing listing = map.get(dirName);
+    if (listing == null || listing.lastModified != lastModified) {
+      misses.incrementAndGet();
+      return null;
+    }
+    hits.incrementAndGet();
+
+    List<MFile> result = new ArrayList<>(listing.entries.size());
+    for (Entry e : listing.entries)
+      result.add(new MFileOS7(dir.resolve(e.name), new CachedAttributes(e)));
+    return result;
+  }
+
+  /**
+   * Remember the contents of a directory.
+   *
+   * @param dirName the directory name, as passed to the MController
+   * @param lastModified the last modified time of the directory, read before it was listed
+   * @param listed when the directory was listed
+   * @param mfiles the files and subdirectories
+   */
+  void put(String dirName, long lastModified, long listed, List<MFile> mfiles) {
+    if (listed - lastModified < MIN_AGE_MSECS) {
+      map.remove(dirName);
+      return;
+    }
+    List<Entry> entries = new ArrayList<>(mfiles.size());
+    for (MFile mfile : mfiles)
+      entries.add(new Entry(mfile.getName(), mfile.isDirectory(), mfile.getLastModified(), mfile.getLength()));
+    map.put(dirName, new Listing(lastModified, entries));
+  }
+
+  /** Forget everything. */
+  public void clear() {
+    map.clear();
+  }
+
+  /** Number of directories remembered. */
+  public int size() {
+    return map.size();
+  }
+
+  /** Number of directories that did not have to be listed. */
+  public long getHits() {
+    return hits.get();
+  }
+
+  /** Number of directories that had to be listed. */
+  public long getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * Save to the file passed to the constructor. The file is replaced atomically where the file system allows.
+   * Does nothing if this cache is held in memory only.
+   */
+  public void save() throws IOException {
+    if (file == null)
+      return;
+
+    File tmp = new File(file.getPath() + ".tmp");
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+      out.writeUTF(MAGIC);
+      out.writeInt(VERSION);
+      List<Map.Entry<String, Listing>> listings = new ArrayList<>(map.entrySet());
+      out.writeInt(listings.size());
+      for (Map.Entry<String, Listing> me : listings) {
+        Listing listing = me.getValue();
+        out.writeUTF(me.getKey());
+        out.writeLong(listing.lastModified);
+        out.writeInt(listing.entries.size());
+        for (Entry e : listing.entries) {
+          out.writeUTF(e.name);
+          out.writeBoolean(e.isDirectory);
+          out.writeLong(e.lastModified);
+          out.writeLong(e.length);
+        }
+      }
+    }
+    Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private void read(File file) throws IOException {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+      if (!MAGIC.equals(in.readUTF()) || in.readInt() != VERSION) {
+        logger.warn("Ignoring {}: not a DirectoryScanCache file, or an older version", file);
+        return;
+      }
+      int nlistings = in.readInt();
+      for (int i = 0; i < nlistings; i++) {
+        String dirName = in.readUTF();
+        long lastModified = in.readLong();
+        int nentries = in.readInt();
+        List<Entry> entries = new ArrayList<>(nentries);
+        for (int j = 0; j < nentries; j++)
+          entries.add(new Entry(in.readUTF(), in.readBoolean(), in.readLong(), in.readLong()));
+        map.put(dirName, new Listing(lastModified, entries));
+      }
+    }
+  }
+
+  private static class CachedAttributes implements BasicFileAttributes {
+    private final Entry entry;
+
+    CachedAttributes(Entry entry) {
+      this.entry = entry;
+    }
+
+    @Override
+    public FileTime lastModifiedTime() {
+      return FileTime.fromMillis(entry.lastModified);
+    }
+
+    @Override
+    public FileTime lastAccessTime() {
+      return lastModifiedTime();
+    }
+
+    @Override
+    public FileTime creationTime() {
+      return lastModifiedTime();
+    }
+
+    @Override
+    public boolean isRegularFile() {
+      return !entry.isDirectory;
+    }
+
+    @Override
+    public boolean isDirectory() {
+      return entry.isDirectory;
+    }
+
+    @Override
+    public boolean isSymbolicLink() {
+      return false;
+    }
+
+    @Override
+    public boolean isOther() {
+      return false;
+    }
+
+    @Override
+    public long size() {
+      return entry.length;
+    }
+
+    @Override
+    public Object fileKey() {
+      return null;
+    }
+  }
+}
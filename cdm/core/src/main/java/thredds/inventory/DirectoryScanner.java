@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.inventory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.annotation.Nullable;
+import ucar.nc2.util.CloseableIterator;
+
+/**
+ * Scans a tree of directories with an MController, listing up to <i>concurrency</i> directories at the same time.
+ * The files in each directory are returned as soon as it has been listed, so the order of the files is not defined.
+ * Each directory is listed once, with {@link MController#getInventoryTopAndSubdirs}.
+ * <p/>
+ * An optional {@link DirectoryScanCache} skips listing local directories whose last modified time has not changed.
+ * Directories without a last modified time, such as object store prefixes, are always listed.
+ *
+ * @since 5.5.4
+ */
+public class DirectoryScanner {
+  private static int defaultConcurrency = 1;
+  private static DirectoryScanCache defaultCache;
+
+  /**
+   * Set how MFileCollectionManager, CollectionGlob and CollectionPathMatcher scan directory trees.
+   * By default, they scan on the calling thread without a cache.
+   *
+   * @param concurrency maximum number of directories listed at the same time; 1 lists them in the calling thread.
+   * @param cache remember directory listings here, may be null.
+   */
+  public static void setDefaults(int concurrency, @Nullable DirectoryScanCache cache) {
+    defaultConcurrency = Math.max(1, concurrency);
+    defaultCache = cache;
+  }
+
+  /** True if {@link #setDefaults} has turned on concurrent scanning or a cache. */
+  public static boolean isEnabled() {
+    return defaultConcurrency > 1 || defaultCache != null;
+  }
+
+  /** A DirectoryScanner using the defaults set by {@link #setDefaults}. */
+  public static DirectoryScanner create(MController controller) {
+    return new DirectoryScanner(controller, defaultConcurrency, defaultCache);
+  }
+
+  ////////////////////////////////////////////////////////////////////////
+
+  private final MController controller;
+  private final int concurrency;
+  @Nullable
+  private final DirectoryScanCache cache;
+
+  /**
+   * Constructor.
+   *
+   * @param controller lists each directory; must be thread safe if concurrency > 1.
+   * @param concurrency maximum number of directories listed at the same time; 1 lists them in the calling thread.
+   * @param cache remember directory listings here, may be null.
+   */
+  public DirectoryScanner(MController controller, int concurrency, @Nullable DirectoryScanCache cache) {
+    this.controller = controller;
+    this.concurrency = Math.max(1, concurrency);
+    this.cache = cache;
+  }
+
+  /**
+   * Scan the collection's directory and its subdirectories.
+   *
+   * @param mc defines the collection to scan; its MFileFilter is applied to the files
+   * @param maxDepth how many levels of subdirectories to descend into: 0 for the top directory only.
+   * @return iterator over the files, or null if the top directory does not exist. Must be closed if not exhausted.
+   */
+  @Nullable
+  public CloseableIterator<MFile> scan(CollectionConfig mc, int maxDepth) throws IOException {
+    Listing top = list(mc.getDirectoryName(), 0);
+    if (top == null)
+      return null;
+    return new ScanIterator(mc, maxDepth, top);
+  }
+
+  private static class Subdir {
+    final String dirName;
+    final int depth;
+
+    Subdir(String dirName, int depth) {
+      this.dirName = dirName;
+      this.depth = depth;
+    }
+  }
+
+  private static class Listing {
+    final int depth;
+    final List<MFile> entries;
+
+    Listing(int depth, List<MFile> entries) {
+      this.depth = depth;
+      this.entries = entries;
+    }
+  }
+
+  // Runs on the executor threads
+  @Nullable
+  private Listing list(String dirName, int depth) throws IOException {
+    Path local = (cache == null) ? null : getLocalDirectory(dirName);
+    long listed = System.currentTimeMillis();
+    long lastModified = 0;
+    if (local != null) {
+      lastModified = Files.getLastModifiedTime(local).toMillis(); // before listing, so changes are not missed
+      List<MFile> cached = cache.get(dirName, local, lastModified);
+      if (cached != null)
+        return new Listing(depth, cached);
+    }
+
+    // list everything, filter when the files are returned, so that the cache does not depend on the filter
+    CollectionConfig dirConfig = new CollectionConfig(dirName, dirName, true, null, null);
+    Iterator<MFile> iter = controller.getInventoryTopAndSubdirs(dirConfig, true);
+    if (iter == null)
+      return null;
+    List<MFile> entries = new ArrayList<>();
+    while (iter.hasNext()) {
+      MFile mfile = iter.next();
+      if (mfile != null)
+        entries.add(mfile);
+    }
+
+    if (local != null)
+      cache.put(dirName, lastModified, listed, entries);
+    return new Listing(depth, entries);
+  }
+
+  @Nullable
+  private static Path getLocalDirectory(String dirName) {
+    if (dirName.startsWith("file:"))
+      dirName = dirName.substring(5);
+    try {
+      Path path = Paths.get(dirName);
+      return Files.isDirectory(path) ? path : null;
+    } catch (InvalidPathException e) {
+      return null; // not a local file
+    }
+  }
+
+  private class ScanIterator implements CloseableIterator<MFile> {
+    private final CollectionConfig mc;
+    private final int maxDepth;
+    private final Queue<Subdir> subdirs = new ArrayDeque<>(); // not yet listed
+    private ExecutorService executor; // null if listing in the calling thread
+    private CompletionService<Listing> completionService;
+    private int countInFlight;
+    private Iterator<MFile> current;
+    private boolean closed;
+
+    ScanIterator(CollectionConfig mc, int maxDepth, Listing top) {
+      this.mc = mc;
+      this.maxDepth = maxDepth;
+      if (concurrency > 1) {
+        executor = Executors.newFixedThreadPool(concurrency,
+            new ThreadFactoryBuilder().setNameFormat("DirectoryScanner-%d").setDaemon(true).build());
+        completionService = new ExecutorCompletionService<>(executor);
+      }
+      current = accept(top);
+    }
+
+    // queue the subdirectories, return the files that pass the filter
+    private Iterator<MFile> accept(Listing listing) {
+      List<MFile> files = new ArrayList<>(listing.entries.size());
+      for (MFile mfile : listing.entries) {
+        if (mfile.isDirectory()) {
+          if (listing.depth < maxDepth)
+            subdirs.add(new Subdir(mfile.getPath(), listing.depth + 1));
+        } else if (mc.accept(mfile)) {
+          files.add(mfile);
+        }
+      }
+      submit();
+      return files.iterator();
+    }
+
+    // keep the executor busy, with a bounded number of listings waiting to be consumed
+    private void submit() {
+      if (executor == null)
+        return;
+      while (countInFlight < 2 * concurrency && !subdirs.isEmpty()) {
+        Subdir subdir = subdirs.poll();
+        completionService.submit(() -> list(subdir.dirName, subdir.depth));
+        countInFlight++;
+      }
+    }
+
+    @Nullable
+    private Listing nextListing() throws IOException {
+      if (executor == null) {
+        while (!subdirs.isEmpty()) {
+          Subdir subdir = subdirs.poll();
+          Listing listing = list(subdir.dirName, subdir.depth);
+          if (listing != null)
+            return listing;
+        }
+        return null;
+      }
+
+      while (countInFlight > 0) {
+        try {
+          Listing listing = completionService.take().get();
+          countInFlight--;
+          submit();
+          if (listing != null) // directory was deleted
+            return listing;
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IOException("Interrupted while scanning " + mc.getDirectoryName(), e);
+        } catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          if (cause instanceof IOException)
+            throw (IOException) cause;
+          throw new IOException(cause);
+        }
+      }
+      return null;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (closed)
+        return false;
+      try {
+        while (!current.hasNext()) {
+          Listing listing = nextListing();
+          if (listing == null) {
+            close();
+            return false;
+          }
+          current = accept(listing);
+        }
+        return true;
+
+      } catch (IOException e) {
+        close();
+        throw new RuntimeException(e);
+      }
+    }
+
+    @Override
+    public MFile next() {
+      if (!hasNext())
+        throw new NoSuchElementException();
+      return current.next();
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+      if (executor != null) {
+        executor.shutdownNow();
+        executor = null;
+      }
+    }
+  }
+}
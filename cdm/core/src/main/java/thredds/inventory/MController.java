@@ -6,7 +6,9 @@
 package thredds.inventory;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 /**
  * Inventory Management Controller
@@ -43,6 +45,28 @@ public interface MController {
    */
   Iterator<MFile> getSubdirs(CollectionConfig mc, boolean recheck);
 
+  /**
+   * Returns all leaves and subdirectories in top collection, not recursing into subdirectories.
+   * Used by {@link DirectoryScanner}, so that each directory is listed only once.
+   * The default implementation calls getInventoryTop and getSubdirs.
+   *
+   * @param mc defines the collection to scan; the MFileFilter applies only to the leaves
+   * @param recheck if false, may use cached results. otherwise must sync with File OS
+   * @return iterator over Mfiles, or null if collection does not exist
+   * @since 5.5.4
+   */
+  default Iterator<MFile> getInventoryTopAndSubdirs(CollectionConfig mc, boolean recheck) throws IOException {
+    Iterator<MFile> top = getInventoryTop(mc, recheck);
+    if (top == null)
+      return null;
+    List<MFile> result = new ArrayList<>();
+    top.forEachRemaining(result::add);
+    Iterator<MFile> subdirs = getSubdirs(mc, recheck);
+    if (subdirs != null)
+      subdirs.forEachRemaining(result::add);
+    return result.iterator();
+  }
+
   void close();
 
 }
@@ -546,11 +546,11 @@ public class MFileCollectionManager extends CollectionManagerAbstract {
       long start = System.currentTimeMillis();
 
       // lOOK: are there any circumstances where we dont need to recheck against OS, ie always use cached values?
-      Iterator<MFile> iter =
-          (mc.wantSubdirs()) ? controller.getInventoryAll(mc, true) : controller.getInventoryTop(mc, true); /// NCDC
-                                                                                                            /// wants
-                                                                                                            /// subdir
-                                                                                                            /// /global/nomads/nexus/gfsanl/**/gfsanl_3_.*\.grb$
+      Iterator<MFile> iter;
+      if (mc.wantSubdirs() && DirectoryScanner.isEnabled()) // concurrent, or with a scan cache
+        iter = DirectoryScanner.create(controller).scan(mc, Integer.MAX_VALUE);
+      else // NCDC wants subdir /global/nomads/nexus/gfsanl/**/gfsanl_3_.*\.grb$
+        iter = (mc.wantSubdirs()) ? controller.getInventoryAll(mc, true) : controller.getInventoryTop(mc, true);
       if (iter == null) {
         logger.error(collectionName + ": Invalid collection= " + mc);
         continue;
@@ -76,6 +76,10 @@ public abstract class Array {
 
   /* generate new Array with given type, index and storage */
   public static Array factory(DataType dtype, Index index, Object storage) {
+    if (storage instanceof ByteBuffer && (dtype.isNumeric() || dtype.isEnum())) {
+      return new ArrayBB(dtype, index, (ByteBuffer) storage);
+    }
+
     switch (dtype) {
       case DOUBLE:
         return ArrayDouble.factory(index, (double[]) storage);
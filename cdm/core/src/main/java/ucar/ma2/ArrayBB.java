@@ -0,0 +1,363 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.ma2;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Concrete implementation of Array for numeric and enum types, whose data storage is a ByteBuffer.
+ * The ByteBuffer may be direct, so that the data is kept off the java heap, and may have any byte order, so that
+ * data can be read into it from a file without swapping.
+ * <p>
+ * getStorage() returns the ByteBuffer, not a java primitive array. copy(), copyTo1DJavaArray() and
+ * get1DJavaArray() return the data in heap memory.
+ *
+ * @see ArraySegmented
+ * @since 5.5.4
+ */
+public class ArrayBB extends Array {
+
+  /**
+   * Create a new Array of the given type and shape, stored in a direct ByteBuffer with the native byte order.
+   *
+   * @param dataType numeric or enum type.
+   * @param shape the shape of the Array.
+   * @return the new Array, with all values zero.
+   */
+  public static ArrayBB allocateDirect(DataType dataType, int[] shape) {
+    long nbytes = Index.computeSize(shape) * dataType.getSize();
+    if (nbytes > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Array too large for a ByteBuffer: " + nbytes + " bytes");
+    }
+    ByteBuffer bb = ByteBuffer.allocateDirect((int) nbytes).order(ByteOrder.nativeOrder());
+    return new ArrayBB(dataType, Index.factory(shape), bb);
+  }
+
+  ///////////////////////////////////////////////////////////////////////////////
+  protected final ByteBuffer storage;
+  private final int elemSize;
+  private final boolean isFloat;
+  private final boolean isUnsigned;
+
+  /**
+   * Create a new Array using the given ByteBuffer as the backing store.
+   * The data starts at the current position of the ByteBuffer, and uses its byte order.
+   *
+   * @param dataType numeric or enum type.
+   * @param shape the shape of the Array.
+   * @param storage the data, in canonical order.
+   */
+  public ArrayBB(DataType dataType, int[] shape, ByteBuffer storage) {
+    this(dataType, Index.factory(shape), storage.slice().order(storage.order()));
+  }
+
+  /* Create a new Array using the given Index and backing store, whose element 0 is at position 0. */
+  ArrayBB(DataType dataType, Index index, ByteBuffer storage) {
+    super(integralType(dataType), index);
+    this.storage = storage;
+    this.elemSize = dataType.getSize();
+    this.isFloat = dataType.isFloatingPoint();
+    this.isUnsigned = dataType.isUnsigned();
+    if (index.getSize() * elemSize > storage.capacity()) {
+      throw new IllegalArgumentException(
+          "ByteBuffer capacity " + storage.capacity() + " too small for " + index.getSize() + " elements");
+    }
+  }
+
+  // enums are stored as their integral type, as the other Array classes do
+  private static DataType integralType(DataType dataType) {
+    if (dataType.isEnum()) {
+      return DataType.getType(dataType.getPrimitiveClassType(), dataType.isUnsigned());
+    }
+    if (!dataType.isNumeric()) {
+      throw new IllegalArgumentException("ArrayBB must be numeric or enum, not " + dataType);
+    }
+    return dataType;
+  }
+
+  /** create new Array with given indexImpl and the same backing store */
+  protected Array createView(Index index) {
+    return new ArrayBB(dataType, index, storage);
+  }
+
+  /** Get underlying ByteBuffer storage. CAUTION! You may invalidate your warrentee! */
+  public Object getStorage() {
+    return storage;
+  }
+
+  /** Return the element class type */
+  public Class getElementType() {
+    return dataType.getPrimitiveClassType();
+  }
+
+  // copy from javaArray to storage using the iterator: used by factory( Object);
+  protected void copyFrom1DJavaArray(IndexIterator iter, Object javaArray) {
+    Array from = Array.factory(dataType, new int[] {java.lang.reflect.Array.getLength(javaArray)}, javaArray);
+    for (int i = 0; i < from.getSize(); i++) {
+      if (isFloat) {
+        iter.setDoubleNext(from.getDouble(i));
+      } else {
+        iter.setLongNext(from.getLong(i));
+      }
+    }
+  }
+
+  // copy to javaArray from storage using the iterator: used by copyToNDJavaArray;
+  protected void copyTo1DJavaArray(IndexIterator iter, Object javaArray) {
+    Array to = Array.factory(dataType, new int[] {java.lang.reflect.Array.getLength(javaArray)}, javaArray);
+    for (int i = 0; i < to.getSize(); i++) {
+      if (isFloat) {
+        to.setDouble(i, iter.getDoubleNext());
+      } else {
+        to.setLong(i, iter.getLongNext());
+      }
+    }
+  }
+
+  /** Always a copy, in heap memory. */
+  @Override
+  public Object get1DJavaArray(DataType wantType) {
+    if (wantType == getDataType()) {
+      return copyTo1DJavaArray();
+    }
+    return super.get1DJavaArray(wantType);
+  }
+
+  @Override
+  public Array reshapeNoCopy(int[] shape) {
+    if (!indexCalc.isFastIterator()) {
+      throw new IllegalArgumentException("reshapeNoCopy needs an Array in canonical order");
+    }
+    Index index = Index.factory(shape);
+    if (index.getSize() != getSize())
+      throw new IllegalArgumentException("reshape arrays must have same total size");
+    return new ArrayBB(dataType, index, storage);
+  }
+
+  @Override
+  public ByteBuffer getDataAsByteBuffer() {
+    return getDataAsByteBuffer(ByteOrder.BIG_ENDIAN);
+  }
+
+  /** The storage itself if it is in canonical order and has the given byte order, else a copy. */
+  @Override
+  public ByteBuffer getDataAsByteBuffer(ByteOrder order) {
+    int nbytes = (int) (getSize() * elemSize);
+    if (indexCalc.isFastIterator() && storage.order().equals(order)) {
+      ByteBuffer result = storage.duplicate().order(order);
+      result.position(0).limit(nbytes);
+      return result;
+    }
+    ArrayBB copy = new ArrayBB(dataType, Index.factory(getShape()), ByteBuffer.allocate(nbytes).order(order));
+    MAMath.copy(copy, this);
+    return copy.storage;
+  }
+
+  // the primitive accessors
+
+  public double getDouble(int index) {
+    if (isFloat) {
+      return elemSize == 4 ? storage.getFloat(index * 4) : storage.getDouble(index * 8);
+    }
+    return (double) getLong(index);
+  }
+
+  public void setDouble(int index, double value) {
+    if (!isFloat) {
+      setLong(index, (long) value);
+    } else if (elemSize == 4) {
+      storage.putFloat(index * 4, (float) value);
+    } else {
+      storage.putDouble(index * 8, value);
+    }
+  }
+
+  public float getFloat(int index) {
+    return isFloat ? (float) getDouble(index) : (float) getLong(index);
+  }
+
+  public void setFloat(int index, float value) {
+    setDouble(index, value);
+  }
+
+  public long getLong(int index) {
+    switch (elemSize) {
+      case 1:
+        byte b = storage.get(index);
+        return isUnsigned ? DataType.unsignedByteToShort(b) : b;
+      case 2:
+        short s = storage.getShort(index * 2);
+        return isUnsigned ? DataType.unsignedShortToInt(s) : s;
+      case 4:
+        if (isFloat)
+          return (long) storage.getFloat(index * 4);
+        int i = storage.getInt(index * 4);
+        return isUnsigned ? DataType.unsignedIntToLong(i) : i;
+      default:
+        return isFloat ? (long) storage.getDouble(index * 8) : storage.getLong(index * 8);
+    }
+  }
+
+  public void setLong(int index, long value) {
+    switch (elemSize) {
+      case 1:
+        storage.put(index, (byte) value);
+        break;
+      case 2:
+        storage.putShort(index * 2, (short) value);
+        break;
+      case 4:
+        if (isFloat)
+          storage.putFloat(index * 4, (float) value);
+        else
+          storage.putInt(index * 4, (int) value);
+        break;
+      default:
+        if (isFloat)
+          storage.putDouble(index * 8, (double) value);
+        else
+          storage.putLong(index * 8, value);
+    }
+  }
+
+  public int getInt(int index) {
+    return isFloat ? (int) getDouble(index) : (int) getLong(index);
+  }
+
+  public void setInt(int index, int value) {
+    setLong(index, value);
+  }
+
+  public short getShort(int index) {
+    return isFloat ? (short) getDouble(index) : (short) getLong(index);
+  }
+
+  public void setShort(int index, short value) {
+    setLong(index, value);
+  }
+
+  public byte getByte(int index) {
+    return isFloat ? (byte) getDouble(index) : (byte) getLong(index);
+  }
+
+  public void setByte(int index, byte value) {
+    setLong(index, value);
+  }
+
+  public char getChar(int index) {
+    return isFloat ? (char) getDouble(index) : (char) getLong(index);
+  }
+
+  public void setChar(int index, char value) {
+    setLong(index, value);
+  }
+
+  /** not legal, throw ForbiddenConversionException */
+  public boolean getBoolean(int index) {
+    throw new ForbiddenConversionException();
+  }
+
+  /** not legal, throw ForbiddenConversionException */
+  public void setBoolean(int index, boolean value) {
+    throw new ForbiddenConversionException();
+  }
+
+  /** A Byte, Short, Integer, Long, Float or Double, the same as the other Array classes return. */
+  public Object getObject(int index) {
+    switch (elemSize) {
+      case 1:
+        return storage.get(index);
+      case 2:
+        return storage.getShort(index * 2);
+      case 4:
+        return isFloat ? (Object) storage.getFloat(index * 4) : (Object) storage.getInt(index * 4);
+      default:
+        return isFloat ? (Object) storage.getDouble(index * 8) : (Object) storage.getLong(index * 8);
+    }
+  }
+
+  public void setObject(int index, Object value) {
+    if (isFloat) {
+      setDouble(index, ((Number) value).doubleValue());
+    } else {
+      setLong(index, ((Number) value).longValue());
+    }
+  }
+
+  public double getDouble(Index i) {
+    return getDouble(i.currentElement());
+  }
+
+  public void setDouble(Index i, double value) {
+    setDouble(i.currentElement(), value);
+  }
+
+  public float getFloat(Index i) {
+    return getFloat(i.currentElement());
+  }
+
+  public void setFloat(Index i, float value) {
+    setFloat(i.currentElement(), value);
+  }
+
+  public long getLong(Index i) {
+    return getLong(i.currentElement());
+  }
+
+  public void setLong(Index i, long value) {
+    setLong(i.currentElement(), value);
+  }
+
+  public int getInt(Index i) {
+    return getInt(i.currentElement());
+  }
+
+  public void setInt(Index i, int value) {
+    setInt(i.currentElement(), value);
+  }
+
+  public short getShort(Index i) {
+    return getShort(i.currentElement());
+  }
+
+  public void setShort(Index i, short value) {
+    setShort(i.currentElement(), value);
+  }
+
+  public byte getByte(Index i) {
+    return getByte(i.currentElement());
+  }
+
+  public void setByte(Index i, byte value) {
+    setByte(i.currentElement(), value);
+  }
+
+  public char getChar(Index i) {
+    return getChar(i.currentElement());
+  }
+
+  public void setChar(Index i, char value) {
+    setChar(i.currentElement(), value);
+  }
+
+  /** not legal, throw ForbiddenConversionException */
+  public boolean getBoolean(Index i) {
+    throw new ForbiddenConversionException();
+  }
+
+  /** not legal, throw ForbiddenConversionException */
+  public void setBoolean(Index i, boolean value) {
+    throw new ForbiddenConversionException();
+  }
+
+  public Object getObject(Index i) {
+    return getObject(i.currentElement());
+  }
+
+  public void setObject(Index i, Object value) {
+    setObject(i.currentElement(), value);
+  }
+}
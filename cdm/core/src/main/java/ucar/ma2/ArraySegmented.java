@@ -0,0 +1,533 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.ma2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A multidimensional array whose number of elements may be larger than an Array can hold (2^31 - 1).
+ * The data is split along the outermost dimension into segments, each of which is an ordinary Array, stored either
+ * on the java heap or off-heap in a direct ByteBuffer (see {@link ArrayBB}).
+ * Each segment holds a whole number of rows of the outer dimension, so the inner dimensions together must have fewer
+ * than 2^31 elements, which is always the case for netCDF-3 and nearly always for other formats.
+ * <p>
+ * Elements are addressed by their long index in canonical order, or through an IndexIterator, which goes through
+ * the segments in turn. Sections and slices are views of the segments, as they are for Array.
+ *
+ * <pre>
+ * ArraySegmented data = ArraySegmented.factory(DataType.FLOAT, new int[] {nt, ny, nx}, true);
+ * IospHelper.readData(raf, layout, data, RandomAccessFile.BIG_ENDIAN);
+ * Array oneTime = data.slice(0, t).toArray(); // a view, not a copy
+ * </pre>
+ *
+ * @since 5.5.4
+ */
+public class ArraySegmented {
+  /** Default maximum size of one segment, 1 GB. */
+  public static final long DEFAULT_SEGMENT_BYTES = 1L << 30;
+
+  // largest java primitive array that the JVMs allow
+  private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+  /**
+   * Create a new ArraySegmented, with segments of at most DEFAULT_SEGMENT_BYTES.
+   *
+   * @param dataType the data type. Must be numeric or enum if direct.
+   * @param shape the shape, whose total size may be larger than Integer.MAX_VALUE.
+   * @param direct if true, store the segments in direct ByteBuffers, else in java arrays.
+   * @return the new array, with all values zero.
+   */
+  public static ArraySegmented factory(DataType dataType, int[] shape, boolean direct) {
+    return factory(dataType, shape, direct, DEFAULT_SEGMENT_BYTES);
+  }
+
+  /**
+   * Create a new ArraySegmented.
+   *
+   * @param dataType the data type. Must be numeric or enum if direct.
+   * @param shape the shape, whose total size may be larger than Integer.MAX_VALUE.
+   * @param direct if true, store the segments in direct ByteBuffers, else in java arrays.
+   * @param maxSegmentBytes the largest size of a segment in bytes, but at least one row of the outer dimension.
+   * @return the new array, with all values zero.
+   * @throws IllegalArgumentException if one row of the outer dimension is too large for an Array.
+   */
+  public static ArraySegmented factory(DataType dataType, int[] shape, boolean direct, long maxSegmentBytes) {
+    int elemSize = Math.max(1, dataType.getSize());
+    long maxElems = direct ? Integer.MAX_VALUE / elemSize : MAX_ARRAY_LENGTH;
+    long rowSize = rowSize(shape);
+    if (rowSize > maxElems) {
+      throw new IllegalArgumentException("Inner dimensions too large for an Array: " + rowSize + " elements");
+    }
+    int nrows = shape.length == 0 ? 1 : shape[0];
+    long rowsPerSegment = Math.max(1, Math.min(maxElems, maxSegmentBytes / elemSize) / Math.max(1, rowSize));
+
+    List<Array> segments = new ArrayList<>();
+    for (int start = 0; start < nrows; start += rowsPerSegment) {
+      int[] segShape = shape.clone();
+      if (segShape.length > 0) {
+        segShape[0] = (int) Math.min(rowsPerSegment, nrows - start);
+      }
+      segments.add(direct ? ArrayBB.allocateDirect(dataType, segShape) : Array.factory(dataType, segShape));
+    }
+    return new ArraySegmented(dataType, shape, segments);
+  }
+
+  private static long rowSize(int[] shape) {
+    long result = 1;
+    for (int i = 1; i < shape.length; i++) {
+      result *= shape[i];
+    }
+    return result;
+  }
+
+  ///////////////////////////////////////////////////////////////////////////////
+  private final DataType dataType;
+  private final int[] shape;
+  private final long size;
+  private final long rowSize; // number of elements in one row of the outer dimension
+  private final Array[] segments;
+  private final int[] rowStart; // first row of each segment, then the number of rows
+
+  private ArraySegmented(DataType dataType, int[] shape, List<Array> segments) {
+    this.dataType = dataType;
+    this.shape = shape.clone();
+    this.size = Index.computeSize(shape);
+    this.rowSize = rowSize(shape);
+    this.segments = segments.toArray(new Array[0]);
+    this.rowStart = new int[this.segments.length + 1];
+    for (int i = 0; i < this.segments.length; i++) {
+      rowStart[i + 1] = rowStart[i] + (shape.length == 0 ? 1 : this.segments[i].getShape()[0]);
+    }
+  }
+
+  public DataType getDataType() {
+    return dataType;
+  }
+
+  public int getRank() {
+    return shape.length;
+  }
+
+  public int[] getShape() {
+    return shape.clone();
+  }
+
+  /** Get the total number of elements, which may be larger than Integer.MAX_VALUE. */
+  public long getSize() {
+    return size;
+  }
+
+  /** Get the total number of bytes. */
+  public long getSizeBytes() {
+    return size * dataType.getSize();
+  }
+
+  public int getSegmentCount() {
+    return segments.length;
+  }
+
+  /**
+   * Get one of the segments. It has the same shape as this array, except for the outer dimension.
+   * Changing the values in the segment changes them in this array.
+   */
+  public Array getSegment(int segno) {
+    return segments[segno];
+  }
+
+  /** The index in canonical order of the first element of a segment. */
+  public long getSegmentOffset(int segno) {
+    return rowStart[segno] * rowSize;
+  }
+
+  /** The segment that contains an element, given as its index in canonical order. */
+  public int findSegment(long elem) {
+    if (elem < 0 || elem >= size) {
+      throw new ArrayIndexOutOfBoundsException("element " + elem + " not in array of size " + size);
+    }
+    int row = (int) (elem / rowSize);
+    int pos = Arrays.binarySearch(rowStart, 0, segments.length, row);
+    return pos >= 0 ? pos : -pos - 2;
+  }
+
+  /**
+   * Copy to a single Array. If there is only one segment, it is returned without copying.
+   *
+   * @throws IllegalArgumentException if the size is too large for an Array.
+   */
+  public Array toArray() {
+    if (segments.length == 1) {
+      return segments[0];
+    }
+    if (size > MAX_ARRAY_LENGTH) {
+      throw new IllegalArgumentException("Too large for an Array: " + size + " elements");
+    }
+    Array result = Array.factory(dataType, shape);
+    for (int i = 0; i < segments.length; i++) {
+      Array.arraycopy(segments[i], 0, result, (int) getSegmentOffset(i), (int) segments[i].getSize());
+    }
+    return result;
+  }
+
+  /** Get an index iterator for traversing all of the elements in canonical order. */
+  public IndexIterator getIndexIterator() {
+    return new SegmentIterator();
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+  // sections
+
+  /**
+   * Create a view of a section of this array. Rank is not reduced.
+   *
+   * @param ranges list of Ranges that specify the array subset, may contain nulls for all of a dimension.
+   * @return the view, which shares the storage of this array.
+   * @throws InvalidRangeException if ranges is invalid
+   */
+  public ArraySegmented sectionNoReduce(List<Range> ranges) throws InvalidRangeException {
+    Section section = Section.fill(new Section(ranges), shape);
+    String err = section.checkInRange(shape);
+    if (err != null) {
+      throw new InvalidRangeException(err);
+    }
+    if (shape.length == 0) {
+      return this;
+    }
+
+    Range outer = section.getRange(0);
+    List<Array> result = new ArrayList<>();
+    for (int i = 0; i < segments.length && outer.length() > 0; i++) {
+      int start = rowStart[i];
+      int end = rowStart[i + 1]; // exclusive
+      // the elements of outer that are in this segment
+      int first = outer.first() >= start ? 0 : (start - outer.first() + outer.stride() - 1) / outer.stride();
+      int last = Math.min(outer.length() - 1, (end - 1 - outer.first()) / outer.stride());
+      if (end <= outer.first() || first > last) {
+        continue;
+      }
+      List<Range> local = new ArrayList<>(section.getRanges());
+      local.set(0, new Range(outer.getName(), outer.first() + first * outer.stride() - start,
+          outer.first() + last * outer.stride() - start, outer.stride()));
+      result.add(segments[i].sectionNoReduce(local));
+    }
+    return new ArraySegmented(dataType, section.getShape(), result);
+  }
+
+  /**
+   * Create a view of a section of this array. Rank is not reduced.
+   *
+   * @param origin int array specifying the starting index. Must be same rank as this array.
+   * @param shape int array specifying the extents in each dimension.
+   * @return the view, which shares the storage of this array.
+   * @throws InvalidRangeException if origin or shape is invalid
+   */
+  public ArraySegmented section(int[] origin, int[] shape) throws InvalidRangeException {
+    return sectionNoReduce(new Section(origin, shape).getRanges());
+  }
+
+  /**
+   * Create a view of this array with the given dimension fixed at the given value. The rank is reduced by one.
+   *
+   * @param dim which dimension to fix
+   * @param value at what index value
+   * @return the view, which shares the storage of this array.
+   */
+  public ArraySegmented slice(int dim, int value) {
+    if (dim < 0 || dim >= shape.length) {
+      throw new IllegalArgumentException("illegal dimension " + dim);
+    }
+    if (value < 0 || value >= shape[dim]) {
+      throw new IllegalArgumentException("illegal index " + value + " for dimension " + dim);
+    }
+    int[] newShape = new int[shape.length - 1];
+    for (int i = 0, j = 0; i < shape.length; i++) {
+      if (i != dim) {
+        newShape[j++] = shape[i];
+      }
+    }
+
+    List<Array> result = new ArrayList<>();
+    if (dim == 0) {
+      int segno = findSegment(value * rowSize);
+      result.add(segments[segno].slice(0, value - rowStart[segno]));
+    } else {
+      for (Array segment : segments) {
+        result.add(segment.slice(dim, value));
+      }
+    }
+    return new ArraySegmented(dataType, newShape, result);
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+  // access by element index in canonical order
+
+  public double getDouble(long elem) {
+    int segno = findSegment(elem);
+    return segments[segno].getDouble(index(segno, elem));
+  }
+
+  public void setDouble(long elem, double value) {
+    int segno = findSegment(elem);
+    segments[segno].setDouble(index(segno, elem), value);
+  }
+
+  public float getFloat(long elem) {
+    int segno = findSegment(elem);
+    return segments[segno].getFloat(index(segno, elem));
+  }
+
+  public void setFloat(long elem, float value) {
+    int segno = findSegment(elem);
+    segments[segno].setFloat(index(segno, elem), value);
+  }
+
+  public long getLong(long elem) {
+    int segno = findSegment(elem);
+    return segments[segno].getLong(index(segno, elem));
+  }
+
+  public void setLong(long elem, long value) {
+    int segno = findSegment(elem);
+    segments[segno].setLong(index(segno, elem), value);
+  }
+
+  public int getInt(long elem) {
+    int segno = findSegment(elem);
+    return segments[segno].getInt(index(segno, elem));
+  }
+
+  public void setInt(long elem, int value) {
+    int segno = findSegment(elem);
+    segments[segno].setInt(index(segno, elem), value);
+  }
+
+  public short getShort(long elem) {
+    int segno = findSegment(elem);
+    return segments[segno].getShort(index(segno, elem));
+  }
+
+  public void setShort(long elem, short value) {
+    int segno = findSegment(elem);
+    segments[segno].setShort(index(segno, elem), value);
+  }
+
+  public byte getByte(long elem) {
+    int segno = findSegment(elem);
+    return segments[segno].getByte(index(segno, elem));
+  }
+
+  public void setByte(long elem, byte value) {
+    int segno = findSegment(elem);
+    segments[segno].setByte(index(segno, elem), value);
+  }
+
+  public Object getObject(long elem) {
+    int segno = findSegment(elem);
+    return segments[segno].getObject(index(segno, elem));
+  }
+
+  // The Index of the segment set to the given element of this array.
+  private Index index(int segno, long elem) {
+    Array segment = segments[segno];
+    int local = (int) (elem - getSegmentOffset(segno));
+    Index ima = segment.getIndex();
+    int[] counter = new int[shape.length];
+    int[] segShape = segment.getShape();
+    for (int i = segShape.length - 1; i >= 0; i--) {
+      counter[i] = local % segShape[i];
+      local /= segShape[i];
+    }
+    return ima.set(counter);
+  }
+
+  @Override
+  public String toString() {
+    return dataType + Arrays.toString(shape) + " in " + segments.length + " segments";
+  }
+
+  // Iterates over each segment in turn.
+  private class SegmentIterator implements IndexIterator {
+    private int segno = -1;
+    private IndexIterator current;
+
+    // move to the next segment if the current one is done
+    private IndexIterator advance() {
+      while ((current == null || !current.hasNext()) && segno < segments.length - 1) {
+        segno++;
+        current = segments[segno].getIndexIterator();
+      }
+      return current;
+    }
+
+    public boolean hasNext() {
+      if (current != null && current.hasNext()) {
+        return true;
+      }
+      for (int i = segno + 1; i < segments.length; i++) {
+        if (segments[i].getSize() > 0) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    public Object getObjectNext() {
+      return advance().getObjectNext();
+    }
+
+    public void setObjectNext(Object val) {
+      advance().setObjectNext(val);
+    }
+
+    public Object getObjectCurrent() {
+      return current.getObjectCurrent();
+    }
+
+    public void setObjectCurrent(Object val) {
+      current.setObjectCurrent(val);
+    }
+
+    public Object next() {
+      return advance().next();
+    }
+
+    public int[] getCurrentCounter() {
+      int[] counter = current.getCurrentCounter();
+      if (counter.length > 0) {
+        counter[0] += rowStart[segno];
+      }
+      return counter;
+    }
+
+    public double getDoubleNext() {
+      return advance().getDoubleNext();
+    }
+
+    public void setDoubleNext(double val) {
+      advance().setDoubleNext(val);
+    }
+
+    public double getDoubleCurrent() {
+      return current.getDoubleCurrent();
+    }
+
+    public void setDoubleCurrent(double val) {
+      current.setDoubleCurrent(val);
+    }
+
+    public float getFloatNext() {
+      return advance().getFloatNext();
+    }
+
+    public void setFloatNext(float val) {
+      advance().setFloatNext(val);
+    }
+
+    public float getFloatCurrent() {
+      return current.getFloatCurrent();
+    }
+
+    public void setFloatCurrent(float val) {
+      current.setFloatCurrent(val);
+    }
+
+    public long getLongNext() {
+      return advance().getLongNext();
+    }
+
+    public void setLongNext(long val) {
+      advance().setLongNext(val);
+    }
+
+    public long getLongCurrent() {
+      return current.getLongCurrent();
+    }
+
+    public void setLongCurrent(long val) {
+      current.setLongCurrent(val);
+    }
+
+    public int getIntNext() {
+      return advance().getIntNext();
+    }
+
+    public void setIntNext(int val) {
+      advance().setIntNext(val);
+    }
+
+    public int getIntCurrent() {
+      return current.getIntCurrent();
+    }
+
+    public void setIntCurrent(int val) {
+      current.setIntCurrent(val);
+    }
+
+    public short getShortNext() {
+      return advance().getShortNext();
+    }
+
+    public void setShortNext(short val) {
+      advance().setShortNext(val);
+    }
+
+    public short getShortCurrent() {
+      return current.getShortCurrent();
+    }
+
+    public void setShortCurrent(short val) {
+      current.setShortCurrent(val);
+    }
+
+    public byte getByteNext() {
+      return advance().getByteNext();
+    }
+
+    public void setByteNext(byte val) {
+      advance().setByteNext(val);
+    }
+
+    public byte getByteCurrent() {
+      return current.getByteCurrent();
+    }
+
+    public void setByteCurrent(byte val) {
+      current.setByteCurrent(val);
+    }
+
+    public char getCharNext() {
+      return advance().getCharNext();
+    }
+
+    public void setCharNext(char val) {
+      advance().setCharNext(val);
+    }
+
+    public char getCharCurrent() {
+      return current.getCharCurrent();
+    }
+
+    public void setCharCurrent(char val) {
+      current.setCharCurrent(val);
+    }
+
+    public boolean getBooleanNext() {
+      return advance().getBooleanNext();
+    }
+
+    public void setBooleanNext(boolean val) {
+      advance().setBooleanNext(val);
+    }
+
+    public boolean getBooleanCurrent() {
+      return current.getBooleanCurrent();
+    }
+
+    public void setBooleanCurrent(boolean val) {
+      current.setBooleanCurrent(val);
+    }
+  }
+}
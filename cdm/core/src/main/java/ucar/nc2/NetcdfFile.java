@@ -45,6 +45,7 @@ import ucar.nc2.internal.iosp.netcdf3.N3headerNew;
 import ucar.nc2.iosp.AbstractIOServiceProvider;
 import ucar.nc2.iosp.IOServiceProvider;
 import ucar.nc2.iosp.IospHelper;
+import ucar.nc2.iosp.MultiVariableReader;
 import ucar.nc2.iosp.hdf5.H5header;
 import ucar.nc2.iosp.hdf5.H5iosp;
 import ucar.nc2.iosp.netcdf3.N3header;
@@ -2210,6 +2211,8 @@ public class NetcdfFile implements FileCacheable, Closeable {
    * return a corresponding list of Array that contains the results
    * of a full read on each Variable.
    * This is mostly here so DODSNetcdf can override it with one call to the server.
+   * If the IOSP is a {@link MultiVariableReader}, the Variables are read together, eg in one pass through the
+   * records of a netCDF-3 file.
    *
    * @param variables List of type Variable
    * @return List of Array, one for each Variable in the input.
@@ -2218,9 +2221,43 @@ public class NetcdfFile implements FileCacheable, Closeable {
    */
   @Deprecated
   public List<Array> readArrays(List<Variable> variables) throws IOException {
+    List<Array> together = readTogether(variables);
     List<Array> result = new ArrayList<>();
-    for (Variable variable : variables)
-      result.add(variable.read());
+    for (int i = 0; i < variables.size(); i++) {
+      Array data = together.get(i);
+      result.add(data != null ? data : variables.get(i).read());
+    }
+    return result;
+  }
+
+  // read the Variables that the iosp reads directly together, the others are null
+  private List<Array> readTogether(List<Variable> variables) throws IOException {
+    List<Array> result = new ArrayList<>(Collections.nCopies(variables.size(), null));
+    if (!(iosp instanceof MultiVariableReader)) {
+      return result;
+    }
+    List<Integer> which = new ArrayList<>();
+    List<Variable> direct = new ArrayList<>();
+    List<Section> sections = new ArrayList<>();
+    for (int i = 0; i < variables.size(); i++) {
+      Variable v = variables.get(i);
+      if (v.getNetcdfFile() == this && v.isReadFromIosp()) {
+        which.add(i);
+        direct.add(v);
+        sections.add(v.getShapeAsSection());
+      }
+    }
+    if (direct.size() < 2) {
+      return result;
+    }
+    try {
+      List<Array> data = ((MultiVariableReader) iosp).readData(direct, sections);
+      for (int i = 0; i < which.size(); i++) {
+        result.set(which.get(i), data.get(i));
+      }
+    } catch (InvalidRangeException e) {
+      throw new IllegalStateException(e); // cant happen
+    }
     return result;
   }
 
@@ -29,11 +29,13 @@ import ucar.nc2.internal.iosp.netcdf3.N3headerNew;
 import ucar.nc2.internal.iosp.netcdf3.N3iospNew;
 import ucar.nc2.iosp.AbstractIOServiceProvider;
 import ucar.nc2.iosp.IOServiceProvider;
+import ucar.nc2.stream.NcStreamHeaderCache;
 import ucar.nc2.util.CancelTask;
 import ucar.nc2.util.DiskCache;
 import ucar.nc2.util.EscapeStrings;
 import ucar.nc2.util.IO;
 import ucar.nc2.util.rc.RC;
+import ucar.unidata.io.CompressedRandomAccessFile;
 import ucar.unidata.io.UncompressInputStream;
 import ucar.unidata.io.bzip2.CBZip2InputStream;
 import ucar.unidata.io.spi.RandomAccessFileProvider;
@@ -55,6 +57,7 @@ public class NetcdfFiles {
   private static final List<String> possibleCompressedSuffixes = Arrays.asList("Z", "zip", "gzip", "gz", "bz2");
   private static boolean loadWarnings = false;
   private static boolean userLoads;
+  private static boolean useSeekableDecompression;
 
   // load core service providers
   static {
@@ -100,6 +103,13 @@ public class NetcdfFiles {
         log.info("Cant load class InMemoryRandomAccessFileProvider", e);
     }
 
+    try {
+      registerRandomAccessFileProvider("ucar.unidata.io.MappedRandomAccessFile$Provider");
+    } catch (Throwable e) {
+      if (loadWarnings)
+        log.info("Cant load class MappedRandomAccessFileProvider", e);
+    }
+
     // if a user explicitly registers an IOSP or RandomAccessFile implementation via
     // registerIOProvider or registerRandomAccessFileProvider, this ensures they are tried first,
     // even before the core implementations.
@@ -392,6 +402,14 @@ public class NetcdfFiles {
     }
   }
 
+  /**
+   * Read local gzip and bzip2 files through a {@link CompressedRandomAccessFile}, which decompresses only the parts
+   * that are read, rather than uncompressing the whole file to disk first. Default is false.
+   */
+  public static void useSeekableDecompression(boolean val) {
+    useSeekableDecompression = val;
+  }
+
   /**
    * Get the appropriate RandomAccessFile for accessing an object at the provided location
    * 
@@ -443,6 +461,15 @@ public class NetcdfFiles {
         uriString = StringUtil2.unescape(uriString.substring(5)); // 11/10/2010 from erussell@ngs.org
       }
 
+      if (useSeekableDecompression && CompressedRandomAccessFile.canOpen(uriString)
+          && new File(uriString).exists()) {
+        try {
+          return CompressedRandomAccessFile.open(uriString, buffer_size);
+        } catch (IOException e) {
+          log.warn("Failed to index {}, err= {}; uncompress it instead.", uriString, e.getMessage());
+        }
+      }
+
       String uncompressedFileName = null;
       if (looksCompressed(uriString)) {
         try {
@@ -746,8 +773,9 @@ public class NetcdfFiles {
     if (log.isDebugEnabled())
       log.debug("Using IOSP {}", spi.getClass().getName());
 
-    NetcdfFile ncfile =
-        spi.isBuilder() ? build(spi, raf, location, cancelTask) : new NetcdfFile(spi, raf, location, cancelTask);
+    // an iospMessage may change what the iosp builds, so dont use the header cache
+    NetcdfFile ncfile = spi.isBuilder() ? build(spi, raf, location, cancelTask, iospMessage == null)
+        : new NetcdfFile(spi, raf, location, cancelTask);
     spi.buildFinish(ncfile);
 
     // send iospMessage after iosp is opened
@@ -803,12 +831,22 @@ public class NetcdfFiles {
 
   private static NetcdfFile build(IOServiceProvider spi, ucar.unidata.io.RandomAccessFile raf, String location,
       ucar.nc2.util.CancelTask cancelTask) throws IOException {
+    return build(spi, raf, location, cancelTask, false);
+  }
+
+  private static NetcdfFile build(IOServiceProvider spi, ucar.unidata.io.RandomAccessFile raf, String location,
+      ucar.nc2.util.CancelTask cancelTask, boolean useHeaderCache) throws IOException {
 
     NetcdfFile.Builder builder = NetcdfFile.builder().setIosp((AbstractIOServiceProvider) spi).setLocation(location);
+    boolean writeHeaderCache = false;
 
     try {
-      Group.Builder root = Group.builder().setName("");
-      spi.build(raf, root, cancelTask);
+      Group.Builder root = useHeaderCache ? NcStreamHeaderCache.readHeader(spi, raf) : null;
+      if (root == null) {
+        root = Group.builder().setName("");
+        spi.build(raf, root, cancelTask);
+        writeHeaderCache = useHeaderCache && NcStreamHeaderCache.canCache(spi, raf);
+      }
       builder.setRootGroup(root);
 
       String id = root.getAttributeContainer().findAttributeString("_Id", null);
@@ -843,7 +881,11 @@ public class NetcdfFiles {
       throw new RuntimeException(t);
     }
 
-    return builder.build();
+    NetcdfFile ncfile = builder.build();
+    if (writeHeaderCache) {
+      NcStreamHeaderCache.writeHeader(spi, raf, ncfile);
+    }
+    return ncfile;
   }
 
   ///////////////////////////////////////////////////////////////////////
@@ -13,6 +13,8 @@ import javax.annotation.concurrent.Immutable;
 import ucar.ma2.*;
 import ucar.nc2.constants.CDM;
 import ucar.nc2.constants.CF;
+import ucar.nc2.iosp.ConvertedDataReader;
+import ucar.nc2.iosp.DataConverter;
 import ucar.nc2.iosp.IospHelper;
 import ucar.nc2.util.CancelTask;
 import ucar.nc2.util.Indent;
@@ -817,6 +819,31 @@ public class Variable extends CDMNode implements VariableSimpleIF, ProxyReader,
     return ncfile.readData(this, section);
   }
 
+  /**
+   * Read a section of the data, converting it while it is read, if the IOSP supports it.
+   * Used by VariableDS to enhance packed data without first reading the whole section of raw values.
+   * Do not call directly.
+   *
+   * @param section the section of data to read, filled and validated, or null for all the data.
+   * @param converter converts blocks of raw values of this Variable's DataType.
+   * @return the converted data, or null if the data must be read and converted separately.
+   */
+  @Nullable
+  public Array readConverted(@Nullable Section section, DataConverter converter)
+      throws IOException, InvalidRangeException {
+    if (!isReadFromIosp() || !(ncfile.iosp instanceof ConvertedDataReader)) {
+      return null;
+    }
+    return ((ConvertedDataReader) ncfile.iosp).readConvertedData(this, section == null ? getShapeAsSection() : section,
+        converter);
+  }
+
+  // only plain data, read directly from the IOSP
+  boolean isReadFromIosp() {
+    return ncfile != null && ncfile.iosp != null && !isMemberOfStructure() && !(this instanceof Structure)
+        && !isVariableLength && proxyReader == this && !hasCachedData() && !isCaching();
+  }
+
   /** @deprecated do not use */
   @Deprecated
   public long readToByteChannel(Section section, WritableByteChannel wbc) throws IOException, InvalidRangeException {
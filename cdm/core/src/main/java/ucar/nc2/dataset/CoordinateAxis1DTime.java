@@ -6,6 +6,7 @@
 package ucar.nc2.dataset;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.Formatter;
 import java.util.List;
@@ -23,9 +24,10 @@ import ucar.ma2.Range;
 import ucar.nc2.Group;
 import ucar.nc2.constants.AxisType;
 import ucar.nc2.constants._Coordinate;
+import ucar.nc2.time.Calendar;
 import ucar.nc2.time.CalendarDate;
-import ucar.nc2.time.CalendarDateFormatter;
 import ucar.nc2.time.CalendarDateRange;
+import ucar.nc2.time.CalendarDateSequence;
 import ucar.nc2.units.TimeUnit;
 import ucar.nc2.Dimension;
 import ucar.nc2.Attribute;
@@ -76,19 +78,13 @@ public class CoordinateAxis1DTime extends CoordinateAxis1D {
   private CoordinateAxis1DTime(NetcdfDataset ncd, CoordinateAxis1DTime org) {
     super(ncd, org);
     helper = org.helper;
-    this.cdates = org.cdates;
+    this.times = org.times;
   }
 
   @Override
   public CoordinateAxis1DTime section(Range r) throws InvalidRangeException {
     CoordinateAxis1DTime s = (CoordinateAxis1DTime) super.section(r);
-    List<CalendarDate> cdates = getCalendarDates();
-
-    List<CalendarDate> cdateSection = new ArrayList<>(cdates.size());
-    for (int idx : r)
-      cdateSection.add(cdates.get(idx));
-
-    s.cdates = cdateSection;
+    s.times = times.section(r);
     return s;
   }
 
@@ -99,8 +95,7 @@ public class CoordinateAxis1DTime extends CoordinateAxis1D {
    * @return the ith CalendarDate
    */
   public CalendarDate getCalendarDate(int idx) {
-    List<CalendarDate> cdates = getCalendarDates(); // in case we want to lazily evaluate
-    return cdates.get(idx);
+    return times.getCalendarDate(idx);
   }
 
   /**
@@ -109,17 +104,14 @@ public class CoordinateAxis1DTime extends CoordinateAxis1D {
    * @return calendar date range
    */
   public CalendarDateRange getCalendarDateRange() {
-    List<CalendarDate> cd = getCalendarDates();
-    int last = cd.size();
-    return (last > 0) ? CalendarDateRange.of(cd.get(0), cd.get(last - 1)) : null;
+    return times.getCalendarDateRange();
   }
 
   @Override
   public List<NamedObject> getNames() {
-    List<CalendarDate> cdates = getCalendarDates();
-    List<NamedObject> names = new ArrayList<>(cdates.size());
-    for (CalendarDate cd : cdates)
-      names.add(new NamedAnything(CalendarDateFormatter.toDateTimeStringISO(cd), getShortName())); // "calendar date"));
+    List<NamedObject> names = new ArrayList<>(times.size());
+    for (int i = 0; i < times.size(); i++)
+      names.add(new NamedAnything(times.toDateTimeStringISO(i), getShortName())); // "calendar date"));
     return names;
   }
 
@@ -151,14 +143,7 @@ public class CoordinateAxis1DTime extends CoordinateAxis1D {
    * @throws UnsupportedOperationException is no time axis or isDate() false
    */
   public int findTimeIndexFromCalendarDate(CalendarDate d) {
-    List<CalendarDate> cdates = getCalendarDates(); // LOOK linear search, switch to binary
-    int index = 0;
-    while (index < cdates.size()) {
-      if (d.compareTo(cdates.get(index)) < 0)
-        break;
-      index++;
-    }
-    return Math.max(0, index - 1);
+    return times.findIndex(d.getMillis());
   }
 
   /**
@@ -168,21 +153,26 @@ public class CoordinateAxis1DTime extends CoordinateAxis1D {
    * @return true if equals a coordinate
    */
   public boolean hasCalendarDate(CalendarDate date) {
-    List<CalendarDate> cdates = getCalendarDates();
-    for (CalendarDate cd : cdates) { // LOOK linear search, switch to binary
-      if (date.equals(cd))
-        return true;
-    }
-    return false;
+    return date.getCalendar() == times.getCalendar() && times.indexOf(date.getMillis()) >= 0;
   }
 
   /**
    * Get the list of datetimes in this coordinate as CalendarDate objects.
+   * The CalendarDates are made as they are asked for, use getCalendarDateSequence() to avoid making them.
    *
    * @return list of CalendarDates.
    */
   public List<CalendarDate> getCalendarDates() {
-    return cdates;
+    return (times == null) ? null : times.asList();
+  }
+
+  /**
+   * Get the datetimes in this coordinate, as msecs since 1970-01-01T00:00:00Z in the Calendar of this coordinate.
+   *
+   * @return the datetimes.
+   */
+  public CalendarDateSequence getCalendarDateSequence() {
+    return times;
   }
 
   public CalendarDate[] getCoordBoundsDate(int i) {
@@ -201,10 +191,13 @@ public class CoordinateAxis1DTime extends CoordinateAxis1D {
 
   @Override
   protected void readValues() {
-    // if orgVar DataType is not numeric (e.g. Char or String), read from the cdates array that was created when
+    // if orgVar DataType is not numeric (e.g. Char or String), read from the times that were made when
     // the axis was created by this classes factory.
     if (this.orgDataType != null && !this.orgDataType.isNumeric()) {
-      this.coords = cdates.stream().mapToDouble(cdate -> (double) cdate.getDifferenceInMsecs(cdates.get(0))).toArray();
+      this.coords = new double[times.size()];
+      for (int i = 0; i < coords.length; i++) {
+        coords[i] = times.getMillis(i) - times.getMillis(0);
+      }
       // make sure parent methods do not try to read from the orgVar again
       this.wasRead = true;
     } else {
@@ -244,9 +237,9 @@ public class CoordinateAxis1DTime extends CoordinateAxis1D {
     this.helper = new CoordinateAxisTimeHelper(getCalendarFromAttribute(), null);
 
     if (org.getDataType() == DataType.CHAR)
-      cdates = makeTimesFromChar(org, errMessages);
+      times = makeTimesFromChar(org, errMessages);
     else
-      cdates = makeTimesFromStrings(org, errMessages);
+      times = makeTimesFromStrings(org, errMessages);
 
     for (Attribute att : org.attributes()) {
       addAttribute(att);
@@ -264,16 +257,17 @@ public class CoordinateAxis1DTime extends CoordinateAxis1D {
             org.getFullName());
       }
     }
-    this.setUnitsString("milliseconds since " + cdates.get(0).toString());
+    this.setUnitsString("milliseconds since " + times.getCalendarDate(0).toString());
   }
 
-  private List<CalendarDate> makeTimesFromChar(VariableDS org, Formatter errMessages) throws IOException {
+  private CalendarDateSequence makeTimesFromChar(VariableDS org, Formatter errMessages) throws IOException {
     int ncoords = (int) org.getSize();
     int rank = org.getRank();
     int strlen = org.getShape(rank - 1);
     ncoords /= strlen;
 
-    List<CalendarDate> result = new ArrayList<>(ncoords);
+    long[] result = new long[ncoords];
+    Calendar cal = null;
 
     ArrayChar data = (ArrayChar) org.read();
     ArrayChar.StringIterator ii = data.getStringIterator();
@@ -283,26 +277,29 @@ public class CoordinateAxis1DTime extends CoordinateAxis1D {
       String coordValue = ii.next();
       CalendarDate cd = makeCalendarDateFromStringCoord(coordValue, org, errMessages);
       sdata.set(i, coordValue);
-      result.add(cd);
+      result[i] = cd.getMillis();
+      cal = cd.getCalendar();
     }
     setCachedData(sdata, true);
-    return result;
+    return CalendarDateSequence.of(cal, result);
   }
 
-  private List<CalendarDate> makeTimesFromStrings(VariableDS org, Formatter errMessages) throws IOException {
+  private CalendarDateSequence makeTimesFromStrings(VariableDS org, Formatter errMessages) throws IOException {
 
     int ncoords = (int) org.getSize();
-    List<CalendarDate> result = new ArrayList<>(ncoords);
+    long[] result = new long[ncoords];
+    Calendar cal = null;
 
     ArrayObject data = (ArrayObject) org.read();
     IndexIterator ii = data.getIndexIterator();
     for (int i = 0; i < ncoords; i++) {
       String coordValue = (String) ii.getObjectNext();
       CalendarDate cd = makeCalendarDateFromStringCoord(coordValue, org, errMessages);
-      result.add(cd);
+      result[i] = cd.getMillis();
+      cal = cd.getCalendar();
     }
 
-    return result;
+    return CalendarDateSequence.of(cal, result);
   }
 
   private CalendarDate makeCalendarDateFromStringCoord(String coordValue, VariableDS org, Formatter errMessages) {
@@ -333,7 +330,7 @@ public class CoordinateAxis1DTime extends CoordinateAxis1D {
 
     // make the coordinates
     int ncoords = (int) org.getSize();
-    List<CalendarDate> result = new ArrayList<>(ncoords);
+    long[] result = new long[ncoords];
 
     Array data = org.read();
 
@@ -343,8 +340,7 @@ public class CoordinateAxis1DTime extends CoordinateAxis1D {
       double val = ii.getDoubleNext();
       if (Double.isNaN(val))
         continue; // WTF ??
-      result.add(helper.makeCalendarDateFromOffset(val));
-      count++;
+      result[count++] = helper.makeMillisFromOffset(val);
     }
 
     // if we encountered NaNs, shorten it up
@@ -370,7 +366,7 @@ public class CoordinateAxis1DTime extends CoordinateAxis1D {
       setCachedData(shortData, true);
     }
 
-    cdates = result;
+    times = CalendarDateSequence.of(helper.getCalendar(), count == ncoords ? result : Arrays.copyOf(result, count));
   }
 
   ///////////////////////////////////////////////////////
@@ -433,7 +429,7 @@ public class CoordinateAxis1DTime extends CoordinateAxis1D {
 
   ////////////////////////////////////////////////////////////////////////////////////////////
   private CoordinateAxisTimeHelper helper;
-  private List<CalendarDate> cdates;
+  private CalendarDateSequence times;
 
   protected CoordinateAxis1DTime(Builder<?> builder, Group parentGroup) {
     super(builder, parentGroup);
@@ -33,6 +33,16 @@ public class CoordinateAxisTimeHelper {
     return dateUnit.makeCalendarDate(offset);
   }
 
+  /** Same as makeCalendarDateFromOffset(offset).getMillis(), usually without making the CalendarDate. */
+  public long makeMillisFromOffset(double offset) {
+    return dateUnit.makeMillis(offset);
+  }
+
+  /** The Calendar of the dates, which may come from the unit string. */
+  public Calendar getCalendar() {
+    return (dateUnit != null) ? dateUnit.getCalendar() : calendar;
+  }
+
   public CalendarDate makeCalendarDateFromOffset(String offset) {
     return CalendarDateFormatter.isoStringToCalendarDate(calendar, offset);
   }
@@ -12,11 +12,14 @@ import ucar.nc2.*;
 import ucar.nc2.constants.CDM;
 import ucar.nc2.constants.DataFormatType;
 import ucar.nc2.dataset.NetcdfDataset.Enhance;
+import ucar.nc2.iosp.DataConverter;
 import ucar.nc2.iosp.netcdf3.N3iosp;
 import ucar.nc2.util.Misc;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.lang.invoke.MethodHandles;
 import java.util.Arrays;
+import java.util.stream.IntStream;
 import static ucar.ma2.DataType.*;
 
 /**
@@ -603,7 +606,13 @@ class EnhanceScaleMissingUnsignedImpl implements EnhanceScaleMissingUnsigned {
       convertMissing = false;
     }
 
-    Array out = Array.factory(outType, in.getShape());
+    Array out = convertBulk(in, outType, convertUnsigned, applyScaleOffset, convertMissing);
+    if (out != null) {
+      return out;
+    }
+
+    // general case, one element at a time
+    out = Array.factory(outType, in.getShape());
     IndexIterator iterIn = in.getIndexIterator();
     IndexIterator iterOut = out.getIndexIterator();
 
@@ -625,4 +634,311 @@ class EnhanceScaleMissingUnsignedImpl implements EnhanceScaleMissingUnsigned {
 
     return out;
   }
+
+  ////////////////////////////////////////////////////////////////////////////////////////////
+  // Bulk conversion on the backing java arrays.
+  //
+  // The result must be identical to the general case above. The java array of the input is converted to double in
+  // blocks, each pass is a simple loop over primitive arrays with the flags tested outside of the loop, which the JIT
+  // can compile to SIMD instructions. Byte and (large) short arrays use a lookup table of the converted values instead,
+  // so the missing value tests are done once per possible value. Large arrays are split over the common ForkJoinPool.
+
+  // visible for testing
+  static int parallelThreshold = 1 << 20;
+  private static final int parallelBlockSize = 1 << 16;
+  private static final int bufferSize = 1024;
+  private static final int shortTableThreshold = 1 << 18;
+
+  private interface RangeKernel {
+    void apply(int from, int to);
+  }
+
+  /**
+   * Get a converter for blocks of raw data, so the IOSP can convert the data while reading it.
+   * Same result as {@link #convert(Array, boolean, boolean, boolean)} on the raw Array.
+   *
+   * @param rawType the DataType of the raw data.
+   * @param nelems the total number of values that will be converted.
+   * @return the converter, or null if the result is not float or double, or there is nothing to do.
+   */
+  @Nullable
+  DataConverter getDataConverter(DataType rawType, long nelems, boolean convertUnsigned, boolean applyScaleOffset,
+      boolean convertMissing) {
+    if (!rawType.isNumeric()) {
+      return null;
+    }
+    convertUnsigned &= getSignedness() == Signedness.UNSIGNED;
+    applyScaleOffset &= hasScaleOffset();
+    if (!convertUnsigned && !applyScaleOffset && !convertMissing) {
+      return null;
+    }
+    DataType outType = applyScaleOffset ? getScaledOffsetType() : convertUnsigned ? getUnsignedConversionType()
+        : origDataType;
+    if (outType != DataType.FLOAT && outType != DataType.DOUBLE) {
+      return null;
+    }
+    return makeBulkConverter(rawType.getPrimitiveClassType(), nelems, outType, convertUnsigned, applyScaleOffset,
+        convertMissing);
+  }
+
+  @Nullable
+  private BulkConverter makeBulkConverter(Class<?> rawClass, long nelems, DataType outType, boolean convertUnsigned,
+      boolean applyScaleOffset, boolean convertMissing) {
+    boolean unsigned = convertUnsigned && rawClass != float.class && rawClass != double.class;
+    if (unsigned && rawClass == long.class) {
+      return null; // unsigned long is widened to BigInteger
+    }
+    return new BulkConverter(rawClass, nelems, outType, unsigned, applyScaleOffset, convertMissing);
+  }
+
+  /**
+   * Convert the whole array at once, for the common cases: widening unsigned integers, and conversions to float or
+   * double.
+   *
+   * @return the converted array, or null if the general case must be used.
+   */
+  private Array convertBulk(Array in, DataType outType, boolean convertUnsigned, boolean applyScaleOffset,
+      boolean convertMissing) {
+    Object src = in.get1DJavaArray(in.getDataType()); // canonical order, copied only if needed
+    int n = (int) in.getSize();
+
+    if (outType == DataType.FLOAT || outType == DataType.DOUBLE) {
+      BulkConverter converter = makeBulkConverter(src.getClass().getComponentType(), n, outType, convertUnsigned,
+          applyScaleOffset, convertMissing);
+      if (converter == null) {
+        return null;
+      }
+      Object dst = (outType == DataType.FLOAT) ? new float[n] : new double[n];
+      forEachRange(n, (from, to) -> converter.convert(src, from, dst, from, to - from));
+      return Array.factory(outType, in.getShape(), dst);
+    }
+
+    // otherwise only the unsigned conversion to the next larger integral type
+    if (!convertUnsigned || applyScaleOffset || convertMissing) {
+      return null;
+    }
+    Class<?> outClass = outType.getPrimitiveClassType();
+    Object dst;
+    if (src instanceof byte[] && outClass == short.class) {
+      byte[] b = (byte[]) src;
+      short[] d = new short[n];
+      forEachRange(n, (from, to) -> {
+        for (int i = from; i < to; i++)
+          d[i] = (short) (b[i] & 0xff);
+      });
+      dst = d;
+    } else if (src instanceof short[] && outClass == int.class) {
+      short[] s = (short[]) src;
+      int[] d = new int[n];
+      forEachRange(n, (from, to) -> {
+        for (int i = from; i < to; i++)
+          d[i] = s[i] & 0xffff;
+      });
+      dst = d;
+    } else if (src instanceof int[] && outClass == long.class) {
+      int[] s = (int[]) src;
+      long[] d = new long[n];
+      forEachRange(n, (from, to) -> {
+        for (int i = from; i < to; i++)
+          d[i] = s[i] & 0xffffffffL;
+      });
+      dst = d;
+    } else {
+      return null;
+    }
+    return Array.factory(outType, in.getShape(), dst);
+  }
+
+  private static void forEachRange(int n, RangeKernel kernel) {
+    if (n < parallelThreshold) {
+      kernel.apply(0, n);
+      return;
+    }
+    int nblocks = (n + parallelBlockSize - 1) / parallelBlockSize;
+    IntStream.range(0, nblocks).parallel()
+        .forEach(b -> kernel.apply(b * parallelBlockSize, Math.min(n, (b + 1) * parallelBlockSize)));
+  }
+
+  /** Converts java arrays of one primitive type into float[] or double[]. Thread safe. */
+  private class BulkConverter implements DataConverter {
+    private final DataType outType;
+    private final boolean unsigned, applyScaleOffset, convertMissing;
+    private final Object table; // the converted values of every possible byte or short value, or null
+
+    BulkConverter(Class<?> rawClass, long nelems, DataType outType, boolean unsigned, boolean applyScaleOffset,
+        boolean convertMissing) {
+      this.outType = outType;
+      this.unsigned = unsigned;
+      this.applyScaleOffset = applyScaleOffset;
+      this.convertMissing = convertMissing;
+      if (rawClass == byte.class && nelems > 256) {
+        this.table = makeTable(true);
+      } else if (rawClass == short.class && nelems > shortTableThreshold) {
+        this.table = makeTable(false);
+      } else {
+        this.table = null;
+      }
+    }
+
+    @Override
+    public DataType getConvertedType() {
+      return outType;
+    }
+
+    @Override
+    public void convert(Object src, int srcPos, Object dst, int dstPos, int nelems) {
+      if (table != null) {
+        lookup(src, srcPos, dst, dstPos, nelems);
+      } else {
+        enhance(src, srcPos, dst, dstPos, nelems);
+      }
+    }
+
+    // indexed by the unsigned value
+    private Object makeTable(boolean isByte) {
+      int size = isByte ? 1 << 8 : 1 << 16;
+      Object allValues;
+      if (isByte) {
+        byte[] b = new byte[size];
+        for (int i = 0; i < size; i++)
+          b[i] = (byte) i;
+        allValues = b;
+      } else {
+        short[] s = new short[size];
+        for (int i = 0; i < size; i++)
+          s[i] = (short) i;
+        allValues = s;
+      }
+      Object result = (outType == DataType.FLOAT) ? new float[size] : new double[size];
+      enhance(allValues, 0, result, 0, size);
+      return result;
+    }
+
+    private void lookup(Object src, int srcPos, Object dst, int dstPos, int nelems) {
+      int off = dstPos - srcPos;
+      if (src instanceof byte[]) {
+        byte[] s = (byte[]) src;
+        if (dst instanceof float[]) {
+          float[] t = (float[]) table;
+          float[] d = (float[]) dst;
+          for (int i = srcPos; i < srcPos + nelems; i++)
+            d[i + off] = t[s[i] & 0xff];
+        } else {
+          double[] t = (double[]) table;
+          double[] d = (double[]) dst;
+          for (int i = srcPos; i < srcPos + nelems; i++)
+            d[i + off] = t[s[i] & 0xff];
+        }
+      } else {
+        short[] s = (short[]) src;
+        if (dst instanceof float[]) {
+          float[] t = (float[]) table;
+          float[] d = (float[]) dst;
+          for (int i = srcPos; i < srcPos + nelems; i++)
+            d[i + off] = t[s[i] & 0xffff];
+        } else {
+          double[] t = (double[]) table;
+          double[] d = (double[]) dst;
+          for (int i = srcPos; i < srcPos + nelems; i++)
+            d[i + off] = t[s[i] & 0xffff];
+        }
+      }
+    }
+
+    private void enhance(Object src, int srcPos, Object dst, int dstPos, int nelems) {
+      if (dst instanceof double[]) {
+        double[] d = (double[]) dst;
+        toDouble(src, srcPos, nelems, unsigned, d, dstPos);
+        if (applyScaleOffset) {
+          scaleOffset(d, dstPos, dstPos + nelems);
+        }
+        if (convertMissing) {
+          missingToNaN(d, dstPos, dstPos + nelems);
+        }
+        return;
+      }
+
+      float[] f = (float[]) dst;
+      double[] buff = new double[Math.min(bufferSize, nelems)];
+      for (int start = 0; start < nelems; start += bufferSize) {
+        int len = Math.min(bufferSize, nelems - start);
+        toDouble(src, srcPos + start, len, unsigned, buff, 0);
+        if (applyScaleOffset) {
+          scaleOffset(buff, 0, len);
+        }
+        if (convertMissing) {
+          missingToNaN(buff, 0, len);
+        }
+        for (int i = 0; i < len; i++)
+          f[dstPos + start + i] = (float) buff[i];
+      }
+    }
+  }
+
+  private static void toDouble(Object src, int srcPos, int nelems, boolean unsigned, double[] dst, int dstPos) {
+    int off = dstPos - srcPos;
+    int end = srcPos + nelems;
+    if (src instanceof byte[]) {
+      byte[] s = (byte[]) src;
+      if (unsigned) {
+        for (int i = srcPos; i < end; i++)
+          dst[i + off] = s[i] & 0xff;
+      } else {
+        for (int i = srcPos; i < end; i++)
+          dst[i + off] = s[i];
+      }
+    } else if (src instanceof short[]) {
+      short[] s = (short[]) src;
+      if (unsigned) {
+        for (int i = srcPos; i < end; i++)
+          dst[i + off] = s[i] & 0xffff;
+      } else {
+        for (int i = srcPos; i < end; i++)
+          dst[i + off] = s[i];
+      }
+    } else if (src instanceof int[]) {
+      int[] s = (int[]) src;
+      if (unsigned) {
+        for (int i = srcPos; i < end; i++)
+          dst[i + off] = s[i] & 0xffffffffL;
+      } else {
+        for (int i = srcPos; i < end; i++)
+          dst[i + off] = s[i];
+      }
+    } else if (src instanceof long[]) {
+      long[] s = (long[]) src; // signed only
+      for (int i = srcPos; i < end; i++)
+        dst[i + off] = s[i];
+    } else if (src instanceof float[]) {
+      float[] s = (float[]) src;
+      for (int i = srcPos; i < end; i++)
+        dst[i + off] = s[i];
+    } else {
+      System.arraycopy(src, srcPos, dst, dstPos, nelems);
+    }
+  }
+
+  private void scaleOffset(double[] buff, int from, int to) {
+    double scale = this.scale;
+    double offset = this.offset;
+    for (int i = from; i < to; i++)
+      buff[i] = scale * buff[i] + offset;
+  }
+
+  // same as isMissing(), with the flags tested once
+  private void missingToNaN(double[] buff, int from, int to) {
+    boolean testMissingValue = missingDataIsMissing && hasMissingValue;
+    boolean testFillValue = fillValueIsMissing && hasFillValue;
+    boolean testInvalid = invalidDataIsMissing && hasValidData();
+    if (!testMissingValue && !testFillValue && !testInvalid) {
+      return; // only NaN is missing, which stays NaN
+    }
+    for (int i = from; i < to; i++) {
+      double val = buff[i];
+      if ((testMissingValue && isMissingValue(val)) || (testFillValue && isFillValue(val))
+          || (testInvalid && isInvalidData(val))) {
+        buff[i] = Double.NaN;
+      }
+    }
+  }
 }
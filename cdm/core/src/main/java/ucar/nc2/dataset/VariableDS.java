@@ -11,6 +11,7 @@ import ucar.nc2.*;
 import ucar.nc2.constants.CDM;
 import ucar.nc2.dataset.NetcdfDataset.Enhance;
 import ucar.nc2.internal.dataset.CoordinatesHelper;
+import ucar.nc2.iosp.DataConverter;
 import ucar.nc2.util.CancelTask;
 import javax.annotation.Nullable;
 import java.io.IOException;
@@ -428,8 +429,12 @@ public class VariableDS extends Variable implements VariableEnhanced, EnhanceSca
     // check if already cached - caching in VariableDS only done explicitly by app
     if (hasCachedData())
       result = super._read();
-    else
+    else {
+      result = readEnhanced(null);
+      if (result != null)
+        return result;
       result = proxyReader.reallyRead(this, null);
+    }
 
     return convert(result);
   }
@@ -444,12 +449,41 @@ public class VariableDS extends Variable implements VariableEnhanced, EnhanceSca
     Array result;
     if (hasCachedData())
       result = super._read(section);
-    else
+    else {
+      result = readEnhanced(section);
+      if (result != null)
+        return result;
       result = proxyReader.reallyRead(this, section, null);
+    }
 
     return convert(result);
   }
 
+  // Read and enhance in one pass, if the IOSP can convert the raw data while reading it.
+  // Otherwise return null, and the data is read and then converted. Package private for testing.
+  @Nullable
+  Array readEnhanced(@Nullable Section section) throws IOException {
+    if (proxyReader != this || orgVar == null || orgVar instanceof VariableDS || isVariableLength) {
+      return null;
+    }
+    if (enhanceMode.contains(Enhance.ConvertEnums)
+        && (dataType.isEnum() || (orgDataType != null && orgDataType.isEnum()))) {
+      return null;
+    }
+    long nelems = (section == null) ? getSize() : section.computeSize();
+    DataConverter converter = scaleMissingUnsignedProxy.getDataConverter(orgVar.getDataType(), nelems,
+        enhanceMode.contains(Enhance.ConvertUnsigned), enhanceMode.contains(Enhance.ApplyScaleOffset),
+        enhanceMode.contains(Enhance.ConvertMissing));
+    if (converter == null) {
+      return null;
+    }
+    try {
+      return orgVar.readConverted(section, converter);
+    } catch (InvalidRangeException e) {
+      throw new IOException(e.getMessage(), e); // section was already validated
+    }
+  }
+
   // do not call directly
   @Override
   public Array reallyRead(Variable client, CancelTask cancelTask) throws IOException {
@@ -10,6 +10,7 @@ import ucar.nc2.constants._Coordinate;
 import ucar.nc2.dataset.*;
 import ucar.nc2.time.CalendarDate;
 import ucar.nc2.time.CalendarDateRange;
+import ucar.nc2.time.CalendarDateSequence;
 import ucar.nc2.util.NamedObject;
 import ucar.nc2.units.*;
 import ucar.nc2.write.Ncdump;
@@ -1473,25 +1474,36 @@ public class GridCoordSys extends CoordinateSystem implements ucar.nc2.dt.GridCo
   }
 
   private List<CalendarDate> makeCalendarDates2D() {
-    Set<CalendarDate> dates = new HashSet<>();
-
     CoordinateAxis1DTime rtaxis = getRunTimeAxis();
-    List<CalendarDate> runtimes = rtaxis.getCalendarDates();
-    for (int i = 0; i < runtimes.size(); i++) {
+    int nruns = rtaxis.getCalendarDateSequence().size();
+    List<CalendarDateSequence> runs = new ArrayList<>(nruns);
+    int total = 0;
+    for (int i = 0; i < nruns; i++) {
       CoordinateAxis1DTime taxis = getTimeAxisForRun(i);
       if (taxis == null)
         throw new IllegalStateException();
-      List<CalendarDate> times = taxis.getCalendarDates();
-      dates.addAll(times);
+      runs.add(taxis.getCalendarDateSequence());
+      total += taxis.getCalendarDateSequence().size();
     }
 
-    // sorted list
-    int n = dates.size();
-    CalendarDate[] dd = dates.toArray(new CalendarDate[n]);
-    List<CalendarDate> dateList = Arrays.asList(dd);
-    Collections.sort(dateList);
+    // sorted, without duplicates
+    long[] millis = new long[total];
+    int count = 0;
+    for (CalendarDateSequence times : runs) {
+      for (int i = 0; i < times.size(); i++) {
+        millis[count++] = times.getMillis(i);
+      }
+    }
+    Arrays.sort(millis);
+    int n = 0;
+    for (int i = 0; i < total; i++) {
+      if (n == 0 || millis[i] != millis[n - 1]) {
+        millis[n++] = millis[i];
+      }
+    }
 
-    return dateList;
+    ucar.nc2.time.Calendar cal = runs.isEmpty() ? null : runs.get(0).getCalendar();
+    return CalendarDateSequence.of(cal, Arrays.copyOf(millis, n)).asList();
   }
 
 
@@ -5,14 +5,17 @@
 
 package ucar.nc2.filter;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.zip.DataFormatException;
 import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
 import java.util.zip.Inflater;
-import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+import ucar.unidata.io.BufferPool;
 
 /**
  * Filter implementation of zlib compression.
@@ -23,6 +26,9 @@ public class Deflate extends Filter {
 
   private static final int id = 1;
 
+  private static final int minInflateSize = 8 * 1024; // smallest temporary buffer to inflate into
+  private static final int maxArrayLen = Integer.MAX_VALUE - 8;
+
   private final int clevel; // compression level
 
   public Deflate(Map<String, Object> properties) {
@@ -67,19 +73,45 @@ public class Deflate extends Filter {
 
   @Override
   public byte[] decode(byte[] dataIn) throws IOException {
-    ByteArrayInputStream in = new ByteArrayInputStream(dataIn);
-    InflaterInputStream iis = new InflaterInputStream(in, new Inflater(), dataIn.length);
+    return decode(dataIn, dataIn.length);
+  }
 
-    ByteArrayOutputStream os = new ByteArrayOutputStream();
-    int read;
-    while ((read = iis.read()) != -1) {
-      os.write(read);
+  /** Inflate into temporary buffers from the BufferPool, so the only allocation is the result. */
+  @Override
+  public byte[] decode(byte[] dataIn, int length) throws IOException {
+    BufferPool pool = BufferPool.getDefault();
+    Inflater inflater = new Inflater();
+    byte[] out = pool.getBytes((int) Math.min(Math.max(4L * length, minInflateSize), maxArrayLen));
+    int total = 0;
+    try {
+      inflater.setInput(dataIn, 0, length);
+      while (!inflater.finished()) {
+        if (total == out.length) {
+          if (out.length >= maxArrayLen) {
+            throw new OutOfMemoryError("Inflated data is larger than the largest java array");
+          }
+          byte[] bigger = pool.getBytes((int) Math.min(2L * out.length, maxArrayLen));
+          System.arraycopy(out, 0, bigger, 0, total);
+          pool.release(out);
+          out = bigger;
+        }
+        int n = inflater.inflate(out, total, out.length - total);
+        if (n == 0 && inflater.needsDictionary()) {
+          throw new ZipException("ZLIB preset dictionary not supported");
+        }
+        if (n == 0 && inflater.needsInput()) {
+          throw new EOFException("Unexpected end of ZLIB input stream");
+        }
+        total += n;
+      }
+      return Arrays.copyOf(out, total);
+    } catch (DataFormatException e) {
+      String s = e.getMessage();
+      throw new ZipException(s != null ? s : "Invalid ZLIB data format");
+    } finally {
+      inflater.end();
+      pool.release(out);
     }
-    // close everything and return
-    in.close();
-    iis.close();
-    os.close();
-    return os.toByteArray();
   }
 
   public static class Provider implements FilterProvider {
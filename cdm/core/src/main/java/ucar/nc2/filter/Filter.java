@@ -7,6 +7,7 @@ package ucar.nc2.filter;
 
 import java.io.IOException;
 import java.nio.ByteOrder;
+import java.util.Arrays;
 import java.util.Formatter;
 import java.util.Map;
 
@@ -20,6 +21,15 @@ public abstract class Filter {
 
   public abstract byte[] decode(byte[] dataIn) throws IOException;
 
+  /**
+   * Decode the first length bytes of dataIn, which may be longer, for example when it comes from a
+   * {@link ucar.unidata.io.BufferPool}. The result never shares dataIn.
+   * The default implementation copies the bytes to an array of the exact length, if needed, and calls decode(byte[]).
+   */
+  public byte[] decode(byte[] dataIn, int length) throws IOException {
+    return decode(Arrays.copyOf(dataIn, length));
+  }
+
   public String toString() {
     Formatter f = new Formatter();
     return f.format("Name: %s, ID: %d", getName(), getId()).toString();
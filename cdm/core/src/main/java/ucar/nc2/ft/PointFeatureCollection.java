@@ -5,6 +5,9 @@
 package ucar.nc2.ft;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import javax.annotation.Nullable;
 import ucar.nc2.time.CalendarDateRange;
 
@@ -26,6 +29,41 @@ public interface PointFeatureCollection extends DsgFeatureCollection, Iterable<P
   @Nullable
   PointFeatureCollection subset(ucar.unidata.geoloc.LatLonRect boundingBox, CalendarDateRange dateRange);
 
+  /**
+   * Get an iterator over the PointFeatures of this collection that only reads some of the data variables.
+   * The feature data of each PointFeature has at least the wanted variables, and may have others.
+   * Implementations that can't read a subset of the variables read them all, which is the default.
+   *
+   * @param varNames short names of the data variables wanted, or null for all of them.
+   * @return iterator over the PointFeatures of this collection
+   * @throws IOException on read error
+   */
+  default PointFeatureIterator getPointFeatureIterator(@Nullable List<String> varNames) throws IOException {
+    return getPointFeatureIterator();
+  }
+
+  /**
+   * A sequential Stream over the PointFeatures of this collection, the same as iterating over it.
+   *
+   * @return stream of the PointFeatures
+   * @since 5.5.4
+   */
+  default Stream<PointFeature> stream() {
+    return StreamSupport.stream(spliterator(), false);
+  }
+
+  /**
+   * A parallel Stream over the PointFeatures of this collection. Collections whose spliterator() can split them
+   * into record ranges or features are read in parts on several threads; others are read in order, and only the
+   * work done on each PointFeature downstream is parallel.
+   *
+   * @return parallel stream of the PointFeatures
+   * @since 5.5.4
+   */
+  default Stream<PointFeature> parallelStream() {
+    return StreamSupport.stream(spliterator(), true);
+  }
+
   //////////////////////////////////////////////////////
   // deprecated, use foreach
 
@@ -6,6 +6,7 @@ package ucar.nc2.ft.point;
 
 import java.io.IOException;
 import java.util.Iterator;
+import java.util.List;
 import javax.annotation.Nonnull;
 import ucar.nc2.constants.FeatureType;
 import ucar.nc2.ft.PointFeature;
@@ -66,6 +67,11 @@ public abstract class PointCollectionImpl extends DsgCollectionImpl implements P
     public PointFeatureIterator getPointFeatureIterator() throws IOException {
       return new PointIteratorFiltered(from.getPointFeatureIterator(), filter_bb, filter_date);
     }
+
+    @Override
+    public PointFeatureIterator getPointFeatureIterator(List<String> varNames) throws IOException {
+      return new PointIteratorFiltered(from.getPointFeatureIterator(varNames), filter_bb, filter_date);
+    }
   }
 
   ///////////////////////////////////////////////////////////////////
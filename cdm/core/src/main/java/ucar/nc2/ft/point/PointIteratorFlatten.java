@@ -6,6 +6,7 @@
 package ucar.nc2.ft.point;
 
 import java.io.IOException;
+import java.util.List;
 import ucar.nc2.ft.PointFeature;
 import ucar.nc2.ft.PointFeatureCollection;
 import ucar.nc2.ft.PointFeatureIterator;
@@ -23,6 +24,7 @@ import ucar.unidata.geoloc.LatLonRect;
 public class PointIteratorFlatten extends PointIteratorAbstract {
   private IOIterator<PointFeatureCollection> collectionIter;
   private Filter filter;
+  private List<String> varNames;
 
   private PointFeatureCollection currCollection;
   private PointFeatureIterator pfiter; // iterator over the current PointFeatureCollection
@@ -38,7 +40,21 @@ public class PointIteratorFlatten extends PointIteratorAbstract {
    */
   PointIteratorFlatten(IOIterator<PointFeatureCollection> collectionIter, LatLonRect filter_bb,
       CalendarDateRange filter_date) {
+    this(collectionIter, filter_bb, filter_date, null);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param collectionIter iterator over the collections
+   * @param filter_bb boundingbox, or null
+   * @param filter_date data range, or null
+   * @param varNames read only these data variables, or null for all
+   */
+  PointIteratorFlatten(IOIterator<PointFeatureCollection> collectionIter, LatLonRect filter_bb,
+      CalendarDateRange filter_date, List<String> varNames) {
     this.collectionIter = collectionIter;
+    this.varNames = varNames;
     if ((filter_bb != null) || (filter_date != null))
       this.filter = new PointIteratorFiltered.SpaceAndTimeFilter(filter_bb, filter_date);
   }
@@ -68,7 +84,7 @@ public class PointIteratorFlatten extends PointIteratorAbstract {
       }
 
       currCollection = feature;
-      pfiter = feature.getPointFeatureIterator();
+      pfiter = feature.getPointFeatureIterator(varNames);
       return hasNext();
 
     } catch (IOException ioe) {
@@ -5,7 +5,11 @@
 
 package ucar.nc2.ft.point;
 
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.StreamSupport;
 import javax.annotation.Nonnull;
+import ucar.nc2.ft.PointFeature;
 import ucar.nc2.ft.PointFeatureIterator;
 import ucar.nc2.time.CalendarDateRange;
 
@@ -33,5 +37,19 @@ public class StationTimeSeriesCollectionFlattened extends PointCollectionImpl {
     return new PointIteratorFlatten(from.getPointFeatureCollectionIterator(), null, this.getCalendarDateRange());
   }
 
+  @Override
+  public PointFeatureIterator getPointFeatureIterator(List<String> varNames) {
+    return new PointIteratorFlatten(from.getPointFeatureCollectionIterator(), null, this.getCalendarDateRange(),
+        varNames);
+  }
+
+  // In a parallel stream, each station is read on one thread, and different stations on different threads.
+  @Override
+  public Spliterator<PointFeature> spliterator() {
+    PointFeatureIterator.Filter filter = new PointIteratorFiltered.SpaceAndTimeFilter(null, getCalendarDateRange());
+    return StreamSupport.stream(from.spliterator(), true).flatMap(station -> station.stream().filter(filter::filter))
+        .spliterator();
+  }
+
 }
 
@@ -8,6 +8,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
 import ucar.nc2.VariableSimpleIF;
 import ucar.nc2.constants.FeatureType;
 import ucar.nc2.ft.PointFeature;
@@ -187,6 +188,13 @@ public abstract class StationTimeSeriesCollectionImpl extends PointFeatureCCImpl
     return new CollectionIteratorAdapter<>(pfIterator);
   }
 
+  // Split over the list of stations, so a parallel stream can read different stations on different threads.
+  // Unlike iterator(), this does not complete the collection info.
+  @Override
+  public Spliterator<StationTimeSeriesFeature> spliterator() {
+    return getStationFeatures().stream().map(s -> (StationTimeSeriesFeature) s).spliterator();
+  }
+
   @Override
   public IOIterator<PointFeatureCollection> getCollectionIterator() {
     return new StationIterator();
@@ -5,6 +5,7 @@
 package ucar.nc2.ft.point;
 
 import java.io.IOException;
+import java.util.List;
 import javax.annotation.Nonnull;
 import ucar.ma2.StructureData;
 import ucar.nc2.constants.FeatureType;
@@ -131,6 +132,11 @@ public abstract class StationTimeSeriesFeatureImpl extends PointCollectionImpl i
       return new PointIteratorFiltered(from.getPointFeatureIterator(), null, filter_date);
     }
 
+    @Override
+    public PointFeatureIterator getPointFeatureIterator(List<String> varNames) throws IOException {
+      return new PointIteratorFiltered(from.getPointFeatureIterator(varNames), null, filter_date);
+    }
+
     @Nonnull
     @Override
     public StructureData getFeatureData() throws IOException {
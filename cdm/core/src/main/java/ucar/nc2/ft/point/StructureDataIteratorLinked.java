@@ -5,18 +5,21 @@
 package ucar.nc2.ft.point;
 
 import ucar.nc2.Structure;
+import ucar.ma2.ArrayStructure;
 import ucar.ma2.StructureData;
 import ucar.ma2.StructureDataIterator;
 import java.io.IOException;
 
 /**
- * Use contiguous or linked lists to iterate over members of a Structure
+ * Use contiguous or linked lists to iterate over members of a Structure.
+ * Contiguous records of a one dimensional Structure are read in blocks of about BUFFER_SIZE bytes.
  *
  * @author caron
  * @since Mar 26, 2008
  */
 public class StructureDataIteratorLinked implements StructureDataIterator {
   private static org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(StructureDataIteratorLinked.class);
+  private static final int BUFFER_SIZE = 500 * 1000; // same as Structure.getStructureIterator()
 
   private Structure s;
   private int firstRecord, nextRecno, numRecords;
@@ -24,6 +27,10 @@ public class StructureDataIteratorLinked implements StructureDataIterator {
   private int currRecno;
   private boolean isContiguous;
 
+  // the current block of contiguous records
+  private ArrayStructure buffer;
+  private int bufferStart, bufferCount;
+
   public StructureDataIteratorLinked(Structure s, int firstRecord, int numRecords, String linkVarName) {
     this.s = s;
     this.firstRecord = firstRecord;
@@ -38,7 +45,10 @@ public class StructureDataIteratorLinked implements StructureDataIterator {
     StructureData sdata;
     currRecno = nextRecno;
     try {
-      sdata = s.readStructure(currRecno);
+      if (isContiguous && s.getRank() == 1)
+        sdata = readBuffered(currRecno);
+      else
+        sdata = s.readStructure(currRecno);
     } catch (ucar.ma2.InvalidRangeException e) {
       log.error("StructureDataLinkedIterator.nextStructureData recno=" + currRecno, e);
       throw new IOException(e.getMessage());
@@ -56,6 +66,16 @@ public class StructureDataIteratorLinked implements StructureDataIterator {
     return sdata;
   }
 
+  private StructureData readBuffered(int recno) throws IOException, ucar.ma2.InvalidRangeException {
+    if (buffer == null || recno < bufferStart || recno >= bufferStart + bufferCount) {
+      int readAtaTime = Math.max(1, BUFFER_SIZE / Math.max(1, s.getElementSize()));
+      bufferStart = recno;
+      bufferCount = Math.min(readAtaTime, firstRecord + numRecords - recno);
+      buffer = s.readStructure(bufferStart, bufferCount);
+    }
+    return buffer.getStructureData(recno - bufferStart);
+  }
+
   @Override
   public boolean hasNext() {
     return isContiguous ? nextRecno < firstRecord + numRecords : nextRecno >= 0;
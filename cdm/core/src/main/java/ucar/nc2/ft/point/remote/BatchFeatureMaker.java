@@ -0,0 +1,23 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.nc2.ft.point.remote;
+
+import java.util.Iterator;
+import ucar.nc2.ft.DsgFeatureCollection;
+import ucar.nc2.ft.PointFeature;
+import com.google.protobuf.InvalidProtocolBufferException;
+
+/**
+ * A FeatureMaker that can also deserialize PointFeatureBatch messages.
+ * PointIteratorStream only accepts those messages when reading with one of these.
+ *
+ * @since 5.5.4
+ * @see PointStream#QUERY_BATCH
+ */
+interface BatchFeatureMaker extends FeatureMaker {
+
+  /** Deserialize a batch of PointFeatures. The features are made as the iterator is called. */
+  Iterator<PointFeature> makeBatch(DsgFeatureCollection dsg, byte[] rawBytes) throws InvalidProtocolBufferException;
+}
@@ -79,6 +79,10 @@ public class PointDatasetRemote extends PointDatasetImpl {
 
     if (!needamp)
       query.append("all");
+
+    // the response is read with PointStream.ProtobufPointFeatureMaker, which reads batches.
+    // older servers ignore this and send a message for each feature
+    query.append("&").append(PointStream.QUERY_BATCH).append("=").append(PointStream.DEFAULT_BATCH_SIZE);
     return query.toString();
   }
 }
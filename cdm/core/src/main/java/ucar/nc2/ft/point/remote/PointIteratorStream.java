@@ -6,6 +6,7 @@ package ucar.nc2.ft.point.remote;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Iterator;
 import ucar.nc2.ft.DsgFeatureCollection;
 import ucar.nc2.ft.PointFeature;
 import ucar.nc2.ft.point.CollectionInfo;
@@ -15,7 +16,8 @@ import ucar.nc2.stream.NcStream;
 import ucar.nc2.stream.NcStreamProto;
 
 /**
- * Iterate through a stream of PointStream.MessageType.PointFeature until PointStream.MessageType.End
+ * Iterate through a stream of PointStream.MessageType.PointFeature until PointStream.MessageType.End.
+ * PointFeatureBatch messages are read if the FeatureMaker is a {@link BatchFeatureMaker}.
  *
  * @author caron
  * @since May 14, 2009
@@ -27,6 +29,7 @@ public class PointIteratorStream extends PointIteratorAbstract {
   private FeatureMaker featureMaker;
 
   private PointFeature pf;
+  private Iterator<PointFeature> batch; // the rest of the current batch
   private boolean finished;
 
   PointIteratorStream(DsgCollectionImpl dsg, InputStream in, FeatureMaker featureMaker) {
@@ -58,6 +61,11 @@ public class PointIteratorStream extends PointIteratorAbstract {
     if (finished)
       return false;
 
+    if (batch != null && batch.hasNext()) {
+      pf = batch.next();
+      return true;
+    }
+
     try {
       PointStream.MessageType mtype = PointStream.readMagic(in);
       if (mtype == PointStream.MessageType.PointFeature) {
@@ -69,6 +77,15 @@ public class PointIteratorStream extends PointIteratorAbstract {
         pf = featureMaker.make(dsg, b);
         return true;
 
+      } else if (mtype == PointStream.MessageType.PointFeatureBatch && featureMaker instanceof BatchFeatureMaker) {
+        int len = NcStream.readVInt(in);
+
+        byte[] b = new byte[len];
+        NcStream.readFully(in, b);
+
+        batch = ((BatchFeatureMaker) featureMaker).makeBatch(dsg, b);
+        return hasNext();
+
       } else if (mtype == PointStream.MessageType.End) {
         pf = null;
         close();
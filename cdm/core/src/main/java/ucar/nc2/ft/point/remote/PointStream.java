@@ -12,13 +12,19 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import javax.annotation.Nonnull;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.InvalidProtocolBufferException;
+import ucar.ma2.Array;
 import ucar.ma2.ArrayStructureBB;
+import ucar.ma2.ArrayStructureMA;
 import ucar.ma2.DataType;
+import ucar.ma2.IndexIterator;
 import ucar.ma2.StructureData;
 import ucar.ma2.StructureDataDeep;
 import ucar.ma2.StructureMembers;
@@ -44,12 +50,20 @@ import ucar.unidata.geoloc.Station;
  */
 public class PointStream {
   public enum MessageType {
-    Start, Header, Data, End, Error, Eos, StationList, PointFeatureCollection, PointFeature
+    Start, Header, Data, End, Error, Eos, StationList, PointFeatureCollection, PointFeature, PointFeatureBatch
   }
 
+  /**
+   * Query parameter by which a client asks for PointFeatureBatch messages of up to this many features.
+   * A server that doesnt know it sends PointFeature messages, which are still read.
+   */
+  public static final String QUERY_BATCH = "batch";
+  public static final int DEFAULT_BATCH_SIZE = 1000;
+
   private static final byte[] MAGIC_StationList = {(byte) 0xfe, (byte) 0xfe, (byte) 0xef, (byte) 0xef};
   private static final byte[] MAGIC_PointFeatureCollection = {(byte) 0xfa, (byte) 0xfa, (byte) 0xaf, (byte) 0xaf};
   private static final byte[] MAGIC_PointFeature = {(byte) 0xf0, (byte) 0xf0, (byte) 0x0f, (byte) 0x0f};
+  private static final byte[] MAGIC_PointFeatureBatch = {(byte) 0xf1, (byte) 0xf1, (byte) 0x1f, (byte) 0x1f};
 
   private static final boolean debug = false;
 
@@ -61,6 +75,8 @@ public class PointStream {
 
     if (test(b, MAGIC_PointFeature))
       return MessageType.PointFeature;
+    if (test(b, MAGIC_PointFeatureBatch))
+      return MessageType.PointFeatureBatch;
     if (test(b, MAGIC_PointFeatureCollection))
       return MessageType.PointFeatureCollection;
     if (test(b, MAGIC_StationList))
@@ -82,6 +98,8 @@ public class PointStream {
     switch (type) {
       case PointFeature:
         return NcStream.writeBytes(out, PointStream.MAGIC_PointFeature);
+      case PointFeatureBatch:
+        return NcStream.writeBytes(out, PointStream.MAGIC_PointFeatureBatch);
       case PointFeatureCollection:
         return NcStream.writeBytes(out, PointStream.MAGIC_PointFeatureCollection);
       case StationList:
@@ -168,6 +186,148 @@ public class PointStream {
     return builder.build();
   }
 
+  // can the members be written as columns
+  private static boolean canBatch(StructureMembers sm) {
+    for (StructureMembers.Member m : sm.getMembers()) {
+      if (m.isVariableLength())
+        return false;
+      switch (m.getDataType()) {
+        case BYTE:
+        case UBYTE:
+        case CHAR:
+        case ENUM1:
+        case SHORT:
+        case USHORT:
+        case ENUM2:
+        case INT:
+        case UINT:
+        case ENUM4:
+        case LONG:
+        case ULONG:
+        case FLOAT:
+        case DOUBLE:
+        case STRING:
+          break;
+        default:
+          return false;
+      }
+    }
+    return true;
+  }
+
+  // Collects point features into a PointFeatureBatch, one column per member.
+  private static class BatchEncoder {
+    private final List<StructureMembers.Member> members;
+    private final ByteBuffer[] columns;
+    private final List<List<String>> strings;
+    private PointStreamProto.PointFeatureBatch.Builder builder;
+    private int count;
+
+    BatchEncoder(StructureMembers sm, int batchSize) {
+      this.members = sm.getMembers();
+      this.columns = new ByteBuffer[members.size()];
+      this.strings = new ArrayList<>();
+      for (int i = 0; i < members.size(); i++) {
+        StructureMembers.Member m = members.get(i);
+        if (m.getDataType() == DataType.STRING) {
+          strings.add(new ArrayList<>());
+        } else {
+          strings.add(null);
+          columns[i] = ByteBuffer.allocate(batchSize * m.getSize() * m.getDataType().getSize());
+        }
+      }
+      reset();
+    }
+
+    private void reset() {
+      builder = PointStreamProto.PointFeatureBatch.newBuilder();
+      for (int i = 0; i < members.size(); i++) {
+        if (columns[i] != null)
+          columns[i].clear();
+        else
+          strings.get(i).clear();
+      }
+      count = 0;
+    }
+
+    int add(PointFeature pf) throws IOException {
+      builder.addTime(pf.getObservationTime());
+      builder.addNomTime(pf.getNominalTime());
+      EarthLocation loc = pf.getLocation();
+      builder.addLat(loc.getLatitude());
+      builder.addLon(loc.getLongitude());
+      builder.addAlt(loc.getAltitude());
+
+      StructureData sdata = pf.getDataAll();
+      for (int i = 0; i < members.size(); i++) {
+        StructureMembers.Member m = members.get(i);
+        Array data = sdata.getArray(m.getName());
+        if (data.getSize() != m.getSize())
+          throw new IllegalStateException("Member " + m.getName() + " has size " + data.getSize());
+        IndexIterator ii = data.getIndexIterator();
+        ByteBuffer bb = columns[i];
+        switch (m.getDataType()) {
+          case STRING:
+            while (ii.hasNext())
+              strings.get(i).add(String.valueOf(ii.getObjectNext()));
+            break;
+          case BYTE:
+          case UBYTE:
+          case CHAR:
+          case ENUM1:
+            while (ii.hasNext())
+              bb.put(ii.getByteNext());
+            break;
+          case SHORT:
+          case USHORT:
+          case ENUM2:
+            while (ii.hasNext())
+              bb.putShort(ii.getShortNext());
+            break;
+          case INT:
+          case UINT:
+          case ENUM4:
+            while (ii.hasNext())
+              bb.putInt(ii.getIntNext());
+            break;
+          case LONG:
+          case ULONG:
+            while (ii.hasNext())
+              bb.putLong(ii.getLongNext());
+            break;
+          case FLOAT:
+            while (ii.hasNext())
+              bb.putFloat(ii.getFloatNext());
+            break;
+          case DOUBLE:
+            while (ii.hasNext())
+              bb.putDouble(ii.getDoubleNext());
+            break;
+        }
+      }
+      return ++count;
+    }
+
+    int getCount() {
+      return count;
+    }
+
+    PointStreamProto.PointFeatureBatch build() {
+      builder.setCount(count);
+      for (int i = 0; i < members.size(); i++) {
+        if (columns[i] != null) {
+          builder.addColumns(ByteString.copyFrom(columns[i].array(), 0, columns[i].position()));
+        } else {
+          builder.addColumns(ByteString.EMPTY);
+          builder.addAllSdata(strings.get(i));
+        }
+      }
+      PointStreamProto.PointFeatureBatch result = builder.build();
+      reset();
+      return result;
+    }
+  }
+
   public static PointStreamProto.StationList encodeStations(List<Station> stnList) {
     PointStreamProto.StationList.Builder stnBuilder = PointStreamProto.StationList.newBuilder();
     for (Station loc : stnList) {
@@ -192,7 +352,7 @@ public class PointStream {
   // decoding
   // makes a PointFeature from the raw bytes of the protobuf message
 
-  static class ProtobufPointFeatureMaker implements FeatureMaker {
+  static class ProtobufPointFeatureMaker implements BatchFeatureMaker {
     private CalendarDateUnit dateUnit;
     private StructureMembers sm;
 
@@ -227,6 +387,112 @@ public class PointStream {
       return new MyPointFeature(dsg, location, locp.getTime(), locp.getNomTime(), dateUnit, pfp);
     }
 
+    @Override
+    public Iterator<PointFeature> makeBatch(DsgFeatureCollection dsg, byte[] rawBytes)
+        throws InvalidProtocolBufferException {
+      PointStreamProto.PointFeatureBatch batch = PointStreamProto.PointFeatureBatch.parseFrom(rawBytes);
+      int n = batch.getCount();
+      if (batch.getTimeCount() != n || batch.getNomTimeCount() != n || batch.getLatCount() != n
+          || batch.getLonCount() != n || batch.getAltCount() != n || batch.getColumnsCount() != sm.getMembers().size())
+        throw new InvalidProtocolBufferException("Inconsistent PointFeatureBatch of " + n + " features");
+      int nstrings = 0;
+      for (int i = 0; i < sm.getMembers().size(); i++) {
+        StructureMembers.Member m = sm.getMembers().get(i);
+        if (m.getDataType() == DataType.STRING)
+          nstrings += n * m.getSize();
+        else if (batch.getColumns(i).size() != n * m.getSizeBytes())
+          throw new InvalidProtocolBufferException("Bad PointFeatureBatch column for " + m.getName());
+      }
+      if (batch.getSdataCount() != nstrings)
+        throw new InvalidProtocolBufferException("Bad PointFeatureBatch Strings " + batch.getSdataCount());
+
+      BatchColumns columns = new BatchColumns(batch);
+      return new Iterator<PointFeature>() {
+        private int index;
+
+        @Override
+        public boolean hasNext() {
+          return index < n;
+        }
+
+        @Override
+        public PointFeature next() {
+          if (index >= n)
+            throw new NoSuchElementException();
+          EarthLocation location =
+              EarthLocation.create(batch.getLat(index), batch.getLon(index), batch.getAlt(index));
+          PointFeature pf = new BatchPointFeature(dsg, location, batch.getTime(index), batch.getNomTime(index),
+              dateUnit, columns, index);
+          index++;
+          return pf;
+        }
+      };
+    }
+
+    // The data of a batch, turned from columns into an ArrayStructure when first asked for.
+    private class BatchColumns {
+      private final PointStreamProto.PointFeatureBatch batch;
+      private ArrayStructureMA data;
+
+      BatchColumns(PointStreamProto.PointFeatureBatch batch) {
+        this.batch = batch;
+      }
+
+      synchronized ArrayStructureMA getData() {
+        if (data == null) {
+          int n = batch.getCount();
+          StructureMembers members = sm.toBuilder(false).build();
+          ArrayStructureMA result = new ArrayStructureMA(members, new int[] {n});
+          int spos = 0;
+          for (int i = 0; i < members.getMembers().size(); i++) {
+            StructureMembers.Member m = members.getMembers().get(i);
+            int[] shape = new int[m.getShape().length + 1];
+            shape[0] = n;
+            System.arraycopy(m.getShape(), 0, shape, 1, m.getShape().length);
+            if (m.getDataType() == DataType.STRING) {
+              int size = n * m.getSize();
+              String[] strings = batch.getSdataList().subList(spos, spos + size).toArray(new String[0]);
+              spos += size;
+              result.setMemberArray(m.getName(), Array.factory(DataType.STRING, shape, strings));
+            } else {
+              ByteBuffer bb = batch.getColumns(i).asReadOnlyByteBuffer();
+              result.setMemberArray(m.getName(), Array.factory(m.getDataType(), shape, bb));
+            }
+          }
+          data = result;
+        }
+        return data;
+      }
+    }
+
+    private class BatchPointFeature extends PointFeatureImpl {
+      private final BatchColumns columns;
+      private final int index;
+
+      BatchPointFeature(DsgFeatureCollection dsg, EarthLocation location, double obsTime, double nomTime,
+          CalendarDateUnit timeUnit, BatchColumns columns, int index) {
+        super(dsg, location, obsTime, nomTime, timeUnit);
+        this.columns = columns;
+        this.index = index;
+      }
+
+      @Nonnull
+      @Override
+      public StructureData getFeatureData() {
+        return columns.getData().getStructureData(index);
+      }
+
+      @Nonnull
+      @Override
+      public StructureData getDataAll() {
+        return getFeatureData();
+      }
+
+      public String toString() {
+        return location + " obs=" + obsTime + " nom=" + nomTime;
+      }
+    }
+
     private class MyPointFeature extends PointFeatureImpl {
       PointStreamProto.PointFeature pfp;
 
@@ -270,11 +536,45 @@ public class PointStream {
     }
   }
 
+  /**
+   * Write the collection to a file, using PointFeatureBatch messages when the members allow it.
+   *
+   * @param pointFeatCol write this collection
+   * @param outFile to this file
+   * @param batchSize number of features in each batch
+   * @return number of features written
+   */
+  public static int write(PointFeatureCollection pointFeatCol, File outFile, int batchSize) throws IOException {
+    String name = outFile.getCanonicalPath();
+    String timeUnitString = pointFeatCol.getTimeUnit().getUdUnit();
+    String altUnits = pointFeatCol.getAltUnits();
+
+    try (PointFeatureIterator pointFeatIter = pointFeatCol.getPointFeatureIterator();
+        BufferedOutputStream out = new BufferedOutputStream(new FileOutputStream(outFile))) {
+      return write(out, pointFeatIter, name, timeUnitString, altUnits, batchSize);
+    }
+  }
+
   // Adapted from thredds.server.cdmremote.PointWriter.WriterNcstream
   // Caller must iter.finish() and out.close().
   public static int write(OutputStream out, PointFeatureIterator pointFeatIter, String name, String timeUnitString,
       String altUnits) throws IOException {
+    return write(out, pointFeatIter, name, timeUnitString, altUnits, 0);
+  }
+
+  /**
+   * Write the features as PointFeatureBatch messages, which carry the data of many features as columns, so there is
+   * much less protobuf work per feature. Only use this when the client asked for it with {@link #QUERY_BATCH}.
+   * If a member is a Structure or variable length, a PointFeature message is written for each feature instead.
+   * Caller must iter.finish() and out.close().
+   *
+   * @param batchSize number of features in each batch, or 0 for a PointFeature message for each.
+   * @return number of features written
+   */
+  public static int write(OutputStream out, PointFeatureIterator pointFeatIter, String name, String timeUnitString,
+      String altUnits, int batchSize) throws IOException {
     int numWritten = 0;
+    BatchEncoder batch = null;
 
     while (pointFeatIter.hasNext()) {
       try {
@@ -288,26 +588,35 @@ public class PointStream {
           PointStream.writeMagic(out, MessageType.PointFeatureCollection);
           NcStream.writeVInt(out, data.length);
           out.write(data);
+
+          StructureMembers sm = pointFeat.getDataAll().getStructureMembers();
+          if (batchSize > 0 && canBatch(sm))
+            batch = new BatchEncoder(sm, batchSize);
         }
 
-        PointStreamProto.PointFeature protoPointFeat = PointStream.encodePointFeature(pointFeat);
-        byte[] data = protoPointFeat.toByteArray();
+        if (batch != null) {
+          if (batch.add(pointFeat) == batchSize)
+            writeBatch(out, batch);
+        } else {
+          PointStreamProto.PointFeature protoPointFeat = PointStream.encodePointFeature(pointFeat);
+          byte[] data = protoPointFeat.toByteArray();
 
-        PointStream.writeMagic(out, MessageType.PointFeature);
-        NcStream.writeVInt(out, data.length);
-        out.write(data);
+          PointStream.writeMagic(out, MessageType.PointFeature);
+          NcStream.writeVInt(out, data.length);
+          out.write(data);
+        }
 
         ++numWritten;
       } catch (Throwable t) {
-        NcStreamProto.Error protoError =
-            NcStream.encodeErrorMessage(t.getMessage() != null ? t.getMessage() : t.getClass().getName());
-        byte[] data = protoError.toByteArray();
-
-        PointStream.writeMagic(out, PointStream.MessageType.Error);
-        NcStream.writeVInt(out, data.length);
-        out.write(data);
+        throw writeError(out, t);
+      }
+    }
 
-        throw new IOException(t);
+    if (batch != null && batch.getCount() > 0) {
+      try {
+        writeBatch(out, batch);
+      } catch (Throwable t) {
+        throw writeError(out, t);
       }
     }
 
@@ -315,4 +624,23 @@ public class PointStream {
 
     return numWritten;
   }
+
+  private static IOException writeError(OutputStream out, Throwable t) throws IOException {
+    NcStreamProto.Error protoError =
+        NcStream.encodeErrorMessage(t.getMessage() != null ? t.getMessage() : t.getClass().getName());
+    byte[] data = protoError.toByteArray();
+
+    PointStream.writeMagic(out, PointStream.MessageType.Error);
+    NcStream.writeVInt(out, data.length);
+    out.write(data);
+
+    return new IOException(t);
+  }
+
+  private static void writeBatch(OutputStream out, BatchEncoder batch) throws IOException {
+    byte[] data = batch.build().toByteArray();
+    PointStream.writeMagic(out, MessageType.PointFeatureBatch);
+    NcStream.writeVInt(out, data.length);
+    out.write(data);
+  }
 }
@@ -9,7 +9,9 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Formatter;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import ucar.ma2.StructureData;
 import ucar.ma2.StructureDataFactory;
 import ucar.ma2.StructureDataIterator;
@@ -168,6 +170,16 @@ public class NestedTable {
     return extras;
   }
 
+  String getLocation() {
+    return ds.getLocation();
+  }
+
+  // The dataset is not thread safe, so reads that may happen while a collection is iterated from several threads,
+  // as in a parallel stream, synchronize on this.
+  Object getReadLock() {
+    return ds;
+  }
+
   private void addExtraVariable(Variable v) {
     if (v == null)
       return;
@@ -655,8 +667,10 @@ public class NestedTable {
     if (t.extraJoins != null) {
       List<StructureData> sdata = new ArrayList<>(3);
       sdata.add(cursor.tableData[level]);
-      for (Join j : t.extraJoins) {
-        sdata.add(j.getJoinData(cursor));
+      synchronized (getReadLock()) {
+        for (Join j : t.extraJoins) {
+          sdata.add(j.getJoinData(cursor));
+        }
       }
       cursor.tableData[level] = StructureDataFactory.make(sdata); // LOOK should try to consolidate
     }
@@ -678,7 +692,42 @@ public class NestedTable {
   //// Point
 
   public StructureDataIterator getObsDataIterator(Cursor cursor) throws IOException {
-    return root.getStructureDataIterator(cursor);
+    synchronized (getReadLock()) {
+      return root.getStructureDataIterator(cursor);
+    }
+  }
+
+  /**
+   * Iterate over the observations, reading only the given data variables and what is needed to make the
+   * point features from them.
+   *
+   * @param cursor the cursor
+   * @param varNames short names of the data variables, or null for all
+   */
+  public StructureDataIterator getObsDataIterator(Cursor cursor, List<String> varNames) throws IOException {
+    if (varNames == null)
+      return getObsDataIterator(cursor);
+    synchronized (getReadLock()) {
+      return root.getStructureDataIterator(cursor, getLeafColumns(varNames));
+    }
+  }
+
+  // The number of observations, if the point obs table can be read in record ranges, else -1.
+  int getNumberOfObs() {
+    if (root.getClass() != Table.TableStructure.class)
+      return -1;
+    return ((Table.TableStructure) root).getNumberOfRecords();
+  }
+
+  /**
+   * Iterate over a range of the observations of a point feature collection, for reading it in pieces.
+   *
+   * @param start the first record
+   * @param count the number of records
+   * @see #getNumberOfObs()
+   */
+  StructureDataIterator getObsDataIterator(int start, int count) {
+    return ((Table.TableStructure) root).getStructureDataIterator(start, count);
   }
 
   //// Station or Station_Profile
@@ -701,7 +750,42 @@ public class NestedTable {
   }
 
   public StructureDataIterator getLeafFeatureDataIterator(Cursor cursor) throws IOException {
-    return leaf.getStructureDataIterator(cursor);
+    synchronized (getReadLock()) { // some tables read all of the feature here
+      return leaf.getStructureDataIterator(cursor);
+    }
+  }
+
+  /**
+   * Iterate over the observations of a feature, reading only the given data variables and what is needed to make
+   * the point features from them.
+   *
+   * @param cursor the cursor
+   * @param varNames short names of the data variables, or null for all
+   */
+  public StructureDataIterator getLeafFeatureDataIterator(Cursor cursor, List<String> varNames) throws IOException {
+    if (varNames == null)
+      return getLeafFeatureDataIterator(cursor);
+    synchronized (getReadLock()) {
+      return leaf.getStructureDataIterator(cursor, getLeafColumns(varNames));
+    }
+  }
+
+  // the wanted variables, plus the coordinates, links and join keys used from the leaf table
+  Set<String> getLeafColumns(List<String> varNames) {
+    Set<String> result = new HashSet<>(varNames);
+    result.addAll(leaf.nondataVars);
+    for (CoordVarExtractor cve : new CoordVarExtractor[] {timeVE, nomTimeVE, latVE, lonVE, altVE, stnVE, stnDescVE,
+        wmoVE, stnAltVE, idVE, missingVE}) {
+      if (cve != null && cve.nestingLevel == 0)
+        result.add(cve.memberName);
+    }
+    if (leaf.extraJoins != null) {
+      for (Join j : leaf.extraJoins) {
+        if (j instanceof JoinParentIndex)
+          result.add(((JoinParentIndex) j).parentIndex);
+      }
+    }
+    return result;
   }
 
   public StructureDataIterator getMiddleFeatureDataIterator(Cursor cursor) throws IOException {
@@ -0,0 +1,346 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.nc2.ft.point.standard;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import ucar.ma2.StructureData;
+import ucar.ma2.StructureDataIterator;
+import ucar.nc2.Structure;
+import ucar.nc2.time.CalendarDateRange;
+import ucar.nc2.time.CalendarDateUnit;
+import ucar.nc2.util.DiskCache2;
+
+/**
+ * An optional sidecar index of the observations of each station in a NestedTable, so that a time subset only reads
+ * the observation records that may be in the time range.
+ * <p>
+ * For each station, the index has the record numbers of its observations in the leaf Structure, in the order the
+ * observations are iterated, and the earliest and latest observation time of each block of BLOCK_SIZE observations.
+ * A time subset reads only the blocks that overlap the time range; the observations still go through the usual
+ * time filter, so the results are the same as without the index.
+ * <p>
+ * The index is written to a file named after the data file with suffix ".obsx", next to it if that directory is
+ * writeable, else in the {@link DiskCache2}. It records the length and last modified time of the data file, and is
+ * rebuilt when either changes. Indexing is off by default; turn it on with {@link #setEnabled(boolean)}.
+ * It is only used for station time series whose observations are in a ragged contiguous, ragged indexed, parent id
+ * or linked list table of a local file.
+ *
+ * @since 5.5.4
+ */
+public class ObsTimeIndex {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ObsTimeIndex.class);
+
+  public static final String SUFFIX = ".obsx";
+  static final int MAGIC = 0x4f425358; // "OBSX"
+  static final int VERSION = 1;
+  static final int BLOCK_SIZE = 64;
+
+  private static boolean enabled;
+  private static DiskCache2 diskCache;
+
+  /** Turn the use of sidecar indexes on or off for collections opened after this call. Default is off. */
+  public static synchronized void setEnabled(boolean enable) {
+    enabled = enable;
+  }
+
+  public static synchronized boolean isEnabled() {
+    return enabled;
+  }
+
+  /** Where to put the index files when the data directory is not writeable. */
+  public static synchronized void setDiskCache2(DiskCache2 dc) {
+    diskCache = dc;
+  }
+
+  public static synchronized DiskCache2 getDiskCache2() {
+    if (diskCache == null)
+      diskCache = DiskCache2.getDefault();
+    return diskCache;
+  }
+
+  /**
+   * Open the index for this table, reading it if it exists and is up to date, else building and writing it.
+   *
+   * @param ft the station table.
+   * @param timeUnit convert the observation times with this.
+   * @return the index, or null if indexing is disabled or does not apply to this table.
+   */
+  @Nullable
+  static ObsTimeIndex open(NestedTable ft, CalendarDateUnit timeUnit) throws IOException {
+    if (!isEnabled() || timeUnit == null)
+      return null;
+    Structure leafStruct = getLeafStructure(ft);
+    String location = ft.getLocation();
+    if (leafStruct == null || location == null)
+      return null;
+    if (location.startsWith("file:"))
+      location = location.substring(5);
+    File source = new File(location);
+    if (!source.isFile())
+      return null;
+
+    String indexLocation = source.getPath() + SUFFIX;
+    File indexFile = getDiskCache2().getExistingFileOrCache(indexLocation);
+    if (indexFile != null) {
+      try {
+        ObsTimeIndex index = read(indexFile, source, ft.getName());
+        if (index != null)
+          return index;
+      } catch (IOException e) {
+        logger.warn("Rebuild bad index {}: {}", indexFile.getPath(), e.getMessage());
+      }
+    }
+
+    ObsTimeIndex index = build(ft, timeUnit, source);
+    File writeTo = getDiskCache2().getFile(indexLocation);
+    try {
+      index.write(writeTo);
+    } catch (IOException e) {
+      logger.warn("Cant write index {}: {}", writeTo.getPath(), e.getMessage());
+    }
+    return index;
+  }
+
+  // The leaf Structure, if the leaf table reads its records by record number from it
+  @Nullable
+  static Structure getLeafStructure(NestedTable ft) {
+    Table leaf = ft.getLeaf();
+    if (leaf instanceof Table.TableContiguous || leaf instanceof Table.TableParentIndex
+        || leaf instanceof Table.TableParentId || leaf instanceof Table.TableLinkedList)
+      return ((Table.TableStructure) leaf).struct;
+    return null;
+  }
+
+  // The leaf Structure with only the given data variables and the ones needed to make the point features
+  @Nullable
+  static Structure getLeafStructure(NestedTable ft, @Nullable List<String> varNames) {
+    Structure leafStruct = getLeafStructure(ft);
+    if (leafStruct == null || varNames == null)
+      return leafStruct;
+    return ((Table.TableStructure) ft.getLeaf()).project(ft.getLeafColumns(varNames));
+  }
+
+  ////////////////////////////////////////////////////////////////
+
+  // the observations of one station
+  private static class Obs {
+    final int[] recnos; // in iteration order
+    final long[] minTime, maxTime; // millis, for each block of BLOCK_SIZE recnos
+
+    Obs(int[] recnos, long[] minTime, long[] maxTime) {
+      this.recnos = recnos;
+      this.minTime = minTime;
+      this.maxTime = maxTime;
+    }
+  }
+
+  private final long sourceLength, sourceLastModified;
+  private final String tableName;
+  private final Map<Integer, Obs> stations; // keyed by station recnum
+
+  private ObsTimeIndex(long sourceLength, long sourceLastModified, String tableName, Map<Integer, Obs> stations) {
+    this.sourceLength = sourceLength;
+    this.sourceLastModified = sourceLastModified;
+    this.tableName = tableName;
+    this.stations = stations;
+  }
+
+  /** Is the station with this record number in the station table indexed? */
+  public boolean contains(int stationRecnum) {
+    return stations.containsKey(stationRecnum);
+  }
+
+  /**
+   * The record numbers of the observations of a station that may be in the date range, in iteration order.
+   *
+   * @param stationRecnum record number of the station in the station table.
+   * @param dateRange the date range.
+   * @return the record numbers in the leaf Structure, or null if the station is not indexed.
+   */
+  @Nullable
+  public List<Integer> getRecnums(int stationRecnum, CalendarDateRange dateRange) {
+    Obs obs = stations.get(stationRecnum);
+    if (obs == null)
+      return null;
+    long start = dateRange.getStart().getMillis();
+    long end = dateRange.getEnd().getMillis();
+
+    List<Integer> result = new ArrayList<>();
+    for (int block = 0; block < obs.minTime.length; block++) {
+      if (obs.maxTime[block] < start || obs.minTime[block] > end)
+        continue;
+      int first = block * BLOCK_SIZE;
+      int last = Math.min(first + BLOCK_SIZE, obs.recnos.length);
+      for (int i = first; i < last; i++)
+        result.add(obs.recnos[i]);
+    }
+    return result;
+  }
+
+  ////////////////////////////////////////////////////////////////
+
+  static ObsTimeIndex build(NestedTable ft, CalendarDateUnit timeUnit, File source) throws IOException {
+    // get these before reading, so a change while reading invalidates the index
+    long length = source.length();
+    long lastModified = source.lastModified();
+    Map<Integer, Obs> stations = new HashMap<>();
+
+    try (StructureDataIterator siter = ft.getStationDataIterator()) {
+      while (siter.hasNext()) {
+        StructureData stationData = siter.next();
+        int stationRecnum = siter.getCurrentRecno();
+
+        // same as StandardStationCollectionImpl
+        Cursor cursor = new Cursor(ft.getNumberOfLevels());
+        cursor.recnum[1] = stationRecnum;
+        cursor.tableData[1] = stationData;
+        cursor.currentIndex = 1;
+        ft.addParentJoin(cursor);
+
+        stations.put(stationRecnum, readObs(ft, timeUnit, cursor));
+      }
+    }
+    return new ObsTimeIndex(length, lastModified, ft.getName(), stations);
+  }
+
+  private static Obs readObs(NestedTable ft, CalendarDateUnit timeUnit, Cursor cursor) throws IOException {
+    int[] recnos = new int[BLOCK_SIZE];
+    long[] minTime = new long[1];
+    long[] maxTime = new long[1];
+    int count = 0;
+
+    try (StructureDataIterator obsIter = ft.getLeafFeatureDataIterator(cursor)) {
+      while (obsIter.hasNext()) {
+        StructureData sdata = obsIter.next();
+        // same as StandardPointFeatureIterator
+        cursor.recnum[0] = obsIter.getCurrentRecno();
+        cursor.tableData[0] = sdata;
+        cursor.currentIndex = 0;
+        ft.addParentJoin(cursor);
+
+        int block = count / BLOCK_SIZE;
+        if (count == recnos.length)
+          recnos = Arrays.copyOf(recnos, 2 * count);
+        if (block == minTime.length) {
+          minTime = Arrays.copyOf(minTime, 2 * block);
+          maxTime = Arrays.copyOf(maxTime, 2 * block);
+        }
+        if (count % BLOCK_SIZE == 0) {
+          minTime[block] = Long.MAX_VALUE;
+          maxTime[block] = Long.MIN_VALUE;
+        }
+        recnos[count++] = cursor.recnum[0];
+
+        // missing observations are skipped by the iterator, so they dont extend the block
+        if (ft.isTimeMissing(cursor) || ft.isMissing(cursor))
+          continue;
+        double obsTime = ft.getObsTime(cursor);
+        if (Double.isNaN(obsTime))
+          continue;
+        long millis = timeUnit.makeCalendarDate(obsTime).getMillis();
+        minTime[block] = Math.min(minTime[block], millis);
+        maxTime[block] = Math.max(maxTime[block], millis);
+      }
+    }
+
+    int nblocks = (count + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    return new Obs(Arrays.copyOf(recnos, count), Arrays.copyOf(minTime, nblocks), Arrays.copyOf(maxTime, nblocks));
+  }
+
+  ////////////////////////////////////////////////////////////////
+
+  // Read the index, or return null if it is for another table or the source has changed
+  @Nullable
+  static ObsTimeIndex read(File indexFile, File source, String tableName) throws IOException {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readInt() != BLOCK_SIZE)
+        return null;
+      long length = in.readLong();
+      long lastModified = in.readLong();
+      String name = in.readUTF();
+      if (length != source.length() || lastModified != source.lastModified() || !name.equals(tableName))
+        return null;
+
+      int nstations = in.readInt();
+      Map<Integer, Obs> stations = new HashMap<>(2 * nstations);
+      for (int s = 0; s < nstations; s++) {
+        int stationRecnum = in.readInt();
+        int[] recnos = new int[in.readInt()];
+        for (int i = 0; i < recnos.length; i++)
+          recnos[i] = in.readInt();
+        int nblocks = (recnos.length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        long[] minTime = new long[nblocks];
+        long[] maxTime = new long[nblocks];
+        for (int b = 0; b < nblocks; b++) {
+          minTime[b] = in.readLong();
+          maxTime[b] = in.readLong();
+        }
+        stations.put(stationRecnum, new Obs(recnos, minTime, maxTime));
+      }
+      return new ObsTimeIndex(length, lastModified, name, stations);
+    }
+  }
+
+  // Write to a temporary file and then move it, so readers never see a partial index.
+  // The temporary file has a unique name, so concurrent writers of the same index do not clobber each other.
+  void write(File indexFile) throws IOException {
+    File tmp = File.createTempFile(indexFile.getName(), ".tmp", indexFile.getAbsoluteFile().getParentFile());
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(BLOCK_SIZE);
+      out.writeLong(sourceLength);
+      out.writeLong(sourceLastModified);
+      out.writeUTF(tableName);
+      out.writeInt(stations.size());
+      for (Map.Entry<Integer, Obs> entry : stations.entrySet()) {
+        Obs obs = entry.getValue();
+        out.writeInt(entry.getKey());
+        out.writeInt(obs.recnos.length);
+        for (int recno : obs.recnos)
+          out.writeInt(recno);
+        for (int b = 0; b < obs.minTime.length; b++) {
+          out.writeLong(obs.minTime[b]);
+          out.writeLong(obs.maxTime[b]);
+        }
+      }
+    } catch (IOException e) {
+      Files.deleteIfExists(tmp.toPath());
+      throw e;
+    }
+    try {
+      try {
+        Files.move(tmp.toPath(), indexFile.toPath(), StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tmp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException e) {
+      Files.deleteIfExists(tmp.toPath());
+      throw e;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "ObsTimeIndex{" + tableName + ", nstations=" + stations.size() + '}';
+  }
+}
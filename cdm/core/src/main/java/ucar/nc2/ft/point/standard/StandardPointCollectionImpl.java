@@ -6,6 +6,14 @@
 package ucar.nc2.ft.point.standard;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import ucar.nc2.ft.PointFeature;
 import ucar.nc2.ft.PointFeatureIterator;
 import ucar.nc2.ft.point.PointCollectionImpl;
 import ucar.nc2.time.CalendarDateUnit;
@@ -33,4 +41,111 @@ public class StandardPointCollectionImpl extends PointCollectionImpl {
     return new StandardPointFeatureIterator(this, ft, timeUnit, ft.getObsDataIterator(tableData), tableData);
   }
 
+  @Override
+  public PointFeatureIterator getPointFeatureIterator(List<String> varNames) throws IOException {
+    Cursor tableData = new Cursor(ft.getNumberOfLevels());
+    return new StandardPointFeatureIterator(this, ft, timeUnit, ft.getObsDataIterator(tableData, varNames),
+        tableData);
+  }
+
+  // A one dimensional obs table is split into record ranges, so a parallel stream reads each on its own thread.
+  @Override
+  public Spliterator<PointFeature> spliterator() {
+    int nobs = ft.getNumberOfObs();
+    if (nobs < 0)
+      return super.spliterator();
+    getInfo(); // dont let the parts race to make it
+    return new ObsSpliterator(0, nobs, new ConcurrentLinkedQueue<>());
+  }
+
+  @Override
+  public Stream<PointFeature> stream() {
+    return stream(false);
+  }
+
+  @Override
+  public Stream<PointFeature> parallelStream() {
+    return stream(true);
+  }
+
+  // Closing the stream closes the record ranges that were not read to the end.
+  private Stream<PointFeature> stream(boolean parallel) {
+    int nobs = ft.getNumberOfObs();
+    if (nobs < 0)
+      return StreamSupport.stream(super.spliterator(), parallel);
+    getInfo();
+    Queue<PointFeatureIterator> opened = new ConcurrentLinkedQueue<>();
+    return StreamSupport.stream(new ObsSpliterator(0, nobs, opened), parallel)
+        .onClose(() -> opened.forEach(PointFeatureIterator::close));
+  }
+
+  // the obs records [start, end)
+  private class ObsSpliterator implements Spliterator<PointFeature> {
+    private static final int MIN_SPLIT = 1000; // records
+
+    private int start;
+    private final int end;
+    private final Queue<PointFeatureIterator> opened; // shared by the parts of one spliterator
+    private PointFeatureIterator iter;
+    private boolean done;
+    private long estimate;
+
+    ObsSpliterator(int start, int end, Queue<PointFeatureIterator> opened) {
+      this.start = start;
+      this.end = end;
+      this.opened = opened;
+      this.estimate = end - start;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super PointFeature> action) {
+      if (done)
+        return false;
+      if (iter == null) {
+        if (start >= end) {
+          done = true;
+          return false;
+        }
+        Cursor cursor = new Cursor(ft.getNumberOfLevels());
+        StandardPointFeatureIterator siter = new StandardPointFeatureIterator(StandardPointCollectionImpl.this, ft,
+            timeUnit, ft.getObsDataIterator(start, end - start), cursor);
+        siter.setCalculateBounds(null); // a part cant set the bounds of the whole collection
+        iter = siter;
+        opened.add(iter);
+        start = end;
+      }
+      if (!iter.hasNext()) {
+        iter.close();
+        opened.remove(iter);
+        done = true;
+        return false;
+      }
+      action.accept(iter.next());
+      if (estimate > 0)
+        estimate--;
+      return true;
+    }
+
+    @Override
+    public Spliterator<PointFeature> trySplit() {
+      if (iter != null || end - start < 2 * MIN_SPLIT)
+        return null;
+      int mid = start + (end - start) / 2;
+      ObsSpliterator prefix = new ObsSpliterator(start, mid, opened);
+      start = mid;
+      estimate = end - start;
+      return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+      return estimate; // missing records are skipped, so not exact
+    }
+
+    @Override
+    public int characteristics() {
+      return ORDERED | NONNULL;
+    }
+  }
+
 }
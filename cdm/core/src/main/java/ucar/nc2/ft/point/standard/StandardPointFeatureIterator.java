@@ -43,6 +43,14 @@ public class StandardPointFeatureIterator extends PointIteratorFromStructureData
       setCalculateBounds(info);
   }
 
+  // reads are serialized, so that different features of a collection may be iterated on different threads
+  @Override
+  public boolean hasNext() {
+    synchronized (ft.getReadLock()) {
+      return super.hasNext();
+    }
+  }
+
   @Override
   protected PointFeature makeFeature(int recnum, StructureData sdata) throws IOException {
     cursor.recnum[0] = recnum;
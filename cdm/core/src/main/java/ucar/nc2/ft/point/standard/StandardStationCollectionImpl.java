@@ -6,16 +6,24 @@
 package ucar.nc2.ft.point.standard;
 
 import java.io.IOException;
+import java.util.List;
 import javax.annotation.Nonnull;
 import ucar.ma2.StructureData;
 import ucar.ma2.StructureDataIterator;
+import ucar.nc2.VariableSimpleIF;
+import ucar.nc2.ft.PointFeatureCollection;
 import ucar.nc2.ft.PointFeatureIterator;
 import ucar.nc2.ft.StationTimeSeriesFeature;
+import ucar.nc2.ft.point.PointIteratorFiltered;
 import ucar.nc2.ft.point.StationFeature;
 import ucar.nc2.ft.point.StationHelper;
+import ucar.nc2.ft.point.StationTimeSeriesCollectionFlattened;
 import ucar.nc2.ft.point.StationTimeSeriesCollectionImpl;
 import ucar.nc2.ft.point.StationTimeSeriesFeatureImpl;
+import ucar.nc2.ft.point.StructureDataIteratorIndexed;
+import ucar.nc2.time.CalendarDateRange;
 import ucar.nc2.time.CalendarDateUnit;
+import ucar.unidata.geoloc.LatLonRect;
 
 /**
  * Object Heirarchy for StationFeatureCollection:
@@ -29,7 +37,11 @@ import ucar.nc2.time.CalendarDateUnit;
  * @since Mar 28, 2008
  */
 public class StandardStationCollectionImpl extends StationTimeSeriesCollectionImpl {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(StandardStationCollectionImpl.class);
+
   private NestedTable ft;
+  private volatile ObsTimeIndex obsIndex;
+  private volatile boolean obsIndexOpened;
 
   StandardStationCollectionImpl(NestedTable ft, CalendarDateUnit timeUnit, String altUnits) {
     super(ft.getName(), timeUnit, altUnits);
@@ -68,6 +80,45 @@ public class StandardStationCollectionImpl extends StationTimeSeriesCollectionIm
     return stationHelper;
   }
 
+  // The sidecar index, or null if not enabled, it does not apply to this collection, or it could not be built.
+  private ObsTimeIndex getObsTimeIndex() {
+    if (!obsIndexOpened) {
+      synchronized (this) {
+        if (!obsIndexOpened) {
+          try {
+            obsIndex = ObsTimeIndex.open(ft, timeUnit);
+          } catch (IOException e) {
+            logger.warn("Cant make observation time index for {}: {}", ft.getLocation(), e.getMessage());
+          }
+          obsIndexOpened = true;
+        }
+      }
+    }
+    return obsIndex;
+  }
+
+  // With an index, flatten through the time subset of each station so only the indexed records are read.
+
+  @Override
+  public PointFeatureCollection flatten(List<String> stationNames, CalendarDateRange dateRange,
+      List<VariableSimpleIF> varList) {
+    if (dateRange == null || getObsTimeIndex() == null)
+      return super.flatten(stationNames, dateRange, varList);
+    List<StationFeature> stations =
+        (stationNames == null || stationNames.isEmpty()) ? getStationFeatures() : getStationFeatures(stationNames);
+    return new StationTimeSeriesCollectionFlattened((StationTimeSeriesCollectionImpl) subset(stations, dateRange),
+        dateRange);
+  }
+
+  @Override
+  public PointFeatureCollection flatten(LatLonRect boundingBox, CalendarDateRange dateRange) throws IOException {
+    if (dateRange == null || getObsTimeIndex() == null)
+      return super.flatten(boundingBox, dateRange);
+    List<StationFeature> stations = (boundingBox == null) ? getStationFeatures() : getStationFeatures(boundingBox);
+    return new StationTimeSeriesCollectionFlattened((StationTimeSeriesCollectionImpl) subset(stations, dateRange),
+        dateRange);
+  }
+
   private class StandardStationFeatureImpl extends StationTimeSeriesFeatureImpl {
     int recnum;
     StructureData stationData;
@@ -82,14 +133,35 @@ public class StandardStationCollectionImpl extends StationTimeSeriesCollectionIm
 
     @Override
     public PointFeatureIterator getPointFeatureIterator() throws IOException {
+      Cursor cursor = makeCursor();
+      StructureDataIterator obsIter = ft.getLeafFeatureDataIterator(cursor);
+      return new StandardPointFeatureIterator(this, ft, timeUnit, obsIter, cursor);
+    }
+
+    @Override
+    public PointFeatureIterator getPointFeatureIterator(List<String> varNames) throws IOException {
+      Cursor cursor = makeCursor();
+      StructureDataIterator obsIter = ft.getLeafFeatureDataIterator(cursor, varNames);
+      return new StandardPointFeatureIterator(this, ft, timeUnit, obsIter, cursor);
+    }
+
+    private Cursor makeCursor() {
       Cursor cursor = new Cursor(ft.getNumberOfLevels());
       cursor.recnum[1] = recnum;
       cursor.tableData[1] = stationData;
       cursor.currentIndex = 1;
       ft.addParentJoin(cursor); // there may be parent joins
+      return cursor;
+    }
 
-      StructureDataIterator obsIter = ft.getLeafFeatureDataIterator(cursor);
-      return new StandardPointFeatureIterator(this, ft, timeUnit, obsIter, cursor);
+    @Override
+    public StationTimeSeriesFeature subset(CalendarDateRange dateRange) {
+      if (dateRange == null)
+        return this;
+      ObsTimeIndex index = getObsTimeIndex();
+      if (index == null || !index.contains(recnum))
+        return super.subset(dateRange);
+      return new IndexedStationFeatureSubset(this, s, dateRange, index.getRecnums(recnum, dateRange));
     }
 
     @Nonnull
@@ -99,4 +171,39 @@ public class StandardStationCollectionImpl extends StationTimeSeriesCollectionIm
     }
 
   }
+
+  // a time subset of a station that only reads the observations that the index says may be in the date range
+  private class IndexedStationFeatureSubset extends StationTimeSeriesFeatureImpl {
+    private final StandardStationFeatureImpl from;
+    private final CalendarDateRange dateRange;
+    private final List<Integer> recnums;
+
+    IndexedStationFeatureSubset(StandardStationFeatureImpl from, StationFeature s, CalendarDateRange dateRange,
+        List<Integer> recnums) {
+      super(s, from.getTimeUnit(), from.getAltUnits(), -1);
+      this.from = from;
+      this.dateRange = dateRange;
+      this.recnums = recnums;
+    }
+
+    @Override
+    public PointFeatureIterator getPointFeatureIterator() throws IOException {
+      return getPointFeatureIterator(null);
+    }
+
+    @Override
+    public PointFeatureIterator getPointFeatureIterator(List<String> varNames) throws IOException {
+      Cursor cursor = from.makeCursor();
+      StructureDataIterator obsIter =
+          new StructureDataIteratorIndexed(ObsTimeIndex.getLeafStructure(ft, varNames), recnums);
+      return new PointIteratorFiltered(new StandardPointFeatureIterator(this, ft, timeUnit, obsIter, cursor), null,
+          dateRange);
+    }
+
+    @Nonnull
+    @Override
+    public StructureData getFeatureData() {
+      return from.stationData;
+    }
+  }
 }
@@ -7,6 +7,7 @@ package ucar.nc2.ft.point.standard;
 
 import java.io.IOException;
 import java.util.Iterator;
+import java.util.List;
 import javax.annotation.Nonnull;
 import ucar.ma2.StructureData;
 import ucar.ma2.StructureDataIterator;
@@ -70,6 +71,13 @@ public class StandardTrajectoryCollectionImpl extends PointFeatureCCImpl impleme
       return new StandardPointFeatureIterator(this, ft, timeUnit, siter, cursorIter);
     }
 
+    @Override
+    public PointFeatureIterator getPointFeatureIterator(List<String> varNames) throws IOException {
+      Cursor cursorIter = cursor.copy();
+      StructureDataIterator siter = ft.getLeafFeatureDataIterator(cursorIter, varNames);
+      return new StandardPointFeatureIterator(this, ft, timeUnit, siter, cursorIter);
+    }
+
     @Nonnull
     @Override
     public StructureData getFeatureData() {
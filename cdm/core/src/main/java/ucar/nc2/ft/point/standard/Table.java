@@ -14,6 +14,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import ucar.ma2.Array;
 import ucar.ma2.ArrayChar;
 import ucar.ma2.ArraySequence;
@@ -206,6 +208,19 @@ public abstract class Table {
    */
   public abstract StructureDataIterator getStructureDataIterator(Cursor cursor) throws IOException;
 
+  /**
+   * Iterate over the rows of this table, reading only some of the columns.
+   * The rows have at least these columns, and may have others. The default reads all the columns.
+   *
+   * @param cursor state of comlpete iteration. Table implementations may not modify.
+   * @param columns names of the columns to read. Names that are not columns of this table are ignored.
+   * @return iterater over the rows of this table.
+   * @throws IOException on read error
+   */
+  public StructureDataIterator getStructureDataIterator(Cursor cursor, Set<String> columns) throws IOException {
+    return getStructureDataIterator(cursor);
+  }
+
   String findCoordinateVariableName(CoordName coordName) {
     switch (coordName) {
       case Elev:
@@ -262,6 +277,7 @@ public abstract class Table {
     StructureDS struct;
     Dimension dim, outer;
     TableConfig.StructureType stype;
+    private final Map<Set<String>, StructureDS> projections = new ConcurrentHashMap<>();
 
     TableStructure(NetcdfDataset ds, TableConfig config) {
       super(ds, config);
@@ -333,6 +349,43 @@ public abstract class Table {
       return new StructureDataIteratorMediated(struct.getStructureIterator(), new RestrictToColumns());
     }
 
+    // the projected struct has only columns, so it doesnt need to be restricted
+    @Override
+    public StructureDataIterator getStructureDataIterator(Cursor cursor, Set<String> columns) throws IOException {
+      return project(columns).getStructureIterator();
+    }
+
+    // the number of records, if struct is one dimensional, else -1
+    int getNumberOfRecords() {
+      return struct.getRank() == 1 ? (int) struct.getSize() : -1;
+    }
+
+    // the records [start, start + count) of a one dimensional struct, read in blocks
+    StructureDataIterator getStructureDataIterator(int start, int count) {
+      return new StructureDataIteratorMediated(new StructureDataIteratorLinked(struct, start, count, null),
+          new RestrictToColumns());
+    }
+
+    /**
+     * A subset of struct with only the given members, so that only those are read.
+     * Pseudo structures then read only those variables, and more rows at a time.
+     *
+     * @param columns names of the members wanted, those that are not members are ignored.
+     * @return struct with just those members, or struct itself if that is all of them.
+     */
+    StructureDS project(Set<String> columns) {
+      return projections.computeIfAbsent(columns, c -> {
+        Set<String> members = new TreeSet<>();
+        for (String name : c) {
+          if (struct.findVariable(name) != null)
+            members.add(name);
+        }
+        if (members.size() == struct.getNumberOfMemberVariables())
+          return struct;
+        return (StructureDS) struct.select(new ArrayList<>(members));
+      });
+    }
+
     @Override
     public String getName() {
       return stype + "(" + struct.getShortName() + ")";
@@ -492,6 +545,15 @@ public abstract class Table {
 
     @Override
     public StructureDataIterator getStructureDataIterator(Cursor cursor) {
+      return getStructureDataIterator(cursor, struct);
+    }
+
+    @Override
+    public StructureDataIterator getStructureDataIterator(Cursor cursor, Set<String> columns) {
+      return getStructureDataIterator(cursor, project(columns));
+    }
+
+    private StructureDataIterator getStructureDataIterator(Cursor cursor, StructureDS s) {
       if (!isInit)
         init();
 
@@ -505,7 +567,7 @@ public abstract class Table {
         firstRecno = parentStruct.getScalarInt(startVarName);
         numrecs = parentStruct.getScalarInt(numRecordsVarName);
       }
-      return new StructureDataIteratorLinked(struct, firstRecno, numrecs, null);
+      return new StructureDataIteratorLinked(s, firstRecno, numrecs, null);
     }
 
     @Override
@@ -560,11 +622,20 @@ public abstract class Table {
 
     @Override
     public StructureDataIterator getStructureDataIterator(Cursor cursor) {
+      return getStructureDataIterator(cursor, struct);
+    }
+
+    @Override
+    public StructureDataIterator getStructureDataIterator(Cursor cursor, Set<String> columns) {
+      return getStructureDataIterator(cursor, project(columns));
+    }
+
+    private StructureDataIterator getStructureDataIterator(Cursor cursor, StructureDS s) {
       int parentIndex = cursor.getParentRecnum();
       List<Integer> index = indexMap.get(parentIndex);
       if (index == null)
         index = new ArrayList<>();
-      return new StructureDataIteratorIndexed(struct, index);
+      return new StructureDataIteratorIndexed(s, index);
     }
 
     @Override
@@ -668,10 +739,19 @@ public abstract class Table {
 
     @Override
     public StructureDataIterator getStructureDataIterator(Cursor cursor) {
+      return getStructureDataIterator(cursor, struct);
+    }
+
+    @Override
+    public StructureDataIterator getStructureDataIterator(Cursor cursor, Set<String> columns) {
+      return getStructureDataIterator(cursor, project(columns));
+    }
+
+    private StructureDataIterator getStructureDataIterator(Cursor cursor, StructureDS s) {
       int parentIndex = cursor.getParentRecnum();
       ParentInfo info = indexMap[parentIndex];
       List<Integer> index = (info == null) ? new ArrayList<>() : info.recnumList;
-      return new StructureDataIteratorIndexed(struct, index);
+      return new StructureDataIteratorIndexed(s, index);
     }
 
     @Override
@@ -704,9 +784,18 @@ public abstract class Table {
 
     @Override
     public StructureDataIterator getStructureDataIterator(Cursor cursor) {
+      return getStructureDataIterator(cursor, struct);
+    }
+
+    @Override
+    public StructureDataIterator getStructureDataIterator(Cursor cursor, Set<String> columns) {
+      return getStructureDataIterator(cursor, project(columns));
+    }
+
+    private StructureDataIterator getStructureDataIterator(Cursor cursor, StructureDS s) {
       StructureData parentStruct = cursor.getParentStructure();
       int firstRecno = parentStruct.getScalarInt(start);
-      return new StructureDataIteratorLinked(struct, firstRecno, -1, next);
+      return new StructureDataIteratorLinked(s, firstRecno, -1, next);
     }
 
     @Override
@@ -935,6 +1024,12 @@ public abstract class Table {
       }
     }
 
+    // the children are made from all the columns of the parent row
+    @Override
+    public StructureDataIterator getStructureDataIterator(Cursor cursor, Set<String> columns) throws IOException {
+      return getStructureDataIterator(cursor);
+    }
+
     @Override
     public String getName() {
       return "MultidimPseudo(" + outer.getShortName() + "," + inner.getShortName() + ")";
@@ -989,6 +1084,12 @@ public abstract class Table {
       }
     }
 
+    // the children are made from all the columns of the parent row
+    @Override
+    public StructureDataIterator getStructureDataIterator(Cursor cursor, Set<String> columns) throws IOException {
+      return getStructureDataIterator(cursor);
+    }
+
     @Override
     public String getName() {
       return "MultidimPsuedo(" + dim.getShortName() + "," + middle.getShortName() + "," + inner.getShortName() + ")";
@@ -1014,13 +1115,22 @@ public abstract class Table {
 
     @Override
     public StructureDataIterator getStructureDataIterator(Cursor cursor) throws IOException {
+      return getStructureDataIterator(cursor, struct);
+    }
+
+    @Override
+    public StructureDataIterator getStructureDataIterator(Cursor cursor, Set<String> columns) throws IOException {
+      return getStructureDataIterator(cursor, project(columns));
+    }
+
+    private StructureDataIterator getStructureDataIterator(Cursor cursor, StructureDS s) throws IOException {
       int recnum = cursor.getParentRecnum();
       try {
         Section.Builder sb = Section.builder().appendRange(recnum, recnum);
         int count = 1;
-        while (count++ < struct.getRank()) // handles multidim case
+        while (count++ < s.getRank()) // handles multidim case
           sb.appendRangeAll();
-        ArrayStructure data = (ArrayStructure) struct.read(sb.build()); // read all the data for a fixed outer index
+        ArrayStructure data = (ArrayStructure) s.read(sb.build()); // read all the data for a fixed outer index
         return data.getStructureDataIterator();
       } catch (InvalidRangeException e) {
         throw new IllegalStateException(e);
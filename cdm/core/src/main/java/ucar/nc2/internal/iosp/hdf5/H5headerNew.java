@@ -5,6 +5,8 @@
 
 package ucar.nc2.internal.iosp.hdf5;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
@@ -45,6 +47,7 @@ import ucar.nc2.Structure;
 import ucar.nc2.Variable;
 import ucar.nc2.constants.CDM;
 import ucar.nc2.filter.Filter;
+import ucar.nc2.filter.Filters;
 import ucar.nc2.internal.iosp.hdf4.HdfEos;
 import ucar.nc2.internal.iosp.hdf4.HdfHeaderIF;
 import ucar.nc2.internal.iosp.hdf5.H5objects.DataObject;
@@ -1728,6 +1731,81 @@ public class H5headerNew implements H5headerIF, HdfHeaderIF {
         btree.setOwner(owner);
     }
 
+    // only for atomic types, see canCacheHeader()
+    void writeState(DataOutputStream out) throws IOException {
+      out.writeLong(dataPos);
+      out.writeInt(typeInfo.hdfType);
+      out.writeInt(typeInfo.byteSize);
+      out.writeUTF(typeInfo.dataType.name());
+      out.writeInt(typeInfo.endian);
+      out.writeBoolean(typeInfo.unsigned);
+      out.writeInt(typeInfo.vpad);
+      writeInts(out, storageSize);
+
+      out.writeBoolean(isChunked);
+      if (isChunked) {
+        out.writeLong(btree.getRootNodeAddress());
+        writeInts(out, btree.getVarShape());
+      }
+
+      H5objects.Filter[] filters = (mfp == null) ? null : mfp.getFilters();
+      out.writeInt(filters == null ? -1 : filters.length);
+      if (filters != null) {
+        for (H5objects.Filter filter : filters) {
+          Map<String, Object> props = filter.getProperties();
+          out.writeShort((Short) props.get(Filters.Keys.ID));
+          out.writeBoolean((Boolean) props.get(Filters.Keys.OPTIONAL));
+          Object name = props.get(Filters.Keys.NAME);
+          out.writeBoolean(name != null);
+          if (name != null)
+            out.writeUTF(name.toString());
+          writeInts(out, (int[]) props.get(Filters.Keys.DATA));
+        }
+      }
+
+      out.writeBoolean(useFillValue);
+      out.writeInt(fillValue == null ? -1 : fillValue.length);
+      if (fillValue != null)
+        out.write(fillValue);
+    }
+
+    void readState(DataInputStream in) throws IOException {
+      dataPos = in.readLong();
+      typeInfo = new TypeInfo(in.readInt(), in.readInt());
+      typeInfo.dataType = DataType.valueOf(in.readUTF());
+      typeInfo.endian = in.readInt();
+      typeInfo.unsigned = in.readBoolean();
+      typeInfo.vpad = in.readInt();
+      storageSize = readInts(in);
+
+      isChunked = in.readBoolean();
+      if (isChunked) {
+        long btreeAddress = in.readLong();
+        btree = new DataBTree(H5headerNew.this, btreeAddress, readInts(in), storageSize, memTracker);
+      }
+
+      int nfilters = in.readInt();
+      if (nfilters >= 0) {
+        mfp = h5objects.new MessageFilter();
+        mfp.filters = new H5objects.Filter[nfilters];
+        for (int i = 0; i < nfilters; i++) {
+          Map<String, Object> props = new HashMap<>();
+          props.put(Filters.Keys.ID, in.readShort());
+          props.put(Filters.Keys.OPTIONAL, in.readBoolean());
+          props.put(Filters.Keys.NAME, in.readBoolean() ? in.readUTF() : null);
+          props.put(Filters.Keys.DATA, readInts(in));
+          mfp.filters[i] = h5objects.new Filter(props);
+        }
+      }
+
+      useFillValue = in.readBoolean();
+      int nfill = in.readInt();
+      if (nfill >= 0) {
+        fillValue = new byte[nfill];
+        in.readFully(fillValue);
+      }
+    }
+
     /*
      * TypeInfo getBaseType() {
      * MessageDatatype want = mdt;
@@ -2326,6 +2404,120 @@ public class H5headerNew implements H5headerIF, HdfHeaderIF {
     HdfEos.getEosInfo(raf.getLocation(), this, root, f);
   }
 
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  // header cache
+
+  /**
+   * Write the layout found by read(), for the header cache.
+   * Only files whose Variables all have atomic, non-vlen types can be cached.
+   *
+   * @param out write to this stream
+   * @param rootGroup root group of the opened file
+   * @return false if this file cannot be cached, in which case nothing was written.
+   * @throws IOException on write error
+   */
+  boolean writeHeaderState(DataOutputStream out, Group rootGroup) throws IOException {
+    if (!canCacheHeader(rootGroup))
+      return false;
+
+    out.writeLong(baseAddress);
+    out.writeByte(sizeOffsets);
+    out.writeByte(sizeLengths);
+    out.writeBoolean(isNetcdf4);
+    writeGroupState(out, rootGroup);
+    return true;
+  }
+
+  /**
+   * Restore the layout written by writeHeaderState(), instead of calling read().
+   *
+   * @param in read from this stream
+   * @throws IOException on read error, or if the state does not match the root Group
+   */
+  void readHeaderState(DataInputStream in) throws IOException {
+    h5objects = new H5objects(this, null, null);
+
+    baseAddress = in.readLong();
+    sizeOffsets = in.readByte();
+    isOffsetLong = (sizeOffsets == 8);
+    sizeLengths = in.readByte();
+    isLengthLong = (sizeLengths == 8);
+    isNetcdf4 = in.readBoolean();
+    readGroupState(in, root);
+  }
+
+  private boolean canCacheHeader(Group g) {
+    for (Variable v : g.getVariables()) {
+      if (v instanceof Structure || v.hasCachedData() || !(v.getSPobject() instanceof Vinfo))
+        return false;
+      Vinfo vinfo = (Vinfo) v.getSPobject();
+      TypeInfo typeInfo = vinfo.typeInfo;
+      if (typeInfo == null || typeInfo.base != null || typeInfo.isVlen || typeInfo.isVString || vinfo.isvlen)
+        return false;
+      // int, float, fixed length string, bitfield
+      if (typeInfo.hdfType != 0 && typeInfo.hdfType != 1 && typeInfo.hdfType != 3 && typeInfo.hdfType != 4)
+        return false;
+      if (vinfo.isChunked && vinfo.btree == null)
+        return false;
+    }
+    for (Group nested : g.getGroups()) {
+      if (!canCacheHeader(nested))
+        return false;
+    }
+    return true;
+  }
+
+  private void writeGroupState(DataOutputStream out, Group g) throws IOException {
+    out.writeInt(g.getVariables().size());
+    for (Variable v : g.getVariables()) {
+      out.writeUTF(v.getShortName());
+      ((Vinfo) v.getSPobject()).writeState(out);
+    }
+    out.writeInt(g.getGroups().size());
+    for (Group nested : g.getGroups()) {
+      out.writeUTF(nested.getShortName());
+      writeGroupState(out, nested);
+    }
+  }
+
+  private void readGroupState(DataInputStream in, Group.Builder g) throws IOException {
+    int nvars = in.readInt();
+    for (int i = 0; i < nvars; i++) {
+      String name = in.readUTF();
+      Variable.Builder<?> vb =
+          g.findVariableLocal(name).orElseThrow(() -> new IOException("Header cache has no variable " + name));
+      Vinfo vinfo = new Vinfo();
+      vinfo.readState(in);
+      vb.setSPobject(vinfo);
+      vinfo.setOwner(vb);
+    }
+    int ngroups = in.readInt();
+    for (int i = 0; i < ngroups; i++) {
+      String name = in.readUTF();
+      Group.Builder nested =
+          g.findGroupLocal(name).orElseThrow(() -> new IOException("Header cache has no group " + name));
+      readGroupState(in, nested);
+    }
+  }
+
+  private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+    out.writeInt(values == null ? -1 : values.length);
+    if (values != null) {
+      for (int value : values)
+        out.writeInt(value);
+    }
+  }
+
+  private static int[] readInts(DataInputStream in) throws IOException {
+    int n = in.readInt();
+    if (n < 0)
+      return null;
+    int[] values = new int[n];
+    for (int i = 0; i < n; i++)
+      values[i] = in.readInt();
+    return values;
+  }
+
   // debug - hdf5Table
   public List<DataObject> getDataObjects() {
     ArrayList<DataObject> result = new ArrayList<>(addressMap.values());
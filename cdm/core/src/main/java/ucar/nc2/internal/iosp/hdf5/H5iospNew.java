@@ -6,10 +6,17 @@ package ucar.nc2.internal.iosp.hdf5;
 
 import static ucar.nc2.NetcdfFile.IOSP_MESSAGE_GET_NETCDF_FILE_FORMAT;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 import ucar.ma2.Array;
 import ucar.ma2.ArrayStructure;
@@ -29,10 +36,14 @@ import ucar.nc2.Variable;
 import ucar.nc2.constants.DataFormatType;
 import ucar.nc2.internal.iosp.hdf4.HdfEos;
 import ucar.nc2.iosp.AbstractIOServiceProvider;
+import ucar.nc2.iosp.ConvertedDataReader;
+import ucar.nc2.iosp.DataConverter;
+import ucar.nc2.iosp.HeaderCacheable;
 import ucar.nc2.iosp.IospHelper;
 import ucar.nc2.iosp.Layout;
 import ucar.nc2.iosp.LayoutBB;
 import ucar.nc2.iosp.LayoutRegular;
+import ucar.nc2.iosp.MultiVariableReader;
 import ucar.nc2.iosp.netcdf3.N3iosp;
 import ucar.nc2.time.CalendarDate;
 import ucar.nc2.util.CancelTask;
@@ -45,7 +56,8 @@ import javax.annotation.Nullable;
  *
  * @author caron
  */
-public class H5iospNew extends AbstractIOServiceProvider {
+public class H5iospNew extends AbstractIOServiceProvider
+    implements HeaderCacheable, ConvertedDataReader, MultiVariableReader {
   public static final String IOSP_MESSAGE_INCLUDE_ORIGINAL_ATTRIBUTES = "IncludeOrgAttributes";
 
   public static final int VLEN_T_SIZE = 16; // Appears to be no way to compute on the fly.
@@ -133,6 +145,29 @@ public class H5iospNew extends AbstractIOServiceProvider {
     }
   }
 
+  @Override
+  public byte[] encodeHeaderState(Group root) throws IOException {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bos)) {
+      out.writeBoolean(isEos);
+      if (!header.writeHeaderState(out, root))
+        return null;
+    }
+    return bos.toByteArray();
+  }
+
+  @Override
+  public void buildFromHeaderState(RandomAccessFile raf, Group.Builder rootGroup, byte[] state) throws IOException {
+    super.open(raf, rootGroup.getNcfile(), null);
+
+    raf.order(RandomAccessFile.BIG_ENDIAN);
+    header = new H5headerNew(raf, rootGroup, this);
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(state))) {
+      isEos = in.readBoolean();
+      header.readHeaderState(in);
+    }
+  }
+
   @Override
   public Object sendIospMessage(Object message) {
     if (message instanceof Charset) {
@@ -200,6 +235,73 @@ public class H5iospNew extends AbstractIOServiceProvider {
     return readData(v2, vinfo.dataPos, section);
   }
 
+  @Override
+  @Nullable
+  public Array readConvertedData(Variable v2, Section section, DataConverter converter)
+      throws IOException, InvalidRangeException {
+    H5headerNew.Vinfo vinfo = (H5headerNew.Vinfo) v2.getSPobject();
+    H5headerNew.TypeInfo typeInfo = vinfo.typeInfo;
+    DataType dataType = v2.getDataType();
+    // only plain numbers
+    if (vinfo.useFillValue || !dataType.isNumeric() || typeInfo.isVlen || typeInfo.hdfType == 2 || typeInfo.hdfType == 8
+        || typeInfo.hdfType == 9) {
+      return null;
+    }
+
+    Object data;
+    if (vinfo.mfp != null) { // filtered
+      ByteOrder bo = (typeInfo.endian == 0) ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+      LayoutBB layout = new H5tiledLayoutBB(v2, section, raf, vinfo.mfp.getFilters(), bo);
+      data = IospHelper.readDataConverted(layout, dataType, vinfo.getFillValue(), converter);
+    } else {
+      Section wantSection = Section.fill(section, v2.getShape());
+      Layout layout = vinfo.isChunked ? new H5tiledLayout(vinfo, dataType, wantSection)
+          : new LayoutRegular(vinfo.dataPos, v2.getElementSize(), v2.getShape(), wantSection);
+      data = IospHelper.readDataConverted(raf, layout, dataType, vinfo.getFillValue(), typeInfo.endian, converter);
+    }
+    return Array.factory(converter.getConvertedType(), section.getShape(), data);
+  }
+
+  /**
+   * The small contiguous variables of plain numbers or chars, at most {@link IospHelper#coalesceMaxBytes}, are read
+   * together with {@link IospHelper#readDataCoalesced}. The others are left to be read one at a time.
+   */
+  @Override
+  public List<Array> readData(List<Variable> variables, List<Section> sections)
+      throws IOException, InvalidRangeException {
+    List<Array> result = new ArrayList<>(Collections.nCopies(variables.size(), null));
+    List<Integer> small = new ArrayList<>();
+    List<Layout> layouts = new ArrayList<>();
+    List<DataType> dataTypes = new ArrayList<>();
+    List<Integer> byteOrders = new ArrayList<>();
+    for (int i = 0; i < variables.size(); i++) {
+      Variable v = variables.get(i);
+      Section section = sections.get(i);
+      H5headerNew.Vinfo vinfo = (H5headerNew.Vinfo) v.getSPobject();
+      H5headerNew.TypeInfo typeInfo = vinfo.typeInfo;
+      DataType dataType = v.getDataType();
+      long nbytes = section.computeSize() * v.getElementSize();
+      if (vinfo.useFillValue || vinfo.mfp != null || vinfo.isChunked || typeInfo.isVlen || typeInfo.hdfType == 2
+          || typeInfo.hdfType == 8 || typeInfo.hdfType == 9 || !(dataType.isNumeric() || dataType == DataType.CHAR)
+          || nbytes <= 0 || nbytes > IospHelper.coalesceMaxBytes) {
+        continue;
+      }
+      small.add(i);
+      layouts.add(new LayoutRegular(vinfo.dataPos, v.getElementSize(), v.getShape(), section));
+      dataTypes.add(dataType);
+      byteOrders.add(typeInfo.endian);
+    }
+
+    if (small.size() > 1) {
+      List<Object> data = IospHelper.readDataCoalesced(raf, layouts, dataTypes, byteOrders);
+      for (int j = 0; j < small.size(); j++) {
+        int i = small.get(j);
+        result.set(i, Array.factory(dataTypes.get(j), sections.get(i).getShape(), data.get(j)));
+      }
+    }
+    return result;
+  }
+
   // all the work is here, so can be called recursively
   private Array readData(Variable v2, long dataPos, Section wantSection) throws IOException, InvalidRangeException {
     H5headerNew.Vinfo vinfo = (H5headerNew.Vinfo) v2.getSPobject();
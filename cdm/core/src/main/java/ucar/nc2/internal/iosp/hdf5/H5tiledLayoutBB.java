@@ -24,6 +24,7 @@ import ucar.nc2.iosp.LayoutBB;
 import ucar.nc2.iosp.LayoutBBTiled;
 import ucar.nc2.iosp.hdf5.DataBTree;
 import ucar.nc2.util.IO;
+import ucar.unidata.io.BufferPool;
 import ucar.unidata.io.RandomAccessFile;
 
 /**
@@ -218,12 +219,15 @@ public class H5tiledLayoutBB implements LayoutBB {
 
     public ByteBuffer getByteBuffer() throws IOException {
       try {
-        // read the data
-        byte[] data = new byte[delegate.size];
+        // read the data into a temporary buffer, which may be longer than the chunk
+        int size = delegate.size;
+        BufferPool pool = BufferPool.getDefault();
+        byte[] raw = pool.getBytes(size);
         raf.seek(delegate.filePos);
-        raf.readFully(data);
+        raf.readFully(raw, 0, size);
 
         // apply filters backwards
+        byte[] data = null;
         for (int i = filters.length - 1; i >= 0; i--) {
           Filter f = filters[i];
           if (isBitSet(delegate.filterMask, i)) {
@@ -232,10 +236,16 @@ public class H5tiledLayoutBB implements LayoutBB {
             }
             continue;
           }
-          data = f.decode(data);
+          data = (data == null) ? f.decode(raw, size) : f.decode(data);
         }
 
-        ByteBuffer result = ByteBuffer.wrap(data);
+        ByteBuffer result;
+        if (data == null) { // no filters were applied, the raw bytes are the data
+          result = ByteBuffer.wrap(raw, 0, size);
+        } else {
+          pool.release(raw);
+          result = ByteBuffer.wrap(data);
+        }
         result.order(byteOrder);
         return result;
       } catch (OutOfMemoryError e) {
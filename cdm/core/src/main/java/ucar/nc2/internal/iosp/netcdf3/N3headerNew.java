@@ -11,6 +11,8 @@ import ucar.nc2.*;
 import ucar.nc2.write.NetcdfFileFormat;
 import ucar.unidata.io.RandomAccessFile;
 import java.util.*;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 
 /**
@@ -332,6 +334,74 @@ public class N3headerNew {
     }
   }
 
+  /**
+   * Write the layout found by read(), for the header cache.
+   *
+   * @param out write to this stream
+   * @throws IOException on write error
+   */
+  void writeHeaderState(DataOutputStream out) throws IOException {
+    out.writeBoolean(useLongOffset);
+    out.writeBoolean(isStreaming);
+    out.writeInt(numrecs);
+    out.writeLong(recsize);
+    out.writeLong(recStart);
+    out.writeLong(nonRecordDataSize);
+    out.writeLong(dataStart);
+    out.writeInt(vars.size());
+    for (Vinfo vinfo : vars) {
+      out.writeUTF(vinfo.name);
+      out.writeLong(vinfo.vsize);
+      out.writeLong(vinfo.begin);
+      out.writeBoolean(vinfo.isRecord);
+      out.writeLong(vinfo.attsPos);
+    }
+  }
+
+  /**
+   * Restore the layout written by writeHeaderState(), instead of calling read().
+   *
+   * @param raf read data from this file
+   * @param root the root Group builder restored from the header cache.
+   * @param in read from this stream
+   * @throws IOException on read error, or if the state does not match the Group
+   */
+  void readHeaderState(RandomAccessFile raf, Group.Builder root, DataInputStream in) throws IOException {
+    this.raf = raf;
+
+    useLongOffset = in.readBoolean();
+    isStreaming = in.readBoolean();
+    numrecs = in.readInt();
+    recsize = in.readLong();
+    recStart = in.readLong();
+    nonRecordDataSize = in.readLong();
+    dataStart = in.readLong();
+
+    for (Dimension dim : root.getDimensions()) {
+      if (dim.isUnlimited())
+        udim = dim;
+    }
+
+    int nvars = in.readInt();
+    for (int i = 0; i < nvars; i++) {
+      String name = in.readUTF();
+      Vinfo vinfo = new Vinfo(name, in.readLong(), in.readLong(), in.readBoolean(), in.readLong());
+      Variable.Builder<?> var =
+          root.findVariableLocal(name).orElseThrow(() -> new IOException("Header cache has no variable " + name));
+      var.setSPobject(vinfo);
+      vars.add(vinfo);
+    }
+
+    // check for truncated files, same as read()
+    long calcSize = dataStart + nonRecordDataSize + recsize * numrecs;
+    if (calcSize > raf.length() + 3) {
+      if (disallowFileTruncation)
+        throw new IOException("File is truncated, calculated size= " + calcSize + " actual = " + raf.length());
+      else
+        raf.setExtendMode();
+    }
+  }
+
   /**
    * Check if the given bytes correspond to
    * {@link #MAGIC magic bytes} of the header.
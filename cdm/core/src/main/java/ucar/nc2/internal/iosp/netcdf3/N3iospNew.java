@@ -3,15 +3,28 @@ package ucar.nc2.internal.iosp.netcdf3;
 
 import static ucar.nc2.NetcdfFile.IOSP_MESSAGE_GET_NETCDF_FILE_FORMAT;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Formatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import ucar.ma2.Array;
 import ucar.ma2.ArrayStructureBB;
 import ucar.ma2.DataType;
+import ucar.ma2.Index;
 import ucar.ma2.InvalidRangeException;
 import ucar.ma2.Range;
 import ucar.ma2.Section;
@@ -22,11 +35,16 @@ import ucar.nc2.Structure;
 import ucar.nc2.Variable;
 import ucar.nc2.constants.DataFormatType;
 import ucar.nc2.iosp.AbstractIOServiceProvider;
+import ucar.nc2.iosp.ConvertedDataReader;
+import ucar.nc2.iosp.DataConverter;
+import ucar.nc2.iosp.HeaderCacheable;
+import ucar.nc2.iosp.IndexChunker;
 import ucar.nc2.iosp.IOServiceProvider;
 import ucar.nc2.iosp.IospHelper;
 import ucar.nc2.iosp.Layout;
 import ucar.nc2.iosp.LayoutRegular;
 import ucar.nc2.iosp.LayoutRegularSegmented;
+import ucar.nc2.iosp.MultiVariableReader;
 import ucar.nc2.internal.iosp.netcdf3.N3headerNew.Vinfo;
 import ucar.nc2.util.CancelTask;
 import ucar.nc2.write.NetcdfFileFormat;
@@ -39,7 +57,8 @@ import javax.annotation.Nullable;
  * @author caron
  * @since 9/29/2019.
  */
-public class N3iospNew extends AbstractIOServiceProvider implements IOServiceProvider {
+public class N3iospNew extends AbstractIOServiceProvider
+    implements IOServiceProvider, HeaderCacheable, ConvertedDataReader, MultiVariableReader {
   protected static org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(N3iospNew.class);
 
   // NetCDF File Format Type (defined in netcdf.h from the C library)
@@ -157,6 +176,35 @@ public class N3iospNew extends AbstractIOServiceProvider implements IOServicePro
     header.read(raf, rootGroup, null);
   }
 
+  @Override
+  public byte[] encodeHeaderState(Group root) throws IOException {
+    if (useRecordStructure)
+      return null;
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bos)) {
+      header.writeHeaderState(out);
+    }
+    return bos.toByteArray();
+  }
+
+  @Override
+  public void buildFromHeaderState(RandomAccessFile raf, Group.Builder rootGroup, byte[] state) throws IOException {
+    super.open(raf, rootGroup.getNcfile(), null);
+
+    String location = raf.getLocation();
+    if (!location.startsWith("http:")) {
+      File file = new File(location);
+      if (file.exists())
+        lastModified = file.lastModified();
+    }
+
+    raf.order(RandomAccessFile.BIG_ENDIAN);
+    header = createHeader();
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(state))) {
+      header.readHeaderState(raf, rootGroup, in);
+    }
+  }
+
   /** Create header for reading netcdf file. */
   private N3headerNew createHeader() throws IOException {
     return new N3headerNew(this);
@@ -184,6 +232,210 @@ public class N3iospNew extends AbstractIOServiceProvider implements IOServicePro
     return Array.factory(dataType, section.getShape(), data);
   }
 
+  @Override
+  @Nullable
+  public Array readConvertedData(Variable v2, Section section, DataConverter converter)
+      throws IOException, InvalidRangeException {
+    DataType dataType = v2.getDataType();
+    if (v2 instanceof Structure || !dataType.isNumeric())
+      return null;
+
+    Vinfo vinfo = (Vinfo) v2.getSPobject();
+    Layout layout = (!v2.isUnlimited()) ? new LayoutRegular(vinfo.begin, v2.getElementSize(), v2.getShape(), section)
+        : new LayoutRegularSegmented(vinfo.begin, v2.getElementSize(), header.recsize, v2.getShape(), section);
+
+    Object data = IospHelper.readDataConverted(raf, layout, dataType, null, -1, converter);
+    return Array.factory(converter.getConvertedType(), section.getShape(), data);
+  }
+
+  /**
+   * Record variables that are read over the same range of records are read together, in one pass through the
+   * records, reading up to {@link #maxGatherBytes} of records at a time. Each record is read once, and each
+   * variable's part of it is copied into its result. The other variables of at most
+   * {@link IospHelper#coalesceMaxBytes} are read with {@link IospHelper#readDataCoalesced}.
+   * Larger variables are left to be read one at a time.
+   */
+  @Override
+  public List<Array> readData(List<Variable> variables, List<Section> sections)
+      throws IOException, InvalidRangeException {
+    List<Array> result = new ArrayList<>(Collections.nCopies(variables.size(), null));
+
+    // group the record variables by their range of records
+    Map<Range, List<Integer>> groups = new LinkedHashMap<>();
+    for (int i = 0; i < variables.size(); i++) {
+      Variable v = variables.get(i);
+      if (v.isUnlimited() && !(v instanceof Structure) && v.getElementSize() > 0
+          && (v.getDataType().isNumeric() || v.getDataType() == DataType.CHAR)) {
+        groups.computeIfAbsent(sections.get(i).getRange(0), r -> new ArrayList<>()).add(i);
+      }
+    }
+
+    for (Map.Entry<Range, List<Integer>> group : groups.entrySet()) {
+      List<Integer> which = group.getValue();
+      if (which.size() < 2 || group.getKey().length() == 0) {
+        continue;
+      }
+      List<RecordSlice> slices = new ArrayList<>();
+      for (int i : which) {
+        slices.add(new RecordSlice(variables.get(i), sections.get(i)));
+      }
+      readRecordSlices(group.getKey(), slices);
+      for (int j = 0; j < which.size(); j++) {
+        result.set(which.get(j), slices.get(j).finish());
+      }
+    }
+
+    // read the other small variables together, with their byte ranges sorted and coalesced
+    List<Integer> small = new ArrayList<>();
+    List<Layout> layouts = new ArrayList<>();
+    List<DataType> dataTypes = new ArrayList<>();
+    for (int i = 0; i < variables.size(); i++) {
+      Variable v = variables.get(i);
+      Section section = sections.get(i);
+      long nbytes = section.computeSize() * v.getElementSize();
+      if (result.get(i) == null && !(v instanceof Structure) && nbytes > 0
+          && nbytes <= IospHelper.coalesceMaxBytes
+          && (v.getDataType().isNumeric() || v.getDataType() == DataType.CHAR)) {
+        Vinfo vinfo = (Vinfo) v.getSPobject();
+        small.add(i);
+        layouts.add(!v.isUnlimited() ? new LayoutRegular(vinfo.begin, v.getElementSize(), v.getShape(), section)
+            : new LayoutRegularSegmented(vinfo.begin, v.getElementSize(), header.recsize, v.getShape(), section));
+        dataTypes.add(v.getDataType());
+      }
+    }
+    if (small.size() > 1) {
+      List<Object> data = IospHelper.readDataCoalesced(raf, layouts, dataTypes,
+          Collections.nCopies(small.size(), RandomAccessFile.BIG_ENDIAN));
+      for (int j = 0; j < small.size(); j++) {
+        int i = small.get(j);
+        result.set(i, Array.factory(dataTypes.get(j), sections.get(i).getShape(), data.get(j)));
+      }
+    }
+    return result;
+  }
+
+  // largest read of records done at once by readData(List, List)
+  private static final int maxGatherBytes = 1024 * 1024;
+
+  private void readRecordSlices(Range recordRange, List<RecordSlice> slices) throws IOException {
+    // the part of each record that has to be read
+    long first = Long.MAX_VALUE;
+    long last = 0;
+    for (RecordSlice slice : slices) {
+      first = Math.min(first, slice.begin);
+      last = Math.max(last, slice.end);
+    }
+    int span = (int) (last - first);
+
+    // read whole runs of records if the variables take up most of each record, else just the span of each one
+    int nrecs = recordRange.length();
+    int recsPerRead = 1;
+    if (recordRange.stride() == 1 && 2 * span >= header.recsize) {
+      recsPerRead = (int) Math.max(1, Math.min(nrecs, maxGatherBytes / header.recsize));
+    }
+    byte[] buffer = new byte[(int) ((recsPerRead - 1) * header.recsize) + span];
+
+    int count = 0;
+    while (count < nrecs) {
+      int n = Math.min(recsPerRead, nrecs - count);
+      int recnum = recordRange.first() + count * recordRange.stride();
+      int len = (int) ((n - 1) * header.recsize) + span;
+      raf.seek(header.recStart + recnum * header.recsize + first);
+      if (recnum + n < header.numrecs) {
+        raf.readFully(buffer, 0, len);
+      } else {
+        // "wart" allows file to be one byte short. since its always padding, we allow
+        int done = 0;
+        int got;
+        while (done < len && (got = raf.read(buffer, done, len - done)) > 0) {
+          done += got;
+        }
+        Arrays.fill(buffer, done, len, (byte) 0);
+      }
+      for (int i = 0; i < n; i++) {
+        int recPos = (int) (i * header.recsize - first);
+        for (RecordSlice slice : slices) {
+          slice.copy(buffer, recPos, count + i);
+        }
+      }
+      count += n;
+    }
+  }
+
+  // the part of one record variable that is read from each record
+  private class RecordSlice {
+    final DataType dataType;
+    final int[] shape;
+    final long begin, end; // where the variable starts and ends within a record
+    final int recordNelems; // number of elements wanted from each record
+    final int[] chunkPos, chunkDest, chunkNelems; // wanted contiguous runs, relative to the start of its record
+    final Object data;
+
+    RecordSlice(Variable v, Section section) throws InvalidRangeException {
+      Vinfo vinfo = (Vinfo) v.getSPobject();
+      this.dataType = v.getDataType();
+      this.shape = section.getShape();
+      int elemSize = v.getElementSize();
+      int[] recordShape = new int[v.getRank() - 1];
+      System.arraycopy(v.getShape(), 1, recordShape, 0, recordShape.length);
+      this.begin = vinfo.begin - header.recStart;
+      this.end = begin + Index.computeSize(recordShape) * elemSize;
+
+      Section recordSection = new Section(section.getRanges().subList(1, section.getRank()));
+      IndexChunker chunker = new IndexChunker(recordShape, recordSection);
+      this.recordNelems = (int) chunker.getTotalNelems();
+      List<int[]> chunks = new ArrayList<>();
+      while (chunker.hasNext()) {
+        IndexChunker.Chunk chunk = chunker.next(); // the same object is returned each time
+        chunks.add(new int[] {(int) (begin + chunk.getSrcElem() * elemSize), (int) chunk.getDestElem(),
+            chunk.getNelems()});
+      }
+      chunkPos = new int[chunks.size()];
+      chunkDest = new int[chunks.size()];
+      chunkNelems = new int[chunks.size()];
+      for (int i = 0; i < chunks.size(); i++) {
+        chunkPos[i] = chunks.get(i)[0];
+        chunkDest[i] = chunks.get(i)[1];
+        chunkNelems[i] = chunks.get(i)[2];
+      }
+      this.data = IospHelper.makePrimitiveArray((int) section.computeSize(), dataType); // byte[] for CHAR
+    }
+
+    // copy this variable's part of a record, starting at recPos in buffer, to the count-th record of the result
+    void copy(byte[] buffer, int recPos, int count) {
+      int dest = count * recordNelems;
+      for (int i = 0; i < chunkPos.length; i++) {
+        int pos = recPos + chunkPos[i];
+        int n = chunkNelems[i];
+        int to = dest + chunkDest[i];
+        if (data instanceof byte[]) {
+          System.arraycopy(buffer, pos, data, to, n);
+        } else if (data instanceof short[]) {
+          wrap(buffer, pos, 2 * n).asShortBuffer().get((short[]) data, to, n);
+        } else if (data instanceof int[]) {
+          wrap(buffer, pos, 4 * n).asIntBuffer().get((int[]) data, to, n);
+        } else if (data instanceof float[]) {
+          wrap(buffer, pos, 4 * n).asFloatBuffer().get((float[]) data, to, n);
+        } else if (data instanceof double[]) {
+          wrap(buffer, pos, 8 * n).asDoubleBuffer().get((double[]) data, to, n);
+        } else if (data instanceof long[]) {
+          wrap(buffer, pos, 8 * n).asLongBuffer().get((long[]) data, to, n);
+        } else {
+          throw new IllegalStateException("unknown type= " + dataType);
+        }
+      }
+    }
+
+    Array finish() {
+      Object result = (dataType == DataType.CHAR) ? IospHelper.convertByteToChar((byte[]) data) : data;
+      return Array.factory(dataType, shape, result);
+    }
+  }
+
+  private static ByteBuffer wrap(byte[] buffer, int pos, int len) {
+    return ByteBuffer.wrap(buffer, pos, len).order(ByteOrder.BIG_ENDIAN);
+  }
+
   @Override
   public long readToByteChannel(ucar.nc2.Variable v2, Section section, WritableByteChannel channel)
       throws java.io.IOException, ucar.ma2.InvalidRangeException {
@@ -407,8 +659,25 @@ public class N3iospNew extends AbstractIOServiceProvider implements IOServicePro
     members.setStructureSize((int) header.recsize);
     ArrayStructureBB structureArray = new ArrayStructureBB(members, new int[] {recordRange.length()});
 
-    // loop over records
     byte[] result = structureArray.getByteBuffer().array();
+    if (recordRange.stride() == 1 && recordRange.length() > 0) {
+      // contiguous records, eg from the Structure iterator, are read at once
+      int len = (int) (nrecs * header.recsize);
+      raf.seek(header.recStart + recordRange.first() * header.recsize);
+      if (recordRange.last() != header.numrecs - 1) {
+        raf.readFully(result, 0, len);
+      } else {
+        // "wart" allows file to be one byte short. since its always padding, we allow
+        int done = 0;
+        int got;
+        while (done < len && (got = raf.read(result, done, len - done)) > 0) {
+          done += got;
+        }
+      }
+      return structureArray;
+    }
+
+    // loop over records
     int count = 0;
     for (int recnum : recordRange) {
       if (debugRecord)
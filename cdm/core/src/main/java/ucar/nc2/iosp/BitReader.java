@@ -5,6 +5,7 @@
 
 package ucar.nc2.iosp;
 
+import ucar.unidata.io.BufferPool;
 import ucar.unidata.io.RandomAccessFile;
 import java.io.EOFException;
 import java.io.IOException;
@@ -121,7 +122,7 @@ public class BitReader {
       assert shift >= 0;
 
       // put it there
-      result |= myBits << shift;
+      result |= ((long) myBits) << shift;
 
       // -- put bit to result ----------------------
       // update information on what we consumed
@@ -156,6 +157,103 @@ public class BitReader {
 
   }
 
+  /**
+   * Read the next n values of nb bits each as unsigned ints. This gives the same values as calling
+   * (int) bits2UInt(nb) n times, but reads the bytes all at once and unpacks them with {@link BitUnpacker}.
+   *
+   * @param nb the number of bits in each value, must be 0 <= nb <= 64.
+   * @param n the number of values to read.
+   * @param dest put the values here.
+   * @param destPos starting at this index.
+   * @throws java.io.IOException on read error
+   */
+  public void bits2UInt(int nb, int n, int[] dest, int destPos) throws IOException {
+    byte[] packed = readPacked(nb, n);
+    try {
+      endBulk(packed, BitUnpacker.unpack(packed, BIT_LENGTH - bitPos, nb, n, dest, destPos));
+    } finally {
+      BufferPool.getDefault().release(packed);
+    }
+  }
+
+  /**
+   * Read the next n values of nb bits each as unsigned longs. This gives the same values as calling
+   * bits2UInt(nb) n times, but reads the bytes all at once and unpacks them with {@link BitUnpacker}.
+   *
+   * @param nb the number of bits in each value, must be 0 <= nb <= 64.
+   * @param n the number of values to read.
+   * @param dest put the values here.
+   * @param destPos starting at this index.
+   * @throws java.io.IOException on read error
+   */
+  public void bits2UInt(int nb, int n, long[] dest, int destPos) throws IOException {
+    byte[] packed = readPacked(nb, n);
+    try {
+      endBulk(packed, BitUnpacker.unpack(packed, BIT_LENGTH - bitPos, nb, n, dest, destPos));
+    } finally {
+      BufferPool.getDefault().release(packed);
+    }
+  }
+
+  /**
+   * Read the next n values x of nb bits each, and scale them to (ref + x * binaryScale) / decimalScale.
+   * See {@link BitUnpacker#unpackScaled}.
+   *
+   * @param nb the number of bits in each value, must be 0 <= nb <= 64.
+   * @param n the number of values to read.
+   * @param ref the reference value.
+   * @param binaryScale multiply each value by this.
+   * @param decimalScale divide the sum by this.
+   * @param dest put the values here.
+   * @param destPos starting at this index.
+   * @throws java.io.IOException on read error
+   */
+  public void bits2UIntScaled(int nb, int n, float ref, float binaryScale, float decimalScale, float[] dest,
+      int destPos) throws IOException {
+    byte[] packed = readPacked(nb, n);
+    try {
+      endBulk(packed,
+          BitUnpacker.unpackScaled(packed, BIT_LENGTH - bitPos, nb, n, ref, binaryScale, decimalScale, dest, destPos));
+    } finally {
+      BufferPool.getDefault().release(packed);
+    }
+  }
+
+  // The current partial byte followed by all the bytes needed for n values of nb bits.
+  private byte[] readPacked(int nb, int n) throws IOException {
+    if (nb < 0 || nb > 64 || n < 0) {
+      throw new IllegalArgumentException("Bad bit width or count: " + nb + " " + n);
+    }
+    long needBits = (long) nb * n - bitPos;
+    long nbytes = needBits > 0 ? (needBits + BIT_LENGTH - 1) / BIT_LENGTH : 0;
+    if (nbytes >= Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("Too many bits: " + nb + " * " + n);
+    }
+    byte[] packed = BufferPool.getDefault().getBytes((int) nbytes + 1);
+    packed[0] = bitBuf;
+    if (raf != null) {
+      raf.readFully(packed, 1, (int) nbytes);
+    } else {
+      if (dataPos + nbytes > data.length) {
+        throw new EOFException();
+      }
+      System.arraycopy(data, dataPos, packed, 1, (int) nbytes);
+      dataPos += (int) nbytes;
+    }
+    return packed;
+  }
+
+  // Keep the partially used last byte, if any.
+  private void endBulk(byte[] packed, long endBit) {
+    int used = (int) (endBit % BIT_LENGTH);
+    if (used == 0) {
+      bitPos = 0;
+    } else {
+      bitBuf = packed[(int) (endBit / BIT_LENGTH)];
+      bitPos = BIT_LENGTH - used;
+    }
+  }
+
   private byte nextByte() throws IOException {
     if (raf != null) {
       int result = raf.read();
@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.nc2.iosp;
+
+import java.util.Arrays;
+
+/**
+ * Unpacks runs of unsigned integers that all have the same bit width, stored big endian (most significant bit first)
+ * in a byte array, as in GRIB and BUFR. This is much faster than reading the values one at a time with
+ * {@link BitReader#bits2UInt(int)}: the bits are shifted through a 64 bit accumulator that is filled a byte at a time
+ * only when it runs low, and byte aligned widths of 8, 16 and 32 bits are copied directly.
+ * <p>
+ * Each method starts at a bit offset into the packed bytes, and returns the bit offset after the last value, so runs
+ * of different widths can follow each other. Widths are 0 to 64 bits; a width of 0 gives all zeros and uses no bits.
+ *
+ * @since 5.5.4
+ */
+public final class BitUnpacker {
+
+  // the widest value that still fits in the accumulator with up to 7 bits left over from the previous value
+  private static final int MAX_ACCUMULATOR_BITS = 56;
+
+  private BitUnpacker() {}
+
+  /**
+   * Unpack n values into an int array. Values wider than 32 bits are truncated, as by an (int) cast.
+   *
+   * @param packed the packed bytes.
+   * @param bitOffset start at this bit in packed.
+   * @param nbits the width of each value in bits, 0 to 64.
+   * @param n the number of values.
+   * @param dest put the values here.
+   * @param destPos starting at this index.
+   * @return the bit offset after the last value.
+   */
+  public static long unpack(byte[] packed, long bitOffset, int nbits, int n, int[] dest, int destPos) {
+    checkBits(packed, bitOffset, nbits, n);
+    if (nbits == 0) {
+      Arrays.fill(dest, destPos, destPos + n, 0);
+      return bitOffset;
+    }
+    int pos = (int) (bitOffset >>> 3);
+    int skip = (int) (bitOffset & 7);
+
+    if (skip == 0 && nbits == 8) {
+      for (int i = 0; i < n; i++) {
+        dest[destPos + i] = packed[pos + i] & 0xff;
+      }
+    } else if (skip == 0 && nbits == 16) {
+      for (int i = 0; i < n; i++, pos += 2) {
+        dest[destPos + i] = ((packed[pos] & 0xff) << 8) | (packed[pos + 1] & 0xff);
+      }
+    } else if (skip == 0 && nbits == 32) {
+      for (int i = 0; i < n; i++, pos += 4) {
+        dest[destPos + i] = getInt(packed, pos);
+      }
+    } else if (nbits <= MAX_ACCUMULATOR_BITS) {
+      long mask = (1L << nbits) - 1;
+      long acc = 0;
+      int accBits = 0;
+      if (skip > 0) {
+        acc = packed[pos++] & (0xff >>> skip);
+        accBits = 8 - skip;
+      }
+      for (int i = 0; i < n; i++) {
+        while (accBits < nbits) {
+          acc = (acc << 8) | (packed[pos++] & 0xff);
+          accBits += 8;
+        }
+        accBits -= nbits;
+        dest[destPos + i] = (int) ((acc >>> accBits) & mask);
+      }
+    } else {
+      long bitPos = bitOffset;
+      for (int i = 0; i < n; i++, bitPos += nbits) {
+        dest[destPos + i] = (int) getBits(packed, bitPos, nbits);
+      }
+    }
+    return bitOffset + (long) nbits * n;
+  }
+
+  /**
+   * Unpack n values into a long array.
+   *
+   * @param packed the packed bytes.
+   * @param bitOffset start at this bit in packed.
+   * @param nbits the width of each value in bits, 0 to 64.
+   * @param n the number of values.
+   * @param dest put the values here.
+   * @param destPos starting at this index.
+   * @return the bit offset after the last value.
+   */
+  public static long unpack(byte[] packed, long bitOffset, int nbits, int n, long[] dest, int destPos) {
+    checkBits(packed, bitOffset, nbits, n);
+    if (nbits == 0) {
+      Arrays.fill(dest, destPos, destPos + n, 0);
+      return bitOffset;
+    }
+    int pos = (int) (bitOffset >>> 3);
+    int skip = (int) (bitOffset & 7);
+
+    if (skip == 0 && nbits == 8) {
+      for (int i = 0; i < n; i++) {
+        dest[destPos + i] = packed[pos + i] & 0xff;
+      }
+    } else if (skip == 0 && nbits == 32) {
+      for (int i = 0; i < n; i++, pos += 4) {
+        dest[destPos + i] = getInt(packed, pos) & 0xffffffffL;
+      }
+    } else if (nbits <= MAX_ACCUMULATOR_BITS) {
+      long mask = (1L << nbits) - 1;
+      long acc = 0;
+      int accBits = 0;
+      if (skip > 0) {
+        acc = packed[pos++] & (0xff >>> skip);
+        accBits = 8 - skip;
+      }
+      for (int i = 0; i < n; i++) {
+        while (accBits < nbits) {
+          acc = (acc << 8) | (packed[pos++] & 0xff);
+          accBits += 8;
+        }
+        accBits -= nbits;
+        dest[destPos + i] = (acc >>> accBits) & mask;
+      }
+    } else {
+      long bitPos = bitOffset;
+      for (int i = 0; i < n; i++, bitPos += nbits) {
+        dest[destPos + i] = getBits(packed, bitPos, nbits);
+      }
+    }
+    return bitOffset + (long) nbits * n;
+  }
+
+  /**
+   * Unpack n values x and scale them, as used by GRIB simple packing: dest = (ref + x * binaryScale) / decimalScale,
+   * computed in float, so the result is the same as scaling each value from {@link BitReader#bits2UInt(int)}.
+   *
+   * @param packed the packed bytes.
+   * @param bitOffset start at this bit in packed.
+   * @param nbits the width of each value in bits, 0 to 64.
+   * @param n the number of values.
+   * @param ref the reference value.
+   * @param binaryScale multiply each value by this.
+   * @param decimalScale divide the sum by this.
+   * @param dest put the values here.
+   * @param destPos starting at this index.
+   * @return the bit offset after the last value.
+   */
+  public static long unpackScaled(byte[] packed, long bitOffset, int nbits, int n, float ref, float binaryScale,
+      float decimalScale, float[] dest, int destPos) {
+    checkBits(packed, bitOffset, nbits, n);
+    if (nbits == 0) {
+      Arrays.fill(dest, destPos, destPos + n, (ref + 0 * binaryScale) / decimalScale);
+      return bitOffset;
+    }
+    int pos = (int) (bitOffset >>> 3);
+    int skip = (int) (bitOffset & 7);
+
+    if (skip == 0 && nbits == 8) {
+      for (int i = 0; i < n; i++) {
+        dest[destPos + i] = (ref + (packed[pos + i] & 0xff) * binaryScale) / decimalScale;
+      }
+    } else if (skip == 0 && nbits == 16) {
+      for (int i = 0; i < n; i++, pos += 2) {
+        int x = ((packed[pos] & 0xff) << 8) | (packed[pos + 1] & 0xff);
+        dest[destPos + i] = (ref + x * binaryScale) / decimalScale;
+      }
+    } else if (nbits <= MAX_ACCUMULATOR_BITS) {
+      long mask = (1L << nbits) - 1;
+      long acc = 0;
+      int accBits = 0;
+      if (skip > 0) {
+        acc = packed[pos++] & (0xff >>> skip);
+        accBits = 8 - skip;
+      }
+      for (int i = 0; i < n; i++) {
+        while (accBits < nbits) {
+          acc = (acc << 8) | (packed[pos++] & 0xff);
+          accBits += 8;
+        }
+        accBits -= nbits;
+        dest[destPos + i] = (ref + ((acc >>> accBits) & mask) * binaryScale) / decimalScale;
+      }
+    } else {
+      long bitPos = bitOffset;
+      for (int i = 0; i < n; i++, bitPos += nbits) {
+        dest[destPos + i] = (ref + getBits(packed, bitPos, nbits) * binaryScale) / decimalScale;
+      }
+    }
+    return bitOffset + (long) nbits * n;
+  }
+
+  private static void checkBits(byte[] packed, long bitOffset, int nbits, int n) {
+    if (nbits < 0 || nbits > 64) {
+      throw new IllegalArgumentException("Bit width must be 0 to 64: " + nbits);
+    }
+    if (n < 0 || bitOffset < 0) {
+      throw new IllegalArgumentException("Negative count or offset: " + n + " " + bitOffset);
+    }
+    if (bitOffset + (long) nbits * n > 8L * packed.length) {
+      throw new IndexOutOfBoundsException(
+          "Need " + nbits * (long) n + " bits at bit " + bitOffset + ", have " + packed.length + " bytes");
+    }
+  }
+
+  private static int getInt(byte[] packed, int pos) {
+    return ((packed[pos] & 0xff) << 24) | ((packed[pos + 1] & 0xff) << 16) | ((packed[pos + 2] & 0xff) << 8)
+        | (packed[pos + 3] & 0xff);
+  }
+
+  // one value of any width, a byte at a time
+  private static long getBits(byte[] packed, long bitPos, int nbits) {
+    long result = 0;
+    while (nbits > 0) {
+      int pos = (int) (bitPos >>> 3);
+      int used = (int) (bitPos & 7);
+      int take = Math.min(8 - used, nbits);
+      int bits = ((packed[pos] & 0xff) >>> (8 - used - take)) & ((1 << take) - 1);
+      result = (result << take) | bits;
+      bitPos += take;
+      nbits -= take;
+    }
+    return result;
+  }
+}
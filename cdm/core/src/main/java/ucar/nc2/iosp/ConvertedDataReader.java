@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.nc2.iosp;
+
+import java.io.IOException;
+import javax.annotation.Nullable;
+import ucar.ma2.Array;
+import ucar.ma2.InvalidRangeException;
+import ucar.ma2.Section;
+import ucar.nc2.Variable;
+
+/**
+ * An IOServiceProvider that can convert data while reading it, one block at a time, so that the whole section of raw
+ * values is never in memory. Used by VariableDS for packed variables, where the raw array would otherwise be read
+ * first, then enhanced into a second, larger array.
+ *
+ * @see ucar.nc2.Variable#readConverted(Section, DataConverter)
+ */
+public interface ConvertedDataReader {
+
+  /**
+   * Read a section of a variable's data, and convert it.
+   * The result is the same as converting the Array returned by {@link IOServiceProvider#readData(Variable, Section)}.
+   *
+   * @param v2 a top-level Variable of this file.
+   * @param section the section of data to read, filled and validated.
+   * @param converter converts blocks of the raw values.
+   * @return Array of converter.getConvertedType(), or null if this variable cannot be read this way.
+   * @throws IOException on read error
+   * @throws InvalidRangeException if invalid section
+   */
+  @Nullable
+  Array readConvertedData(Variable v2, Section section, DataConverter converter)
+      throws IOException, InvalidRangeException;
+}
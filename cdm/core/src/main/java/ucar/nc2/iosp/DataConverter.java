@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.nc2.iosp;
+
+import ucar.ma2.DataType;
+
+/**
+ * Converts blocks of raw values, as read from the file, into the values of the result array.
+ * Used to apply the scale/offset, missing value and unsigned enhancements while the data is being read.
+ *
+ * @see ConvertedDataReader
+ */
+public interface DataConverter {
+
+  /** The DataType of the converted values. */
+  DataType getConvertedType();
+
+  /**
+   * Convert raw values.
+   *
+   * @param src java primitive array of the raw DataType, as made by
+   *        {@link IospHelper#makePrimitiveArray(int, DataType)}
+   * @param srcPos starting position in src
+   * @param dst java primitive array of the converted DataType
+   * @param dstPos starting position in dst
+   * @param nelems number of values to convert
+   */
+  void convert(Object src, int srcPos, Object dst, int dstPos, int nelems);
+}
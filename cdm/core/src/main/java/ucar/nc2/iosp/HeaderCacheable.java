@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.nc2.iosp;
+
+import java.io.IOException;
+import javax.annotation.Nullable;
+import ucar.nc2.Group;
+import ucar.unidata.io.RandomAccessFile;
+
+/**
+ * An IOServiceProvider whose header can be saved in the persistent header cache, so that opening the same,
+ * unchanged file again does not parse the header.
+ * The cache stores the metadata tree itself; the IOSP only saves and restores the private layout information
+ * (the SPobjects of its Variables) that it needs to read data.
+ *
+ * @see ucar.nc2.stream.NcStreamHeaderCache
+ */
+public interface HeaderCacheable {
+
+  /**
+   * Encode the layout information of a file that was just opened with build().
+   *
+   * @param root the root group of the opened file.
+   * @return encoded layout, or null if this file cannot be cached.
+   * @throws IOException on read error
+   */
+  @Nullable
+  byte[] encodeHeaderState(Group root) throws IOException;
+
+  /**
+   * Open a file from a cached header, instead of calling build().
+   *
+   * @param raf the file to read data from.
+   * @param rootGroup the metadata tree restored from the cache, whose Variables do not yet have SPobjects.
+   * @param state the layout information returned by encodeHeaderState().
+   * @throws IOException if the state cannot be decoded; the caller then falls back to build().
+   */
+  void buildFromHeaderState(RandomAccessFile raf, Group.Builder rootGroup, byte[] state) throws IOException;
+}
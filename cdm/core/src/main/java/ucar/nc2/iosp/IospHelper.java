@@ -5,6 +5,7 @@
 package ucar.nc2.iosp;
 
 import java.nio.charset.StandardCharsets;
+import ucar.unidata.io.BufferPool;
 import ucar.unidata.io.RandomAccessFile;
 import ucar.unidata.io.PositioningDataInputStream;
 import ucar.ma2.*;
@@ -445,6 +446,414 @@ public class IospHelper {
     throw new IllegalStateException();
   }
 
+  /** Byte ranges of readDataCoalesced() that are at most this far apart are read together. */
+  public static final int coalesceGapBytes = 8 * 1024;
+  /** Largest read done by readDataCoalesced(). Variables at most this size are worth reading with it. */
+  public static final int coalesceMaxBytes = 1024 * 1024;
+
+  /**
+   * Read the data of several Layouts in one pass through the file, instead of one at a time.
+   * The byte ranges of all the Layouts are sorted by file position, and ranges that are less than
+   * {@link #coalesceGapBytes} apart are read together, up to {@link #coalesceMaxBytes} at a time. This saves seeks
+   * and reads when reading many small variables, which matters most for remote files.
+   * There is no fill value, all of the data must be in the file.
+   *
+   * @param raf read from here.
+   * @param layouts the Layouts to read, which are used up.
+   * @param dataTypes the DataType of each Layout, numeric or CHAR.
+   * @param byteOrders the byte order of each Layout, RandomAccessFile.BIG_ENDIAN or RandomAccessFile.LITTLE_ENDIAN.
+   * @return for each Layout, a primitive array with the data, char[] for CHAR.
+   * @throws java.io.IOException on read error
+   */
+  public static List<Object> readDataCoalesced(RandomAccessFile raf, List<Layout> layouts, List<DataType> dataTypes,
+      List<Integer> byteOrders) throws java.io.IOException {
+    List<Object> result = new ArrayList<>();
+    List<ByteRange> ranges = new ArrayList<>();
+    for (int i = 0; i < layouts.size(); i++) {
+      Layout layout = layouts.get(i);
+      result.add(makePrimitiveArray((int) layout.getTotalNelems(), dataTypes.get(i))); // byte[] for CHAR
+      ByteOrder order = (byteOrders.get(i) == RandomAccessFile.LITTLE_ENDIAN) ? ByteOrder.LITTLE_ENDIAN
+          : ByteOrder.BIG_ENDIAN;
+      while (layout.hasNext()) {
+        Layout.Chunk chunk = layout.next();
+        if (chunk == null || chunk.getNelems() == 0)
+          continue;
+        ranges.add(new ByteRange(chunk.getSrcPos(), chunk.getNelems() * layout.getElemSize(), result.get(i),
+            (int) chunk.getDestElem(), order));
+      }
+    }
+    ranges.sort((r1, r2) -> Long.compare(r1.filePos, r2.filePos));
+
+    // group the ranges into runs that are read at once
+    List<Integer> runStarts = new ArrayList<>();
+    int maxRunBytes = 0;
+    int start = 0;
+    while (start < ranges.size()) {
+      runStarts.add(start);
+      long runStart = ranges.get(start).filePos;
+      long runEnd = runStart + ranges.get(start).nbytes;
+      int end = start + 1;
+      while (end < ranges.size()) {
+        ByteRange next = ranges.get(end);
+        long nextEnd = Math.max(runEnd, next.filePos + next.nbytes);
+        if (next.filePos - runEnd > coalesceGapBytes || nextEnd - runStart > coalesceMaxBytes)
+          break;
+        runEnd = nextEnd;
+        end++;
+      }
+      maxRunBytes = (int) Math.max(maxRunBytes, runEnd - runStart); // only > coalesceMaxBytes for a single range
+      start = end;
+    }
+    runStarts.add(ranges.size());
+
+    BufferPool pool = BufferPool.getDefault();
+    byte[] buffer = pool.getBytes(maxRunBytes);
+    try {
+      for (int run = 0; run < runStarts.size() - 1; run++) {
+        int first = runStarts.get(run);
+        int last = runStarts.get(run + 1);
+        long runStart = ranges.get(first).filePos;
+        long runEnd = 0;
+        for (int k = first; k < last; k++) {
+          runEnd = Math.max(runEnd, ranges.get(k).filePos + ranges.get(k).nbytes);
+        }
+        raf.seek(runStart);
+        raf.readFully(buffer, 0, (int) (runEnd - runStart));
+        for (int k = first; k < last; k++) {
+          ranges.get(k).copy(buffer, (int) (ranges.get(k).filePos - runStart));
+        }
+      }
+    } finally {
+      pool.release(buffer);
+    }
+
+    for (int i = 0; i < result.size(); i++) {
+      if (dataTypes.get(i) == DataType.CHAR)
+        result.set(i, convertByteToChar((byte[]) result.get(i)));
+    }
+    return result;
+  }
+
+  // one Layout.Chunk of readDataCoalesced
+  private static class ByteRange {
+    final long filePos;
+    final int nbytes;
+    final Object dest; // the primitive array of its Layout
+    final int destElem;
+    final ByteOrder order;
+
+    ByteRange(long filePos, int nbytes, Object dest, int destElem, ByteOrder order) {
+      this.filePos = filePos;
+      this.nbytes = nbytes;
+      this.dest = dest;
+      this.destElem = destElem;
+      this.order = order;
+    }
+
+    void copy(byte[] buffer, int pos) {
+      ByteBuffer bb = ByteBuffer.wrap(buffer, pos, nbytes).order(order);
+      if (dest instanceof byte[]) {
+        System.arraycopy(buffer, pos, dest, destElem, nbytes);
+      } else if (dest instanceof short[]) {
+        bb.asShortBuffer().get((short[]) dest, destElem, nbytes / 2);
+      } else if (dest instanceof int[]) {
+        bb.asIntBuffer().get((int[]) dest, destElem, nbytes / 4);
+      } else if (dest instanceof float[]) {
+        bb.asFloatBuffer().get((float[]) dest, destElem, nbytes / 4);
+      } else if (dest instanceof double[]) {
+        bb.asDoubleBuffer().get((double[]) dest, destElem, nbytes / 8);
+      } else if (dest instanceof long[]) {
+        bb.asLongBuffer().get((long[]) dest, destElem, nbytes / 8);
+      } else {
+        throw new IllegalStateException("readDataCoalesced: unknown type " + dest.getClass());
+      }
+    }
+  }
+
+  // number of bytes read at a time into a ByteBuffer segment of an ArraySegmented, a multiple of 8
+  private static final int segmentBufferSize = 64 * 1024;
+
+  /**
+   * Read data subset from RandomAccessFile into an ArraySegmented, which may have more than 2^31 elements.
+   * Reading is controlled by the Layout object. Segments stored in ByteBuffers are filled directly from the file bytes,
+   * and are not byte swapped if they have the byte order of the file.
+   *
+   * @param raf read from here.
+   * @param layout handles skipping around in the file.
+   * @param dest read into here. Must be numeric or enum, and in canonical order, eg made by ArraySegmented.factory().
+   * @param byteOrder RandomAccessFile.BIG_ENDIAN or RandomAccessFile.LITTLE_ENDIAN
+   * @return dest
+   * @throws java.io.IOException on read error
+   */
+  public static ArraySegmented readData(RandomAccessFile raf, Layout layout, ArraySegmented dest, int byteOrder)
+      throws java.io.IOException {
+    int elemSize = dest.getDataType().getSize();
+    ByteOrder fileOrder =
+        (byteOrder == RandomAccessFile.LITTLE_ENDIAN) ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+    byte[] buff = null;
+    try {
+      while (layout.hasNext()) {
+        Layout.Chunk chunk = layout.next();
+        raf.order(byteOrder);
+        raf.seek(chunk.getSrcPos());
+        long destElem = chunk.getDestElem();
+        int nelems = chunk.getNelems();
+        while (nelems > 0) { // the chunk may span segments
+          int segno = dest.findSegment(destElem);
+          Array segment = dest.getSegment(segno);
+          int pos = (int) (destElem - dest.getSegmentOffset(segno));
+          int n = (int) Math.min(nelems, segment.getSize() - pos);
+          Object storage = segment.getStorage();
+          if (storage instanceof ByteBuffer) {
+            if (buff == null)
+              buff = BufferPool.getDefault().getBytes(segmentBufferSize);
+            ByteBuffer bb = duplicate((ByteBuffer) storage);
+            bb.position(pos * elemSize);
+            for (int nbytes = n * elemSize; nbytes > 0;) {
+              int len = Math.min(nbytes, segmentBufferSize);
+              raf.readFully(buff, 0, len);
+              putBytes(bb, ByteBuffer.wrap(buff, 0, len).order(fileOrder), elemSize);
+              nbytes -= len;
+            }
+          } else if (storage instanceof byte[]) {
+            raf.readFully((byte[]) storage, pos, n);
+          } else if (storage instanceof short[]) {
+            raf.readShort((short[]) storage, pos, n);
+          } else if (storage instanceof int[]) {
+            raf.readInt((int[]) storage, pos, n);
+          } else if (storage instanceof float[]) {
+            raf.readFloat((float[]) storage, pos, n);
+          } else if (storage instanceof double[]) {
+            raf.readDouble((double[]) storage, pos, n);
+          } else if (storage instanceof long[]) {
+            raf.readLong((long[]) storage, pos, n);
+          } else {
+            throw new IllegalArgumentException("Cant read into ArraySegmented of type " + dest.getDataType());
+          }
+          destElem += n;
+          nelems -= n;
+        }
+      }
+    } finally {
+      if (buff != null)
+        BufferPool.getDefault().release(buff);
+    }
+    return dest;
+  }
+
+  /**
+   * Read data subset from a LayoutBB into an ArraySegmented, which may have more than 2^31 elements.
+   * Segments stored in ByteBuffers are copied into directly, and are not byte swapped if they have the byte order of
+   * the source.
+   *
+   * @param layout supplies the source ByteBuffers.
+   * @param dest read into here. Must be numeric or enum, and in canonical order, eg made by ArraySegmented.factory().
+   * @return dest
+   */
+  public static ArraySegmented readData(LayoutBB layout, ArraySegmented dest) {
+    int elemSize = dest.getDataType().getSize();
+    while (layout.hasNext()) {
+      LayoutBB.Chunk chunk = layout.next();
+      ByteBuffer bb = chunk.getByteBuffer();
+      // if chunk is empty, use fill value
+      if (!bb.hasRemaining()) {
+        continue;
+      }
+      long destElem = chunk.getDestElem();
+      int srcElem = chunk.getSrcElem();
+      int nelems = chunk.getNelems();
+      while (nelems > 0) { // the chunk may span segments
+        int segno = dest.findSegment(destElem);
+        Array segment = dest.getSegment(segno);
+        int pos = (int) (destElem - dest.getSegmentOffset(segno));
+        int n = (int) Math.min(nelems, segment.getSize() - pos);
+        Object storage = segment.getStorage();
+        if (storage instanceof ByteBuffer) {
+          ByteBuffer src = duplicate(bb);
+          src.position(srcElem * elemSize).limit((srcElem + n) * elemSize);
+          ByteBuffer to = duplicate((ByteBuffer) storage);
+          to.position(pos * elemSize);
+          putBytes(to, src, elemSize);
+        } else if (storage instanceof byte[]) {
+          ByteBuffer src = bb.duplicate();
+          src.position(srcElem);
+          src.get((byte[]) storage, pos, n);
+        } else if (storage instanceof short[]) {
+          ShortBuffer src = chunk.getShortBuffer().duplicate();
+          src.position(srcElem);
+          src.get((short[]) storage, pos, n);
+        } else if (storage instanceof int[]) {
+          IntBuffer src = chunk.getIntBuffer().duplicate();
+          src.position(srcElem);
+          src.get((int[]) storage, pos, n);
+        } else if (storage instanceof float[]) {
+          FloatBuffer src = chunk.getFloatBuffer().duplicate();
+          src.position(srcElem);
+          src.get((float[]) storage, pos, n);
+        } else if (storage instanceof double[]) {
+          DoubleBuffer src = chunk.getDoubleBuffer().duplicate();
+          src.position(srcElem);
+          src.get((double[]) storage, pos, n);
+        } else if (storage instanceof long[]) {
+          LongBuffer src = chunk.getLongBuffer().duplicate();
+          src.position(srcElem);
+          src.get((long[]) storage, pos, n);
+        } else {
+          throw new IllegalArgumentException("Cant read into ArraySegmented of type " + dest.getDataType());
+        }
+        destElem += n;
+        srcElem += n;
+        nelems -= n;
+      }
+    }
+    return dest;
+  }
+
+  // ByteBuffer.duplicate() does not keep the byte order
+  private static ByteBuffer duplicate(ByteBuffer bb) {
+    return bb.duplicate().order(bb.order());
+  }
+
+  // copy the remaining elements of src to dest, swapping bytes if their byte orders differ
+  private static void putBytes(ByteBuffer dest, ByteBuffer src, int elemSize) {
+    if (elemSize == 1 || dest.order().equals(src.order())) {
+      dest.put(src);
+      return;
+    }
+    int nbytes = src.remaining();
+    switch (elemSize) {
+      case 2:
+        dest.asShortBuffer().put(src.asShortBuffer());
+        break;
+      case 4:
+        dest.asIntBuffer().put(src.asIntBuffer());
+        break;
+      default:
+        dest.asLongBuffer().put(src.asLongBuffer());
+    }
+    dest.position(dest.position() + nbytes);
+  }
+
+  // number of raw values read and converted at a time by readDataConverted()
+  private static final int convertBufferSize = 8192;
+
+  /**
+   * Read data subset from RandomAccessFile, and convert it. The raw values are read and converted in small blocks,
+   * so only the converted array is the size of the whole subset.
+   * Reading is controlled by the Layout object.
+   *
+   * @param raf read from here.
+   * @param layout handles skipping around in the file.
+   * @param dataType numeric dataType of the raw data
+   * @param fillValue raw value of elements not covered by the layout, Number or null for zero
+   * @param byteOrder if equal to RandomAccessFile.ORDER_XXXX, set the byte order just before reading
+   * @param converter converts blocks of raw values
+   * @return primitive array of converter.getConvertedType() with data read in
+   * @throws java.io.IOException on read error
+   */
+  public static Object readDataConverted(RandomAccessFile raf, Layout layout, DataType dataType, Object fillValue,
+      int byteOrder, DataConverter converter) throws java.io.IOException {
+    int size = (int) layout.getTotalNelems();
+    Object arr = makeConvertedArray(size, dataType, fillValue, converter);
+    Object buff = makePrimitiveArray(Math.min(size, convertBufferSize), dataType);
+    Class<?> primitive = dataType.getPrimitiveClassType();
+
+    while (layout.hasNext()) {
+      Layout.Chunk chunk = layout.next();
+      raf.order(byteOrder);
+      raf.seek(chunk.getSrcPos());
+      int destPos = (int) chunk.getDestElem();
+      for (int done = 0; done < chunk.getNelems(); done += convertBufferSize) {
+        int len = Math.min(convertBufferSize, chunk.getNelems() - done);
+        if (primitive == byte.class)
+          raf.readFully((byte[]) buff, 0, len);
+        else if (primitive == short.class)
+          raf.readShort((short[]) buff, 0, len);
+        else if (primitive == int.class)
+          raf.readInt((int[]) buff, 0, len);
+        else if (primitive == long.class)
+          raf.readLong((long[]) buff, 0, len);
+        else if (primitive == float.class)
+          raf.readFloat((float[]) buff, 0, len);
+        else if (primitive == double.class)
+          raf.readDouble((double[]) buff, 0, len);
+        else
+          throw new IllegalStateException("not numeric type= " + dataType);
+        converter.convert(buff, 0, arr, destPos + done, len);
+      }
+    }
+    return arr;
+  }
+
+  /**
+   * Read data subset from ByteBuffer, and convert it. The raw values are copied out of the buffers and converted in
+   * small blocks, so only the converted array is the size of the whole subset.
+   * Reading is controlled by the LayoutBB object.
+   *
+   * @param layout handles skipping around in the file, provide ByteBuffer to read from
+   * @param dataType numeric dataType of the raw data
+   * @param fillValue raw value of elements not covered by the layout, Number or null for zero
+   * @param converter converts blocks of raw values
+   * @return primitive array of converter.getConvertedType() with data read in
+   */
+  public static Object readDataConverted(LayoutBB layout, DataType dataType, Object fillValue,
+      DataConverter converter) {
+    int size = (int) layout.getTotalNelems();
+    Object arr = makeConvertedArray(size, dataType, fillValue, converter);
+    Object buff = makePrimitiveArray(Math.min(size, convertBufferSize), dataType);
+    Class<?> primitive = dataType.getPrimitiveClassType();
+
+    while (layout.hasNext()) {
+      LayoutBB.Chunk chunk = layout.next();
+      Buffer src;
+      if (primitive == byte.class)
+        src = chunk.getByteBuffer();
+      else if (primitive == short.class)
+        src = chunk.getShortBuffer();
+      else if (primitive == int.class)
+        src = chunk.getIntBuffer();
+      else if (primitive == long.class)
+        src = chunk.getLongBuffer();
+      else if (primitive == float.class)
+        src = chunk.getFloatBuffer();
+      else if (primitive == double.class)
+        src = chunk.getDoubleBuffer();
+      else
+        throw new IllegalStateException("not numeric type= " + dataType);
+      // if chunk is empty, use fill value
+      if (!src.hasRemaining()) {
+        continue;
+      }
+      src.position(chunk.getSrcElem());
+      int destPos = (int) chunk.getDestElem();
+      for (int done = 0; done < chunk.getNelems(); done += convertBufferSize) {
+        int len = Math.min(convertBufferSize, chunk.getNelems() - done);
+        if (primitive == byte.class)
+          ((ByteBuffer) src).get((byte[]) buff, 0, len);
+        else if (primitive == short.class)
+          ((ShortBuffer) src).get((short[]) buff, 0, len);
+        else if (primitive == int.class)
+          ((IntBuffer) src).get((int[]) buff, 0, len);
+        else if (primitive == long.class)
+          ((LongBuffer) src).get((long[]) buff, 0, len);
+        else if (primitive == float.class)
+          ((FloatBuffer) src).get((float[]) buff, 0, len);
+        else
+          ((DoubleBuffer) src).get((double[]) buff, 0, len);
+        converter.convert(buff, 0, arr, destPos + done, len);
+      }
+    }
+    return arr;
+  }
+
+  // converted array, filled with the converted fill value
+  private static Object makeConvertedArray(int size, DataType dataType, Object fillValue, DataConverter converter) {
+    Object raw = (fillValue == null) ? makePrimitiveArray(1, dataType) : makePrimitiveArray(1, dataType, fillValue);
+    Object converted = makePrimitiveArray(1, converter.getConvertedType());
+    converter.convert(raw, 0, converted, 0, 1);
+    return makePrimitiveArray(size, converter.getConvertedType(), java.lang.reflect.Array.get(converted, 0));
+  }
+
   /**
    * Copy data to a channel. Used by ncstream. Not doing Structures correctly yet.
    *
@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.nc2.iosp;
+
+import java.io.IOException;
+import java.util.List;
+import ucar.ma2.Array;
+import ucar.ma2.InvalidRangeException;
+import ucar.ma2.Section;
+import ucar.nc2.Variable;
+
+/**
+ * An IOServiceProvider that can read several Variables together, faster than reading them one at a time.
+ * Used by NetcdfFile.readArrays(). For example, netCDF-3 record variables are interleaved in the file, and can be
+ * read in one pass through the records, instead of one pass for each variable. Small variables can be read with
+ * {@link IospHelper#readDataCoalesced}, which reads the byte ranges of all of them in file order, with few seeks.
+ */
+public interface MultiVariableReader {
+
+  /**
+   * Read sections of several Variables.
+   * The result for each Variable is the same as the Array returned by
+   * {@link IOServiceProvider#readData(Variable, Section)}.
+   *
+   * @param variables top-level Variables of this file.
+   * @param sections for each Variable, the section of data to read, filled and validated.
+   * @return for each Variable, its data, or null if it must be read separately.
+   * @throws IOException on read error
+   * @throws InvalidRangeException if invalid section
+   */
+  List<Array> readData(List<Variable> variables, List<Section> sections) throws IOException, InvalidRangeException;
+}
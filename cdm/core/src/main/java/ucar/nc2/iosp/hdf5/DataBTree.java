@@ -6,6 +6,7 @@
 package ucar.nc2.iosp.hdf5;
 
 import java.util.Arrays;
+import ucar.ma2.Range;
 import ucar.ma2.Section;
 import ucar.nc2.iosp.LayoutTiled;
 import ucar.nc2.util.Misc;
@@ -42,15 +43,20 @@ public class DataBTree {
   private final MemTracker memTracker;
 
   private final long rootNodeAddress;
+  private final int[] varShape;
+  private final int[] storageSize;
   private final Tiling tiling;
   private final int ndimStorage, wantType;
 
   private Object owner;
+  private ChunkIndex chunkIndex; // read on first use
 
   public DataBTree(H5headerIF h5, long rootNodeAddress, int[] varShape, int[] storageSize, MemTracker memTracker) {
     this.h5 = h5;
     this.raf = h5.getRandomAccessFile();
     this.rootNodeAddress = rootNodeAddress;
+    this.varShape = varShape;
+    this.storageSize = storageSize;
     this.tiling = new Tiling(varShape, storageSize);
     this.ndimStorage = storageSize.length;
     this.memTracker = memTracker;
@@ -62,11 +68,27 @@ public class DataBTree {
     this.owner = owner;
   }
 
+  public long getRootNodeAddress() {
+    return rootNodeAddress;
+  }
+
+  public int[] getVarShape() {
+    return varShape;
+  }
+
   // used by H5tiledLayoutBB
   public DataChunkIterator getDataChunkIteratorFilter(Section want) throws IOException {
     return new DataChunkIterator(want);
   }
 
+  /** The index of all the data chunks, which is read from the btree the first time it is needed. */
+  synchronized ChunkIndex getChunkIndex() throws IOException {
+    if (chunkIndex == null) {
+      chunkIndex = new ChunkIndex();
+    }
+    return chunkIndex;
+  }
+
   // used by H5tiledLayout
   public LayoutTiled.DataChunkIterator getDataChunkIteratorNoFilter(Section want, int nChunkDim) throws IOException {
     return new DataChunkIteratorNoFilter(want, nChunkDim);
@@ -76,29 +98,27 @@ public class DataBTree {
   // returns the actual data from the btree leaf (level 0) nodes.
   // used by H5tiledLayout, when there are no filters
   class DataChunkIteratorNoFilter implements LayoutTiled.DataChunkIterator {
-    private Node root;
-    private int nChunkDim;
+    private final ChunkIndex.Cursor cursor;
+    private final int nChunkDim;
 
     /**
      * Constructor
      *
-     * @param want skip any nodes that are before this section
+     * @param want skip any chunks that dont intersect this section
      * @param nChunkDim number of chunk dimensions - may be less than the offset[] length
      * @throws IOException on error
      */
     DataChunkIteratorNoFilter(Section want, int nChunkDim) throws IOException {
       this.nChunkDim = nChunkDim;
-      root = new Node(rootNodeAddress, -1); // should we cache the nodes ???
-      int[] wantOrigin = (want != null) ? want.getOrigin() : null;
-      root.first(wantOrigin);
+      this.cursor = getChunkIndex().find(want);
     }
 
     public boolean hasNext() {
-      return root.hasNext(); // && !node.greaterThan(wantOrigin);
+      return cursor.hasNext();
     }
 
-    public LayoutTiled.DataChunk next() throws IOException {
-      DataChunk dc = root.next();
+    public LayoutTiled.DataChunk next() {
+      DataChunk dc = cursor.next();
       int[] offset = dc.offset;
       if (offset.length > nChunkDim) { // may have to eliminate last offset
         offset = new int[nChunkDim];
@@ -115,27 +135,169 @@ public class DataBTree {
   // returns the data chunck info from the btree leaf (level 0) nodes
   // used by H5tiledLayoutBB, when there are filters
   public class DataChunkIterator {
-    private Node root;
-    private int[] wantOrigin;
+    private final ChunkIndex.Cursor cursor;
 
     /**
      * Constructor
      *
-     * @param want skip any nodes that are before this section
+     * @param want skip any chunks that dont intersect this section, may be null
      * @throws IOException on error
      */
     DataChunkIterator(Section want) throws IOException {
-      root = new Node(rootNodeAddress, -1); // should we cache the nodes ???
-      wantOrigin = (want != null) ? want.getOrigin() : null;
-      root.first(wantOrigin);
+      this.cursor = getChunkIndex().find(want);
     }
 
     public boolean hasNext() {
-      return root.hasNext(); // && !node.greaterThan(wantOrigin);
+      return cursor.hasNext();
     }
 
     public DataChunk next() throws IOException {
-      return root.next();
+      return cursor.next();
+    }
+  }
+
+  // All the data chunks, in btree order, held in primitive arrays.
+  // The btree is sorted by chunk offset, so the chunks that may intersect a section are found with a binary search,
+  // instead of walking the btree again for every read.
+  class ChunkIndex {
+    private int nchunks;
+    private int[] offsets; // [nchunks * ndimStorage]
+    private long[] filePos;
+    private int[] sizes;
+    private int[] filterMasks;
+
+    ChunkIndex() throws IOException {
+      int capacity = 16;
+      offsets = new int[capacity * ndimStorage];
+      filePos = new long[capacity];
+      sizes = new int[capacity];
+      filterMasks = new int[capacity];
+
+      Node root = new Node(rootNodeAddress, -1);
+      root.first(null);
+      while (root.hasNext()) {
+        add(root.next());
+      }
+      if (debugDataBtree)
+        debugOut.println("DataBTree ChunkIndex for " + owner + " has " + nchunks + " chunks");
+    }
+
+    private void add(DataChunk dc) {
+      if (nchunks == filePos.length) {
+        int capacity = 2 * nchunks;
+        offsets = Arrays.copyOf(offsets, capacity * ndimStorage);
+        filePos = Arrays.copyOf(filePos, capacity);
+        sizes = Arrays.copyOf(sizes, capacity);
+        filterMasks = Arrays.copyOf(filterMasks, capacity);
+      }
+      System.arraycopy(dc.offset, 0, offsets, nchunks * ndimStorage, ndimStorage);
+      filePos[nchunks] = dc.filePos;
+      sizes[nchunks] = dc.size;
+      filterMasks[nchunks] = dc.filterMask;
+      nchunks++;
+    }
+
+    int getNumChunks() {
+      return nchunks;
+    }
+
+    DataChunk get(int i) {
+      int[] offset = Arrays.copyOfRange(offsets, i * ndimStorage, (i + 1) * ndimStorage);
+      return new DataChunk(sizes[i], filterMasks[i], offset, filePos[i]);
+    }
+
+    /**
+     * Find the chunks whose bounding box intersects the wanted section.
+     *
+     * @param want the wanted section, or null for all chunks
+     * @return the matching chunks, in btree order
+     */
+    Cursor find(Section want) {
+      if (want == null)
+        return new Cursor(0, nchunks, new int[0], new int[0]);
+
+      int rank = Math.min(want.getRank(), ndimStorage);
+      int[] first = new int[rank];
+      int[] last = new int[rank];
+      int[] lowKey = new int[rank];
+      for (int d = 0; d < rank; d++) {
+        Range r = want.getRange(d);
+        if (r.length() == 0) // nothing wanted
+          return new Cursor(0, 0, first, last);
+        first[d] = r.first();
+        last[d] = r.last();
+        lowKey[d] = (first[d] / storageSize[d]) * storageSize[d]; // the chunk holding the first point
+      }
+      // every intersecting chunk has an offset between lowKey and last in each dimension,
+      // so lies between them in the btree order
+      return new Cursor(search(lowKey, false), search(last, true), first, last);
+    }
+
+    // index of the first chunk whose offset is >= key, or > key if after is true
+    private int search(int[] key, boolean after) {
+      int lo = 0;
+      int hi = nchunks;
+      while (lo < hi) {
+        int mid = (lo + hi) >>> 1;
+        int c = compare(mid, key);
+        if (c < 0 || (after && c == 0))
+          lo = mid + 1;
+        else
+          hi = mid;
+      }
+      return lo;
+    }
+
+    // compare the offset of chunk i with key, over the dimensions of the key
+    private int compare(int i, int[] key) {
+      int start = i * ndimStorage;
+      for (int d = 0; d < key.length; d++) {
+        int c = Integer.compare(offsets[start + d], key[d]);
+        if (c != 0)
+          return c;
+      }
+      return 0;
+    }
+
+    // does the bounding box of chunk i intersect [first, last] ?
+    private boolean intersects(int i, int[] first, int[] last) {
+      int start = i * ndimStorage;
+      for (int d = 0; d < first.length; d++) {
+        int offset = offsets[start + d];
+        if (offset > last[d] || offset + storageSize[d] <= first[d])
+          return false;
+      }
+      return true;
+    }
+
+    // iterates over the chunks in [current, end) that intersect [first, last]
+    class Cursor {
+      private int current;
+      private final int end;
+      private final int[] first, last;
+
+      Cursor(int start, int end, int[] first, int[] last) {
+        this.current = start;
+        this.end = end;
+        this.first = first;
+        this.last = last;
+        skip();
+      }
+
+      private void skip() {
+        while (current < end && !intersects(current, first, last))
+          current++;
+      }
+
+      boolean hasNext() {
+        return current < end;
+      }
+
+      DataChunk next() {
+        DataChunk dc = get(current++);
+        skip();
+        return dc;
+      }
     }
   }
 
@@ -314,6 +476,13 @@ public class DataBTree {
         memTracker.addByLen("Chunked Data (" + owner + ")", filePos, size);
     }
 
+    DataChunk(int size, int filterMask, int[] offset, long filePos) {
+      this.size = size;
+      this.filterMask = filterMask;
+      this.offset = offset;
+      this.filePos = filePos;
+    }
+
     public String toString() {
       StringBuilder sbuff = new StringBuilder();
       sbuff.append("  ChunkedDataNode size=").append(size).append(" filterMask=").append(filterMask).append(" filePos=")
@@ -12,13 +12,14 @@ import ucar.ma2.Section;
 import ucar.nc2.Variable;
 import ucar.nc2.iosp.LayoutBB;
 import ucar.nc2.iosp.LayoutBBTiled;
-import ucar.nc2.util.IO;
+import ucar.unidata.io.BufferPool;
 import ucar.unidata.io.RandomAccessFile;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.Arrays;
 
 /**
  * Iterator to read/write subsets of an array.
@@ -200,12 +201,15 @@ public class H5tiledLayoutBB implements LayoutBB {
 
     public ByteBuffer getByteBuffer() throws IOException {
       try {
-        // read the data
-        byte[] data = new byte[delegate.size];
+        // read the data into a temporary buffer, which may be longer than the chunk
+        int size = delegate.size;
+        BufferPool pool = BufferPool.getDefault();
+        byte[] raw = pool.getBytes(size);
         raf.seek(delegate.filePos);
-        raf.readFully(data);
+        raf.readFully(raw, 0, size);
 
         // apply filters backwards
+        byte[] data = null;
         for (int i = filters.length - 1; i >= 0; i--) {
           H5header.Filter f = filters[i];
           if (isBitSet(delegate.filterMask, i)) {
@@ -214,8 +218,13 @@ public class H5tiledLayoutBB implements LayoutBB {
             continue;
           }
           if (f.id == 1) {
-            data = inflate(data);
-          } else if (f.id == 2) {
+            data = (data == null) ? inflate(raw, size) : inflate(data, data.length);
+            continue;
+          }
+          if (data == null) {
+            data = Arrays.copyOf(raw, size);
+          }
+          if (f.id == 2) {
             data = shuffle(data, f.data[0]);
           } else if (f.id == 3) {
             data = checkfletcher32(data);
@@ -227,7 +236,13 @@ public class H5tiledLayoutBB implements LayoutBB {
             throw new RuntimeException("Unknown filter type=" + f.id);
         }
 
-        ByteBuffer result = ByteBuffer.wrap(data);
+        ByteBuffer result;
+        if (data == null) { // no filters were applied, the raw bytes are the data
+          result = ByteBuffer.wrap(raw, 0, size);
+        } else {
+          pool.release(raw);
+          result = ByteBuffer.wrap(data);
+        }
         result.order(byteOrder);
         return result;
       } catch (OutOfMemoryError e) {
@@ -242,22 +257,33 @@ public class H5tiledLayoutBB implements LayoutBB {
      * inflate data
      *
      * @param compressed compressed data
+     * @param length number of compressed bytes
      * @return uncompressed data
      * @throws IOException on I/O error
      */
-    private byte[] inflate(byte[] compressed) throws IOException {
+    private byte[] inflate(byte[] compressed, int length) throws IOException {
       // run it through the Inflator
-      ByteArrayInputStream in = new ByteArrayInputStream(compressed);
+      ByteArrayInputStream in = new ByteArrayInputStream(compressed, 0, length);
       java.util.zip.Inflater inflater = new java.util.zip.Inflater();
       java.util.zip.InflaterInputStream inflatestream =
           new java.util.zip.InflaterInputStream(in, inflater, inflatebuffersize);
-      int len = Math.min(8 * compressed.length, MAX_ARRAY_LEN);
+      int len = Math.min(8 * length, MAX_ARRAY_LEN);
       ByteArrayOutputStream out = new ByteArrayOutputStream(len); // Fixes KXL-349288
-      IO.copyB(inflatestream, out, len);
+      BufferPool pool = BufferPool.getDefault();
+      byte[] buffer = pool.getBytes(len);
+      try {
+        int n;
+        while ((n = inflatestream.read(buffer, 0, len)) != -1) {
+          out.write(buffer, 0, n);
+        }
+      } finally {
+        pool.release(buffer);
+        inflater.end();
+      }
 
       byte[] uncomp = out.toByteArray();
       if (debug || debugFilter)
-        System.out.println(" inflate bytes in= " + compressed.length + " bytes out= " + uncomp.length);
+        System.out.println(" inflate bytes in= " + length + " bytes out= " + uncomp.length);
       return uncomp;
     }
 
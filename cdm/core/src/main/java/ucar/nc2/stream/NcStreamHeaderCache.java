@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.nc2.stream;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import javax.annotation.Nullable;
+import ucar.nc2.Group;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.iosp.HeaderCacheable;
+import ucar.nc2.iosp.IOServiceProvider;
+import ucar.nc2.util.DiskCache2;
+import ucar.unidata.io.InMemoryRandomAccessFile;
+import ucar.unidata.io.RandomAccessFile;
+import ucar.unidata.io.http.HTTPRandomAccessFile;
+
+/**
+ * A persistent cache of file headers, so that opening an unchanged file does not parse its header again.
+ * This matters most for HDF5 files, where reading the header means following many small objects through the file,
+ * and for remote files, where each of those reads may be a round trip.
+ * <p>
+ * The metadata tree is stored in ncstream format, followed by the layout information of the IOSP, which must
+ * implement {@link HeaderCacheable}. A cached header is only used if the file length, last modified date and (for
+ * remote files) the HTTP ETag are unchanged; otherwise the file is opened normally and the cache entry is rewritten.
+ * <p>
+ * The cache is off by default. Turn it on by calling {@link #setDiskCache2(DiskCache2)}. As with the GRIB indexes,
+ * the DiskCache2 policy decides if cache files are written next to the data file or in the cache directory.
+ */
+public class NcStreamHeaderCache {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(NcStreamHeaderCache.class);
+
+  // must start with this "CDMH"
+  private static final byte[] MAGIC = {0x43, 0x44, 0x4d, 0x48};
+  private static final int VERSION = 1;
+  public static final String SUFFIX = ".ncxh";
+
+  private static DiskCache2 diskCache;
+
+  /** Enable the header cache, using the given DiskCache2 to place the cache files. Null disables it. */
+  public static synchronized void setDiskCache2(@Nullable DiskCache2 dc) {
+    diskCache = dc;
+  }
+
+  @Nullable
+  public static synchronized DiskCache2 getDiskCache2() {
+    return diskCache;
+  }
+
+  /** Is the header cache enabled, and can this iosp and file use it? */
+  public static boolean canCache(IOServiceProvider iosp, RandomAccessFile raf) {
+    if (getDiskCache2() == null || !(iosp instanceof HeaderCacheable))
+      return false;
+    if (raf instanceof InMemoryRandomAccessFile)
+      return false;
+    // must be able to tell if the file has changed
+    return raf.getLastModified() > 0 || getETag(raf) != null;
+  }
+
+  /**
+   * Open a file from its cached header, if there is one and it is still valid.
+   *
+   * @param iosp open the file with this iosp, must implement HeaderCacheable.
+   * @param raf the file to open.
+   * @return the root group, ready for NetcdfFile.Builder, or null if the file must be opened normally.
+   */
+  @Nullable
+  public static Group.Builder readHeader(IOServiceProvider iosp, RandomAccessFile raf) {
+    if (!canCache(iosp, raf))
+      return null;
+    File cacheFile = getDiskCache2().getExistingFileOrCache(raf.getLocation() + SUFFIX);
+    if (cacheFile == null)
+      return null;
+
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+      byte[] magic = new byte[MAGIC.length];
+      in.readFully(magic);
+      if (!NcStream.test(magic, MAGIC) || in.readInt() != VERSION)
+        return null;
+      if (!readAndTestValidation(in, iosp, raf)) {
+        logger.debug("Header cache {} is out of date", cacheFile);
+        return null;
+      }
+
+      byte[] proto = new byte[in.readInt()];
+      in.readFully(proto);
+      byte[] state = new byte[in.readInt()];
+      in.readFully(state);
+
+      Group.Builder root = Group.builder().setName("");
+      NcStream.readGroup(NcStreamProto.Group.parseFrom(proto), root);
+      ((HeaderCacheable) iosp).buildFromHeaderState(raf, root, state);
+      logger.debug("Opened {} from header cache {}", raf.getLocation(), cacheFile);
+      return root;
+
+    } catch (IOException | RuntimeException e) {
+      logger.warn("Failed to read header cache {} for {}: {}", cacheFile, raf.getLocation(), e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Write the header of a file that was just opened to the cache.
+   * Failures are logged and otherwise ignored; the file is still usable.
+   *
+   * @param iosp the iosp that opened the file, must implement HeaderCacheable.
+   * @param raf the opened file.
+   * @param ncfile the NetcdfFile built from it.
+   */
+  public static void writeHeader(IOServiceProvider iosp, RandomAccessFile raf, NetcdfFile ncfile) {
+    if (!canCache(iosp, raf))
+      return;
+    File cacheFile = getDiskCache2().getCacheFile(raf.getLocation() + SUFFIX);
+    if (cacheFile == null)
+      return;
+
+    File tmpFile = new File(cacheFile.getPath() + ".tmp" + Thread.currentThread().getId());
+    try {
+      byte[] state = ((HeaderCacheable) iosp).encodeHeaderState(ncfile.getRootGroup());
+      if (state == null)
+        return;
+      byte[] proto = NcStream.encodeGroup(ncfile.getRootGroup(), 0).build().toByteArray();
+
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+        out.write(MAGIC);
+        out.writeInt(VERSION);
+        writeValidation(out, iosp, raf);
+        out.writeInt(proto.length);
+        out.write(proto);
+        out.writeInt(state.length);
+        out.write(state);
+      }
+
+      try {
+        Files.move(tmpFile.toPath(), cacheFile.toPath(), StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tmpFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+      logger.debug("Wrote header cache {} for {}", cacheFile, raf.getLocation());
+
+    } catch (IOException | RuntimeException e) {
+      logger.warn("Failed to write header cache {} for {}: {}", cacheFile, raf.getLocation(), e.getMessage());
+      if (tmpFile.exists() && !tmpFile.delete())
+        logger.warn("Failed to delete {}", tmpFile);
+    }
+  }
+
+  private static void writeValidation(DataOutputStream out, IOServiceProvider iosp, RandomAccessFile raf)
+      throws IOException {
+    out.writeUTF(raf.getLocation());
+    out.writeUTF(iosp.getClass().getName());
+    out.writeLong(raf.length());
+    out.writeLong(raf.getLastModified());
+    String etag = getETag(raf);
+    out.writeUTF(etag == null ? "" : etag);
+  }
+
+  private static boolean readAndTestValidation(DataInputStream in, IOServiceProvider iosp, RandomAccessFile raf)
+      throws IOException {
+    if (!in.readUTF().equals(raf.getLocation()))
+      return false;
+    if (!in.readUTF().equals(iosp.getClass().getName()))
+      return false;
+    if (in.readLong() != raf.length())
+      return false;
+    if (in.readLong() != raf.getLastModified())
+      return false;
+    String etag = getETag(raf);
+    return in.readUTF().equals(etag == null ? "" : etag);
+  }
+
+  @Nullable
+  private static String getETag(RandomAccessFile raf) {
+    return (raf instanceof HTTPRandomAccessFile) ? ((HTTPRandomAccessFile) raf).getETag() : null;
+  }
+
+}
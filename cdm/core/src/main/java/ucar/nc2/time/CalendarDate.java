@@ -318,21 +318,26 @@ public class CalendarDate implements Comparable<CalendarDate> {
    * @deprecated use CalendarDate add(CalendarPeriod period)
    */
   public CalendarDate add(double value, CalendarPeriod.Field unit) {
+    return new CalendarDate(cal, dateTime.plus(toMillis(value, unit)));
+  }
+
+  // the duration in msecs used by add(double, CalendarPeriod.Field)
+  static long toMillis(double value, CalendarPeriod.Field unit) {
     switch (unit) {
       case Millisec:
-        return new CalendarDate(cal, dateTime.plus(Math.round(value)));
+        return Math.round(value);
       case Second:
-        return new CalendarDate(cal, dateTime.plus(Math.round(value * MILLISECS_IN_SECOND)));
+        return Math.round(value * MILLISECS_IN_SECOND);
       case Minute:
-        return new CalendarDate(cal, dateTime.plus(Math.round(value * MILLISECS_IN_MINUTE)));
+        return Math.round(value * MILLISECS_IN_MINUTE);
       case Hour:
-        return new CalendarDate(cal, dateTime.plus(Math.round(value * MILLISECS_IN_HOUR)));
+        return Math.round(value * MILLISECS_IN_HOUR);
       case Day:
-        return new CalendarDate(cal, dateTime.plus(Math.round(value * MILLISECS_IN_DAY)));
+        return Math.round(value * MILLISECS_IN_DAY);
       case Month: // LOOK should we throw warning ?
-        return new CalendarDate(cal, dateTime.plus(Math.round(value * MILLISECS_IN_MONTH)));
+        return Math.round(value * MILLISECS_IN_MONTH);
       case Year: // LOOK should we throw warning ?
-        return new CalendarDate(cal, dateTime.plus(Math.round(value * MILLISECS_IN_YEAR)));
+        return Math.round(value * MILLISECS_IN_YEAR);
     }
     throw new UnsupportedOperationException("period units = " + unit);
   }
@@ -46,6 +46,20 @@ public class CalendarDateFormatter {
 
   }
 
+  /**
+   * Same as toDateTimeStringISO(CalendarDate.of(cal, millisecs)), without making the CalendarDate.
+   *
+   * @param cal calendar to use, or null for default
+   * @param millisecs milliseconds from 1970-01-01T00:00:00Z
+   */
+  public static String toDateTimeStringISO(Calendar cal, long millisecs) {
+    Chronology chronology = Calendar.getChronology(cal);
+    if (Math.floorMod(millisecs, 1000) == 0)
+      return isof.withChronology(chronology).print(millisecs);
+    else
+      return isof_with_millis_of_second.withChronology(chronology).print(millisecs);
+  }
+
   public static String toDateTimeStringISO(Date d) {
     return toDateTimeStringISO(CalendarDate.of(d));
   }
@@ -0,0 +1,325 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.nc2.time;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import ucar.ma2.Range;
+
+/**
+ * An immutable sequence of dates in one Calendar, such as the values of a time coordinate.
+ * The dates are kept as msecs since 1970-01-01T00:00:00Z, in a long[], or as start and step when they are regularly
+ * spaced. CalendarDate objects are only made when asked for.
+ *
+ * @since 5.5.4
+ */
+@Immutable
+public abstract class CalendarDateSequence {
+
+  /**
+   * Make a sequence from msecs since 1970-01-01T00:00:00Z.
+   *
+   * @param cal calendar of the dates, or null for default
+   * @param millis the dates, the array is not copied and must not be modified.
+   */
+  public static CalendarDateSequence of(@Nullable Calendar cal, long[] millis) {
+    int n = millis.length;
+    if (n < 2) {
+      return new Regular(cal, n == 0 ? 0 : millis[0], 0, n);
+    }
+    long step = millis[1] - millis[0];
+    for (int i = 2; i < n; i++) {
+      if (millis[i] - millis[i - 1] != step) {
+        return new Irregular(cal, millis);
+      }
+    }
+    return new Regular(cal, millis[0], step, n);
+  }
+
+  /**
+   * Make a sequence of regularly spaced dates.
+   *
+   * @param cal calendar of the dates, or null for default
+   * @param start first date, in msecs since 1970-01-01T00:00:00Z.
+   * @param step msecs between dates.
+   * @param n number of dates.
+   */
+  public static CalendarDateSequence regular(@Nullable Calendar cal, long start, long step, int n) {
+    return new Regular(cal, start, step, n);
+  }
+
+  /**
+   * Make a sequence from values in a date unit, same as calling dateUnit.makeCalendarDate() for each value.
+   *
+   * @param dateUnit unit of the values.
+   * @param values the values.
+   */
+  public static CalendarDateSequence of(CalendarDateUnit dateUnit, double[] values) {
+    long[] millis = new long[values.length];
+    for (int i = 0; i < values.length; i++) {
+      millis[i] = dateUnit.makeMillis(values[i]);
+    }
+    return of(dateUnit.getCalendar(), millis);
+  }
+
+  /** Make a sequence from a list of CalendarDates, which must all be in the given Calendar. */
+  public static CalendarDateSequence of(@Nullable Calendar cal, List<CalendarDate> dates) {
+    long[] millis = new long[dates.size()];
+    for (int i = 0; i < millis.length; i++) {
+      millis[i] = dates.get(i).getMillis();
+    }
+    return of(cal, millis);
+  }
+
+  ////////////////////////////////////////////////////////////////////////////////
+
+  protected final Calendar cal;
+  protected final int n;
+  private List<CalendarDate> list;
+
+  private CalendarDateSequence(@Nullable Calendar cal, int n) {
+    this.cal = (cal == null) ? Calendar.getDefault() : cal;
+    this.n = n;
+  }
+
+  public Calendar getCalendar() {
+    return cal;
+  }
+
+  /** Number of dates. */
+  public int size() {
+    return n;
+  }
+
+  /** The ith date, in msecs since 1970-01-01T00:00:00Z. */
+  public abstract long getMillis(int i);
+
+  /** Is this regularly spaced, so that the ith date is getMillis(0) + i * getStep(). */
+  public abstract boolean isRegular();
+
+  /** msecs between dates if isRegular(), else 0. */
+  public abstract long getStep();
+
+  /** Are the dates in non decreasing order. */
+  public abstract boolean isSorted();
+
+  /** A sequence of the dates at the indexes of the Range. */
+  public abstract CalendarDateSequence section(Range r);
+
+  /** The dates, in msecs since 1970-01-01T00:00:00Z. */
+  public long[] getMillis() {
+    long[] result = new long[n];
+    for (int i = 0; i < n; i++) {
+      result[i] = getMillis(i);
+    }
+    return result;
+  }
+
+  /** The ith date, made on demand. */
+  public CalendarDate getCalendarDate(int i) {
+    return CalendarDate.of(cal, getMillis(i));
+  }
+
+  /** The ith date as an ISO string, the same as CalendarDateFormatter.toDateTimeStringISO(getCalendarDate(i)). */
+  public String toDateTimeStringISO(int i) {
+    return CalendarDateFormatter.toDateTimeStringISO(cal, getMillis(i));
+  }
+
+  /** The range from the first to the last date, or null if empty. */
+  @Nullable
+  public CalendarDateRange getCalendarDateRange() {
+    return (n > 0) ? CalendarDateRange.of(getCalendarDate(0), getCalendarDate(n - 1)) : null;
+  }
+
+  /**
+   * An unmodifiable List view of the dates. Its elements are made when they are asked for, and not kept.
+   */
+  public List<CalendarDate> asList() {
+    if (list == null) {
+      list = new DateList();
+    }
+    return list;
+  }
+
+  /**
+   * Find the index of the last date that is at or before a date, using a binary search if the dates are sorted.
+   * Returns 0 if all the dates are after it.
+   *
+   * @param millis the date in msecs since 1970-01-01T00:00:00Z.
+   */
+  public int findIndex(long millis) {
+    if (!isSorted()) {
+      int index = 0;
+      while (index < n) {
+        if (millis < getMillis(index))
+          break;
+        index++;
+      }
+      return Math.max(0, index - 1);
+    }
+
+    // number of dates <= millis
+    int low = 0;
+    int high = n;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (getMillis(mid) <= millis) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return Math.max(0, low - 1);
+  }
+
+  /**
+   * Find the index of a date.
+   *
+   * @param millis the date in msecs since 1970-01-01T00:00:00Z.
+   * @return index of the first date equal to it, or -1 if none.
+   */
+  public int indexOf(long millis) {
+    if (isSorted() && n > 0) {
+      int index = findIndex(millis);
+      // back up over equal dates to the first one
+      while (index > 0 && getMillis(index - 1) == millis) {
+        index--;
+      }
+      return (getMillis(index) == millis) ? index : -1;
+    }
+    for (int i = 0; i < n; i++) {
+      if (getMillis(i) == millis)
+        return i;
+    }
+    return -1;
+  }
+
+  @Override
+  public String toString() {
+    if (n == 0)
+      return "[]";
+    return String.format("[%s .. %s, n=%d%s]", toDateTimeStringISO(0), toDateTimeStringISO(n - 1), n,
+        isRegular() ? ", step=" + getStep() + " msecs" : "");
+  }
+
+  ////////////////////////////////////////////////////////////////////////////////
+
+  private class DateList extends AbstractList<CalendarDate> implements RandomAccess {
+    @Override
+    public CalendarDate get(int index) {
+      if (index < 0 || index >= n)
+        throw new IndexOutOfBoundsException("index " + index + " size " + n);
+      return getCalendarDate(index);
+    }
+
+    @Override
+    public int size() {
+      return n;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+      if (!(o instanceof CalendarDate) || ((CalendarDate) o).getCalendar() != cal)
+        return -1;
+      return CalendarDateSequence.this.indexOf(((CalendarDate) o).getMillis());
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      return indexOf(o) >= 0;
+    }
+  }
+
+  private static class Regular extends CalendarDateSequence {
+    private final long start;
+    private final long step;
+
+    Regular(@Nullable Calendar cal, long start, long step, int n) {
+      super(cal, n);
+      this.start = start;
+      this.step = step;
+    }
+
+    @Override
+    public long getMillis(int i) {
+      return start + i * step;
+    }
+
+    @Override
+    public boolean isRegular() {
+      return true;
+    }
+
+    @Override
+    public long getStep() {
+      return step;
+    }
+
+    @Override
+    public boolean isSorted() {
+      return step >= 0;
+    }
+
+    @Override
+    public CalendarDateSequence section(Range r) {
+      return new Regular(cal, getMillis(r.first()), step * r.stride(), r.length());
+    }
+  }
+
+  private static class Irregular extends CalendarDateSequence {
+    private final long[] millis;
+    private final boolean sorted;
+
+    Irregular(@Nullable Calendar cal, long[] millis) {
+      super(cal, millis.length);
+      this.millis = millis;
+      boolean sorted = true;
+      for (int i = 1; i < millis.length && sorted; i++) {
+        sorted = millis[i - 1] <= millis[i];
+      }
+      this.sorted = sorted;
+    }
+
+    @Override
+    public long getMillis(int i) {
+      return millis[i];
+    }
+
+    @Override
+    public long[] getMillis() {
+      return Arrays.copyOf(millis, n);
+    }
+
+    @Override
+    public boolean isRegular() {
+      return false;
+    }
+
+    @Override
+    public long getStep() {
+      return 0;
+    }
+
+    @Override
+    public boolean isSorted() {
+      return sorted;
+    }
+
+    @Override
+    public CalendarDateSequence section(Range r) {
+      long[] result = new long[r.length()];
+      int count = 0;
+      for (int idx : r) {
+        result[count++] = millis[idx];
+      }
+      return of(cal, result);
+    }
+  }
+
+}
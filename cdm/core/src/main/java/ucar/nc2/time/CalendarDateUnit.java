@@ -168,6 +168,17 @@ public class CalendarDateUnit {
       return baseDate.add(value, periodField);
   }
 
+  /**
+   * Given a value in this unit, the msecs since 1970-01-01T00:00:00Z of the date from makeCalendarDate(value),
+   * without making the CalendarDate unless this unit is a calendar field.
+   */
+  public long makeMillis(double value) {
+    if (isCalendarField)
+      return makeCalendarDate(value).getMillis();
+    else
+      return baseDate.getMillis() + CalendarDate.toMillis(value, periodField);
+  }
+
   public CalendarDate makeCalendarDate(int value) {
     if (isCalendarField)
       return baseDate.add(CalendarPeriod.of(value, periodField));
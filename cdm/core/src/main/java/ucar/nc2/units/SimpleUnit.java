@@ -201,9 +201,11 @@ public class SimpleUnit {
    */
   public static double getConversionFactor(String inputUnitString, String outputUnitString)
       throws IllegalArgumentException {
-    SimpleUnit inputUnit = SimpleUnit.factory(inputUnitString);
-    SimpleUnit outputUnit = SimpleUnit.factory(outputUnitString);
-    return inputUnit.convertTo(1.0, outputUnit);
+    try {
+      return UnitCache.getConverter(inputUnitString, outputUnitString).convert(1.0);
+    } catch (UnitException e) {
+      throw new IllegalArgumentException(e.getMessage());
+    }
   }
 
   ////////////////////////////////////////////////
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.unidata.io;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Formatter;
+import javax.annotation.Nullable;
+
+/**
+ * A pool of temporary buffers, used by the IOSPs and filters for buffers that are only needed while reading, such as
+ * compressed chunk bytes. Buffers that are returned to the caller, such as the primitive arrays of an Array, are never
+ * taken from the pool.
+ * <p>
+ * A buffer from getBytes() or getDirectBuffer() may be larger than asked for, so the caller must keep track of the
+ * length it uses. Once a buffer has been given back with release(), the caller must not use it again. It is never an
+ * error to not release a buffer, it is then just garbage collected.
+ * <p>
+ * The default pool is a {@link SizeClassedBufferPool}. Use {@link #setDefault} to install another implementation, or
+ * to turn pooling off.
+ *
+ * @since 5.5.4
+ */
+public abstract class BufferPool {
+
+  /** A BufferPool that always allocates a new buffer of the exact size, and drops released buffers. */
+  public static final BufferPool NONE = new BufferPool() {
+    @Override
+    public byte[] getBytes(int minLength) {
+      return new byte[minLength];
+    }
+
+    @Override
+    public void release(byte[] buffer) {}
+
+    @Override
+    public ByteBuffer getDirectBuffer(int minCapacity) {
+      return ByteBuffer.allocateDirect(minCapacity);
+    }
+
+    @Override
+    public void release(ByteBuffer buffer) {}
+
+    @Override
+    public void showStats(Formatter f) {
+      f.format("BufferPool disabled%n");
+    }
+  };
+
+  private static volatile BufferPool defaultPool = new SizeClassedBufferPool();
+
+  /** The pool used by the IOSPs and filters. */
+  public static BufferPool getDefault() {
+    return defaultPool;
+  }
+
+  /**
+   * Set the pool used by the IOSPs and filters.
+   *
+   * @param pool use this pool, or null to turn pooling off.
+   */
+  public static void setDefault(@Nullable BufferPool pool) {
+    defaultPool = (pool == null) ? NONE : pool;
+  }
+
+  /** Turn the default pool on or off. Turning it on installs a new SizeClassedBufferPool if it is off. */
+  public static void setEnabled(boolean enabled) {
+    if (!enabled) {
+      defaultPool = NONE;
+    } else if (defaultPool == NONE) {
+      defaultPool = new SizeClassedBufferPool();
+    }
+  }
+
+  /** Is pooling on? */
+  public static boolean isEnabled() {
+    return defaultPool != NONE;
+  }
+
+  ///////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Get a byte array with at least the given length. Its contents are undefined.
+   *
+   * @param minLength the number of bytes needed.
+   * @return a byte array whose length is at least minLength.
+   */
+  public abstract byte[] getBytes(int minLength);
+
+  /** Give back a byte array when it is no longer used. It need not have come from this pool. */
+  public abstract void release(byte[] buffer);
+
+  /**
+   * Get a direct ByteBuffer with at least the given capacity, whose position is 0, whose limit is minCapacity, and
+   * whose byte order is big endian. Its contents are undefined.
+   *
+   * @param minCapacity the number of bytes needed.
+   * @return a direct ByteBuffer.
+   */
+  public abstract ByteBuffer getDirectBuffer(int minCapacity);
+
+  /** Give back a direct ByteBuffer when it is no longer used. Heap ByteBuffers are ignored. */
+  public abstract void release(ByteBuffer buffer);
+
+  /** Show the pool statistics. */
+  public abstract void showStats(Formatter f);
+
+  /** Set up a direct ByteBuffer as getDirectBuffer() promises, for use by implementations. */
+  protected static ByteBuffer reset(ByteBuffer buffer, int minCapacity) {
+    buffer.clear();
+    buffer.limit(minCapacity);
+    buffer.order(ByteOrder.BIG_ENDIAN);
+    return buffer;
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.unidata.io;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * An index of a compressed file, that divides its uncompressed contents into windows that can each be decompressed
+ * on their own. Used by {@link CompressedRandomAccessFile}.
+ */
+public abstract class CompressedIndex {
+
+  // uncompressed offset of the start of each window, followed by the uncompressed length
+  protected long[] windowStarts;
+
+  /** Length of the uncompressed contents, in bytes. */
+  public long getUncompressedLength() {
+    return windowStarts[windowStarts.length - 1];
+  }
+
+  public int getNumWindows() {
+    return windowStarts.length - 1;
+  }
+
+  /** Uncompressed offset of the start of a window. */
+  public long getWindowStart(int window) {
+    return windowStarts[window];
+  }
+
+  /** Uncompressed length of a window. */
+  public int getWindowLength(int window) {
+    return (int) (windowStarts[window + 1] - windowStarts[window]);
+  }
+
+  /** Find the window that holds an uncompressed offset, which must be less than the uncompressed length. */
+  public int findWindow(long pos) {
+    int index = Arrays.binarySearch(windowStarts, pos);
+    // an empty window may start at the same place as the next one
+    while (index >= 0 && index < windowStarts.length - 2 && windowStarts[index + 1] == pos) {
+      index++;
+    }
+    return index >= 0 ? index : -index - 2;
+  }
+
+  /**
+   * Decompress a window.
+   *
+   * @param compressed the compressed file.
+   * @param window index of the window.
+   * @return its uncompressed contents.
+   */
+  public abstract byte[] readWindow(RandomAccessFile compressed, int window) throws IOException;
+
+  /** Write the index, so it can be read back by the readIndex() method of the subclass. */
+  public abstract void writeIndex(DataOutputStream out) throws IOException;
+
+  protected void writeWindowStarts(DataOutputStream out) throws IOException {
+    out.writeInt(windowStarts.length);
+    for (long start : windowStarts) {
+      out.writeLong(start);
+    }
+  }
+
+  protected void readWindowStarts(DataInputStream in) throws IOException {
+    windowStarts = new long[in.readInt()];
+    for (int i = 0; i < windowStarts.length; i++) {
+      windowStarts[i] = in.readLong();
+    }
+  }
+
+}
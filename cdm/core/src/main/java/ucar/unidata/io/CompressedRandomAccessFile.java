@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.unidata.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+import ucar.nc2.util.DiskCache;
+import ucar.unidata.io.bzip2.Bzip2Index;
+import ucar.unidata.io.gzip.GzipIndex;
+
+/**
+ * A read-only RandomAccessFile over the uncompressed contents of a gzip or bzip2 file, that decompresses only the
+ * parts that are read.
+ * <p>
+ * The first open of a file builds a {@link CompressedIndex}, which takes one pass through the whole file, and
+ * saves it next to the file or in the {@link DiskCache}, as is done for uncompressed copies of compressed files.
+ * Later opens read the saved index, if the compressed file has the same length and last modified date.
+ * Reads then decompress only the windows of the file they touch, about 1 MB each for gzip, one block for bzip2.
+ * The most recently used windows are kept in memory.
+ */
+public class CompressedRandomAccessFile extends RandomAccessFile {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(CompressedRandomAccessFile.class);
+
+  // must start with this "CDMZ"
+  private static final byte[] MAGIC = {0x43, 0x44, 0x4d, 0x5a};
+  private static final int VERSION = 1;
+  public static final String SUFFIX = ".zidx";
+
+  private static final int maxCachedWindows = 4;
+
+  /** Can this location be opened as a CompressedRandomAccessFile? True for local gzip and bzip2 files. */
+  public static boolean canOpen(String location) {
+    return getType(location) != null;
+  }
+
+  @Nullable
+  private static String getType(String location) {
+    if (location.endsWith(".gz") || location.endsWith(".gzip")) {
+      return "gzip";
+    } else if (location.endsWith(".bz2")) {
+      return "bzip2";
+    }
+    return null;
+  }
+
+  /**
+   * Open a compressed file, building its index if needed.
+   *
+   * @param location path of a local gzip (".gz", ".gzip") or bzip2 (".bz2") file.
+   * @param bufferSize size of the read buffer.
+   * @throws IOException on read error, or if the file is not in the expected format.
+   */
+  public static CompressedRandomAccessFile open(String location, int bufferSize) throws IOException {
+    String type = getType(location);
+    if (type == null) {
+      throw new IOException("Not a gzip or bzip2 file: " + location);
+    }
+    RandomAccessFile compressed = new RandomAccessFile(location, "r");
+    try {
+      CompressedIndex index = readIndex(compressed, type);
+      if (index == null) {
+        index =
+            type.equals("gzip") ? GzipIndex.build(compressed, GzipIndex.DEFAULT_SPAN) : Bzip2Index.build(compressed);
+        writeIndex(compressed, type, index);
+      }
+      return new CompressedRandomAccessFile(location, compressed, index, bufferSize);
+    } catch (IOException | RuntimeException e) {
+      compressed.close();
+      throw e;
+    }
+  }
+
+  @Nullable
+  private static CompressedIndex readIndex(RandomAccessFile compressed, String type) {
+    File indexFile = DiskCache.getFileStandardPolicy(compressed.getLocation() + SUFFIX);
+    if (!indexFile.exists()) {
+      return null;
+    }
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+      byte[] magic = new byte[MAGIC.length];
+      in.readFully(magic);
+      if (!Arrays.equals(magic, MAGIC) || in.readInt() != VERSION || !in.readUTF().equals(type)
+          || in.readLong() != compressed.length() || in.readLong() != compressed.getLastModified()) {
+        logger.debug("Index {} is out of date", indexFile);
+        return null;
+      }
+      return type.equals("gzip") ? GzipIndex.readIndex(in) : Bzip2Index.readIndex(in);
+    } catch (IOException | RuntimeException e) {
+      logger.warn("Failed to read index {}: {}", indexFile, e.getMessage());
+      return null;
+    }
+  }
+
+  // failures are logged and otherwise ignored, the index will be built again next time
+  private static void writeIndex(RandomAccessFile compressed, String type, CompressedIndex index) {
+    File indexFile = DiskCache.getFileStandardPolicy(compressed.getLocation() + SUFFIX);
+    File tmpFile = new File(indexFile.getPath() + ".tmp" + Thread.currentThread().getId());
+    try {
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+        out.write(MAGIC);
+        out.writeInt(VERSION);
+        out.writeUTF(type);
+        out.writeLong(compressed.length());
+        out.writeLong(compressed.getLastModified());
+        index.writeIndex(out);
+      }
+      try {
+        Files.move(tmpFile.toPath(), indexFile.toPath(), StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tmpFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+      logger.debug("Wrote index {}", indexFile);
+
+    } catch (IOException | RuntimeException e) {
+      logger.warn("Failed to write index {}: {}", indexFile, e.getMessage());
+      if (tmpFile.exists() && !tmpFile.delete())
+        logger.warn("Failed to delete {}", tmpFile);
+    }
+  }
+
+  ////////////////////////////////////////////////////////////////////////////////
+
+  private final RandomAccessFile compressed;
+  private final CompressedIndex index;
+  private final Map<Integer, byte[]> windows = new LinkedHashMap<Integer, byte[]>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Integer, byte[]> eldest) {
+      return size() > maxCachedWindows;
+    }
+  };
+
+  private CompressedRandomAccessFile(String location, RandomAccessFile compressed, CompressedIndex index,
+      int bufferSize) {
+    super(bufferSize);
+    this.location = location;
+    this.compressed = compressed;
+    this.index = index;
+  }
+
+  public CompressedIndex getIndex() {
+    return index;
+  }
+
+  @Override
+  public long length() {
+    return index.getUncompressedLength();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    compressed.close();
+    windows.clear();
+    super.close();
+  }
+
+  @Override
+  protected synchronized int read_(long pos, byte[] b, int offset, int len) throws IOException {
+    if (pos >= length()) {
+      return -1;
+    }
+    int window = index.findWindow(pos);
+    byte[] data = windows.get(window);
+    if (data == null) {
+      data = index.readWindow(compressed, window);
+      windows.put(window, data);
+    }
+    int start = (int) (pos - index.getWindowStart(window));
+    int n = Math.min(len, data.length - start);
+    System.arraycopy(data, start, b, offset, n);
+    return n;
+  }
+
+  @Override
+  public long readToByteChannel(WritableByteChannel dest, long offset, long nbytes) throws IOException {
+    byte[] buff = new byte[(int) Math.min(nbytes, 65536)];
+    long done = 0;
+    while (done < nbytes) {
+      int n = read_(offset + done, buff, 0, (int) Math.min(buff.length, nbytes - done));
+      if (n <= 0) {
+        break;
+      }
+      ByteBuffer bb = ByteBuffer.wrap(buff, 0, n);
+      while (bb.hasRemaining()) {
+        dest.write(bb);
+      }
+      done += n;
+    }
+    return done;
+  }
+
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.unidata.io;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.List;
+import ucar.unidata.io.spi.RandomAccessFileProvider;
+import ucar.unidata.util.StringUtil2;
+
+/**
+ * A read-only RandomAccessFile that reads a local file through memory mapping, instead of with read calls.
+ * <p>
+ * The file is mapped in segments of at most {@link #DEFAULT_SEGMENT_SIZE} bytes, so there is no limit on the file size.
+ * The buffer is filled from the mapped segments, so all the reading methods work as usual, including reads that cross
+ * a segment boundary. {@link #readFully(long, byte[], int, int)} reads at a given position without using the file
+ * pointer or the buffer, and may be called from several threads at once.
+ * <p>
+ * To open a file this way, prefix its location with "mmap:", or call {@link #setSizeThreshold(long)} to use it for all
+ * local files of at least that size. The mapped memory is released when it is garbage collected, not when the file
+ * is closed.
+ */
+public class MappedRandomAccessFile extends RandomAccessFile {
+
+  /** Location prefix that selects this RandomAccessFile. */
+  public static final String PREFIX = "mmap:";
+
+  /** Maximum size of a mapped segment, in bytes. */
+  public static final long DEFAULT_SEGMENT_SIZE = 1L << 30;
+
+  static long segmentSize = DEFAULT_SEGMENT_SIZE; // visible for testing
+  private static long sizeThreshold = Long.MAX_VALUE;
+
+  /**
+   * Map all local files at least this large, when opened through NetcdfFiles.
+   *
+   * @param threshold size in bytes; use Long.MAX_VALUE (the default) to only map files opened with the "mmap:" prefix.
+   */
+  public static void setSizeThreshold(long threshold) {
+    sizeThreshold = threshold;
+  }
+
+  public static long getSizeThreshold() {
+    return sizeThreshold;
+  }
+
+  private final long fileLength;
+  private final long segmentLength;
+  private volatile MappedByteBuffer[] segments; // null when closed
+
+  /**
+   * Constructor.
+   *
+   * @param location path of a local file, opened read-only.
+   * @param bufferSize size of the read buffer.
+   * @throws IOException on open error
+   */
+  public MappedRandomAccessFile(String location, int bufferSize) throws IOException {
+    super(location, "r", bufferSize);
+    try {
+      FileChannel channel = file.getChannel();
+      fileLength = channel.size();
+      segmentLength = segmentSize;
+      segments = new MappedByteBuffer[(int) ((fileLength + segmentLength - 1) / segmentLength)];
+      for (int i = 0; i < segments.length; i++) {
+        long start = i * segmentLength;
+        segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(segmentLength, fileLength - start));
+      }
+    } catch (IOException | RuntimeException e) {
+      file.close();
+      throw e;
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    super.close();
+    if (file == null) {
+      segments = null; // so the mapped memory can be released
+    }
+  }
+
+  @Override
+  public long length() {
+    return fileLength;
+  }
+
+  // read the field once per call, so that a close() from another thread gives an IOException
+  private MappedByteBuffer[] getSegments() throws IOException {
+    MappedByteBuffer[] result = segments;
+    if (result == null) {
+      throw new IOException("file closed: " + location);
+    }
+    return result;
+  }
+
+  @Override
+  protected int read_(long pos, byte[] b, int offset, int len) throws IOException {
+    MappedByteBuffer[] segments = getSegments();
+    if (pos >= fileLength) {
+      return -1;
+    }
+    int n = (int) Math.min(len, fileLength - pos);
+    copy(segments, pos, b, offset, n);
+    return n;
+  }
+
+  /**
+   * Read exactly len bytes at a given position. This does not use or move the file pointer, and is safe to call
+   * from several threads at once.
+   *
+   * @param pos read starting at this position in the file.
+   * @param b read into this array
+   * @param offset starting at b[offset]
+   * @param len number of bytes to read
+   * @throws EOFException if the file ends before len bytes are read.
+   */
+  public void readFully(long pos, byte[] b, int offset, int len) throws IOException {
+    if (pos < 0 || pos + len > fileLength) {
+      throw new EOFException("Reading " + location + " at " + pos + " file length = " + fileLength);
+    }
+    copy(getSegments(), pos, b, offset, len);
+  }
+
+  // each read uses its own view of the segments, so reads do not interfere with each other
+  private void copy(MappedByteBuffer[] segments, long pos, byte[] b, int offset, int len) {
+    while (len > 0) {
+      ByteBuffer segment = segments[(int) (pos / segmentLength)].duplicate();
+      segment.position((int) (pos % segmentLength));
+      int count = Math.min(len, segment.remaining());
+      segment.get(b, offset, count);
+      pos += count;
+      offset += count;
+      len -= count;
+    }
+  }
+
+  @Override
+  public long readToByteChannel(WritableByteChannel dest, long offset, long nbytes) throws IOException {
+    MappedByteBuffer[] segments = getSegments();
+    long end = Math.min(offset + nbytes, fileLength);
+    long pos = offset;
+    while (pos < end) {
+      ByteBuffer segment = segments[(int) (pos / segmentLength)].duplicate();
+      segment.position((int) (pos % segmentLength));
+      segment.limit((int) Math.min(segment.limit(), segment.position() + (end - pos)));
+      while (segment.hasRemaining()) {
+        pos += dest.write(segment);
+      }
+    }
+    return pos - offset;
+  }
+
+  /**
+   * Hook into service provider interface for RandomAccessFileProvider.
+   */
+  public static class Provider implements RandomAccessFileProvider {
+
+    // compressed files are uncompressed to a new file by NetcdfFiles
+    private static final List<String> compressedSuffixes = Arrays.asList(".Z", ".zip", ".gzip", ".gz", ".bz2");
+
+    @Override
+    public boolean isOwnerOf(String location) {
+      if (location.startsWith(PREFIX)) {
+        return true;
+      }
+      if (sizeThreshold == Long.MAX_VALUE || compressedSuffixes.stream().anyMatch(location::endsWith)) {
+        return false;
+      }
+      File file = new File(localPath(location));
+      return file.isFile() && file.length() >= sizeThreshold;
+    }
+
+    @Override
+    public RandomAccessFile open(String location) throws IOException {
+      return open(location, defaultBufferSize);
+    }
+
+    @Override
+    public RandomAccessFile open(String location, int bufferSize) throws IOException {
+      return new MappedRandomAccessFile(localPath(location), bufferSize);
+    }
+
+    private static String localPath(String location) {
+      String path = location.startsWith(PREFIX) ? location.substring(PREFIX.length()) : location;
+      path = StringUtil2.replace(path, '\\', "/");
+      if (path.startsWith("file:")) {
+        path = StringUtil2.unescape(path.substring(5));
+      }
+      return path;
+    }
+  }
+
+}
@@ -18,6 +18,7 @@ import ucar.nc2.util.cache.FileFactory;
 import ucar.unidata.util.StringUtil2;
 import javax.annotation.concurrent.NotThreadSafe;
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.channels.WritableByteChannel;
 import java.util.*;
@@ -1110,9 +1111,7 @@ public class RandomAccessFile implements DataInput, DataOutput, FileCacheable, C
    * @throws IOException on read error
    */
   public final void readShort(short[] pa, int start, int n) throws IOException {
-    for (int i = 0; i < n; i++) {
-      pa[start + i] = readShort();
-    }
+    readArray(2, start, n, (bb, pos, count) -> bb.asShortBuffer().get(pa, pos, count), pos -> pa[pos] = readShort());
   }
 
   /**
@@ -1269,9 +1268,7 @@ public class RandomAccessFile implements DataInput, DataOutput, FileCacheable, C
    * @throws IOException on read error
    */
   public final void readInt(int[] pa, int start, int n) throws IOException {
-    for (int i = 0; i < n; i++) {
-      pa[start + i] = readInt();
-    }
+    readArray(4, start, n, (bb, pos, count) -> bb.asIntBuffer().get(pa, pos, count), pos -> pa[pos] = readInt());
   }
 
   /**
@@ -1343,9 +1340,7 @@ public class RandomAccessFile implements DataInput, DataOutput, FileCacheable, C
    * @throws IOException on read error
    */
   public final void readLong(long[] pa, int start, int n) throws IOException {
-    for (int i = 0; i < n; i++) {
-      pa[start + i] = readLong();
-    }
+    readArray(8, start, n, (bb, pos, count) -> bb.asLongBuffer().get(pa, pos, count), pos -> pa[pos] = readLong());
   }
 
 
@@ -1380,9 +1375,7 @@ public class RandomAccessFile implements DataInput, DataOutput, FileCacheable, C
    * @throws IOException on read error
    */
   public final void readFloat(float[] pa, int start, int n) throws IOException {
-    for (int i = 0; i < n; i++) {
-      pa[start + i] = Float.intBitsToFloat(readInt());
-    }
+    readArray(4, start, n, (bb, pos, count) -> bb.asFloatBuffer().get(pa, pos, count), pos -> pa[pos] = readFloat());
   }
 
 
@@ -1417,9 +1410,73 @@ public class RandomAccessFile implements DataInput, DataOutput, FileCacheable, C
    * @throws IOException on read error
    */
   public final void readDouble(double[] pa, int start, int n) throws IOException {
-    for (int i = 0; i < n; i++) {
-      pa[start + i] = Double.longBitsToDouble(readLong());
+    readArray(8, start, n, (bb, pos, count) -> bb.asDoubleBuffer().get(pa, pos, count),
+        pos -> pa[pos] = readDouble());
+  }
+
+  // Larger array reads go around the buffer, through a temporary array of at most this many bytes.
+  private static final int maxArrayChunk = 256 * 1024;
+
+  private interface SpanReader {
+    // copy count elements from the start of span into the array, starting at pos
+    void read(ByteBuffer span, int pos, int count);
+  }
+
+  private interface ElementReader {
+    // read one element into the array at pos
+    void read(int pos) throws IOException;
+  }
+
+  /**
+   * Read an array of n elements of elemSize bytes, converting whole spans of bytes at a time with the typed views of
+   * ByteBuffer, rather than assembling each element from single bytes.
+   * An element that straddles the end of the buffer is read with the single element method.
+   */
+  private void readArray(int elemSize, int start, int n, SpanReader spanReader, ElementReader elementReader)
+      throws IOException {
+    ByteOrder order = bigEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+    byte[] chunk = null;
+    int done = 0;
+    while (done < n) {
+      int remaining = n - done;
+
+      if (buffer == null || (long) remaining * elemSize > buffer.length) {
+        // read past the buffer, as readFully() does
+        int count = Math.min(remaining, maxArrayChunk / elemSize);
+        if (chunk == null) {
+          chunk = new byte[count * elemSize]; // the first chunk is the largest
+        }
+        readFully(chunk, 0, count * elemSize);
+        spanReader.read(ByteBuffer.wrap(chunk, 0, count * elemSize).order(order), start + done, count);
+        done += count;
+        continue;
+      }
+
+      int count = Math.min(remaining, bufferedElements(elemSize));
+      if (count == 0) {
+        elementReader.read(start + done);
+        done++;
+        continue;
+      }
+      ByteBuffer span = ByteBuffer.wrap(buffer, (int) (filePosition - bufferStart), count * elemSize).order(order);
+      spanReader.read(span, start + done, count);
+      filePosition += (long) count * elemSize;
+      done += count;
+    }
+  }
+
+  // The number of whole elements in the buffer at the file position, filling the buffer if it is used up.
+  private int bufferedElements(int elemSize) throws IOException {
+    if (filePosition >= dataEnd) {
+      if (endOfFile) {
+        return 0;
+      }
+      seek(filePosition);
+    }
+    if (filePosition < bufferStart) {
+      return 0; // after unread()
     }
+    return (int) ((dataEnd - filePosition) / elemSize);
   }
 
   /**
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.unidata.io;
+
+import java.nio.ByteBuffer;
+import java.util.Formatter;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A BufferPool that keeps released buffers in size classes that are powers of 2.
+ * Buffers are allocated with the size of their class, so a buffer asked for with size n is at most 2n.
+ * Buffers smaller than minPooledSize are cheap to allocate and are not pooled, nor are buffers larger than
+ * maxPooledSize. The total size of the buffers kept, separately for heap and direct buffers, is bounded by
+ * maxRetainedBytes; buffers released beyond that are dropped.
+ * <p>
+ * All methods are thread safe.
+ *
+ * @since 5.5.4
+ */
+@ThreadSafe
+public class SizeClassedBufferPool extends BufferPool {
+  public static final int DEFAULT_MIN_POOLED_SIZE = 4 * 1024;
+  public static final int DEFAULT_MAX_POOLED_SIZE = 16 * 1024 * 1024;
+  public static final long DEFAULT_MAX_RETAINED_BYTES = 64 * 1024 * 1024;
+
+  private final int minShift; // log2 of the smallest class
+  private final int maxShift; // log2 of the largest class
+  private final long maxRetainedBytes;
+
+  private final Pool<byte[]> heap;
+  private final Pool<ByteBuffer> direct;
+
+  /** Use the default sizes. */
+  public SizeClassedBufferPool() {
+    this(DEFAULT_MIN_POOLED_SIZE, DEFAULT_MAX_POOLED_SIZE, DEFAULT_MAX_RETAINED_BYTES);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param minPooledSize smaller buffers are not pooled. Rounded up to a power of 2.
+   * @param maxPooledSize larger buffers are not pooled. Rounded up to a power of 2, at most 2^30.
+   * @param maxRetainedBytes the most bytes to keep in released buffers, for each of heap and direct buffers.
+   */
+  public SizeClassedBufferPool(int minPooledSize, int maxPooledSize, long maxRetainedBytes) {
+    if (minPooledSize <= 0 || maxPooledSize < minPooledSize) {
+      throw new IllegalArgumentException("Bad pooled sizes " + minPooledSize + " " + maxPooledSize);
+    }
+    this.minShift = ceilLog2(minPooledSize);
+    this.maxShift = Math.min(ceilLog2(maxPooledSize), 30);
+    this.maxRetainedBytes = maxRetainedBytes;
+    int nclasses = maxShift - minShift + 1;
+    this.heap = new Pool<>(nclasses, b -> b.length);
+    this.direct = new Pool<>(nclasses, ByteBuffer::capacity);
+  }
+
+  private static int ceilLog2(int n) {
+    return 32 - Integer.numberOfLeadingZeros(n - 1);
+  }
+
+  private static int floorLog2(int n) {
+    return 31 - Integer.numberOfLeadingZeros(n);
+  }
+
+  // The class to take a buffer of at least size from, or -1 if not pooled.
+  private int classToGet(int size) {
+    int shift = ceilLog2(Math.max(size, 1));
+    return (shift < minShift || shift > maxShift) ? -1 : shift - minShift;
+  }
+
+  // The class to put a buffer of the given size in, or -1 if not pooled.
+  private int classToRelease(int size) {
+    if (size <= 0) {
+      return -1;
+    }
+    int shift = floorLog2(size);
+    return (shift < minShift || shift > maxShift) ? -1 : shift - minShift;
+  }
+
+  @Override
+  public byte[] getBytes(int minLength) {
+    int sizeClass = classToGet(minLength);
+    if (sizeClass < 0) {
+      heap.unpooled.incrementAndGet();
+      return new byte[minLength];
+    }
+    byte[] result = heap.poll(sizeClass);
+    if (result != null) {
+      return result;
+    }
+    heap.misses.incrementAndGet();
+    return new byte[1 << (sizeClass + minShift)];
+  }
+
+  @Override
+  public void release(byte[] buffer) {
+    if (buffer != null) {
+      heap.offer(classToRelease(buffer.length), buffer);
+    }
+  }
+
+  @Override
+  public ByteBuffer getDirectBuffer(int minCapacity) {
+    int sizeClass = classToGet(minCapacity);
+    if (sizeClass < 0) {
+      direct.unpooled.incrementAndGet();
+      return ByteBuffer.allocateDirect(minCapacity);
+    }
+    ByteBuffer result = direct.poll(sizeClass);
+    if (result != null) {
+      return reset(result, minCapacity);
+    }
+    direct.misses.incrementAndGet();
+    return reset(ByteBuffer.allocateDirect(1 << (sizeClass + minShift)), minCapacity);
+  }
+
+  @Override
+  public void release(ByteBuffer buffer) {
+    if (buffer != null && buffer.isDirect()) {
+      direct.offer(classToRelease(buffer.capacity()), buffer);
+    }
+  }
+
+  /** Drop all the buffers that are kept. */
+  public void clear() {
+    heap.clear();
+    direct.clear();
+  }
+
+  /** Number of requests for heap buffers that were satisfied from the pool. */
+  public long getHits() {
+    return heap.hits.get();
+  }
+
+  /** Number of requests for heap buffers of a pooled size that had to allocate. */
+  public long getMisses() {
+    return heap.misses.get();
+  }
+
+  /** Number of heap bytes that did not have to be allocated, because a buffer was reused. */
+  public long getBytesReused() {
+    return heap.bytesReused.get();
+  }
+
+  /** Number of heap bytes currently kept in the pool. */
+  public long getBytesRetained() {
+    return heap.retained.get();
+  }
+
+  /** Number of requests for direct buffers that were satisfied from the pool. */
+  public long getDirectHits() {
+    return direct.hits.get();
+  }
+
+  /** Number of direct bytes that did not have to be allocated, because a buffer was reused. */
+  public long getDirectBytesReused() {
+    return direct.bytesReused.get();
+  }
+
+  @Override
+  public void showStats(Formatter f) {
+    f.format("SizeClassedBufferPool sizes %d - %d, max retained %d%n", 1 << minShift, 1 << maxShift,
+        maxRetainedBytes);
+    heap.showStats(f, "heap");
+    direct.showStats(f, "direct");
+  }
+
+  private class Pool<T> {
+    final Queue<T>[] classes;
+    final ToIntFunction<T> sizeOf;
+    final AtomicLong retained = new AtomicLong();
+    final AtomicLong hits = new AtomicLong();
+    final AtomicLong misses = new AtomicLong();
+    final AtomicLong unpooled = new AtomicLong();
+    final AtomicLong bytesReused = new AtomicLong();
+    final AtomicLong dropped = new AtomicLong();
+
+    @SuppressWarnings("unchecked")
+    Pool(int nclasses, ToIntFunction<T> sizeOf) {
+      this.sizeOf = sizeOf;
+      classes = new Queue[nclasses];
+      for (int i = 0; i < nclasses; i++) {
+        classes[i] = new ConcurrentLinkedQueue<>();
+      }
+    }
+
+    T poll(int sizeClass) {
+      T result = classes[sizeClass].poll();
+      if (result != null) {
+        int size = sizeOf.applyAsInt(result);
+        retained.addAndGet(-size);
+        hits.incrementAndGet();
+        bytesReused.addAndGet(size);
+      }
+      return result;
+    }
+
+    void offer(int sizeClass, T buffer) {
+      if (sizeClass < 0) {
+        return;
+      }
+      int size = sizeOf.applyAsInt(buffer);
+      if (retained.addAndGet(size) > maxRetainedBytes) {
+        retained.addAndGet(-size);
+        dropped.incrementAndGet();
+        return;
+      }
+      classes[sizeClass].offer(buffer);
+    }
+
+    void clear() {
+      for (Queue<T> q : classes) {
+        T buffer;
+        while ((buffer = q.poll()) != null) {
+          retained.addAndGet(-sizeOf.applyAsInt(buffer));
+        }
+      }
+    }
+
+    void showStats(Formatter f, String what) {
+      f.format("  %s: hits= %d miss= %d unpooled= %d dropped= %d bytesReused= %d retained= %d%n", what, hits.get(),
+          misses.get(), unpooled.get(), dropped.get(), bytesReused.get(), retained.get());
+    }
+  }
+}
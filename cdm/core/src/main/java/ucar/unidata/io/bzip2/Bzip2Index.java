@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.unidata.io.bzip2;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import ucar.unidata.io.CompressedIndex;
+import ucar.unidata.io.RandomAccessFile;
+
+/**
+ * The block boundaries of a bzip2 file.
+ * <p>
+ * Each bzip2 block is compressed on its own, and starts with a 48 bit magic number, not aligned to a byte boundary.
+ * Building the index finds the blocks by scanning for that number a byte at a time, then decompresses the file once,
+ * in a single streaming pass, to find the uncompressed length of each block. Each block is one window of the index.
+ * A block is decompressed by copying its bits into a new single block bzip2 stream, which is then read with
+ * {@link CBZip2InputStream}.
+ * Files with several concatenated bzip2 streams, as written by eg pbzip2, are handled.
+ */
+public class Bzip2Index extends CompressedIndex {
+  private static final long BLOCK_MAGIC = 0x314159265359L;
+  private static final long END_MAGIC = 0x177245385090L;
+  private static final long MAGIC_MASK = (1L << 48) - 1;
+
+  // the magic numbers shifted left by 0 to 7 bits, to find one ending at any bit of a byte
+  private static final long[] SHIFTED_MASK = new long[8];
+  private static final long[] SHIFTED_BLOCK_MAGIC = new long[8];
+  private static final long[] SHIFTED_END_MAGIC = new long[8];
+  static {
+    for (int shift = 0; shift < 8; shift++) {
+      SHIFTED_MASK[shift] = MAGIC_MASK << shift;
+      SHIFTED_BLOCK_MAGIC[shift] = BLOCK_MAGIC << shift;
+      SHIFTED_END_MAGIC[shift] = END_MAGIC << shift;
+    }
+  }
+
+  private long[] blockStarts; // bit offset in the file of the start of each block
+  private long[] blockEnds; // bit offset in the file of the end of each block
+
+  private Bzip2Index() {}
+
+  /**
+   * Build the index, by decompressing the whole file.
+   *
+   * @param raf the bzip2 file.
+   */
+  public static Bzip2Index build(RandomAccessFile raf) throws IOException {
+    List<Long> starts = new ArrayList<>();
+    List<Long> ends = new ArrayList<>();
+    List<Long> streamStarts = new ArrayList<>(); // byte offset of each bzip2 stream
+    streamStarts.add(0L);
+
+    // a block ends where the next block or the end of stream marker starts
+    long register = 0; // the last 64 bits read
+    long bitPosition = 0;
+    byte[] buff = new byte[65536];
+    raf.seek(0);
+    int n;
+    while ((n = raf.read(buff, 0, buff.length)) > 0) {
+      for (int i = 0; i < n; i++) {
+        register = (register << 8) | (buff[i] & 0xff);
+        bitPosition += 8;
+        // a magic number ending shift bits before the end of this byte; earlier ones first
+        for (int shift = 7; shift >= 0; shift--) {
+          long bits = register & SHIFTED_MASK[shift];
+          boolean isBlock = bits == SHIFTED_BLOCK_MAGIC[shift];
+          if (!isBlock && bits != SHIFTED_END_MAGIC[shift]) {
+            continue;
+          }
+          long magicStart = bitPosition - shift - 48;
+          if (magicStart < 0) {
+            continue;
+          }
+          if (starts.size() > ends.size()) {
+            ends.add(magicStart);
+          }
+          if (isBlock) {
+            starts.add(magicStart);
+          } else {
+            // the end of stream marker and the combined CRC, then padding to a byte boundary
+            streamStarts.add((magicStart + 48 + 32 + 7) / 8);
+          }
+        }
+      }
+    }
+    if (starts.size() > ends.size()) {
+      ends.add(bitPosition); // truncated file
+    }
+
+    Bzip2Index index = new Bzip2Index();
+    int nblocks = starts.size();
+    index.blockStarts = new long[nblocks];
+    index.blockEnds = new long[nblocks];
+    index.windowStarts = new long[nblocks + 1];
+    for (int i = 0; i < nblocks; i++) {
+      index.blockStarts[i] = starts.get(i);
+      index.blockEnds[i] = ends.get(i);
+    }
+
+    // the uncompressed length of each block, decompressing each stream once
+    int block = 0;
+    try {
+      for (long streamStart : streamStarts) {
+        if (streamStart >= raf.length()) {
+          break;
+        }
+        raf.seek(streamStart);
+        CBZip2InputStream in = new CBZip2InputStream(new RafInputStream(raf), true);
+        long length;
+        while ((length = in.skipBlock()) >= 0) {
+          if (block == nblocks) {
+            throw new IOException("Bzip2 file has more blocks than were found");
+          }
+          index.windowStarts[block + 1] = index.windowStarts[block] + length;
+          block++;
+        }
+      }
+    } catch (BZip2ReadException e) {
+      throw new IOException("Failed to decompress bzip2 block " + block + ": " + e.getMessage(), e);
+    }
+    if (block != nblocks) {
+      throw new IOException("Bzip2 file has " + block + " blocks, but " + nblocks + " were found");
+    }
+    return index;
+  }
+
+  /** Read an index written by {@link #writeIndex}. */
+  public static Bzip2Index readIndex(DataInputStream in) throws IOException {
+    Bzip2Index index = new Bzip2Index();
+    index.readWindowStarts(in);
+    int n = index.getNumWindows();
+    index.blockStarts = new long[n];
+    index.blockEnds = new long[n];
+    for (int i = 0; i < n; i++) {
+      index.blockStarts[i] = in.readLong();
+      index.blockEnds[i] = in.readLong();
+    }
+    return index;
+  }
+
+  @Override
+  public void writeIndex(DataOutputStream out) throws IOException {
+    writeWindowStarts(out);
+    for (int i = 0; i < blockStarts.length; i++) {
+      out.writeLong(blockStarts[i]);
+      out.writeLong(blockEnds[i]);
+    }
+  }
+
+  @Override
+  public byte[] readWindow(RandomAccessFile raf, int block) throws IOException {
+    long start = blockStarts[block];
+    int nbits = (int) (blockEnds[block] - start);
+    byte[] src = new byte[(int) ((blockEnds[block] + 7) / 8 - start / 8)];
+    raf.seek(start / 8);
+    raf.readFully(src);
+    int shift = (int) (start % 8);
+
+    // stream header, the block, then the end of stream marker with the combined CRC, which is the block CRC
+    BitWriter stream = new BitWriter(4 + src.length + 11);
+    stream.write('B', 8);
+    stream.write('Z', 8);
+    stream.write('h', 8);
+    stream.write('9', 8); // largest block size, so any block fits
+    for (int i = 0; i < nbits / 8; i++) {
+      int b = (shift == 0) ? src[i] : (src[i] << shift) | ((src[i + 1] & 0xff) >>> (8 - shift));
+      stream.writeByte(b); // still on a byte boundary
+    }
+    stream.write(readBits(src, shift + nbits / 8 * 8, nbits % 8), nbits % 8);
+    stream.write(END_MAGIC >>> 24, 24);
+    stream.write(END_MAGIC & 0xffffff, 24);
+    stream.write(readBits(src, shift + 48, 32), 32);
+
+    byte[] result = new byte[(int) getWindowLength(block)];
+    try (CBZip2InputStream in = new CBZip2InputStream(new ByteArrayInputStream(stream.toByteArray()), true)) {
+      int pos = 0;
+      while (pos < result.length) {
+        int n = in.read(result, pos, result.length - pos);
+        if (n < 0) {
+          break;
+        }
+        pos += n;
+      }
+      if (pos != result.length || in.read() >= 0) {
+        throw new IOException("Bzip2 block " + block + " does not match its index");
+      }
+      return result;
+    } catch (BZip2ReadException e) {
+      throw new IOException("Failed to decompress bzip2 block " + block + ": " + e.getMessage(), e);
+    }
+  }
+
+  // read n <= 32 bits, starting at bit offset pos, high bit first
+  private static long readBits(byte[] src, int pos, int n) {
+    long value = 0;
+    for (int i = 0; i < n; i++) {
+      int bit = pos + i;
+      value = (value << 1) | ((src[bit >>> 3] >>> (7 - (bit & 7))) & 1);
+    }
+    return value;
+  }
+
+  // reads from the current position of a RandomAccessFile, and does not close it
+  private static class RafInputStream extends InputStream {
+    private final RandomAccessFile raf;
+
+    RafInputStream(RandomAccessFile raf) {
+      this.raf = raf;
+    }
+
+    @Override
+    public int read() throws IOException {
+      return raf.read();
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      return raf.read(b, off, len);
+    }
+  }
+
+  private static class BitWriter {
+    private final byte[] bytes;
+    private int bitPosition;
+
+    BitWriter(int size) {
+      bytes = new byte[size];
+    }
+
+    // write the low 8 bits of b, on a byte boundary
+    void writeByte(int b) {
+      bytes[bitPosition >>> 3] = (byte) b;
+      bitPosition += 8;
+    }
+
+    // write the low n bits of value, high bit first
+    void write(long value, int n) {
+      for (int i = n - 1; i >= 0; i--) {
+        if (((value >>> i) & 1) != 0) {
+          bytes[bitPosition >>> 3] |= (byte) (0x80 >>> (bitPosition & 7));
+        }
+        bitPosition++;
+      }
+    }
+
+    byte[] toByteArray() {
+      return bytes;
+    }
+  }
+
+}
@@ -135,6 +135,7 @@ public class CBZip2InputStream extends InputStream implements BZip2Constants {
   private InputStream bsStream;
 
   private boolean streamEnd;
+  private int blockCount; // number of blocks started
   private int currentChar = -1;
   private int currentState = START_BLOCK_STATE;
 
@@ -180,6 +181,7 @@ public class CBZip2InputStream extends InputStream implements BZip2Constants {
     nInUse = 0;
     bsStream = null;
     streamEnd = false;
+    blockCount = 0;
     currentChar = -1;
     currentState = START_BLOCK_STATE;
     storedBlockCRC = storedCombinedCRC = 0;
@@ -232,6 +234,43 @@ public class CBZip2InputStream extends InputStream implements BZip2Constants {
     }
   }
 
+  /**
+   * Reads up to len bytes into b, starting at b[off].
+   *
+   * @return number of bytes read, or -1 at the end of the stream.
+   * @throws BZip2ReadException if there is a problem.
+   */
+  @Override
+  public int read(byte[] b, int off, int len) {
+    if (len == 0) {
+      return 0;
+    }
+    int n = 0;
+    while (n < len && !streamEnd) {
+      b[off + n++] = (byte) read();
+    }
+    return (n == 0) ? -1 : n;
+  }
+
+  /**
+   * Skip the rest of the current block, for {@link Bzip2Index}.
+   *
+   * @return number of bytes skipped, or -1 at the end of the stream.
+   */
+  long skipBlock() {
+    if (streamEnd) {
+      return -1;
+    }
+    // the next char belongs to the last block started; reading it may start the next block
+    int block = blockCount;
+    long n = 0;
+    while (!streamEnd && blockCount == block) {
+      read();
+      n++;
+    }
+    return n;
+  }
+
   private void initialize() {
     char magic3, magic4;
     magic3 = bsGetUChar();
@@ -266,6 +305,7 @@ public class CBZip2InputStream extends InputStream implements BZip2Constants {
       return;
     }
 
+    blockCount++;
     storedBlockCRC = bsGetInt32();
 
     blockRandomised = bsR(1) == 1;
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.unidata.io.gzip;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+import ucar.unidata.io.CompressedIndex;
+import ucar.unidata.io.RandomAccessFile;
+
+/**
+ * Access points into a gzip file, in the manner of zlib's zran example.
+ * <p>
+ * Building the index decompresses the whole file once. Every {@link #DEFAULT_SPAN} bytes of output or so, at the
+ * next deflate block boundary, it records an access point: the bit offset in the file, and the 32 KB of output that
+ * precede it. Decompression can then start at any access point. The saved windows are kept compressed.
+ * Files with several gzip members, as written by eg pigz or bgzip, are handled.
+ */
+public class GzipIndex extends CompressedIndex {
+
+  /** Default uncompressed distance between access points, in bytes. */
+  public static final int DEFAULT_SPAN = 1024 * 1024;
+
+  private long[] bitPositions; // for each window, the bit offset in the file of its first block
+  private byte[][] windows; // for each window, the deflated output that precedes it
+
+  private GzipIndex() {}
+
+  /**
+   * Build the index, by decompressing the whole file.
+   *
+   * @param raf the gzip file.
+   * @param span approximate uncompressed distance between access points.
+   */
+  public static GzipIndex build(RandomAccessFile raf, int span) throws IOException {
+    List<Long> starts = new ArrayList<>();
+    List<Long> positions = new ArrayList<>();
+    List<byte[]> savedWindows = new ArrayList<>();
+
+    Inflate inflate = new Inflate(raf, 0, new byte[0], 0, true);
+    inflate.readHeader();
+    starts.add(0L);
+    positions.add(inflate.getBitPosition());
+    savedWindows.add(new byte[0]);
+
+    long lastStart = 0;
+    while (true) {
+      boolean last = inflate.inflateBlock();
+      if (last) {
+        if (!inflate.nextMember()) {
+          break;
+        }
+      } else if (inflate.getOutputCount() - lastStart >= span) {
+        lastStart = inflate.getOutputCount();
+        starts.add(lastStart);
+        positions.add(inflate.getBitPosition());
+        savedWindows.add(deflate(inflate.getWindow()));
+      }
+    }
+
+    GzipIndex index = new GzipIndex();
+    index.windowStarts = new long[starts.size() + 1];
+    index.bitPositions = new long[starts.size()];
+    for (int i = 0; i < starts.size(); i++) {
+      index.windowStarts[i] = starts.get(i);
+      index.bitPositions[i] = positions.get(i);
+    }
+    index.windowStarts[starts.size()] = inflate.getOutputCount();
+    index.windows = savedWindows.toArray(new byte[0][]);
+    return index;
+  }
+
+  /** Read an index written by {@link #writeIndex}. */
+  public static GzipIndex readIndex(DataInputStream in) throws IOException {
+    GzipIndex index = new GzipIndex();
+    index.readWindowStarts(in);
+    int n = index.getNumWindows();
+    index.bitPositions = new long[n];
+    index.windows = new byte[n][];
+    for (int i = 0; i < n; i++) {
+      index.bitPositions[i] = in.readLong();
+      index.windows[i] = new byte[in.readInt()];
+      in.readFully(index.windows[i]);
+    }
+    return index;
+  }
+
+  @Override
+  public void writeIndex(DataOutputStream out) throws IOException {
+    writeWindowStarts(out);
+    for (int i = 0; i < bitPositions.length; i++) {
+      out.writeLong(bitPositions[i]);
+      out.writeInt(windows[i].length);
+      out.write(windows[i]);
+    }
+  }
+
+  @Override
+  public byte[] readWindow(RandomAccessFile compressed, int window) throws IOException {
+    int len = getWindowLength(window);
+    byte[] dictionary = inflate(windows[window]);
+    Inflate inflate = new Inflate(compressed, bitPositions[window], dictionary, len, false);
+    // the next access point is at a block boundary, so this stops exactly there
+    while (inflate.getOutputCount() - dictionary.length < len) {
+      if (inflate.inflateBlock() && !inflate.nextMember()) {
+        break;
+      }
+    }
+    if (inflate.getOutputCount() - dictionary.length < len) {
+      throw new ZipException("Gzip file is shorter than its index");
+    }
+    return Arrays.copyOfRange(inflate.getOutput(), dictionary.length, dictionary.length + len);
+  }
+
+  private static byte[] deflate(byte[] data) {
+    Deflater deflater = new Deflater();
+    try {
+      deflater.setInput(data);
+      deflater.finish();
+      ByteArrayOutputStream bout = new ByteArrayOutputStream(data.length / 2 + 16);
+      byte[] buff = new byte[8192];
+      while (!deflater.finished()) {
+        int n = deflater.deflate(buff);
+        bout.write(buff, 0, n);
+      }
+      return bout.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private static byte[] inflate(byte[] data) throws IOException {
+    if (data.length == 0) {
+      return data;
+    }
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(data);
+      byte[] result = new byte[Inflate.WINDOW_SIZE];
+      int n = 0;
+      while (!inflater.finished() && n < result.length) {
+        int count = inflater.inflate(result, n, result.length - n);
+        if (count == 0 && inflater.needsInput()) {
+          throw new ZipException("Truncated window in gzip index");
+        }
+        n += count;
+      }
+      return n == result.length ? result : Arrays.copyOf(result, n);
+    } catch (DataFormatException e) {
+      throw new ZipException(e.getMessage());
+    } finally {
+      inflater.end();
+    }
+  }
+
+}
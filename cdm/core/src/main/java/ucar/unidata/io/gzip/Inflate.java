@@ -0,0 +1,468 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.unidata.io.gzip;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.ZipException;
+import ucar.unidata.io.RandomAccessFile;
+
+/**
+ * Decodes the deflate (RFC 1951) streams of a gzip (RFC 1952) file, one block at a time.
+ * <p>
+ * Unlike java.util.zip.Inflater, this can start decoding at any block boundary, which need not be on a byte boundary,
+ * given the 32 KB of output that precede it. It also reports the position of each block boundary, as a bit
+ * offset in the file. Together, these allow random access into gzip files, as in zlib's zran example.
+ */
+class Inflate {
+  static final int WINDOW_SIZE = 32768; // the furthest a match can reach back
+
+  private static final int[] LENGTH_BASE = {3, 4, 5, 6, 7, 8, 9, 10, 11, 13, 15, 17, 19, 23, 27, 31, 35, 43, 51, 59,
+      67, 83, 99, 115, 131, 163, 195, 227, 258};
+  private static final int[] LENGTH_EXTRA =
+      {0, 0, 0, 0, 0, 0, 0, 0, 1, 1, 1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 4, 4, 4, 4, 5, 5, 5, 5, 0};
+  private static final int[] DIST_BASE = {1, 2, 3, 4, 5, 7, 9, 13, 17, 25, 33, 49, 65, 97, 129, 193, 257, 385, 513,
+      769, 1025, 1537, 2049, 3073, 4097, 6145, 8193, 12289, 16385, 24577};
+  private static final int[] DIST_EXTRA =
+      {0, 0, 0, 0, 1, 1, 2, 2, 3, 3, 4, 4, 5, 5, 6, 6, 7, 7, 8, 8, 9, 9, 10, 10, 11, 11, 12, 12, 13, 13};
+  private static final int[] CODE_LENGTH_ORDER = {16, 17, 18, 0, 8, 7, 9, 6, 10, 5, 11, 4, 12, 3, 13, 2, 14, 1, 15};
+
+  private static final Huffman fixedLiterals;
+  private static final Huffman fixedDistances;
+
+  static {
+    byte[] lengths = new byte[288];
+    Arrays.fill(lengths, 0, 144, (byte) 8);
+    Arrays.fill(lengths, 144, 256, (byte) 9);
+    Arrays.fill(lengths, 256, 280, (byte) 7);
+    Arrays.fill(lengths, 280, 288, (byte) 8);
+    fixedLiterals = new Huffman(1 << 9);
+    fixedDistances = new Huffman(1 << 5);
+    try {
+      fixedLiterals.build(lengths, 0, 288);
+      Arrays.fill(lengths, 0, 30, (byte) 5);
+      fixedDistances.build(lengths, 0, 30);
+    } catch (ZipException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  // input
+  private final RandomAccessFile raf;
+  private final long fileLength;
+  private final byte[] in = new byte[65536];
+  private long inStart; // file position of in[0]
+  private int inPos, inLimit;
+  private long bitBuf; // holds bitCount bits, next bit is the lowest
+  private int bitCount;
+
+  // output: out[0, outPos) holds the window given at the start, followed by the output so far
+  private byte[] out;
+  private int outPos;
+  private final boolean sliding;
+  private long slid; // number of bytes discarded from the start of out, when sliding
+
+  private final Huffman literals = new Huffman(1 << 15);
+  private final Huffman distances = new Huffman(1 << 15);
+  private final Huffman codeLengths = new Huffman(1 << 7);
+  private final byte[] lengths = new byte[288 + 32];
+
+  /**
+   * Start decoding.
+   *
+   * @param raf read from this file.
+   * @param bitPosition start at this bit offset in the file.
+   * @param window the output that precedes this position, at most WINDOW_SIZE bytes.
+   * @param capacity initial size of the output array, not including the window.
+   * @param sliding if true, only the last WINDOW_SIZE bytes of output are kept, otherwise all output is kept.
+   */
+  Inflate(RandomAccessFile raf, long bitPosition, byte[] window, int capacity, boolean sliding) throws IOException {
+    this.raf = raf;
+    this.fileLength = raf.length();
+    this.sliding = sliding;
+    this.out = new byte[Math.max(window.length + capacity, sliding ? 4 * WINDOW_SIZE : 0)];
+    System.arraycopy(window, 0, out, 0, window.length);
+    this.outPos = window.length;
+    this.inStart = bitPosition / 8;
+    fill();
+    bits((int) (bitPosition % 8));
+  }
+
+  /** The bit offset in the file of the next bit to be decoded. */
+  long getBitPosition() {
+    return 8 * (inStart + inPos) - bitCount;
+  }
+
+  /** Total number of bytes in the output array, including those discarded by sliding. */
+  long getOutputCount() {
+    return slid + outPos;
+  }
+
+  byte[] getOutput() {
+    return out;
+  }
+
+  int getOutputPosition() {
+    return outPos;
+  }
+
+  /** The last WINDOW_SIZE bytes of output, or all of them if there are fewer. */
+  byte[] getWindow() {
+    int start = Math.max(0, outPos - WINDOW_SIZE);
+    return Arrays.copyOfRange(out, start, outPos);
+  }
+
+  /** Has all of the file been read? */
+  boolean isAtEnd() {
+    return getBitPosition() >= 8 * fileLength;
+  }
+
+  ////////////////////////////////////////////////////////////////////////////////
+  // gzip members
+
+  /** Read a gzip member header, from the next byte boundary. */
+  void readHeader() throws IOException {
+    alignToByte();
+    if (bits(8) != 0x1f || bits(8) != 0x8b) {
+      throw new ZipException("Not in GZIP format");
+    }
+    if (bits(8) != 8) {
+      throw new ZipException("Unsupported compression method");
+    }
+    int flags = bits(8);
+    bits(16); // mtime
+    bits(16);
+    bits(8); // extra flags
+    bits(8); // os
+    if ((flags & 4) != 0) { // FEXTRA
+      int xlen = bits(16);
+      for (int i = 0; i < xlen; i++) {
+        bits(8);
+      }
+    }
+    if ((flags & 8) != 0) { // FNAME
+      while (bits(8) != 0) {
+      }
+    }
+    if ((flags & 16) != 0) { // FCOMMENT
+      while (bits(8) != 0) {
+      }
+    }
+    if ((flags & 2) != 0) { // FHCRC
+      bits(16);
+    }
+  }
+
+  /**
+   * After the last block of a member, skip its trailer and read the header of the next one, if any.
+   * As with GZIPInputStream, anything after the last member that is not a gzip header is ignored.
+   *
+   * @return true if there is another member.
+   */
+  boolean nextMember() throws IOException {
+    alignToByte();
+    bits(16); // crc32
+    bits(16);
+    bits(16); // isize
+    bits(16);
+    if (fileLength - (inStart + inPos) + bitCount / 8 < 10) { // too short for a header
+      return false;
+    }
+    long save = getBitPosition();
+    try {
+      readHeader();
+      return true;
+    } catch (ZipException e) {
+      seekBit(save);
+      return false;
+    }
+  }
+
+  ////////////////////////////////////////////////////////////////////////////////
+  // deflate blocks
+
+  /**
+   * Decode the next block.
+   *
+   * @return true if it was the last block of the deflate stream.
+   */
+  boolean inflateBlock() throws IOException {
+    boolean last = bits(1) == 1;
+    int type = bits(2);
+    switch (type) {
+      case 0:
+        stored();
+        break;
+      case 1:
+        codes(fixedLiterals, fixedDistances);
+        break;
+      case 2:
+        dynamicTables();
+        codes(literals, distances);
+        break;
+      default:
+        throw new ZipException("Invalid block type");
+    }
+    return last;
+  }
+
+  private void stored() throws IOException {
+    alignToByte();
+    int len = bits(16);
+    int nlen = bits(16);
+    if (len != (~nlen & 0xffff)) {
+      throw new ZipException("Invalid stored block lengths");
+    }
+    ensureRoom(len);
+    // the bit buffer holds whole bytes now
+    while (len > 0 && bitCount > 0) {
+      out[outPos++] = (byte) bits(8);
+      len--;
+    }
+    while (len > 0) {
+      if (inPos == inLimit) {
+        fill();
+        if (inPos == inLimit) {
+          throw new EOFException("Unexpected end of gzip file");
+        }
+      }
+      int n = Math.min(len, inLimit - inPos);
+      System.arraycopy(in, inPos, out, outPos, n);
+      inPos += n;
+      outPos += n;
+      len -= n;
+    }
+  }
+
+  private void dynamicTables() throws IOException {
+    int nlen = bits(5) + 257;
+    int ndist = bits(5) + 1;
+    int ncode = bits(4) + 4;
+    if (nlen > 286 || ndist > 30) {
+      throw new ZipException("Too many length or distance symbols");
+    }
+    Arrays.fill(lengths, 0, 19, (byte) 0);
+    for (int i = 0; i < ncode; i++) {
+      lengths[CODE_LENGTH_ORDER[i]] = (byte) bits(3);
+    }
+    codeLengths.build(lengths, 0, 19);
+
+    int index = 0;
+    while (index < nlen + ndist) {
+      int symbol = decode(codeLengths);
+      if (symbol < 16) {
+        lengths[index++] = (byte) symbol;
+        continue;
+      }
+      int len = 0;
+      int repeat;
+      if (symbol == 16) {
+        if (index == 0) {
+          throw new ZipException("Repeat with no first length");
+        }
+        len = lengths[index - 1];
+        repeat = 3 + bits(2);
+      } else if (symbol == 17) {
+        repeat = 3 + bits(3);
+      } else {
+        repeat = 11 + bits(7);
+      }
+      if (index + repeat > nlen + ndist) {
+        throw new ZipException("Too many lengths");
+      }
+      Arrays.fill(lengths, index, index + repeat, (byte) len);
+      index += repeat;
+    }
+    if (lengths[256] == 0) {
+      throw new ZipException("No end-of-block code");
+    }
+    literals.build(lengths, 0, nlen);
+    distances.build(lengths, nlen, ndist);
+  }
+
+  private void codes(Huffman lit, Huffman dist) throws IOException {
+    while (true) {
+      int symbol = decode(lit);
+      if (symbol < 256) {
+        if (outPos == out.length) {
+          ensureRoom(1);
+        }
+        out[outPos++] = (byte) symbol;
+        continue;
+      }
+      if (symbol == 256) {
+        return;
+      }
+      symbol -= 257;
+      if (symbol >= 29) {
+        throw new ZipException("Invalid length code");
+      }
+      int len = LENGTH_BASE[symbol] + bits(LENGTH_EXTRA[symbol]);
+      symbol = decode(dist);
+      if (symbol >= 30) {
+        throw new ZipException("Invalid distance code");
+      }
+      int distance = DIST_BASE[symbol] + bits(DIST_EXTRA[symbol]);
+      ensureRoom(len);
+      if (distance > outPos) {
+        throw new ZipException("Invalid distance too far back");
+      }
+      int from = outPos - distance;
+      if (distance >= len) {
+        System.arraycopy(out, from, out, outPos, len);
+        outPos += len;
+      } else {
+        for (int i = 0; i < len; i++) {
+          out[outPos++] = out[from++];
+        }
+      }
+    }
+  }
+
+  // make room for n more bytes of output
+  private void ensureRoom(int n) {
+    if (outPos + n <= out.length) {
+      return;
+    }
+    if (sliding && outPos > WINDOW_SIZE && WINDOW_SIZE + n <= out.length) {
+      int shift = outPos - WINDOW_SIZE;
+      System.arraycopy(out, shift, out, 0, WINDOW_SIZE);
+      outPos = WINDOW_SIZE;
+      slid += shift;
+    } else {
+      out = Arrays.copyOf(out, Math.max(2 * out.length, outPos + n));
+    }
+  }
+
+  ////////////////////////////////////////////////////////////////////////////////
+  // bits
+
+  private int decode(Huffman h) throws IOException {
+    need(h.maxBits);
+    int entry = h.table[(int) (bitBuf & ((1 << h.maxBits) - 1))];
+    if (entry < 0) {
+      throw new ZipException("Invalid Huffman code");
+    }
+    int len = entry & 15;
+    bitBuf >>>= len;
+    bitCount -= len;
+    return entry >>> 4;
+  }
+
+  private int bits(int n) throws IOException {
+    if (n == 0) {
+      return 0;
+    }
+    need(n);
+    int value = (int) (bitBuf & ((1L << n) - 1));
+    bitBuf >>>= n;
+    bitCount -= n;
+    return value;
+  }
+
+  // make sure there are at least n bits in the buffer. Past the end of the file, pad with zeros, but fail if any of
+  // the padding is used.
+  private void need(int n) throws IOException {
+    while (bitCount < n) {
+      if (inPos == inLimit) {
+        fill();
+      }
+      if (inPos < inLimit) {
+        bitBuf |= (long) (in[inPos++] & 0xff) << bitCount;
+      } else if (8 * (inStart + inPos) - bitCount + n > 8 * fileLength + 32) {
+        throw new EOFException("Unexpected end of gzip file");
+      }
+      bitCount += 8;
+    }
+  }
+
+  private void alignToByte() {
+    int drop = bitCount % 8;
+    bitBuf >>>= drop;
+    bitCount -= drop;
+  }
+
+  private void seekBit(long bitPosition) throws IOException {
+    inStart = bitPosition / 8;
+    inPos = inLimit = 0;
+    bitBuf = 0;
+    bitCount = 0;
+    fill();
+    bits((int) (bitPosition % 8));
+  }
+
+  // move the unread bytes to the start of the input buffer, and read more after them
+  private void fill() throws IOException {
+    inStart += inPos;
+    System.arraycopy(in, inPos, in, 0, inLimit - inPos);
+    inLimit -= inPos;
+    inPos = 0;
+    long pos = inStart + inLimit;
+    if (pos >= fileLength) {
+      return;
+    }
+    raf.seek(pos);
+    int n = raf.read(in, inLimit, (int) Math.min(in.length - inLimit, fileLength - pos));
+    if (n > 0) {
+      inLimit += n;
+    }
+  }
+
+  /** Decoding table for a canonical Huffman code; each entry is symbol << 4 | code length. */
+  private static class Huffman {
+    final int[] table;
+    int maxBits;
+    private final int[] count = new int[16];
+    private final int[] next = new int[16];
+
+    Huffman(int size) {
+      table = new int[size];
+    }
+
+    void build(byte[] lengths, int start, int n) throws ZipException {
+      Arrays.fill(count, 0);
+      for (int i = 0; i < n; i++) {
+        count[lengths[start + i]]++;
+      }
+      count[0] = 0;
+      maxBits = 1;
+      for (int len = 1; len < 16; len++) {
+        if (count[len] > 0) {
+          maxBits = len;
+        }
+      }
+
+      // check for an over-subscribed code; incomplete codes are allowed, as zlib does for a single distance code
+      int left = 1;
+      for (int len = 1; len < 16; len++) {
+        left = (left << 1) - count[len];
+        if (left < 0) {
+          throw new ZipException("Over-subscribed Huffman code");
+        }
+      }
+
+      int code = 0;
+      for (int len = 1; len < 16; len++) {
+        code = (code + count[len - 1]) << 1;
+        next[len] = code;
+      }
+
+      int size = 1 << maxBits;
+      Arrays.fill(table, 0, size, -1);
+      for (int symbol = 0; symbol < n; symbol++) {
+        int len = lengths[start + symbol];
+        if (len == 0) {
+          continue;
+        }
+        int reversed = Integer.reverse(next[len]++) >>> (32 - len); // codes are stored starting at the high bit
+        for (int i = reversed; i < size; i += 1 << len) {
+          table[i] = (symbol << 4) | len;
+        }
+      }
+    }
+  }
+
+}
@@ -12,6 +12,8 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import javax.annotation.Nullable;
+import org.apache.http.client.utils.DateUtils;
 import ucar.httpservices.HTTPFactory;
 import ucar.httpservices.HTTPMethod;
 import ucar.httpservices.HTTPSession;
@@ -46,6 +48,8 @@ public final class HTTPRandomAccessFile extends RemoteRandomAccessFile {
 
   private HTTPSession session;
   private long total_length;
+  private long lastModified;
+  private String eTag;
 
   public HTTPRandomAccessFile(String url) throws IOException {
     this(url, httpBufferSize, httpMaxCacheSize);
@@ -84,6 +88,11 @@ public final class HTTPRandomAccessFile extends RemoteRandomAccessFile {
       } catch (NumberFormatException e) {
         throw new IOException("Server has malformed Content-Length header");
       }
+
+      // used to tell if the remote file has changed
+      this.eTag = method.getResponseHeaderValue("ETag").orElse(null);
+      method.getResponseHeaderValue("Last-Modified").map(DateUtils::parseDate)
+          .ifPresent(date -> this.lastModified = date.getTime());
     }
 
     /*
@@ -219,14 +228,23 @@ public final class HTTPRandomAccessFile extends RemoteRandomAccessFile {
   }
 
   /**
-   * Always returns {@code 0L}, as we cannot easily determine the last time that a remote file was modified.
+   * The last time that the remote file was modified, from the "Last-Modified" header of the server response.
    *
-   * @return {@code 0L}, always.
+   * @return last modified time in msecs since epoch, or {@code 0L} if the server did not send it.
    */
-  // LOOK: An idea of how we might implement this: https://github.com/Unidata/thredds/pull/479#issuecomment-194562614
   @Override
   public long getLastModified() {
-    return 0;
+    return lastModified;
+  }
+
+  /**
+   * The entity tag of the remote file, from the "ETag" header of the server response.
+   *
+   * @return the entity tag, or null if the server did not send it.
+   */
+  @Nullable
+  public String getETag() {
+    return eTag;
   }
 
   /**
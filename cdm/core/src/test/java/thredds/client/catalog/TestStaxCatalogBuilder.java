@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package thredds.client.catalog;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import java.io.File;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import org.jdom2.IllegalAddException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import thredds.client.catalog.builder.CatalogBuilder;
+import thredds.client.catalog.builder.StaxCatalogBuilder;
+import thredds.client.catalog.tools.CatalogXmlWriter;
+
+/** Compare {@link StaxCatalogBuilder} with {@link CatalogBuilder} on the test catalogs. */
+@RunWith(Parameterized.class)
+public class TestStaxCatalogBuilder {
+
+  @Parameterized.Parameters(name = "{0}")
+  public static Collection<Object[]> getTestParameters() {
+    List<Object[]> result = new ArrayList<>();
+    File[] files = new File(ClientCatalogUtil.dataDir).listFiles((dir, name) -> name.endsWith(".xml"));
+    Arrays.sort(files);
+    for (File f : files) {
+      result.add(new Object[] {f.getName()});
+    }
+    return result;
+  }
+
+  private final String filename;
+
+  public TestStaxCatalogBuilder(String filename) {
+    this.filename = filename;
+  }
+
+  @Test
+  public void testSameAsJdom() throws Exception {
+    String location = ClientCatalogUtil.makeFilepath(filename);
+    CatalogBuilder jdomBuilder = new CatalogBuilder();
+    Catalog expected = jdomBuilder.buildFromLocation(location, null);
+    StaxCatalogBuilder staxBuilder = new StaxCatalogBuilder();
+    Catalog result = staxBuilder.buildFromLocation(location, null);
+
+    if (expected == null) { // JDOM can't fetch an external DTD without network access, StAX doesn't try
+      return;
+    }
+    assertThat(staxBuilder.hasFatalError()).isFalse();
+    assertThat(staxBuilder.getErrorMessage()).isEqualTo(jdomBuilder.getErrorMessage());
+    CatalogXmlWriter writer = new CatalogXmlWriter();
+    String want;
+    try {
+      want = writer.writeXML(expected);
+    } catch (IllegalAddException e) {
+      return; // CatalogXmlWriter can't write non-THREDDS metadata content
+    }
+    assertThat(writer.writeXML(result)).isEqualTo(want);
+    assertThat(result.getBaseURI()).isEqualTo(expected.getBaseURI());
+  }
+
+  @Test
+  public void testListener() throws Exception {
+    URI uri = new URI(ClientCatalogUtil.makeFilepath(filename));
+    Catalog expected = new CatalogBuilder().buildFromURI(uri);
+    if (expected == null) {
+      return;
+    }
+    List<Dataset> all = new ArrayList<>();
+    addAll(expected.getDatasetsLocal(), all);
+
+    List<Dataset> found = new ArrayList<>();
+    Catalog cat = new StaxCatalogBuilder().readDatasets(uri, found::add);
+    assertThat(cat).isNotNull();
+    assertThat(cat.getDatasetsLocal()).isEmpty();
+    assertThat(cat.getServices()).hasSize(expected.getServices().size());
+
+    assertThat(found).hasSize(all.size());
+    for (int i = 0; i < all.size(); i++) {
+      Dataset want = all.get(i);
+      Dataset got = found.get(i);
+      String what = filename + " " + want.getName();
+      assertWithMessage(what).that(got.getName()).isEqualTo(want.getName());
+      assertWithMessage(what).that(got.getClass()).isEqualTo(want.getClass());
+      assertWithMessage(what).that(got.getID()).isEqualTo(want.getID());
+      assertWithMessage(what).that(got.getParentCatalog()).isSameInstanceAs(cat);
+      assertWithMessage(what).that(got.getServiceDefault()).isEqualTo(want.getServiceDefault());
+      assertWithMessage(what).that(got.getDataFormatName()).isEqualTo(want.getDataFormatName());
+      assertWithMessage(what).that(got.getAccess().size()).isEqualTo(want.getAccess().size());
+      for (int j = 0; j < want.getAccess().size(); j++) {
+        assertWithMessage(what).that(got.getAccess().get(j).getStandardUrlName())
+            .isEqualTo(want.getAccess().get(j).getStandardUrlName());
+      }
+      if (want instanceof CatalogRef) {
+        assertWithMessage(what).that(((CatalogRef) got).getURI()).isEqualTo(((CatalogRef) want).getURI());
+      }
+    }
+  }
+
+  private void addAll(List<Dataset> datasets, List<Dataset> result) {
+    for (Dataset ds : datasets) {
+      result.add(ds);
+      addAll(ds.getDatasetsLocal(), result);
+    }
+  }
+}
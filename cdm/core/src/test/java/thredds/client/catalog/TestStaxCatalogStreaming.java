@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package thredds.client.catalog;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+import thredds.client.catalog.builder.StaxCatalogBuilder;
+
+/** Read a large generated catalog with {@link StaxCatalogBuilder}. */
+public class TestStaxCatalogStreaming {
+
+  @Test
+  public void testLargeCatalog() throws Exception {
+    int n = 20000;
+    StringBuilder sb = new StringBuilder();
+    sb.append("<?xml version='1.0' encoding='UTF-8'?>\n")
+        .append("<catalog xmlns='http://www.unidata.ucar.edu/namespaces/thredds/InvCatalog/v1.0' name='big'>\n")
+        .append("  <service name='odap' serviceType='OPENDAP' base='/thredds/dodsC/'/>\n")
+        .append("  <dataset name='top' ID='top'>\n")
+        .append("    <metadata inherited='true'><serviceName>odap</serviceName><dataFormat>NetCDF</dataFormat>")
+        .append("</metadata>\n");
+    for (int i = 0; i < n; i++) {
+      sb.append("    <dataset name='ds").append(i).append("' ID='top/ds").append(i).append("' urlPath='data/ds")
+          .append(i).append(".nc'><dataSize units='Kbytes'>").append(i).append("</dataSize></dataset>\n");
+    }
+    sb.append("  </dataset>\n</catalog>\n");
+    byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+    URI base = new URI("http://server/thredds/catalog.xml");
+
+    Catalog cat = new StaxCatalogBuilder().buildFromStream(new ByteArrayInputStream(bytes), base);
+    assertThat(cat.findDatasetByID("top").getDatasetsLocal()).hasSize(n);
+    Dataset ds = cat.findDatasetByID("top/ds123");
+    assertThat(ds.getAccess(ServiceType.OPENDAP).getStandardUrlName())
+        .isEqualTo("http://server/thredds/dodsC/data/ds123.nc");
+    assertThat(ds.getDataSize()).isEqualTo(123 * 1000L);
+
+    int[] count = new int[1];
+    Catalog empty = new StaxCatalogBuilder().readDatasets(new ByteArrayInputStream(bytes), base, d -> {
+      if (count[0] > 0) {
+        assertThat(d.getAccess(ServiceType.OPENDAP).getStandardUrlName())
+            .isEqualTo("http://server/thredds/dodsC/data/ds" + (count[0] - 1) + ".nc");
+      }
+      return ++count[0] < 1001; // stop early
+    });
+    assertThat(empty.getName()).isEqualTo("big");
+    assertThat(count[0]).isEqualTo(1001);
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package thredds.client.catalog.tools;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import thredds.client.catalog.CatalogRef;
+import thredds.client.catalog.Dataset;
+
+/** Test that reading catalogRefs ahead in {@link CatalogCrawler} doesn't change what is crawled. */
+public class TestCatalogCrawler {
+  private static final String header = "<?xml version='1.0' encoding='UTF-8'?>\n"
+      + "<catalog xmlns='http://www.unidata.ucar.edu/namespaces/thredds/InvCatalog/v1.0'"
+      + " xmlns:xlink='http://www.w3.org/1999/xlink'>\n"
+      + "  <service name='odap' serviceType='OPENDAP' base='/thredds/dodsC/'/>\n";
+
+  @ClassRule
+  public static TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private static File top;
+
+  @BeforeClass
+  public static void makeCatalogs() throws Exception {
+    StringBuilder sb = new StringBuilder(header);
+    sb.append("  <dataset name='top'>\n");
+    for (int i = 0; i < 20; i++) {
+      sb.append(String.format("    <catalogRef xlink:href='cat%d.xml' xlink:title='ref%d'/>%n", i, i));
+      if (i % 5 == 0) {
+        sb.append(String.format("    <dataset name='between%d' urlPath='between%d.nc' serviceName='odap'/>%n", i, i));
+      }
+    }
+    sb.append("    <catalogRef xlink:href='missing.xml' xlink:title='missing'/>\n");
+    sb.append("  </dataset>\n</catalog>\n");
+    top = write("top.xml", sb.toString());
+
+    for (int i = 0; i < 20; i++) {
+      sb = new StringBuilder(header);
+      for (int j = 0; j < 3; j++) {
+        sb.append(String.format("  <dataset name='ds%d_%d' urlPath='ds%d_%d.nc' serviceName='odap'/>%n", i, j, i, j));
+      }
+      if (i % 4 == 0) {
+        sb.append(String.format("  <catalogRef xlink:href='sub%d.xml' xlink:title='subref%d'/>%n", i, i));
+        write("sub" + i + ".xml",
+            header + String.format("  <dataset name='sub%d' urlPath='sub%d.nc' serviceName='odap'/>%n", i, i)
+                + "</catalog>\n");
+      }
+      sb.append("</catalog>\n");
+      write("cat" + i + ".xml", sb.toString());
+    }
+  }
+
+  private static File write(String name, String contents) throws Exception {
+    File file = new File(tempFolder.getRoot(), name);
+    Files.write(file.toPath(), contents.getBytes(StandardCharsets.UTF_8));
+    return file;
+  }
+
+  private static class Result {
+    final List<String> names = new ArrayList<>();
+    final StringWriter out = new StringWriter();
+    int count;
+    int failures;
+  }
+
+  private Result crawl(CatalogCrawler.Type type, int nthreads, CatalogCrawler.Filter filter) throws Exception {
+    Result result = new Result();
+    try (PrintWriter pw = new PrintWriter(result.out)) {
+      CatalogCrawler crawler =
+          new CatalogCrawler(type, 0, filter, (dd, context) -> result.names.add(dd.getName()), null, pw, null)
+              .setReadAheadThreads(nthreads);
+      result.count = crawler.crawl(top.toURI().toString());
+      result.failures = crawler.getNumReadFailures();
+    }
+    return result;
+  }
+
+  @Test
+  public void testReadAheadSameOrder() throws Exception {
+    for (CatalogCrawler.Type type : new CatalogCrawler.Type[] {CatalogCrawler.Type.all,
+        CatalogCrawler.Type.all_direct, CatalogCrawler.Type.first_direct}) {
+      Result expected = crawl(type, 0, null);
+      assertThat(expected.failures).isEqualTo(1);
+      assertThat(expected.count).isEqualTo(1 + 21 + 5);
+
+      for (int nthreads : new int[] {1, 4, 16}) {
+        Result result = crawl(type, nthreads, null);
+        assertThat(result.names).containsExactlyElementsIn(expected.names).inOrder();
+        assertThat(result.count).isEqualTo(expected.count);
+        assertThat(result.failures).isEqualTo(expected.failures);
+        assertThat(result.out.toString()).isEqualTo(expected.out.toString());
+      }
+    }
+  }
+
+  private static class CatrefFilter implements CatalogCrawler.Filter {
+    final List<String> catrefs = new ArrayList<>();
+
+    public boolean skipAll(Dataset ds) {
+      return false;
+    }
+
+    public synchronized boolean skipCatref(CatalogRef ds, int level) {
+      catrefs.add(ds.getName());
+      return ds.getName().equals("ref3") || level > 1;
+    }
+  }
+
+  @Test
+  public void testFilterCalledOnce() throws Exception {
+    CatrefFilter expectedFilter = new CatrefFilter();
+    Result expected = crawl(CatalogCrawler.Type.all, 0, expectedFilter);
+    assertThat(expected.count).isEqualTo(1 + 20);
+
+    CatrefFilter filter = new CatrefFilter();
+    Result result = crawl(CatalogCrawler.Type.all, 4, filter);
+    assertThat(filter.catrefs).containsNoDuplicates();
+    assertThat(filter.catrefs).containsExactlyElementsIn(expectedFilter.catrefs);
+    assertThat(filter.catrefs).contains("subref0");
+    assertThat(result.count).isEqualTo(expected.count);
+    assertThat(result.names).containsExactlyElementsIn(expected.names).inOrder();
+    assertThat(result.out.toString()).isEqualTo(expected.out.toString());
+  }
+}
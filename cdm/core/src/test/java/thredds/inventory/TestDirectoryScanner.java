@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.inventory;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Formatter;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import thredds.filesystem.ControllerOS;
+import thredds.filesystem.ControllerOS7;
+
+/** Test {@link DirectoryScanner} and {@link DirectoryScanCache}. */
+public class TestDirectoryScanner {
+  private static final String[] FILES = {"a.nc", "b.txt", "sub1/c.nc", "sub1/sub2/d.nc", "sub3/e.nc", "sub3/f.txt"};
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private File root;
+
+  @Before
+  public void makeTree() throws IOException {
+    root = tempFolder.newFolder("root");
+    for (String name : FILES) {
+      File file = new File(root, name);
+      assertThat(file.getParentFile().mkdirs() || file.getParentFile().isDirectory()).isTrue();
+      assertThat(file.createNewFile()).isTrue();
+    }
+    // a directory modified in the last few seconds is not remembered by the cache
+    for (String dir : new String[] {"", "sub1", "sub1/sub2", "sub3"}) {
+      File file = new File(root, dir);
+      assertThat(file.setLastModified(file.lastModified() - 60 * 1000)).isTrue();
+    }
+  }
+
+  @After
+  public void resetDefaults() {
+    DirectoryScanner.setDefaults(1, null);
+  }
+
+  private List<String> expected(String... names) {
+    List<String> result = new ArrayList<>();
+    for (String name : names)
+      result.add(new File(root, name).getPath().replace('\\', '/'));
+    return result;
+  }
+
+  private List<String> scan(DirectoryScanner scanner, int maxDepth) throws IOException {
+    MFileFilter filter = mfile -> mfile.getName().endsWith(".nc");
+    CollectionConfig mc = new CollectionConfig("test", root.getPath(), true, filter, null);
+    List<String> result = new ArrayList<>();
+    scanner.scan(mc, maxDepth).forEachRemaining(mfile -> result.add(mfile.getPath()));
+    return result;
+  }
+
+  @Test
+  public void testScan() throws IOException {
+    for (MController controller : Arrays.asList(new ControllerOS(), new ControllerOS7())) {
+      for (int concurrency : new int[] {1, 4}) {
+        DirectoryScanner scanner = new DirectoryScanner(controller, concurrency, null);
+        assertThat(scan(scanner, Integer.MAX_VALUE))
+            .containsExactlyElementsIn(expected("a.nc", "sub1/c.nc", "sub1/sub2/d.nc", "sub3/e.nc"));
+        assertThat(scan(scanner, 1)).containsExactlyElementsIn(expected("a.nc", "sub1/c.nc", "sub3/e.nc"));
+        assertThat(scan(scanner, 0)).containsExactlyElementsIn(expected("a.nc"));
+      }
+    }
+  }
+
+  @Test
+  public void testMissingDirectory() throws IOException {
+    CollectionConfig mc = new CollectionConfig("test", new File(root, "nope").getPath(), true, null, null);
+    assertThat(new DirectoryScanner(new ControllerOS7(), 4, null).scan(mc, Integer.MAX_VALUE)).isNull();
+  }
+
+  @Test
+  public void testCacheSkipsUnchangedDirectories() throws IOException {
+    DirectoryScanCache cache = new DirectoryScanCache();
+    DirectoryScanner scanner = new DirectoryScanner(new ControllerOS(), 4, cache);
+    List<String> all = expected("a.nc", "sub1/c.nc", "sub1/sub2/d.nc", "sub3/e.nc");
+
+    assertThat(scan(scanner, Integer.MAX_VALUE)).containsExactlyElementsIn(all);
+    assertThat(cache.getHits()).isEqualTo(0);
+    assertThat(cache.getMisses()).isEqualTo(4);
+    assertThat(cache.size()).isEqualTo(4);
+
+    assertThat(scan(scanner, Integer.MAX_VALUE)).containsExactlyElementsIn(all);
+    assertThat(cache.getHits()).isEqualTo(4);
+    assertThat(cache.getMisses()).isEqualTo(4);
+
+    // adding a file changes the directory's last modified time
+    assertThat(new File(root, "sub1/g.nc").createNewFile()).isTrue();
+    List<String> more = new ArrayList<>(all);
+    more.addAll(expected("sub1/g.nc"));
+    assertThat(scan(scanner, Integer.MAX_VALUE)).containsExactlyElementsIn(more);
+    assertThat(cache.getHits()).isEqualTo(7);
+    assertThat(cache.getMisses()).isEqualTo(5);
+    assertThat(cache.size()).isEqualTo(3); // sub1 was modified too recently to remember
+  }
+
+  @Test
+  public void testCacheSavedToFile() throws IOException {
+    File cacheFile = new File(tempFolder.getRoot(), "scan.cache");
+    DirectoryScanCache cache = new DirectoryScanCache(cacheFile);
+    List<String> all = scan(new DirectoryScanner(new ControllerOS7(), 1, cache), Integer.MAX_VALUE);
+    cache.save();
+    assertThat(cacheFile.exists()).isTrue();
+
+    DirectoryScanCache cache2 = new DirectoryScanCache(cacheFile);
+    assertThat(cache2.size()).isEqualTo(4);
+    assertThat(scan(new DirectoryScanner(new ControllerOS7(), 1, cache2), Integer.MAX_VALUE))
+        .containsExactlyElementsIn(all);
+    assertThat(cache2.getHits()).isEqualTo(4);
+    assertThat(cache2.getMisses()).isEqualTo(0);
+  }
+
+  @Test
+  public void testCollectionsUseDefaults() throws IOException {
+    DirectoryScanner.setDefaults(4, new DirectoryScanCache());
+    List<String> all = expected("a.nc", "sub1/c.nc", "sub1/sub2/d.nc", "sub3/e.nc");
+
+    String spec = root.getPath().replace('\\', '/') + "/**/.*\\.nc$";
+    CollectionManager manager = MFileCollectionManager.open("test", spec, null, new Formatter());
+    assertThat(manager.getFilenames()).containsExactlyElementsIn(all);
+
+    CollectionGlob glob = new CollectionGlob("test", root.getPath().replace('\\', '/') + "/**.nc", null);
+    List<String> result = new ArrayList<>();
+    glob.getFileIterator().forEachRemaining(mfile -> result.add(mfile.getPath()));
+    assertThat(result).containsExactlyElementsIn(all);
+  }
+}
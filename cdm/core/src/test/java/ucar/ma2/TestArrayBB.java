@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.ma2;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+/** Compare {@link ArrayBB} with the heap Array of the same type. */
+@RunWith(Parameterized.class)
+public class TestArrayBB {
+  private static final int[] shape = {3, 4, 5};
+
+  @Parameterized.Parameters(name = "{0} {1}")
+  public static Collection<Object[]> getTestParameters() {
+    List<Object[]> result = new ArrayList<>();
+    for (DataType dataType : new DataType[] {DataType.BYTE, DataType.UBYTE, DataType.SHORT, DataType.USHORT,
+        DataType.INT, DataType.UINT, DataType.LONG, DataType.FLOAT, DataType.DOUBLE, DataType.ENUM2}) {
+      result.add(new Object[] {dataType, ByteOrder.BIG_ENDIAN});
+      result.add(new Object[] {dataType, ByteOrder.LITTLE_ENDIAN});
+    }
+    return result;
+  }
+
+  private final DataType dataType;
+  private final ByteOrder order;
+
+  public TestArrayBB(DataType dataType, ByteOrder order) {
+    this.dataType = dataType;
+    this.order = order;
+  }
+
+  // values that use the sign bit of each type
+  private Array makeExpected() {
+    Array expected = Array.factory(dataType, shape);
+    for (int i = 0; i < expected.getSize(); i++) {
+      expected.setDouble(i, (i % 2 == 0 ? 1 : -1) * (i * 7 + 0.5));
+    }
+    return expected;
+  }
+
+  private ArrayBB makeArrayBB(Array expected) {
+    ByteBuffer bb = ByteBuffer.allocateDirect((int) expected.getSizeBytes() + 3).order(order);
+    bb.position(3); // data does not start at 0
+    ArrayBB result = new ArrayBB(dataType, shape, bb);
+    MAMath.copy(result, expected);
+    return result;
+  }
+
+  private void assertSame(Array expected, Array result) {
+    assertThat(result.getShape()).isEqualTo(expected.getShape());
+    assertThat(result.getDataType()).isEqualTo(expected.getDataType());
+    IndexIterator want = expected.getIndexIterator();
+    IndexIterator got = result.getIndexIterator();
+    while (want.hasNext()) {
+      assertThat(got.hasNext()).isTrue();
+      assertThat(got.getDoubleNext()).isEqualTo(want.getDoubleNext());
+      assertThat(got.getLongCurrent()).isEqualTo(want.getLongCurrent());
+      assertThat(got.getFloatCurrent()).isEqualTo(want.getFloatCurrent());
+      assertThat(got.getIntCurrent()).isEqualTo(want.getIntCurrent());
+      assertThat(got.getShortCurrent()).isEqualTo(want.getShortCurrent());
+      assertThat(got.getByteCurrent()).isEqualTo(want.getByteCurrent());
+      assertThat(got.getObjectCurrent()).isEqualTo(want.getObjectCurrent());
+    }
+    assertThat(got.hasNext()).isFalse();
+  }
+
+  @Test
+  public void testValues() {
+    Array expected = makeExpected();
+    ArrayBB result = makeArrayBB(expected);
+    assertSame(expected, result);
+    assertThat(result.getElementType()).isEqualTo(expected.getElementType());
+    assertThat(result.getStorage()).isInstanceOf(ByteBuffer.class);
+    assertThat(((ByteBuffer) result.getStorage()).isDirect()).isTrue();
+
+    Index ima = result.getIndex();
+    assertThat(result.getDouble(ima.set(2, 3, 4))).isEqualTo(expected.getDouble(expected.getIndex().set(2, 3, 4)));
+  }
+
+  @Test
+  public void testViews() throws InvalidRangeException {
+    Array expected = makeExpected();
+    ArrayBB result = makeArrayBB(expected);
+    assertSame(expected.section(new int[] {1, 0, 2}, new int[] {2, 4, 3}),
+        result.section(new int[] {1, 0, 2}, new int[] {2, 4, 3}));
+    assertSame(expected.section(new int[] {0, 1, 0}, new int[] {2, 2, 3}, new int[] {2, 2, 2}),
+        result.section(new int[] {0, 1, 0}, new int[] {2, 2, 3}, new int[] {2, 2, 2}));
+    assertSame(expected.slice(1, 2), result.slice(1, 2));
+    assertSame(expected.transpose(0, 2), result.transpose(0, 2));
+    assertSame(expected.flip(1), result.flip(1));
+    assertSame(expected.reshape(new int[] {60}), result.reshapeNoCopy(new int[] {60}));
+
+    // a view shares the storage
+    Array slice = result.slice(0, 1);
+    assertThat(slice).isInstanceOf(ArrayBB.class);
+    slice.setDouble(slice.getIndex().set(0, 0), 42);
+    assertThat(result.getDouble(result.getIndex().set(1, 0, 0))).isEqualTo(42.0);
+  }
+
+  @Test
+  public void testCopies() {
+    Array expected = makeExpected();
+    ArrayBB result = makeArrayBB(expected);
+
+    Array copy = result.copy();
+    assertThat(copy).isNotInstanceOf(ArrayBB.class);
+    assertSame(expected, copy);
+    assertThat(result.get1DJavaArray(dataType)).isEqualTo(expected.get1DJavaArray(dataType));
+    assertThat(result.get1DJavaArray(DataType.DOUBLE)).isEqualTo(expected.get1DJavaArray(DataType.DOUBLE));
+    assertThat(result.transpose(0, 1).copyTo1DJavaArray()).isEqualTo(expected.transpose(0, 1).copyTo1DJavaArray());
+
+    ByteBuffer bb = result.getDataAsByteBuffer(order);
+    assertThat(bb.order()).isEqualTo(order);
+    assertThat(bb.remaining()).isEqualTo((int) expected.getSizeBytes());
+    assertSame(expected, Array.factory(dataType, shape, bb));
+    ByteBuffer swapped = result.getDataAsByteBuffer(
+        order == ByteOrder.BIG_ENDIAN ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+    assertSame(expected, Array.factory(dataType, shape, swapped));
+  }
+
+  @Test
+  public void testAllocateDirect() {
+    ArrayBB result = ArrayBB.allocateDirect(dataType, shape);
+    assertThat(result.getSize()).isEqualTo(60);
+    assertThat(((ByteBuffer) result.getStorage()).order()).isEqualTo(ByteOrder.nativeOrder());
+    MAMath.copy(result, makeExpected());
+    assertSame(makeExpected(), result);
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.ma2;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.Arrays;
+import java.util.Collection;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+/** Compare {@link ArraySegmented} with an Array of the same shape and values. */
+@RunWith(Parameterized.class)
+public class TestArraySegmented {
+  private static final int[] shape = {11, 3, 4};
+
+  @Parameterized.Parameters(name = "direct={0}")
+  public static Collection<Object[]> getTestParameters() {
+    return Arrays.asList(new Object[][] {{true}, {false}});
+  }
+
+  private final boolean direct;
+  private final Array expected;
+  private final ArraySegmented data;
+
+  public TestArraySegmented(boolean direct) {
+    this.direct = direct;
+    this.expected = Array.factory(DataType.INT, shape);
+    for (int i = 0; i < expected.getSize(); i++) {
+      expected.setInt(i, i);
+    }
+    // 4 rows of 12 ints in each segment
+    this.data = ArraySegmented.factory(DataType.INT, shape, direct, 4 * 12 * 4 + 10);
+    IndexIterator iter = data.getIndexIterator();
+    for (int i = 0; iter.hasNext(); i++) {
+      iter.setIntNext(i);
+    }
+  }
+
+  private void assertSame(Array want, ArraySegmented got) {
+    assertThat(got.getShape()).isEqualTo(want.getShape());
+    assertThat(got.getSize()).isEqualTo(want.getSize());
+    IndexIterator wantIter = want.getIndexIterator();
+    IndexIterator gotIter = got.getIndexIterator();
+    long elem = 0;
+    while (wantIter.hasNext()) {
+      assertThat(gotIter.hasNext()).isTrue();
+      int value = wantIter.getIntNext();
+      assertThat(gotIter.getIntNext()).isEqualTo(value);
+      assertThat(gotIter.getCurrentCounter()).isEqualTo(wantIter.getCurrentCounter());
+      assertThat(got.getInt(elem++)).isEqualTo(value);
+    }
+    assertThat(gotIter.hasNext()).isFalse();
+    assertThat(got.toArray().copyTo1DJavaArray()).isEqualTo(want.copyTo1DJavaArray());
+  }
+
+  @Test
+  public void testSegments() {
+    assertThat(data.getSegmentCount()).isEqualTo(3);
+    assertThat(data.getSegment(0).getShape()).isEqualTo(new int[] {4, 3, 4});
+    assertThat(data.getSegment(2).getShape()).isEqualTo(new int[] {3, 3, 4});
+    assertThat(data.getSegment(1)).isInstanceOf(direct ? ArrayBB.class : ArrayInt.class);
+    assertThat(data.getSegmentOffset(2)).isEqualTo(96);
+    assertThat(data.findSegment(47)).isEqualTo(0);
+    assertThat(data.findSegment(48)).isEqualTo(1);
+    assertThat(data.findSegment(131)).isEqualTo(2);
+    assertThat(data.getSizeBytes()).isEqualTo(132 * 4);
+    assertSame(expected, data);
+  }
+
+  @Test
+  public void testSetByElement() {
+    data.setDouble(50, -1.5);
+    data.setLong(131, 77);
+    assertThat(data.getInt(50)).isEqualTo(-1);
+    assertThat(data.getSegment(1).getInt(2)).isEqualTo(-1);
+    assertThat(data.getObject(131)).isEqualTo(77);
+  }
+
+  @Test
+  public void testSections() throws InvalidRangeException {
+    assertSame(expected.sectionNoReduce(new int[] {3, 0, 1}, new int[] {6, 3, 2}, null),
+        data.section(new int[] {3, 0, 1}, new int[] {6, 3, 2}));
+    // strided, across segments
+    for (int stride = 1; stride < 6; stride++) {
+      for (int first = 0; first < 4; first++) {
+        Range outer = new Range(first, 10, stride);
+        Array want = expected.sectionNoReduce(Arrays.asList(outer, new Range(1, 2), null));
+        assertSame(want, data.sectionNoReduce(Arrays.asList(outer, new Range(1, 2), null)));
+      }
+    }
+    // a section of a section
+    ArraySegmented section = data.section(new int[] {2, 1, 0}, new int[] {8, 2, 4});
+    assertSame(expected.section(new int[] {2, 1, 0}, new int[] {8, 2, 4}).section(new int[] {1, 0, 1},
+        new int[] {5, 2, 2}), section.section(new int[] {1, 0, 1}, new int[] {5, 2, 2}));
+  }
+
+  @Test
+  public void testSlices() {
+    for (int i = 0; i < shape[0]; i++) {
+      ArraySegmented slice = data.slice(0, i);
+      assertThat(slice.getSegmentCount()).isEqualTo(1);
+      assertSame(expected.slice(0, i), slice);
+    }
+    assertSame(expected.slice(1, 2), data.slice(1, 2));
+    assertSame(expected.slice(2, 3).slice(0, 7), data.slice(2, 3).slice(0, 7));
+
+    // a slice shares the storage
+    Array segment = data.slice(0, 5).getSegment(0);
+    segment.setInt(segment.getIndex(), -5);
+    assertThat(data.getInt(60)).isEqualTo(-5);
+  }
+
+  @Test(expected = InvalidRangeException.class)
+  public void testBadSection() throws InvalidRangeException {
+    data.section(new int[] {3, 0, 1}, new int[] {9, 3, 2});
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRowTooLarge() {
+    ArraySegmented.factory(DataType.DOUBLE, new int[] {2, 1 << 16, 1 << 15}, direct);
+  }
+}
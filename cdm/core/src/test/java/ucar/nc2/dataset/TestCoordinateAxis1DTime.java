@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.nc2.dataset;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Formatter;
+import org.junit.Test;
+import ucar.ma2.Range;
+import ucar.nc2.ncml.NcMLReader;
+import ucar.nc2.time.Calendar;
+import ucar.nc2.time.CalendarDate;
+import ucar.nc2.time.CalendarDateFormatter;
+import ucar.nc2.time.CalendarDateUnit;
+import ucar.nc2.util.NamedObject;
+
+/** Test the dates of {@link CoordinateAxis1DTime}. */
+public class TestCoordinateAxis1DTime {
+
+  private static final String ncml = "<?xml version='1.0' encoding='UTF-8'?>\n"
+      + "<netcdf xmlns='http://www.unidata.ucar.edu/namespaces/netcdf/ncml-2.2'>\n"
+      + "  <dimension name='time' length='2000'/>\n" + "  <dimension name='obs' length='5'/>\n"
+      + "  <dimension name='strlen' length='20'/>\n" //
+      + "  <variable name='time' shape='time' type='double'>\n"
+      + "    <attribute name='units' value='hours since 1999-12-31 18:00'/>\n"
+      + "    <attribute name='calendar' value='noleap'/>\n" //
+      + "    <values start='0' increment='6'/>\n" //
+      + "  </variable>\n" //
+      + "  <variable name='obs' shape='obs' type='float'>\n"
+      + "    <attribute name='units' value='days since 2000-02-28'/>\n"
+      + "    <attribute name='calendar' value='360_day'/>\n" //
+      + "    <values>0 1.5 2 NaN 40</values>\n" //
+      + "  </variable>\n" //
+      + "  <variable name='iso' shape='obs' type='String'>\n"
+      + "    <values separator=','>2000-01-01T00:00:00Z,2000-01-01T06:00:00Z,2000-02-01,2001-01-01,2001-01-01</values>\n"
+      + "  </variable>\n" //
+      + "</netcdf>";
+
+  private NetcdfDataset open() throws IOException {
+    return NcMLReader.readNcML(new StringReader(ncml), "TestCoordinateAxis1DTime.ncml", null);
+  }
+
+  @Test
+  public void testRegular() throws Exception {
+    try (NetcdfDataset ds = open()) {
+      CoordinateAxis1DTime axis =
+          CoordinateAxis1DTime.factory(ds, (VariableDS) ds.findVariable("time"), new Formatter());
+      CalendarDateUnit cdu = CalendarDateUnit.withCalendar(Calendar.noleap, "hours since 1999-12-31 18:00");
+
+      assertThat(axis.getCalendarDateSequence().isRegular()).isTrue();
+      assertThat(axis.getCalendarDates()).hasSize(2000);
+      assertThat(axis.getCalendarDate(0)).isEqualTo(cdu.makeCalendarDate(0));
+      assertThat(axis.getCalendarDate(1999)).isEqualTo(cdu.makeCalendarDate(6 * 1999));
+      assertThat(axis.getCalendarDateRange().getEnd()).isEqualTo(cdu.makeCalendarDate(6 * 1999));
+
+      // Feb 29 does not exist in noleap, 2000-03-01T00:00 is index 59 * 4 + 1
+      CalendarDate march = CalendarDate.of(Calendar.noleap, 2000, 3, 1, 3, 0, 0);
+      assertThat(axis.findTimeIndexFromCalendarDate(march)).isEqualTo(59 * 4 + 1);
+      assertThat(axis.hasCalendarDate(march)).isFalse();
+      assertThat(axis.hasCalendarDate(axis.getCalendarDate(237))).isTrue();
+      assertThat(axis.findTimeIndexFromCalendarDate(CalendarDate.of(Calendar.noleap, 1900, 1, 1, 0, 0, 0)))
+          .isEqualTo(0);
+      assertThat(axis.findTimeIndexFromCalendarDate(CalendarDate.of(Calendar.noleap, 2100, 1, 1, 0, 0, 0)))
+          .isEqualTo(1999);
+
+      NamedObject name = axis.getNames().get(5);
+      assertThat(name.getName()).isEqualTo(CalendarDateFormatter.toDateTimeStringISO(axis.getCalendarDate(5)));
+
+      CoordinateAxis1DTime section = axis.section(new Range(10, 1000, 10));
+      assertThat(section.getCalendarDates()).hasSize(100);
+      assertThat(section.getCalendarDate(3)).isEqualTo(axis.getCalendarDate(40));
+      assertThat(section.getCoordValue(3)).isEqualTo(axis.getCoordValue(40));
+    }
+  }
+
+  @Test
+  public void testMissingValues() throws Exception {
+    try (NetcdfDataset ds = open()) {
+      CoordinateAxis1DTime axis = CoordinateAxis1DTime.factory(ds, (VariableDS) ds.findVariable("obs"), null);
+      CalendarDateUnit cdu = CalendarDateUnit.withCalendar(Calendar.uniform30day, "days since 2000-02-28");
+
+      assertThat(axis.getCalendarDateSequence().getCalendar()).isEqualTo(Calendar.uniform30day);
+      assertThat(axis.getCalendarDates()).containsExactly(cdu.makeCalendarDate(0), cdu.makeCalendarDate(1.5),
+          cdu.makeCalendarDate(2), cdu.makeCalendarDate(40)).inOrder();
+      assertThat(axis.getCalendarDate(2).getDayOfMonth()).isEqualTo(30);
+    }
+  }
+
+  @Test
+  public void testIsoStrings() throws Exception {
+    try (NetcdfDataset ds = open()) {
+      CoordinateAxis1DTime axis = CoordinateAxis1DTime.factory(ds, (VariableDS) ds.findVariable("iso"), null);
+      assertThat(axis.getCalendarDateSequence().isRegular()).isFalse();
+      assertThat(axis.getCalendarDate(2)).isEqualTo(CalendarDate.parseISOformat(null, "2000-02-01"));
+      assertThat(axis.findTimeIndexFromCalendarDate(CalendarDate.parseISOformat(null, "2001-01-01"))).isEqualTo(4);
+      assertThat(axis.getCoordValues()).isEqualTo(new double[] {0, 6 * 3600 * 1000., 31 * 86400 * 1000.,
+          366 * 86400 * 1000., 366 * 86400 * 1000.});
+    }
+  }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.nc2.dataset;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+import static ucar.nc2.TestUtils.makeDummyGroup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
+import ucar.ma2.IndexIterator;
+import ucar.ma2.InvalidRangeException;
+import ucar.ma2.Section;
+import ucar.nc2.Attribute;
+import ucar.nc2.Group;
+import ucar.nc2.constants.CDM;
+
+/**
+ * Test that the bulk conversions of {@link EnhanceScaleMissingUnsignedImpl#convert} give the same results as converting
+ * one element at a time.
+ */
+@RunWith(Parameterized.class)
+public class TestEnhanceScaleMissingUnsignedBulk {
+
+  @Parameterized.Parameters(name = "{0} {1} {2}")
+  public static List<Object[]> getTestParameters() {
+    List<Object[]> result = new ArrayList<>();
+    DataType[] types = {DataType.BYTE, DataType.UBYTE, DataType.SHORT, DataType.USHORT, DataType.INT, DataType.UINT,
+        DataType.LONG, DataType.ULONG, DataType.FLOAT, DataType.DOUBLE};
+    for (DataType type : types) {
+      for (boolean scaleIsDouble : new boolean[] {false, true}) {
+        result.add(new Object[] {type, 1000, scaleIsDouble});
+        if (type == DataType.SHORT || type == DataType.USHORT) {
+          result.add(new Object[] {type, 300000, scaleIsDouble}); // large enough for the lookup table
+        }
+      }
+    }
+    return result;
+  }
+
+  private final DataType dataType;
+  private final int size;
+  private final boolean scaleIsDouble;
+  private final int saveParallelThreshold = EnhanceScaleMissingUnsignedImpl.parallelThreshold;
+
+  public TestEnhanceScaleMissingUnsignedBulk(DataType dataType, int size, boolean scaleIsDouble) {
+    this.dataType = dataType;
+    this.size = size;
+    this.scaleIsDouble = scaleIsDouble;
+  }
+
+  @After
+  public void cleanup() {
+    EnhanceScaleMissingUnsignedImpl.parallelThreshold = saveParallelThreshold;
+  }
+
+  @Test
+  public void testConvert() {
+    checkConvert(makeEnhance(true));
+    checkConvert(makeEnhance(false));
+  }
+
+  @Test
+  public void testConvertParallel() {
+    EnhanceScaleMissingUnsignedImpl.parallelThreshold = 100;
+    checkConvert(makeEnhance(true));
+  }
+
+  @Test
+  public void testConvertSection() throws InvalidRangeException {
+    // a section is not in canonical order in the backing array
+    EnhanceScaleMissingUnsignedImpl enhance = makeEnhance(true);
+    Array data = makeData(new int[] {size / 100, 100}, new Random(size));
+    Array section = data.sectionNoReduce(new Section(new int[] {1, 3}, new int[] {size / 100 - 2, 90}).getRanges());
+    checkConvert(enhance, section);
+  }
+
+  private EnhanceScaleMissingUnsignedImpl makeEnhance(boolean withAttributes) {
+    Group group = makeDummyGroup();
+    VariableDS.Builder<?> vb = VariableDS.builder().setName("packed").setDataType(dataType)
+        .setDimensionsAnonymous(new int[] {size});
+    if (withAttributes) {
+      if (scaleIsDouble) {
+        vb.addAttribute(new Attribute(CDM.SCALE_FACTOR, 0.01));
+        vb.addAttribute(new Attribute(CDM.ADD_OFFSET, -50.0));
+      } else {
+        vb.addAttribute(new Attribute(CDM.SCALE_FACTOR, 0.5f));
+        vb.addAttribute(new Attribute(CDM.ADD_OFFSET, 10.0f));
+      }
+      DataType attType = dataType.withSignedness(DataType.Signedness.SIGNED);
+      vb.addAttribute(
+          Attribute.builder(CDM.FILL_VALUE).setValues(Array.makeArray(attType, new String[] {"0"})).build());
+      vb.addAttribute(
+          Attribute.builder(CDM.MISSING_VALUE).setValues(Array.makeArray(attType, new String[] {"7", "-3"})).build());
+      vb.addAttribute(
+          Attribute.builder(CDM.VALID_RANGE).setValues(Array.makeArray(attType, new String[] {"-100", "100"})).build());
+    }
+    VariableDS var = vb.build(group);
+    return new EnhanceScaleMissingUnsignedImpl(var, NetcdfDataset.getEnhanceAll());
+  }
+
+  private void checkConvert(EnhanceScaleMissingUnsignedImpl enhance) {
+    checkConvert(enhance, makeData(new int[] {size}, new Random(size)));
+  }
+
+  private void checkConvert(EnhanceScaleMissingUnsignedImpl enhance, Array data) {
+    for (int flags = 0; flags < 8; flags++) {
+      boolean convertUnsigned = (flags & 1) != 0;
+      boolean applyScaleOffset = (flags & 2) != 0;
+      boolean convertMissing = (flags & 4) != 0;
+      Array result = enhance.convert(data, convertUnsigned, applyScaleOffset, convertMissing);
+      Array expected = convertEachElement(enhance, data, convertUnsigned, applyScaleOffset, convertMissing);
+
+      String what = String.format("unsigned=%s scaleOffset=%s missing=%s", convertUnsigned, applyScaleOffset,
+          convertMissing);
+      assertWithMessage(what).that(result.getDataType()).isEqualTo(expected.getDataType());
+      assertWithMessage(what).that(result.getShape()).isEqualTo(expected.getShape());
+      IndexIterator iterResult = result.getIndexIterator();
+      IndexIterator iterExpected = expected.getIndexIterator();
+      while (iterExpected.hasNext()) {
+        Object want = iterExpected.getObjectNext();
+        assertWithMessage(what).that(iterResult.getObjectNext()).isEqualTo(want);
+      }
+    }
+  }
+
+  // the conversion done one element at a time
+  private Array convertEachElement(EnhanceScaleMissingUnsignedImpl enhance, Array in, boolean convertUnsigned,
+      boolean applyScaleOffset, boolean convertMissing) {
+    if (!convertUnsigned && !applyScaleOffset && !convertMissing) {
+      return in;
+    }
+    convertUnsigned &= enhance.getSignedness() == DataType.Signedness.UNSIGNED;
+    applyScaleOffset &= enhance.hasScaleOffset();
+    DataType outType = dataType;
+    if (convertUnsigned) {
+      outType = enhance.getUnsignedConversionType();
+    }
+    if (applyScaleOffset) {
+      outType = enhance.getScaledOffsetType();
+    }
+    convertMissing &= outType == DataType.FLOAT || outType == DataType.DOUBLE;
+
+    Array out = Array.factory(outType, in.getShape());
+    IndexIterator iterIn = in.getIndexIterator();
+    IndexIterator iterOut = out.getIndexIterator();
+    while (iterIn.hasNext()) {
+      Number value = (Number) iterIn.getObjectNext();
+      if (convertUnsigned) {
+        value = enhance.convertUnsigned(value);
+      }
+      if (applyScaleOffset) {
+        value = enhance.applyScaleOffset(value);
+      }
+      if (convertMissing) {
+        value = enhance.convertMissing(value);
+      }
+      iterOut.setObjectNext(value);
+    }
+    return out;
+  }
+
+  // random values, with the fill value, the missing values, NaN and extreme values mixed in
+  private Array makeData(int[] shape, Random random) {
+    Array data = Array.factory(dataType, shape);
+    IndexIterator iter = data.getIndexIterator();
+    int count = 0;
+    while (iter.hasNext()) {
+      switch (count++ % 10) {
+        case 0:
+          iter.setObjectNext(7);
+          continue;
+        case 1:
+          iter.setObjectNext(-3);
+          continue;
+        case 2:
+          iter.setObjectNext(dataType.isIntegral() ? random.nextLong() : Double.NaN);
+          continue;
+        case 3:
+          iter.setObjectNext(random.nextInt(256) - 128);
+          continue;
+        default:
+          iter.setObjectNext(dataType.isIntegral() ? random.nextLong() : random.nextGaussian() * 1000);
+      }
+    }
+    assertThat(count).isEqualTo(data.getSize());
+    return data;
+  }
+
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.nc2.dataset;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import java.io.IOException;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
+import ucar.ma2.IndexIterator;
+import ucar.ma2.InvalidRangeException;
+import ucar.ma2.MAMath;
+import ucar.ma2.Range;
+import ucar.ma2.Section;
+import ucar.nc2.Attribute;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.NetcdfFiles;
+import ucar.nc2.Variable;
+import ucar.nc2.constants.CDM;
+import ucar.nc2.iosp.DataConverter;
+import ucar.nc2.write.NetcdfFormatWriter;
+import ucar.unidata.util.test.TestDir;
+
+/** Test reading packed VariableDS data, converted while reading it by the IOSP. */
+public class TestVariableDSReadConverted {
+
+  @Rule
+  public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void testNetcdf3() throws IOException, InvalidRangeException {
+    String filename = tempFolder.newFile().getAbsolutePath();
+    NetcdfFormatWriter.Builder writerb = NetcdfFormatWriter.createNewNetcdf3(filename);
+    writerb.addUnlimitedDimension("time");
+    writerb.addDimension("lat", 90);
+    writerb.addDimension("lon", 180);
+    writerb.addVariable("packed", DataType.SHORT, "lat lon").addAttribute(new Attribute(CDM.SCALE_FACTOR, 0.01f))
+        .addAttribute(new Attribute(CDM.ADD_OFFSET, 273.15f)).addAttribute(new Attribute(CDM.MISSING_VALUE, (short) 7));
+    writerb.addVariable("record", DataType.SHORT, "time lat lon").addAttribute(new Attribute(CDM.SCALE_FACTOR, 0.5))
+        .addAttribute(new Attribute(CDM.VALID_RANGE, Array.makeFromJavaArray(new short[] {-1000, 1000}, false)));
+    writerb.addVariable("unsigned", DataType.BYTE, "lat lon").addAttribute(new Attribute(CDM.UNSIGNED, "true"))
+        .addAttribute(new Attribute(CDM.SCALE_FACTOR, 2.0f)).addAttribute(new Attribute(CDM.FILL_VALUE, (byte) -1));
+    writerb.addVariable("floats", DataType.FLOAT, "time lat lon").addAttribute(new Attribute(CDM.MISSING_VALUE, 1.0f));
+
+    Random random = new Random(17);
+    try (NetcdfFormatWriter writer = writerb.build()) {
+      writer.write("packed", randomData(DataType.SHORT, new int[] {90, 180}, random));
+      writer.write("unsigned", randomData(DataType.BYTE, new int[] {90, 180}, random));
+      writer.write("record", new int[] {0, 0, 0}, randomData(DataType.SHORT, new int[] {5, 90, 180}, random));
+      writer.write("floats", new int[] {0, 0, 0}, randomData(DataType.FLOAT, new int[] {5, 90, 180}, random));
+    }
+
+    assertThat(checkFile(filename)).isEqualTo(4);
+  }
+
+  @Test
+  public void testIospReadConverted() throws IOException, InvalidRangeException {
+    // contiguous, chunked, and compressed
+    for (String filename : new String[] {"testWrite.nc", "chunked.h5", "ncml/nc/ubyte_1.nc4",
+        "testCFGridWriter.nc4"}) {
+      Random random = new Random(1234);
+      try (NetcdfFile ncfile = NetcdfFiles.open(TestDir.cdmLocalTestDataDir + filename)) {
+        for (Variable v : ncfile.getVariables()) {
+          if (!v.getDataType().isNumeric() || v.isCaching()) {
+            continue;
+          }
+          Array converted = v.readConverted(null, new ToDouble(v.getDataType()));
+          assertWithMessage(v.getFullName()).that(converted).isNotNull();
+          compare(converted, toDouble(v.read()), filename + " " + v.getFullName());
+          for (int i = 0; i < 20; i++) {
+            Section section = randomSection(random, v.getShape());
+            compare(v.readConverted(section, new ToDouble(v.getDataType())), toDouble(v.read(section)),
+                filename + " " + v.getFullName() + " " + section);
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testNetcdf3Records() throws IOException, InvalidRangeException {
+    assertThat(checkFile(TestDir.cdmLocalTestDataDir + "ncml/fmrc/GFS_Puerto_Rico_191km_20090730_0000.nc"))
+        .isGreaterThan(0);
+  }
+
+  // compare converted reads with reading the raw data, then converting it
+  private int checkFile(String filename) throws IOException, InvalidRangeException {
+    Random random = new Random(1234);
+    int nconverted = 0;
+    try (NetcdfDataset ncd = NetcdfDatasets.openDataset(filename)) {
+      for (Variable v : ncd.getVariables()) {
+        VariableDS vds = (VariableDS) v;
+        Variable orgVar = vds.getOriginalVariable();
+        if (vds.readEnhanced(null) == null) {
+          continue;
+        }
+        nconverted++;
+
+        compare(vds.read(), vds.convert(orgVar.read()), vds.getFullName());
+        for (int i = 0; i < 20; i++) {
+          Section section = randomSection(random, vds.getShape());
+          compare(vds.read(section), vds.convert(orgVar.read(section)), vds.getFullName() + " " + section);
+        }
+      }
+    }
+    return nconverted;
+  }
+
+  private void compare(Array result, Array expected, String what) {
+    assertWithMessage(what).that(result.getDataType()).isEqualTo(expected.getDataType());
+    assertWithMessage(what).that(result.getShape()).isEqualTo(expected.getShape());
+    IndexIterator iterResult = result.getIndexIterator();
+    IndexIterator iterExpected = expected.getIndexIterator();
+    while (iterExpected.hasNext()) {
+      Object want = iterExpected.getObjectNext();
+      assertWithMessage(what).that(iterResult.getObjectNext()).isEqualTo(want);
+    }
+  }
+
+  private Section randomSection(Random random, int[] shape) throws InvalidRangeException {
+    Section.Builder sb = Section.builder();
+    for (int len : shape) {
+      int first = random.nextInt(len);
+      int last = first + random.nextInt(len - first);
+      sb.appendRange(new Range(first, last, 1 + random.nextInt(2)));
+    }
+    return sb.build();
+  }
+
+  private Array randomData(DataType dataType, int[] shape, Random random) {
+    Array data = Array.factory(dataType, shape);
+    IndexIterator iter = data.getIndexIterator();
+    while (iter.hasNext()) {
+      iter.setObjectNext(random.nextInt(20) == 0 ? 7 : random.nextInt(4000) - 2000);
+    }
+    return data;
+  }
+
+  private Array toDouble(Array data) {
+    Array result = Array.factory(DataType.DOUBLE, data.getShape());
+    MAMath.copyDouble(result, data);
+    return result;
+  }
+
+  // the identity conversion into double
+  private static class ToDouble implements DataConverter {
+    private final DataType rawType;
+
+    ToDouble(DataType rawType) {
+      this.rawType = rawType;
+    }
+
+    @Override
+    public DataType getConvertedType() {
+      return DataType.DOUBLE;
+    }
+
+    @Override
+    public void convert(Object src, int srcPos, Object dst, int dstPos, int nelems) {
+      Array raw = Array.factory(rawType, new int[] {java.lang.reflect.Array.getLength(src)}, src);
+      for (int i = 0; i < nelems; i++) {
+        ((double[]) dst)[dstPos + i] = raw.getDouble(srcPos + i);
+      }
+    }
+  }
+
+}
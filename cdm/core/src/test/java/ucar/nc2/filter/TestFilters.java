@@ -9,12 +9,15 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import ucar.unidata.io.RandomAccessFile;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.nio.ByteOrder;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
 
 public class TestFilters {
 
@@ -97,6 +100,39 @@ public class TestFilters {
     assertThat(decoded).isEqualTo(input);
   }
 
+  @Test
+  public void testDecodeLength() throws IOException {
+    Map<String, Object> props = new HashMap<>();
+    props.put("id", "zlib");
+    testDecodeLength(new Deflate(props), "deflate_level1");
+    props.put("id", "shuffle");
+    testDecodeLength(new Shuffle(props), "shuffle");
+  }
+
+  // decode an array that has junk after the encoded bytes, as a pooled buffer does
+  private void testDecodeLength(Filter filter, String filename) throws IOException {
+    byte[] encoded = readAsByteArray(filename);
+    byte[] padded = Arrays.copyOf(encoded, encoded.length + 1000);
+    Arrays.fill(padded, encoded.length, padded.length, (byte) 77);
+    byte[] decoded = filter.decode(padded, encoded.length);
+    assertThat(decoded).isEqualTo(decoded_data);
+    assertThat(decoded).isNotSameInstanceAs(padded);
+  }
+
+  @Test
+  public void testDeflateTruncated() throws IOException {
+    Map<String, Object> props = new HashMap<>();
+    props.put("id", "zlib");
+    Filter filter = new Deflate(props);
+    byte[] encoded = readAsByteArray("deflate_level1");
+    try {
+      filter.decode(encoded, encoded.length / 2);
+      fail();
+    } catch (EOFException e) {
+      // expected
+    }
+  }
+
   private void testEncodeDecode(Filter filter, String filename) throws IOException {
     // test encode
     byte[] out = filter.encode(decoded_data);
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.nc2.ft.point.remote;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ucar.ma2.StructureData;
+import ucar.ma2.StructureMembers;
+import ucar.nc2.constants.FeatureType;
+import ucar.nc2.ft.FeatureDatasetFactoryManager;
+import ucar.nc2.ft.FeatureDatasetPoint;
+import ucar.nc2.ft.PointFeature;
+import ucar.nc2.ft.PointFeatureCollection;
+import ucar.nc2.ft.PointFeatureIterator;
+import ucar.nc2.ft.point.FlattenedDatasetPointCollection;
+import ucar.nc2.ft.point.PointTestUtil;
+import ucar.nc2.stream.NcStream;
+import ucar.unidata.util.test.TestDir;
+
+/** Test writing and reading {@link PointStream} with PointFeatureBatch messages. */
+public class TestPointStreamBatch {
+  private static final String[] LOCATIONS = {TestDir.cdmLocalTestDataDir + "cfDocDsgExamples/H.1.1.ncml",
+      TestDir.cdmLocalTestDataDir + "point/point.ncml", TestDir.cdmLocalTestDataDir + "point/pointMissing.ncml",
+      TestDir.cdmLocalTestDataDir + "point/pointUnlimited.nc",
+      TestDir.cdmLocalTestDataDir + "point/stationRaggedContig.ncml",
+      TestDir.cdmLocalTestDataDir + "point/stationMultidimMissingIdString.ncml"};
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  // the type of the first message after the PointFeatureCollection
+  private static PointStream.MessageType getFirstFeatureMessage(File file) throws Exception {
+    try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+      assertThat(PointStream.readMagic(in)).isEqualTo(PointStream.MessageType.PointFeatureCollection);
+      byte[] b = new byte[NcStream.readVInt(in)];
+      NcStream.readFully(in, b);
+      return PointStream.readMagic(in);
+    }
+  }
+
+  // PointTestUtil.equals only compares the feature data, but the stream has all of the data, as for stations
+  private static void checkSame(String what, PointFeatureCollection expected, PointFeatureCollection actual)
+      throws Exception {
+    int count = 0;
+    try (PointFeatureIterator iter1 = expected.getPointFeatureIterator();
+        PointFeatureIterator iter2 = actual.getPointFeatureIterator()) {
+      while (iter1.hasNext()) {
+        assertWithMessage(what).that(iter2.hasNext()).isTrue();
+        PointFeature pf1 = iter1.next();
+        PointFeature pf2 = iter2.next();
+        assertWithMessage(what).that(PointTestUtil.equals(pf1.getLocation(), pf2.getLocation())).isTrue();
+        assertWithMessage(what).that(pf2.getObservationTime()).isEqualTo(pf1.getObservationTime());
+        assertWithMessage(what).that(pf2.getNominalTime()).isEqualTo(pf1.getNominalTime());
+
+        StructureData sdata1 = pf1.getDataAll();
+        StructureData sdata2 = pf2.getDataAll();
+        assertWithMessage(what).that(sdata2.getStructureMembers().getMemberNames())
+            .containsExactlyElementsIn(sdata1.getStructureMembers().getMemberNames()).inOrder();
+        for (StructureMembers.Member m : sdata1.getMembers()) {
+          StructureMembers.Member m2 = sdata2.findMember(m.getName());
+          assertWithMessage(what).that(m2.getDataType()).isEqualTo(m.getDataType());
+          assertWithMessage(what).that(m2.getShape()).isEqualTo(m.getShape());
+          assertWithMessage(what + " " + m.getName()).that(sdata2.getArray(m2).toString())
+              .isEqualTo(sdata1.getArray(m).toString());
+        }
+        count++;
+      }
+      assertWithMessage(what).that(iter2.hasNext()).isFalse();
+    }
+    assertWithMessage(what).that(count).isGreaterThan(0);
+  }
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    for (String location : LOCATIONS) {
+      for (int batchSize : new int[] {1, 3, PointStream.DEFAULT_BATCH_SIZE}) {
+        File outFile = tempFolder.newFile();
+        try (FeatureDatasetPoint fdPoint =
+            (FeatureDatasetPoint) FeatureDatasetFactoryManager.open(FeatureType.ANY_POINT, location, null)) {
+          PointFeatureCollection origPointCol = new FlattenedDatasetPointCollection(fdPoint);
+          int count = PointStream.write(origPointCol, outFile, batchSize);
+          assertWithMessage(location).that(count).isGreaterThan(0);
+          assertWithMessage(location).that(getFirstFeatureMessage(outFile))
+              .isEqualTo(PointStream.MessageType.PointFeatureBatch);
+
+          checkSame(location + " " + batchSize, origPointCol, new PointCollectionStreamLocal(outFile));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testNoBatch() throws Exception {
+    File outFile = tempFolder.newFile();
+    try (FeatureDatasetPoint fdPoint = (FeatureDatasetPoint) FeatureDatasetFactoryManager
+        .open(FeatureType.ANY_POINT, TestDir.cdmLocalTestDataDir + "point/point.ncml", null)) {
+      PointFeatureCollection origPointCol = new FlattenedDatasetPointCollection(fdPoint);
+      PointStream.write(origPointCol, outFile, 0);
+      assertThat(getFirstFeatureMessage(outFile)).isEqualTo(PointStream.MessageType.PointFeature);
+      checkSame("point.ncml", origPointCol, new PointCollectionStreamLocal(outFile));
+    }
+  }
+
+  @Test
+  public void testQueryAsksForBatches() {
+    assertThat(PointDatasetRemote.makeQuery(null, null, null))
+        .isEqualTo("all&" + PointStream.QUERY_BATCH + "=" + PointStream.DEFAULT_BATCH_SIZE);
+  }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.nc2.ft.point.standard;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ucar.nc2.constants.FeatureType;
+import ucar.nc2.ft.DsgFeatureCollection;
+import ucar.nc2.ft.FeatureDatasetFactoryManager;
+import ucar.nc2.ft.FeatureDatasetPoint;
+import ucar.nc2.ft.PointFeature;
+import ucar.nc2.ft.PointFeatureCollection;
+import ucar.nc2.ft.StationTimeSeriesFeature;
+import ucar.nc2.ft.StationTimeSeriesFeatureCollection;
+import ucar.nc2.ft.point.StationFeature;
+import ucar.nc2.time.CalendarDate;
+import ucar.nc2.time.CalendarDateRange;
+import ucar.nc2.time.CalendarPeriod;
+import ucar.unidata.geoloc.LatLonRect;
+
+/** Test {@link ObsTimeIndex}. */
+public class TestObsTimeIndex {
+  private static final int NSTATIONS = 3;
+  private static final int NOBS = 900;
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @After
+  public void disable() {
+    ObsTimeIndex.setEnabled(false);
+  }
+
+  // hourly observations, contiguous by station or interleaved with a station index
+  private File makeStationFile(boolean contiguous) throws IOException {
+    StringBuilder sb = new StringBuilder();
+    sb.append("<?xml version='1.0' encoding='UTF-8'?>\n");
+    sb.append("<netcdf xmlns='http://www.unidata.ucar.edu/namespaces/netcdf/ncml-2.2'>\n");
+    sb.append(" <dimension name='s' length='").append(NSTATIONS).append("'/>\n");
+    sb.append(" <dimension name='obs' length='").append(NOBS).append("'/>\n");
+    sb.append(" <attribute name='featureType' value='timeSeries'/>\n");
+    sb.append(" <attribute name='Conventions' value='CF-1.6'/>\n");
+    sb.append(" <variable name='lon' shape='s' type='float'>\n");
+    sb.append("  <attribute name='units' value='degrees_east'/><values start='-100' increment='3'/></variable>\n");
+    sb.append(" <variable name='lat' shape='s' type='float'>\n");
+    sb.append("  <attribute name='units' value='degrees_north'/><values start='40' increment='2'/></variable>\n");
+    sb.append(" <variable name='stationName' shape='s' type='string'>\n");
+    sb.append("  <attribute name='cf_role' value='timeseries_id'/><values>alpha beta gamma</values></variable>\n");
+    if (contiguous) {
+      sb.append(" <variable name='obsCount' shape='s' type='int'>\n");
+      sb.append("  <attribute name='sample_dimension' value='obs'/><values>300 300 300</values></variable>\n");
+    } else {
+      sb.append(" <variable name='stationIndex' shape='obs' type='int'>\n");
+      sb.append("  <attribute name='instance_dimension' value='s'/><values>");
+      for (int i = 0; i < NOBS; i++) {
+        sb.append(i % NSTATIONS).append(' ');
+      }
+      sb.append("</values></variable>\n");
+    }
+    sb.append(" <variable name='time' shape='obs' type='double'>\n");
+    sb.append("  <attribute name='units' value='hours since 2000-01-01'/>");
+    sb.append("<values start='0' increment='1'/></variable>\n");
+    sb.append(" <variable name='data' shape='obs' type='float'>\n");
+    sb.append("  <attribute name='coordinates' value='time lon lat'/><values start='1' increment='3'/></variable>\n");
+    sb.append("</netcdf>\n");
+
+    File file = tempFolder.newFile(contiguous ? "stationContig.ncml" : "stationIndex.ncml");
+    Files.write(file.toPath(), sb.toString().getBytes(StandardCharsets.UTF_8));
+    return file;
+  }
+
+  private static CalendarDateRange hours(int start, int end) {
+    CalendarDate base = CalendarDate.parseISOformat(null, "2000-01-01T00:00:00Z");
+    return CalendarDateRange.of(base.add(start, CalendarPeriod.Field.Hour),
+        base.add(end, CalendarPeriod.Field.Hour));
+  }
+
+  private static List<String> read(PointFeatureCollection pfc) throws IOException {
+    List<String> result = new ArrayList<>();
+    for (PointFeature pf : pfc) {
+      result.add(pf.getObservationTimeAsCalendarDate() + " " + pf.getLocation() + " "
+          + pf.getFeatureData().getScalarFloat("data"));
+    }
+    return result;
+  }
+
+  // read each station's time subset, and the flattened subset in the box and time range
+  private static List<String> readSubsets(File file, CalendarDateRange dateRange) throws Exception {
+    List<String> result = new ArrayList<>();
+    try (FeatureDatasetPoint fdp = (FeatureDatasetPoint) FeatureDatasetFactoryManager.open(FeatureType.STATION,
+        file.getPath(), null, null)) {
+      DsgFeatureCollection dsg = fdp.getPointFeatureCollectionList().get(0);
+      assertThat(dsg).isInstanceOf(StandardStationCollectionImpl.class);
+      StationTimeSeriesFeatureCollection stations = (StationTimeSeriesFeatureCollection) dsg;
+      for (StationFeature sf : stations.getStationFeatures()) {
+        result.add(sf.getName());
+        result.addAll(read(((StationTimeSeriesFeature) sf).subset(dateRange)));
+      }
+      result.add("flatten");
+      result.addAll(read(stations.flatten(new LatLonRect("39,-101,43,-96"), dateRange)));
+    }
+    return result;
+  }
+
+  @Test
+  public void testSameAsWithoutIndex() throws Exception {
+    for (boolean contiguous : new boolean[] {true, false}) {
+      File file = makeStationFile(contiguous);
+      for (CalendarDateRange dateRange : new CalendarDateRange[] {hours(0, 10), hours(350, 420), hours(-5, 2000),
+          hours(5000, 6000)}) {
+        ObsTimeIndex.setEnabled(false);
+        List<String> expected = readSubsets(file, dateRange);
+        ObsTimeIndex.setEnabled(true);
+        assertThat(readSubsets(file, dateRange)).containsExactlyElementsIn(expected).inOrder();
+      }
+      assertThat(new File(file.getPath() + ObsTimeIndex.SUFFIX).exists()).isTrue();
+    }
+  }
+
+  @Test
+  public void testSkipsRecords() throws Exception {
+    File file = makeStationFile(true);
+    ObsTimeIndex.setEnabled(true);
+    try (FeatureDatasetPoint fdp = (FeatureDatasetPoint) FeatureDatasetFactoryManager.open(FeatureType.STATION,
+        file.getPath(), null, null)) {
+      StandardStationCollectionImpl dsg = (StandardStationCollectionImpl) fdp.getPointFeatureCollectionList().get(0);
+      NestedTable ft = ((PointDatasetStandardFactory.PointDatasetStandard) fdp).getTableAnalyzer().getFlatTables()
+          .get(0);
+      ObsTimeIndex index = ObsTimeIndex.open(ft, dsg.getTimeUnit());
+      assertThat(index).isNotNull();
+
+      // station 1 has hours 300 to 599, in blocks of 64 starting at hour 300
+      assertThat(index.getRecnums(0, hours(350, 420))).isEmpty();
+      List<Integer> recnums = index.getRecnums(1, hours(350, 420));
+      assertThat(recnums).hasSize(2 * ObsTimeIndex.BLOCK_SIZE);
+      assertThat(recnums.get(0)).isEqualTo(300);
+      assertThat(index.getRecnums(1, hours(0, 10000))).hasSize(300);
+      assertThat(index.getRecnums(NSTATIONS, hours(0, 10000))).isNull();
+    }
+  }
+
+  @Test
+  public void testInvalidate() throws Exception {
+    File file = makeStationFile(false);
+    ObsTimeIndex.setEnabled(true);
+    List<String> before = readSubsets(file, hours(100, 200));
+    File indexFile = new File(file.getPath() + ObsTimeIndex.SUFFIX);
+    assertThat(indexFile.exists()).isTrue();
+
+    try (FeatureDatasetPoint fdp = (FeatureDatasetPoint) FeatureDatasetFactoryManager.open(FeatureType.STATION,
+        file.getPath(), null, null)) {
+      NestedTable ft = ((PointDatasetStandardFactory.PointDatasetStandard) fdp).getTableAnalyzer().getFlatTables()
+          .get(0);
+      assertThat(ObsTimeIndex.read(indexFile, file, ft.getName())).isNotNull();
+      assertThat(ObsTimeIndex.read(indexFile, file, "another table")).isNull();
+
+      // a changed source file makes the index stale, and it is rebuilt on the next open
+      assertThat(file.setLastModified(file.lastModified() - 60 * 1000)).isTrue();
+      assertThat(ObsTimeIndex.read(indexFile, file, ft.getName())).isNull();
+      assertThat(readSubsets(file, hours(100, 200))).containsExactlyElementsIn(before).inOrder();
+      assertThat(ObsTimeIndex.read(indexFile, file, ft.getName())).isNotNull();
+
+      // a corrupt index is rebuilt
+      Files.write(indexFile.toPath(), new byte[] {1, 2, 3});
+      assertThat(readSubsets(file, hours(100, 200))).containsExactlyElementsIn(before).inOrder();
+      ObsTimeIndex index = ObsTimeIndex.read(indexFile, file, ft.getName());
+      assertThat(index).isNotNull();
+
+      // concurrent writers of the same index each use their own temporary file
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+      try {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+          futures.add(executor.submit(() -> {
+            index.write(indexFile);
+            return null;
+          }));
+        }
+        for (Future<?> future : futures)
+          future.get();
+      } finally {
+        executor.shutdown();
+      }
+      assertThat(ObsTimeIndex.read(indexFile, file, ft.getName())).isNotNull();
+      assertThat(indexFile.getParentFile().list((dir, name) -> name.endsWith(".tmp"))).isEmpty();
+    }
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.nc2.ft.point.standard;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ucar.nc2.constants.FeatureType;
+import ucar.nc2.ft.FeatureDatasetFactoryManager;
+import ucar.nc2.ft.FeatureDatasetPoint;
+import ucar.nc2.ft.PointFeature;
+import ucar.nc2.ft.PointFeatureCollection;
+import ucar.nc2.ft.StationTimeSeriesFeatureCollection;
+import ucar.nc2.time.CalendarDate;
+import ucar.nc2.time.CalendarDateRange;
+import ucar.nc2.time.CalendarPeriod;
+import ucar.unidata.util.test.TestDir;
+
+/** Test {@link PointFeatureCollection#parallelStream()} on the standard point collections. */
+public class TestParallelPointStream {
+  private static final int NOBS = 10000;
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private File makeFile(String name, String featureType, String extraVariables) throws IOException {
+    StringBuilder sb = new StringBuilder();
+    sb.append("<?xml version='1.0' encoding='UTF-8'?>\n");
+    sb.append("<netcdf xmlns='http://www.unidata.ucar.edu/namespaces/netcdf/ncml-2.2'>\n");
+    sb.append(" <dimension name='s' length='4'/>\n");
+    sb.append(" <dimension name='obs' length='").append(NOBS).append("'/>\n");
+    sb.append(" <attribute name='featureType' value='").append(featureType).append("'/>\n");
+    sb.append(" <attribute name='Conventions' value='CF-1.6'/>\n");
+    sb.append(extraVariables);
+    sb.append(" <variable name='time' shape='obs' type='double'>\n");
+    sb.append("  <attribute name='units' value='hours since 2000-01-01'/>");
+    sb.append("<values start='0' increment='1'/></variable>\n");
+    sb.append(" <variable name='data' shape='obs' type='float'>\n");
+    sb.append("  <attribute name='coordinates' value='time lon lat'/><values start='1' increment='3'/></variable>\n");
+    sb.append("</netcdf>\n");
+
+    File file = tempFolder.newFile(name);
+    Files.write(file.toPath(), sb.toString().getBytes(StandardCharsets.UTF_8));
+    return file;
+  }
+
+  private File makePointFile() throws IOException {
+    return makeFile("point.ncml", "point",
+        " <variable name='lon' shape='obs' type='float'>\n"
+            + "  <attribute name='units' value='degrees_east'/><values start='-100' increment='.001'/></variable>\n"
+            + " <variable name='lat' shape='obs' type='float'>\n"
+            + "  <attribute name='units' value='degrees_north'/><values start='40' increment='.001'/></variable>\n");
+  }
+
+  private File makeStationFile() throws IOException {
+    int nobs = NOBS / 4;
+    return makeFile("station.ncml", "timeSeries", " <variable name='lon' shape='s' type='float'>\n"
+        + "  <attribute name='units' value='degrees_east'/><values start='-100' increment='3'/></variable>\n"
+        + " <variable name='lat' shape='s' type='float'>\n"
+        + "  <attribute name='units' value='degrees_north'/><values start='40' increment='2'/></variable>\n"
+        + " <variable name='stationName' shape='s' type='string'>\n"
+        + "  <attribute name='cf_role' value='timeseries_id'/><values>a b c d</values></variable>\n"
+        + " <variable name='obsCount' shape='s' type='int'>\n"
+        + "  <attribute name='sample_dimension' value='obs'/>"
+        + String.format("<values>%d %d %d %d</values></variable>%n", nobs, nobs, nobs, nobs));
+  }
+
+  private static String show(PointFeature pf) {
+    try {
+      return pf.getObservationTimeAsCalendarDate() + " " + pf.getLocation() + " "
+          + pf.getFeatureData().getScalarFloat("data");
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static List<String> iterate(PointFeatureCollection pfc) {
+    List<String> result = new ArrayList<>();
+    for (PointFeature pf : pfc) {
+      result.add(show(pf));
+    }
+    return result;
+  }
+
+  private static void check(PointFeatureCollection pfc, int expectedCount) {
+    List<String> expected = iterate(pfc);
+    assertThat(expected).hasSize(expectedCount);
+    assertThat(pfc.stream().map(TestParallelPointStream::show).collect(Collectors.toList()))
+        .containsExactlyElementsIn(expected).inOrder();
+    assertThat(pfc.parallelStream().map(TestParallelPointStream::show).collect(Collectors.toList()))
+        .containsExactlyElementsIn(expected).inOrder();
+
+    // stop early, closing the stream closes what was left open
+    try (Stream<PointFeature> stream = pfc.parallelStream()) {
+      assertThat(stream.map(TestParallelPointStream::show).findFirst().orElse(null)).isEqualTo(expected.get(0));
+    }
+    try (Stream<PointFeature> stream = pfc.stream()) {
+      assertThat(stream.limit(10).count()).isEqualTo(Math.min(10, expectedCount));
+    }
+  }
+
+  @Test
+  public void testPoint() throws Exception {
+    File file = makePointFile();
+    try (FeatureDatasetPoint fdp = (FeatureDatasetPoint) FeatureDatasetFactoryManager.open(FeatureType.POINT,
+        file.getPath(), null, null)) {
+      PointFeatureCollection pfc = (PointFeatureCollection) fdp.getPointFeatureCollectionList().get(0);
+      assertThat(pfc).isInstanceOf(StandardPointCollectionImpl.class);
+
+      Spliterator<PointFeature> split = pfc.spliterator();
+      assertThat(split.estimateSize()).isEqualTo(NOBS);
+      Spliterator<PointFeature> prefix = split.trySplit();
+      assertThat(prefix).isNotNull();
+      assertThat(prefix.estimateSize() + split.estimateSize()).isEqualTo(NOBS);
+
+      check(pfc, NOBS);
+    }
+  }
+
+  @Test
+  public void testStation() throws Exception {
+    File file = makeStationFile();
+    try (FeatureDatasetPoint fdp = (FeatureDatasetPoint) FeatureDatasetFactoryManager.open(FeatureType.STATION,
+        file.getPath(), null, null)) {
+      StationTimeSeriesFeatureCollection stations =
+          (StationTimeSeriesFeatureCollection) fdp.getPointFeatureCollectionList().get(0);
+      assertThat(stations.spliterator().estimateSize()).isEqualTo(4);
+      check(stations.flatten(null, null, null), NOBS);
+
+      CalendarDate base = CalendarDate.parseISOformat(null, "2000-01-01T00:00:00Z");
+      CalendarDateRange dateRange =
+          CalendarDateRange.of(base.add(1000, CalendarPeriod.Field.Hour), base.add(5999, CalendarPeriod.Field.Hour));
+      check(stations.subset(stations.getStationFeatures(), dateRange).flatten(null, null, null), 5000);
+    }
+  }
+
+  @Test
+  public void testTestData() throws Exception {
+    for (String filename : new String[] {"point.ncml", "stationRaggedContig.ncml", "stationMultidim.ncml"}) {
+      try (FeatureDatasetPoint fdp = (FeatureDatasetPoint) FeatureDatasetFactoryManager
+          .open(FeatureType.ANY_POINT, TestDir.cdmLocalTestDataDir + "point/" + filename, null, null)) {
+        Object dsg = fdp.getPointFeatureCollectionList().get(0);
+        PointFeatureCollection pfc = (dsg instanceof PointFeatureCollection) ? (PointFeatureCollection) dsg
+            : ((StationTimeSeriesFeatureCollection) dsg).flatten(null, null, null);
+        check(pfc, iterate(pfc).size());
+      }
+    }
+  }
+}
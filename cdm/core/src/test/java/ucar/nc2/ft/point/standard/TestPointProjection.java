@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.nc2.ft.point.standard;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import ucar.ma2.StructureData;
+import ucar.nc2.constants.FeatureType;
+import ucar.nc2.ft.DsgFeatureCollection;
+import ucar.nc2.ft.FeatureDatasetFactoryManager;
+import ucar.nc2.ft.FeatureDatasetPoint;
+import ucar.nc2.ft.PointFeature;
+import ucar.nc2.ft.PointFeatureCC;
+import ucar.nc2.ft.PointFeatureCollection;
+import ucar.nc2.ft.PointFeatureIterator;
+import ucar.nc2.util.IOIterator;
+import ucar.unidata.util.test.TestDir;
+
+/** Test {@link PointFeatureCollection#getPointFeatureIterator(List)} on the standard point collections. */
+public class TestPointProjection {
+  private static final List<String> WANT = Collections.singletonList("data");
+
+  private static List<PointFeatureCollection> getPointCollections(DsgFeatureCollection dsg) throws IOException {
+    List<PointFeatureCollection> result = new ArrayList<>();
+    if (dsg instanceof PointFeatureCollection) {
+      result.add((PointFeatureCollection) dsg);
+    } else {
+      IOIterator<PointFeatureCollection> iter = ((PointFeatureCC) dsg).getCollectionIterator();
+      while (iter.hasNext()) {
+        result.add(iter.next());
+      }
+    }
+    return result;
+  }
+
+  private static List<String> read(PointFeatureIterator iter, String notWanted) throws IOException {
+    List<String> result = new ArrayList<>();
+    while (iter.hasNext()) {
+      PointFeature pf = iter.next();
+      StructureData sdata = pf.getFeatureData();
+      if (notWanted != null) {
+        assertWithMessage(notWanted).that(sdata.findMember(notWanted)).isNull();
+      }
+      result.add(pf.getObservationTimeAsCalendarDate() + " " + pf.getLocation() + " " + sdata.getScalarFloat("data"));
+    }
+    iter.close();
+    return result;
+  }
+
+  private static void check(String filename, FeatureType wantType, String notWanted) throws Exception {
+    try (FeatureDatasetPoint fdp = (FeatureDatasetPoint) FeatureDatasetFactoryManager.open(wantType,
+        TestDir.cdmLocalTestDataDir + "point/" + filename, null, null)) {
+      DsgFeatureCollection dsg = fdp.getPointFeatureCollectionList().get(0);
+      int count = 0;
+      for (PointFeatureCollection pfc : getPointCollections(dsg)) {
+        List<String> all = read(pfc.getPointFeatureIterator(), null);
+        assertWithMessage(filename).that(read(pfc.getPointFeatureIterator(WANT), notWanted))
+            .containsExactlyElementsIn(all).inOrder();
+        assertWithMessage(filename).that(read(pfc.getPointFeatureIterator(null), null))
+            .containsExactlyElementsIn(all).inOrder();
+        count += all.size();
+      }
+      assertWithMessage(filename).that(count).isGreaterThan(0);
+    }
+  }
+
+  @Test
+  public void testPoint() throws Exception {
+    check("point.ncml", FeatureType.POINT, null);
+  }
+
+  @Test
+  public void testStation() throws Exception {
+    check("stationRaggedContig.ncml", FeatureType.STATION, "dataMitZ");
+    check("stationRaggedIndex.ncml", FeatureType.STATION, "dataMitZ");
+    check("stationMultidim.ncml", FeatureType.STATION, null); // reads all the variables
+  }
+
+  @Test
+  public void testTrajectory() throws Exception {
+    check("trajRaggedContig.ncml", FeatureType.TRAJECTORY, "dataMitZ");
+    check("trajRaggedIndex.ncml", FeatureType.TRAJECTORY, "dataMitZ");
+  }
+
+  @Test
+  public void testStationSubsets() throws Exception {
+    try (FeatureDatasetPoint fdp = (FeatureDatasetPoint) FeatureDatasetFactoryManager.open(FeatureType.STATION,
+        TestDir.cdmLocalTestDataDir + "point/stationRaggedContig.ncml", null, null)) {
+      StandardStationCollectionImpl dsg = (StandardStationCollectionImpl) fdp.getPointFeatureCollectionList().get(0);
+      PointFeatureCollection flat = dsg.flatten(null, null, null);
+      List<String> all = read(flat.getPointFeatureIterator(), null);
+      assertThat(all).isNotEmpty();
+      assertThat(read(flat.getPointFeatureIterator(WANT), "dataMitZ")).containsExactlyElementsIn(all).inOrder();
+    }
+  }
+}
@@ -6,13 +6,20 @@
 package ucar.nc2.iosp;
 
 import static org.junit.Assert.assertEquals;
+import java.io.EOFException;
+import java.io.File;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
+import java.nio.file.Files;
+import java.util.Random;
 import org.junit.Ignore;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ucar.nc2.util.Misc;
+import ucar.unidata.io.RandomAccessFile;
 
 /**
  * from https://github.com/lost-carrier 6/12/2014
@@ -20,6 +27,9 @@ import ucar.nc2.util.Misc;
 public class TestBitReader {
   private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
   @Test
   public void testUcar() throws IOException {
     BitReader bu = new BitReader(new byte[] {-1, 2, 4, 8});
@@ -63,4 +73,58 @@ public class TestBitReader {
     assertEquals(6, (int) bu.bits2UInt(8));
   }
 
+  // mix single and bulk reads, with incrByte() and setBitOffset() in between
+  private static void readMixed(BitReader single, BitReader bulk) throws IOException {
+    int[] ints = new int[20];
+    long[] longs = new long[20];
+    float[] floats = new float[20];
+    int[][] widths = {{3, 5}, {11, 20}, {8, 7}, {0, 4}, {16, 9}, {1, 3}, {33, 6}, {12, 1}};
+    for (int[] w : widths) {
+      int nb = w[0];
+      int n = w[1];
+      bulk.bits2UInt(nb, n, ints, 0);
+      for (int i = 0; i < n; i++) {
+        assertEquals(nb + " " + i, (int) single.bits2UInt(nb), ints[i]);
+      }
+      assertEquals(single.bits2UInt(5), bulk.bits2UInt(5));
+
+      bulk.bits2UInt(nb, n, longs, 0);
+      for (int i = 0; i < n; i++) {
+        assertEquals(nb + " " + i, single.bits2UInt(nb), longs[i]);
+      }
+
+      bulk.bits2UIntScaled(nb, n, 1.5f, 0.5f, 10.0f, floats, 0);
+      for (int i = 0; i < n; i++) {
+        assertEquals(nb + " " + i, (1.5f + single.bits2UInt(nb) * 0.5f) / 10.0f, floats[i], 0.0f);
+      }
+      single.incrByte();
+      bulk.incrByte();
+    }
+  }
+
+  @Test
+  public void testBulk() throws IOException {
+    byte[] bytes = new byte[1000];
+    new Random(42).nextBytes(bytes);
+    readMixed(new BitReader(bytes), new BitReader(bytes));
+
+    File file = tempFolder.newFile();
+    Files.write(file.toPath(), bytes);
+    try (RandomAccessFile raf1 = new RandomAccessFile(file.getPath(), "r");
+        RandomAccessFile raf2 = new RandomAccessFile(file.getPath(), "r")) {
+      BitReader single = new BitReader(raf1, 10);
+      BitReader bulk = new BitReader(raf2, 10);
+      single.setBitOffset(13);
+      bulk.setBitOffset(13);
+      readMixed(single, bulk);
+      assertEquals(single.getPos(), bulk.getPos());
+    }
+  }
+
+  @Test(expected = EOFException.class)
+  public void testBulkEof() throws IOException {
+    BitReader reader = new BitReader(new byte[] {1, 2, 3});
+    reader.bits2UInt(10, 3, new int[3], 0);
+  }
+
 }
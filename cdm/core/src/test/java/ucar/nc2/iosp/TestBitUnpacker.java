@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.nc2.iosp;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Random;
+import org.junit.Test;
+
+/** Test {@link BitUnpacker} against reading one value at a time with {@link BitReader}. */
+public class TestBitUnpacker {
+  private static final int N = 37;
+
+  private static byte[] randomBytes(int nbytes) {
+    byte[] packed = new byte[nbytes];
+    new Random(nbytes).nextBytes(packed);
+    return packed;
+  }
+
+  private static long[] expected(byte[] packed, int skip, int nbits, int n) throws IOException {
+    BitReader reader = new BitReader(packed);
+    reader.bits2UInt(skip);
+    long[] result = new long[n];
+    for (int i = 0; i < n; i++) {
+      result[i] = reader.bits2UInt(nbits);
+    }
+    return result;
+  }
+
+  @Test
+  public void testAllWidths() throws IOException {
+    for (int nbits = 0; nbits <= 64; nbits++) {
+      for (int skip = 0; skip < 8; skip++) {
+        int nbytes = (skip + nbits * N + 7) / 8;
+        byte[] packed = randomBytes(nbytes);
+        long[] want = expected(packed, skip, nbits, N);
+        String what = "nbits=" + nbits + " skip=" + skip;
+
+        long[] longs = new long[N + 1];
+        long end = BitUnpacker.unpack(packed, skip, nbits, N, longs, 1);
+        assertWithMessage(what).that(end).isEqualTo(skip + (long) nbits * N);
+        for (int i = 0; i < N; i++) {
+          assertWithMessage(what + " i=" + i).that(longs[i + 1]).isEqualTo(want[i]);
+        }
+
+        int[] ints = new int[N];
+        BitUnpacker.unpack(packed, skip, nbits, N, ints, 0);
+        for (int i = 0; i < N; i++) {
+          assertWithMessage(what + " i=" + i).that(ints[i]).isEqualTo((int) want[i]);
+        }
+
+        float ref = -12.5f;
+        float binaryScale = 0.25f;
+        float decimalScale = 10.0f;
+        float[] floats = new float[N];
+        BitUnpacker.unpackScaled(packed, skip, nbits, N, ref, binaryScale, decimalScale, floats, 0);
+        for (int i = 0; i < N; i++) {
+          float expect = (ref + want[i] * binaryScale) / decimalScale;
+          assertWithMessage(what + " i=" + i).that(floats[i]).isEqualTo(expect);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testConsecutiveRuns() {
+    byte[] packed = randomBytes(100);
+    int[] first = new int[10];
+    int[] second = new int[7];
+    long pos = BitUnpacker.unpack(packed, 3, 13, 10, first, 0);
+    pos = BitUnpacker.unpack(packed, pos, 5, 7, second, 0);
+    assertThat(pos).isEqualTo(3 + 13 * 10 + 5 * 7);
+
+    int[] together = new int[17];
+    BitUnpacker.unpack(packed, 3, 13, 10, together, 0);
+    BitUnpacker.unpack(packed, 3 + 13 * 10, 5, 7, together, 10);
+    for (int i = 0; i < 7; i++) {
+      assertThat(together[10 + i]).isEqualTo(second[i]);
+    }
+  }
+
+  @Test
+  public void testTooFewBytes() {
+    byte[] packed = new byte[4];
+    BitUnpacker.unpack(packed, 0, 8, 4, new int[4], 0);
+    try {
+      BitUnpacker.unpack(packed, 1, 8, 4, new int[4], 0);
+      fail();
+    } catch (IndexOutOfBoundsException e) {
+      // expected
+    }
+    try {
+      BitUnpacker.unpack(packed, 0, 65, 0, new long[0], 0);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.nc2.iosp;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
+import ucar.ma2.InvalidRangeException;
+import ucar.ma2.MAMath;
+import ucar.ma2.Section;
+import ucar.unidata.io.RandomAccessFile;
+
+/** Test {@link IospHelper#readDataCoalesced}. */
+public class TestIospHelperCoalesced {
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  // counts the reads from the file
+  private static class CountingRaf extends RandomAccessFile {
+    int nreads;
+
+    CountingRaf(String location) throws IOException {
+      super(location, "r", 128);
+    }
+
+    @Override
+    protected int read_(long pos, byte[] b, int offset, int len) throws IOException {
+      nreads++;
+      return super.read_(pos, b, offset, len);
+    }
+  }
+
+  private static class Var {
+    final long pos;
+    final DataType dataType;
+    final int[] shape;
+    final Section section;
+    final int byteOrder;
+
+    Var(long pos, DataType dataType, int[] shape, String section, int byteOrder) throws InvalidRangeException {
+      this.pos = pos;
+      this.dataType = dataType;
+      this.shape = shape;
+      this.section = new Section(section);
+      this.byteOrder = byteOrder;
+    }
+
+    Layout layout() throws InvalidRangeException {
+      return new LayoutRegular(pos, dataType.getSize(), shape, section);
+    }
+  }
+
+  @Test
+  public void testSameAsSeparateReads() throws Exception {
+    File file = tempFolder.newFile();
+    byte[] bytes = new byte[200 * 1000];
+    new Random(17).nextBytes(bytes);
+    Files.write(file.toPath(), bytes);
+
+    List<Var> vars = new ArrayList<>();
+    // out of file order, with small and large gaps between them
+    vars.add(new Var(5000, DataType.INT, new int[] {10, 20}, "0:9,0:19", RandomAccessFile.BIG_ENDIAN));
+    vars.add(new Var(100, DataType.SHORT, new int[] {7}, "0:6", RandomAccessFile.LITTLE_ENDIAN));
+    vars.add(new Var(120, DataType.DOUBLE, new int[] {3, 4}, "1:2,0:3:3", RandomAccessFile.LITTLE_ENDIAN));
+    vars.add(new Var(150 * 1000, DataType.FLOAT, new int[] {100}, "0:99", RandomAccessFile.BIG_ENDIAN));
+    vars.add(new Var(900, DataType.CHAR, new int[] {2, 8}, "0:1,0:7", RandomAccessFile.BIG_ENDIAN));
+    vars.add(new Var(3000, DataType.BYTE, new int[] {50}, "10:40", RandomAccessFile.BIG_ENDIAN));
+    vars.add(new Var(2000, DataType.LONG, new int[] {9}, "0:8", RandomAccessFile.BIG_ENDIAN));
+    // larger than the largest coalesced read
+    vars.add(new Var(10 * 1000, DataType.BYTE, new int[] {IospHelper.coalesceMaxBytes / 8}, "0:99999",
+        RandomAccessFile.BIG_ENDIAN));
+
+    List<Layout> layouts = new ArrayList<>();
+    List<DataType> dataTypes = new ArrayList<>();
+    List<Integer> byteOrders = new ArrayList<>();
+    for (Var v : vars) {
+      layouts.add(v.layout());
+      dataTypes.add(v.dataType);
+      byteOrders.add(v.byteOrder);
+    }
+
+    int separateReads;
+    List<Array> expected = new ArrayList<>();
+    try (CountingRaf raf = new CountingRaf(file.getPath())) {
+      for (Var v : vars) {
+        raf.order(v.byteOrder);
+        Object data = IospHelper.readDataFill(raf, v.layout(), v.dataType, null, v.byteOrder);
+        expected.add(Array.factory(v.dataType, v.section.getShape(), data));
+      }
+      separateReads = raf.nreads;
+    }
+
+    try (CountingRaf raf = new CountingRaf(file.getPath())) {
+      List<Object> result = IospHelper.readDataCoalesced(raf, layouts, dataTypes, byteOrders);
+      assertThat(result).hasSize(vars.size());
+      for (int i = 0; i < vars.size(); i++) {
+        Var v = vars.get(i);
+        Array got = Array.factory(v.dataType, v.section.getShape(), result.get(i));
+        String what = i + " " + v.dataType;
+        if (v.dataType == DataType.CHAR) {
+          assertWithMessage(what).that(result.get(i)).isInstanceOf(char[].class);
+          assertWithMessage(what).that(got.toString()).isEqualTo(expected.get(i).toString());
+        } else {
+          assertWithMessage(what).that(MAMath.nearlyEquals(expected.get(i), got)).isTrue();
+        }
+      }
+      // the variables from 100 to 6000 are read at once, then the ones at 10000 and 150000
+      assertThat(raf.nreads).isLessThan(separateReads / 2);
+    }
+  }
+
+  @Test
+  public void testEmpty() throws Exception {
+    File file = tempFolder.newFile();
+    try (RandomAccessFile raf = new RandomAccessFile(file.getPath(), "r")) {
+      assertThat(IospHelper.readDataCoalesced(raf, new ArrayList<>(), new ArrayList<>(), new ArrayList<>())).isEmpty();
+    }
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.nc2.iosp;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import ucar.ma2.Array;
+import ucar.ma2.ArrayBB;
+import ucar.ma2.ArraySegmented;
+import ucar.ma2.DataType;
+import ucar.ma2.IndexIterator;
+import ucar.ma2.MAMath;
+import ucar.ma2.Section;
+import ucar.unidata.io.RandomAccessFile;
+
+/** Test reading into an {@link ArraySegmented} with {@link IospHelper}. */
+@RunWith(Parameterized.class)
+public class TestIospHelperSegmented {
+  private static final int[] varShape = {10, 6, 5};
+
+  @Parameterized.Parameters(name = "{0} direct={1} {2}")
+  public static Collection<Object[]> getTestParameters() {
+    List<Object[]> result = new ArrayList<>();
+    for (DataType dataType : new DataType[] {DataType.BYTE, DataType.SHORT, DataType.INT, DataType.LONG,
+        DataType.FLOAT, DataType.DOUBLE}) {
+      for (boolean direct : new boolean[] {true, false}) {
+        result.add(new Object[] {dataType, direct, ByteOrder.BIG_ENDIAN});
+        result.add(new Object[] {dataType, direct, ByteOrder.LITTLE_ENDIAN});
+      }
+    }
+    return result;
+  }
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private final DataType dataType;
+  private final boolean direct;
+  private final ByteOrder order;
+  private final Array values;
+
+  public TestIospHelperSegmented(DataType dataType, boolean direct, ByteOrder order) {
+    this.dataType = dataType;
+    this.direct = direct;
+    this.order = order;
+    this.values = Array.factory(dataType, varShape);
+    for (int i = 0; i < values.getSize(); i++) {
+      values.setDouble(i, (i % 3 == 0 ? -i : i) + (dataType.isFloatingPoint() ? 0.25 : 0));
+    }
+  }
+
+  private ByteBuffer toBytes(Array array) {
+    ByteBuffer bb = ByteBuffer.allocate((int) array.getSizeBytes()).order(order);
+    ArrayBB result = new ArrayBB(dataType, array.getShape(), bb);
+    MAMath.copy(result, array);
+    return (ByteBuffer) result.getStorage();
+  }
+
+  private void assertSame(Array want, ArraySegmented got) {
+    assertThat(got.getSize()).isEqualTo(want.getSize());
+    IndexIterator iter = want.getIndexIterator();
+    for (long elem = 0; iter.hasNext(); elem++) {
+      assertThat(got.getDouble(elem)).isEqualTo(iter.getDoubleNext());
+    }
+  }
+
+  @Test
+  public void testReadRaf() throws Exception {
+    int elemSize = dataType.getSize();
+    int start = 17;
+    File file = tempFolder.newFile();
+    ByteBuffer bb = toBytes(values);
+    byte[] bytes = new byte[start + bb.remaining()];
+    bb.get(bytes, start, bb.remaining());
+    Files.write(file.toPath(), bytes);
+    int byteOrder = order == ByteOrder.BIG_ENDIAN ? RandomAccessFile.BIG_ENDIAN : RandomAccessFile.LITTLE_ENDIAN;
+
+    for (Section want : new Section[] {new Section(varShape), new Section("1:8,2:5,1:3"),
+        new Section("0:9:3,0:5,0:4:2")}) {
+      ArraySegmented data = ArraySegmented.factory(dataType, want.getShape(), direct, 2 * 30 * elemSize);
+      try (RandomAccessFile raf = new RandomAccessFile(file.getPath(), "r")) {
+        IospHelper.readData(raf, new LayoutRegular(start, elemSize, varShape, want), data, byteOrder);
+      }
+      assertSame(values.sectionNoReduce(want.getRanges()), data);
+    }
+  }
+
+  @Test
+  public void testReadLayoutBB() throws Exception {
+    int[] chunkShape = {3, 4, 5};
+    List<LayoutBBTiled.DataChunk> chunks = new ArrayList<>();
+    for (int i = 0; i < varShape[0]; i += chunkShape[0]) {
+      for (int j = 0; j < varShape[1]; j += chunkShape[1]) {
+        int[] offset = {i, j, 0};
+        // chunks are full size, and extend past the end of the array
+        Array chunk = Array.factory(dataType, chunkShape);
+        Section section = new Section(offset, chunkShape).intersect(new Section(varShape));
+        Array part = values.sectionNoReduce(section.getRanges());
+        MAMath.copy(chunk.sectionNoReduce(new Section(section.getShape()).getRanges()), part);
+        ByteBuffer bb = toBytes(chunk);
+        chunks.add(new LayoutBBTiled.DataChunk() {
+          public int[] getOffset() {
+            return offset;
+          }
+
+          public ByteBuffer getByteBuffer() {
+            return bb;
+          }
+        });
+      }
+    }
+
+    Section want = new Section("1:8,1:5,0:4");
+    ArraySegmented data = ArraySegmented.factory(dataType, want.getShape(), direct, 3 * 25 * dataType.getSize());
+    LayoutBBTiled layout = new LayoutBBTiled(new LayoutBBTiled.DataChunkIterator() {
+      int next;
+
+      public boolean hasNext() {
+        return next < chunks.size();
+      }
+
+      public LayoutBBTiled.DataChunk next() throws IOException {
+        return chunks.get(next++);
+      }
+    }, chunkShape, dataType.getSize(), want);
+    IospHelper.readData(layout, data);
+    assertSame(values.sectionNoReduce(want.getRanges()), data);
+  }
+}
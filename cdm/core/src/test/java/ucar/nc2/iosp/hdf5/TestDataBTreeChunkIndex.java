@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.nc2.iosp.hdf5;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import ucar.ma2.Array;
+import ucar.ma2.InvalidRangeException;
+import ucar.ma2.MAMath;
+import ucar.ma2.Range;
+import ucar.ma2.Section;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.NetcdfFiles;
+import ucar.nc2.Variable;
+import ucar.nc2.constants.CDM;
+import ucar.unidata.util.test.TestDir;
+
+/** Test reading sections of chunked variables through the chunk index of {@link DataBTree} */
+@RunWith(Parameterized.class)
+public class TestDataBTreeChunkIndex {
+
+  @Parameterized.Parameters(name = "{0}")
+  public static List<Object[]> getTestParameters() {
+    List<Object[]> result = new ArrayList<>();
+    result.add(new Object[] {"chunked.h5"}); // 16 chunks, some partly outside the array
+    result.add(new Object[] {"ncml/nc/ubyte_1.nc4"}); // single chunk
+    return result;
+  }
+
+  private final String filename;
+
+  public TestDataBTreeChunkIndex(String filename) {
+    this.filename = filename;
+  }
+
+  @Test
+  public void testReadSections() throws IOException, InvalidRangeException {
+    Random random = new Random(1234);
+    int nchunked = 0;
+    try (NetcdfFile ncfile = NetcdfFiles.open(TestDir.cdmLocalTestDataDir + filename)) {
+      for (Variable v : ncfile.getVariables()) {
+        if (v.findAttribute(CDM.CHUNK_SIZES) == null || v.getSize() == 0)
+          continue;
+        nchunked++;
+        Array all = v.read();
+
+        for (int i = 0; i < 100; i++) {
+          Section section = randomSection(random, v.getShape(), i % 2 == 0);
+          Array data = v.read(section);
+          Array expected = all.sectionNoReduce(section.getRanges());
+          assertWithMessage(v.getFullName() + " " + section).that(MAMath.equals(data, expected)).isTrue();
+        }
+      }
+    }
+    assertThat(nchunked).isGreaterThan(0);
+  }
+
+  private Section randomSection(Random random, int[] shape, boolean strided) throws InvalidRangeException {
+    Section.Builder sb = Section.builder();
+    for (int len : shape) {
+      int first = random.nextInt(len);
+      int last = first + random.nextInt(len - first);
+      int stride = strided ? 1 + random.nextInt(3) : 1;
+      sb.appendRange(new Range(first, last, stride));
+    }
+    return sb.build();
+  }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.nc2.iosp.hdf5;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import ucar.ma2.Array;
+import ucar.ma2.Section;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.NetcdfFiles;
+import ucar.nc2.Variable;
+import ucar.nc2.internal.iosp.hdf5.H5iospNew;
+import ucar.unidata.util.test.TestDir;
+
+/** Test reading several variables together in H5iospNew. */
+public class TestH5iospNewReadArrays {
+
+  @Test
+  public void testReadArrays() throws Exception {
+    for (String name : new String[] {"testCFGridWriter.nc4", "dataset/testRename.nc4", "ncml/nc/ubyte_1.nc4"}) {
+      try (NetcdfFile ncfile = NetcdfFiles.open(TestDir.cdmLocalTestDataDir + name)) {
+        assertThat(ncfile.getIosp()).isInstanceOf(H5iospNew.class);
+        List<Variable> variables = ncfile.getVariables();
+        List<Array> result = ncfile.readArrays(variables);
+        assertThat(result).hasSize(variables.size());
+        for (int i = 0; i < variables.size(); i++) {
+          String what = name + " " + variables.get(i).getShortName();
+          assertWithMessage(what).that(result.get(i).toString()).isEqualTo(variables.get(i).read().toString());
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testReadSections() throws Exception {
+    try (NetcdfFile ncfile = NetcdfFiles.open(TestDir.cdmLocalTestDataDir + "testCFGridWriter.nc4")) {
+      H5iospNew iosp = (H5iospNew) ncfile.getIosp();
+      List<Variable> variables = new ArrayList<>();
+      List<Section> sections = new ArrayList<>();
+      for (Variable v : ncfile.getVariables()) {
+        variables.add(v);
+        Section.Builder sb = Section.builder();
+        for (int len : v.getShape()) {
+          sb.appendRange(len / 3, len - 1, 2);
+        }
+        sections.add(sb.build());
+      }
+
+      List<Array> result = iosp.readData(variables, sections);
+      int nread = 0;
+      for (int i = 0; i < variables.size(); i++) {
+        if (result.get(i) != null) {
+          String what = variables.get(i).getShortName();
+          assertWithMessage(what).that(result.get(i).toString())
+              .isEqualTo(variables.get(i).read(sections.get(i)).toString());
+          nread++;
+        }
+      }
+      assertThat(nread).isGreaterThan(1);
+    }
+  }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.nc2.iosp.netcdf3;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ucar.ma2.Array;
+import ucar.ma2.ArrayStructure;
+import ucar.ma2.DataType;
+import ucar.ma2.InvalidRangeException;
+import ucar.ma2.MAMath;
+import ucar.ma2.Range;
+import ucar.ma2.Section;
+import ucar.ma2.StructureData;
+import ucar.ma2.StructureDataIterator;
+import ucar.ma2.StructureMembers;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.NetcdfFiles;
+import ucar.nc2.Structure;
+import ucar.nc2.Variable;
+import ucar.nc2.internal.iosp.netcdf3.N3iospNew;
+import ucar.nc2.write.NetcdfFormatWriter;
+import ucar.unidata.util.test.TestDir;
+
+/** Test reading several record variables together, and reading the record Structure, in N3iospNew. */
+public class TestN3iospNewRecords {
+  private static final int NRECS = 301;
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  // the record variables don't take up most of each record when "big" isn't read
+  private String writeFile(int bigLen) throws IOException, InvalidRangeException {
+    String filename = tempFolder.newFile().getAbsolutePath();
+    NetcdfFormatWriter.Builder writerb = NetcdfFormatWriter.createNewNetcdf3(filename).setFill(false);
+    writerb.addUnlimitedDimension("time");
+    writerb.addDimension("big", bigLen);
+    writerb.addDimension("three", 3);
+    writerb.addDimension("five", 5);
+    writerb.addVariable("fixed", DataType.FLOAT, "three");
+    writerb.addVariable("big", DataType.FLOAT, "time big");
+    writerb.addVariable("a", DataType.INT, "time");
+    writerb.addVariable("b", DataType.SHORT, "time three");
+    writerb.addVariable("c", DataType.CHAR, "time five");
+    writerb.addVariable("d", DataType.DOUBLE, "time");
+    writerb.addVariable("e", DataType.BYTE, "time three five");
+
+    try (NetcdfFormatWriter writer = writerb.build()) {
+      writer.write("fixed", Array.makeFromJavaArray(new float[] {1, 2, 3}));
+      for (String name : new String[] {"big", "a", "b", "c", "d", "e"}) {
+        Variable v = writer.findVariable(name);
+        int[] shape = v.getShape();
+        shape[0] = NRECS;
+        Array data = Array.factory(v.getDataType(), shape);
+        for (int i = 0; i < data.getSize(); i++) {
+          if (v.getDataType() == DataType.CHAR) {
+            data.setChar(i, (char) ('a' + i % 26));
+          } else {
+            data.setDouble(i, (i * 7 + name.charAt(0)) % 127);
+          }
+        }
+        writer.write(v, data);
+      }
+    }
+    return filename;
+  }
+
+  @Test
+  public void testReadArrays() throws Exception {
+    for (int bigLen : new int[] {1, 1000}) {
+      String filename = writeFile(bigLen);
+      try (NetcdfFile ncfile = NetcdfFiles.open(filename)) {
+        assertThat(ncfile.getIosp()).isInstanceOf(N3iospNew.class);
+        List<Variable> all = ncfile.getVariables();
+        checkReadArrays(ncfile, all);
+        List<Variable> small = new ArrayList<>(all);
+        small.remove(ncfile.findVariable("big"));
+        checkReadArrays(ncfile, small);
+      }
+    }
+  }
+
+  @Test
+  public void testReadSections() throws Exception {
+    String filename = writeFile(1000);
+    try (NetcdfFile ncfile = NetcdfFiles.open(filename)) {
+      N3iospNew iosp = (N3iospNew) ncfile.getIosp();
+      List<Variable> variables = new ArrayList<>();
+      List<Section> sections = new ArrayList<>();
+      for (String name : new String[] {"a", "b", "c", "e", "big"}) {
+        Variable v = ncfile.findVariable(name);
+        variables.add(v);
+        sections.add(v.getShapeAsSection().toBuilder().replaceRange(0, new Range(7, 293, 5)).build());
+      }
+      sections.set(1, new Section("7:293:5,1:2"));
+      sections.set(3, new Section("7:293:5,0:2:2,1:3"));
+      variables.add(ncfile.findVariable("d"));
+      sections.add(new Section("0:" + (NRECS - 1)));
+
+      List<Array> result = iosp.readData(variables, sections);
+      for (int i = 0; i < variables.size(); i++) {
+        Array expected = variables.get(i).read(sections.get(i));
+        if (i == variables.size() - 1) {
+          assertThat(result.get(i)).isNull(); // only one variable over all the records
+        } else {
+          checkEquals(variables.get(i).getShortName(), expected, result.get(i));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testTestData() throws Exception {
+    for (String name : new String[] {"testWriteRecord.nc", "byteArrayRecordVarPaddingTest-bad.nc", "example1.nc",
+        "testStructures.nc", "longOffset.nc"}) {
+      try (NetcdfFile ncfile = NetcdfFiles.open(TestDir.cdmLocalTestDataDir + name)) {
+        checkReadArrays(ncfile, ncfile.getVariables());
+      }
+    }
+  }
+
+  @Test
+  public void testRecordStructure() throws Exception {
+    String filename = writeFile(10);
+    try (NetcdfFile ncfile = NetcdfFiles.open(filename, -1, null, NetcdfFile.IOSP_MESSAGE_ADD_RECORD_STRUCTURE)) {
+      Structure record = (Structure) ncfile.findVariable("record");
+      assertThat((Object) record).isNotNull();
+      for (int bufferSize : new int[] {-1, 1000}) {
+        int recno = 0;
+        try (StructureDataIterator iter = record.getStructureIterator(bufferSize)) {
+          while (iter.hasNext()) {
+            StructureData sdata = iter.next();
+            for (StructureMembers.Member m : sdata.getMembers()) {
+              Variable v = ncfile.findVariable(m.getName());
+              Section section = v.getShapeAsSection().toBuilder().replaceRange(0, new Range(recno, recno)).build();
+              Array expected = v.read(section);
+              checkEquals(m.getName(), expected.reduce(0), sdata.getArray(m));
+            }
+            recno++;
+          }
+        }
+        assertThat(recno).isEqualTo(NRECS);
+      }
+
+      ArrayStructure strided = (ArrayStructure) record.read(new Section("3:200:7"));
+      Variable a = ncfile.findVariable("a");
+      checkEquals("a", a.read("3:200:7"), strided.extractMemberArray(strided.findMember("a")));
+    }
+  }
+
+  private void checkReadArrays(NetcdfFile ncfile, List<Variable> variables) throws IOException {
+    List<Array> result = ncfile.readArrays(variables);
+    assertThat(result).hasSize(variables.size());
+    for (int i = 0; i < variables.size(); i++) {
+      checkEquals(ncfile.getLocation() + " " + variables.get(i).getShortName(), variables.get(i).read(),
+          result.get(i));
+    }
+  }
+
+  private void checkEquals(String what, Array expected, Array result) {
+    assertWithMessage(what).that(result.getDataType()).isEqualTo(expected.getDataType());
+    assertWithMessage(what).that(result.getShape()).isEqualTo(expected.getShape());
+    if (expected.getDataType() == DataType.CHAR || expected.getDataType() == DataType.STRUCTURE) {
+      assertWithMessage(what).that(result.toString()).isEqualTo(expected.toString());
+    } else {
+      assertWithMessage(what).that(MAMath.nearlyEquals(expected, result)).isTrue();
+    }
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.nc2.stream;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Formatter;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.NetcdfFiles;
+import ucar.nc2.util.CompareNetcdf2;
+import ucar.nc2.util.DiskCache2;
+import ucar.unidata.util.test.TestDir;
+
+/** Test {@link NcStreamHeaderCache} */
+@RunWith(Parameterized.class)
+public class TestNcStreamHeaderCache {
+
+  @Rule
+  public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Parameterized.Parameters(name = "{0}")
+  public static List<Object[]> getTestParameters() {
+    List<Object[]> result = new ArrayList<>();
+    result.add(new Object[] {"testWrite.nc", true});
+    result.add(new Object[] {"longOffset.nc", true});
+    result.add(new Object[] {"chunked.h5", true});
+    result.add(new Object[] {"testCFGridWriter.nc4", true});
+    result.add(new Object[] {"pointPre1.6/kunicki.structs.nc4", false}); // structures are not cached
+    return result;
+  }
+
+  private final String filename;
+  private final boolean isCached;
+  private DiskCache2 saveCache;
+
+  public TestNcStreamHeaderCache(String filename, boolean isCached) {
+    this.filename = filename;
+    this.isCached = isCached;
+  }
+
+  @Before
+  public void setup() throws IOException {
+    saveCache = NcStreamHeaderCache.getDiskCache2();
+    DiskCache2 cache = new DiskCache2(tempFolder.newFolder("cache").getPath(), false, 0, 0);
+    cache.setAlwaysUseCache(true);
+    NcStreamHeaderCache.setDiskCache2(cache);
+  }
+
+  @After
+  public void cleanup() {
+    NcStreamHeaderCache.setDiskCache2(saveCache);
+  }
+
+  @Test
+  public void testOpenFromCache() throws IOException {
+    File file = tempFolder.newFile();
+    Files.copy(new File(TestDir.cdmLocalTestDataDir + filename).toPath(), file.toPath(),
+        StandardCopyOption.REPLACE_EXISTING);
+    File cacheFile = NcStreamHeaderCache.getDiskCache2().getCacheFile(file.getPath() + NcStreamHeaderCache.SUFFIX);
+
+    try (NetcdfFile org = NetcdfFiles.open(file.getPath())) {
+      assertThat(cacheFile.exists()).isEqualTo(isCached);
+      if (!isCached)
+        return;
+
+      // now the header comes from the cache
+      try (NetcdfFile copy = NetcdfFiles.open(file.getPath())) {
+        Formatter errs = new Formatter();
+        CompareNetcdf2 compare = new CompareNetcdf2(errs, false, false, true);
+        boolean ok = compare.compare(org, copy);
+        assertWithMessage(errs.toString()).that(ok).isTrue();
+        assertThat(copy.getFileTypeId()).isEqualTo(org.getFileTypeId());
+      }
+    }
+  }
+
+  @Test
+  public void testModifiedFileIsReread() throws IOException {
+    if (!isCached)
+      return;
+    File file = tempFolder.newFile();
+    Files.copy(new File(TestDir.cdmLocalTestDataDir + filename).toPath(), file.toPath(),
+        StandardCopyOption.REPLACE_EXISTING);
+    File cacheFile = NcStreamHeaderCache.getDiskCache2().getCacheFile(file.getPath() + NcStreamHeaderCache.SUFFIX);
+
+    try (NetcdfFile ncfile = NetcdfFiles.open(file.getPath())) {
+      assertThat(cacheFile.exists()).isTrue();
+    }
+    // an out of date entry is ignored, and replaced
+    assertThat(cacheFile.setLastModified(0)).isTrue();
+    assertThat(file.setLastModified(file.lastModified() - 10000)).isTrue();
+    try (NetcdfFile ncfile = NetcdfFiles.open(file.getPath())) {
+      assertThat(ncfile.getVariables()).isNotEmpty();
+    }
+    assertThat(cacheFile.lastModified()).isGreaterThan(0L);
+  }
+
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.nc2.time;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import ucar.ma2.InvalidRangeException;
+import ucar.ma2.Range;
+
+/** Test {@link CalendarDateSequence} against the CalendarDates it stands for, in each Calendar. */
+@RunWith(Parameterized.class)
+public class TestCalendarDateSequence {
+
+  @Parameterized.Parameters(name = "{0}")
+  public static Collection<Object[]> getTestParameters() {
+    List<Object[]> result = new ArrayList<>();
+    for (Calendar cal : Calendar.values()) {
+      result.add(new Object[] {cal});
+    }
+    return result;
+  }
+
+  private final Calendar cal;
+
+  public TestCalendarDateSequence(Calendar cal) {
+    this.cal = cal;
+  }
+
+  @Test
+  public void testUnits() {
+    double[] values = {0, 1, 2.5, -3.25, 1000.125, 29, 30, 31, 59, 60, 365, 366, 1461, 100000, -100000};
+    for (String unit : new String[] {"seconds since 1970-01-01", "hours since 1850-01-01 12:00", "days since 0001-01-01",
+        "days since 2000-02-28T12:34:56.789", "calendar months since 1953-01-30", "years since 1900-01-01"}) {
+      CalendarDateUnit cdu = CalendarDateUnit.withCalendar(cal, unit);
+      CalendarDateSequence seq = CalendarDateSequence.of(cdu, values);
+      assertThat(seq.size()).isEqualTo(values.length);
+      assertThat(seq.isRegular()).isFalse();
+      assertThat(seq.isSorted()).isFalse();
+      for (int i = 0; i < values.length; i++) {
+        CalendarDate expected = cdu.makeCalendarDate(values[i]);
+        String what = unit + " " + values[i];
+        assertWithMessage(what).that(seq.getCalendarDate(i)).isEqualTo(expected);
+        assertWithMessage(what).that(seq.asList().get(i)).isEqualTo(expected);
+        assertWithMessage(what).that(seq.toDateTimeStringISO(i))
+            .isEqualTo(CalendarDateFormatter.toDateTimeStringISO(expected));
+        assertWithMessage(what).that(seq.asList().indexOf(expected)).isEqualTo(i);
+      }
+    }
+  }
+
+  @Test
+  public void testRegular() throws InvalidRangeException {
+    CalendarDateUnit cdu = CalendarDateUnit.withCalendar(cal, "hours since 1990-01-01");
+    double[] values = new double[24 * 365 * 3];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = i;
+    }
+    CalendarDateSequence seq = CalendarDateSequence.of(cdu, values);
+    assertThat(seq.isRegular()).isTrue();
+    assertThat(seq.isSorted()).isTrue();
+    assertThat(seq.getStep()).isEqualTo(3600 * 1000);
+    assertThat(seq.getCalendarDateRange())
+        .isEqualTo(CalendarDateRange.of(cdu.makeCalendarDate(0), cdu.makeCalendarDate(values.length - 1)));
+    checkFind(seq);
+
+    CalendarDateSequence section = seq.section(new Range(100, 9000, 24));
+    assertThat(section.isRegular()).isTrue();
+    assertThat(section.size()).isEqualTo(new Range(100, 9000, 24).length());
+    for (int i = 0; i < section.size(); i++) {
+      assertThat(section.getCalendarDate(i)).isEqualTo(cdu.makeCalendarDate(100 + 24 * i));
+    }
+    checkFind(section);
+  }
+
+  @Test
+  public void testIrregular() throws InvalidRangeException {
+    CalendarDateUnit cdu = CalendarDateUnit.withCalendar(cal, "days since 1800-01-01");
+    double[] values = new double[5000];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = i * 1.5 + (i % 7) / 8.0 + (i / 10) * 0.25;
+    }
+    values[100] = values[99]; // duplicate
+    CalendarDateSequence seq = CalendarDateSequence.of(cdu, values);
+    assertThat(seq.isRegular()).isFalse();
+    assertThat(seq.isSorted()).isTrue();
+    checkFind(seq);
+    assertThat(seq.indexOf(seq.getMillis(100))).isEqualTo(99);
+
+    CalendarDateSequence section = seq.section(new Range(3, 4000, 3));
+    for (int i = 0; i < section.size(); i++) {
+      assertThat(section.getMillis(i)).isEqualTo(seq.getMillis(3 + 3 * i));
+    }
+
+    // unsorted uses a linear search
+    values[2000] = -1000;
+    CalendarDateSequence unsorted = CalendarDateSequence.of(cdu, values);
+    assertThat(unsorted.isSorted()).isFalse();
+    checkFind(unsorted);
+  }
+
+  @Test
+  public void testSmall() {
+    CalendarDateSequence empty = CalendarDateSequence.of(cal, new long[0]);
+    assertThat(empty.size()).isEqualTo(0);
+    assertThat(empty.asList()).isEmpty();
+    assertThat(empty.getCalendarDateRange()).isNull();
+    assertThat(empty.indexOf(0)).isEqualTo(-1);
+
+    CalendarDateSequence one = CalendarDateSequence.of(cal, new long[] {12345});
+    assertThat(one.asList()).containsExactly(CalendarDate.of(cal, 12345));
+    assertThat(one.findIndex(0)).isEqualTo(0);
+    assertThat(one.findIndex(20000)).isEqualTo(0);
+  }
+
+  // compare with the linear search of CalendarDates that CoordinateAxis1DTime used to do
+  private void checkFind(CalendarDateSequence seq) {
+    List<CalendarDate> dates = new ArrayList<>(seq.asList());
+    long first = seq.getMillis(0);
+    long last = seq.getMillis(seq.size() - 1);
+    long step = Math.max(1, Math.abs(last - first) / 997);
+    for (long millis = Math.min(first, last) - 3 * step; millis < Math.max(first, last) + 3 * step; millis += step) {
+      CalendarDate d = CalendarDate.of(seq.getCalendar(), millis);
+      int index = 0;
+      while (index < dates.size()) {
+        if (d.compareTo(dates.get(index)) < 0)
+          break;
+        index++;
+      }
+      assertWithMessage(d.toString()).that(seq.findIndex(millis)).isEqualTo(Math.max(0, index - 1));
+      assertWithMessage(d.toString()).that(seq.indexOf(millis)).isEqualTo(dates.indexOf(d));
+    }
+    for (int i = 0; i < seq.size(); i += 7) {
+      assertThat(seq.indexOf(seq.getMillis(i))).isEqualTo(dates.indexOf(dates.get(i)));
+    }
+  }
+
+}
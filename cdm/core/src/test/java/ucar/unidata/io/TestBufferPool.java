@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.unidata.io;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Formatter;
+import org.junit.After;
+import org.junit.Test;
+
+/** Test {@link BufferPool} and {@link SizeClassedBufferPool}. */
+public class TestBufferPool {
+
+  @After
+  public void restoreDefault() {
+    BufferPool.setDefault(new SizeClassedBufferPool());
+  }
+
+  @Test
+  public void testSizeClasses() {
+    SizeClassedBufferPool pool = new SizeClassedBufferPool(1024, 1024 * 1024, 10 * 1024 * 1024);
+    byte[] b = pool.getBytes(3000);
+    assertThat(b.length).isEqualTo(4096);
+    assertThat(pool.getMisses()).isEqualTo(1);
+
+    pool.release(b);
+    assertThat(pool.getBytesRetained()).isEqualTo(4096);
+    assertThat(pool.getBytes(2049)).isSameInstanceAs(b);
+    assertThat(pool.getHits()).isEqualTo(1);
+    assertThat(pool.getBytesReused()).isEqualTo(4096);
+    assertThat(pool.getBytesRetained()).isEqualTo(0);
+
+    // a larger class is not used for a smaller request
+    pool.release(b);
+    assertThat(pool.getBytes(100 * 1024)).isNotSameInstanceAs(b);
+  }
+
+  @Test
+  public void testForeignBuffer() {
+    SizeClassedBufferPool pool = new SizeClassedBufferPool(1024, 1024 * 1024, 10 * 1024 * 1024);
+    byte[] odd = new byte[5000]; // goes in the 4096 class
+    pool.release(odd);
+    assertThat(pool.getBytes(5000)).isNotSameInstanceAs(odd);
+    assertThat(pool.getBytes(4096)).isSameInstanceAs(odd);
+  }
+
+  @Test
+  public void testUnpooledSizes() {
+    SizeClassedBufferPool pool = new SizeClassedBufferPool(1024, 1024 * 1024, 10 * 1024 * 1024);
+    byte[] small = pool.getBytes(10);
+    assertThat(small.length).isEqualTo(10);
+    byte[] big = pool.getBytes(2 * 1024 * 1024);
+    assertThat(big.length).isEqualTo(2 * 1024 * 1024);
+    pool.release(small);
+    pool.release(big);
+    assertThat(pool.getBytesRetained()).isEqualTo(0);
+    assertThat(pool.getMisses()).isEqualTo(0);
+  }
+
+  @Test
+  public void testMaxRetained() {
+    SizeClassedBufferPool pool = new SizeClassedBufferPool(1024, 1024 * 1024, 8192);
+    byte[] b1 = pool.getBytes(4096);
+    byte[] b2 = pool.getBytes(4096);
+    byte[] b3 = pool.getBytes(4096);
+    pool.release(b1);
+    pool.release(b2);
+    pool.release(b3); // dropped
+    assertThat(pool.getBytesRetained()).isEqualTo(8192);
+
+    pool.clear();
+    assertThat(pool.getBytesRetained()).isEqualTo(0);
+    assertThat(pool.getBytes(4096)).isNotSameInstanceAs(b1);
+  }
+
+  @Test
+  public void testDirect() {
+    SizeClassedBufferPool pool = new SizeClassedBufferPool(1024, 1024 * 1024, 10 * 1024 * 1024);
+    ByteBuffer bb = pool.getDirectBuffer(3000);
+    assertThat(bb.isDirect()).isTrue();
+    assertThat(bb.capacity()).isEqualTo(4096);
+    assertThat(bb.limit()).isEqualTo(3000);
+    assertThat(bb.position()).isEqualTo(0);
+
+    bb.order(ByteOrder.LITTLE_ENDIAN).position(100);
+    pool.release(bb);
+    pool.release(ByteBuffer.allocate(4096)); // heap buffers are ignored
+    assertThat(pool.getBytesRetained()).isEqualTo(0);
+
+    ByteBuffer again = pool.getDirectBuffer(4000);
+    assertThat(again).isSameInstanceAs(bb);
+    assertThat(again.limit()).isEqualTo(4000);
+    assertThat(again.position()).isEqualTo(0);
+    assertThat(again.order()).isEqualTo(ByteOrder.BIG_ENDIAN);
+    assertThat(pool.getDirectHits()).isEqualTo(1);
+    assertThat(pool.getDirectBytesReused()).isEqualTo(4096);
+
+    Formatter f = new Formatter();
+    pool.showStats(f);
+    assertThat(f.toString()).contains("direct: hits= 1");
+  }
+
+  @Test
+  public void testDisable() {
+    assertThat(BufferPool.isEnabled()).isTrue();
+    BufferPool.setEnabled(false);
+    assertThat(BufferPool.isEnabled()).isFalse();
+    BufferPool pool = BufferPool.getDefault();
+    assertThat(pool).isSameInstanceAs(BufferPool.NONE);
+    byte[] b = pool.getBytes(3000);
+    assertThat(b.length).isEqualTo(3000);
+    pool.release(b);
+    assertThat(pool.getBytes(3000)).isNotSameInstanceAs(b);
+
+    BufferPool.setEnabled(true);
+    assertThat(BufferPool.getDefault()).isInstanceOf(SizeClassedBufferPool.class);
+    BufferPool.setDefault(null);
+    assertThat(BufferPool.isEnabled()).isFalse();
+  }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.unidata.io;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Formatter;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.NetcdfFiles;
+import ucar.nc2.util.CompareNetcdf2;
+import ucar.unidata.io.bzip2.Bzip2Index;
+import ucar.unidata.io.gzip.GzipIndex;
+import ucar.unidata.util.test.TestDir;
+
+/** Test {@link CompressedRandomAccessFile} and its gzip and bzip2 indexes. */
+public class TestCompressedRandomAccessFile {
+
+  @Rule
+  public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void testGzipIndex() throws IOException {
+    byte[] contents = makeContents(3 * 1000 * 1000 + 17);
+    // a stored block, fixed and dynamic Huffman blocks, in several members
+    File file = tempFolder.newFile("test.gz");
+    try (OutputStream out = new FileOutputStream(file)) {
+      writeGzip(out, contents, 0, 1000 * 1000, Deflater.DEFAULT_COMPRESSION);
+      writeGzip(out, contents, 1000 * 1000, 100, Deflater.NO_COMPRESSION);
+      writeGzip(out, contents, 1000 * 1000 + 100, 20, Deflater.BEST_SPEED);
+      writeGzip(out, contents, 1000 * 1000 + 120, contents.length - 1000 * 1000 - 120, Deflater.BEST_COMPRESSION);
+    }
+
+    try (RandomAccessFile raf = new RandomAccessFile(file.getPath(), "r")) {
+      GzipIndex index = GzipIndex.build(raf, 64 * 1024);
+      assertThat(index.getUncompressedLength()).isEqualTo(contents.length);
+      assertThat(index.getNumWindows()).isGreaterThan(20);
+      checkWindows(index, raf, contents);
+    }
+    checkRandomReads(file, contents);
+  }
+
+  @Test
+  public void testBzip2Index() throws IOException {
+    // two bzip2 streams, of one and two blocks, written by "bzip2 -1"
+    File file = tempFolder.newFile("multistream.txt.bz2");
+    Files.copy(Paths.get(TestDir.cdmLocalTestDataDir, "compressed/multistream.txt.bz2"), file.toPath(),
+        java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 20000; i++) {
+      sb.append(i).append(' ').append(i * 7919 % 100003).append('\n');
+    }
+    byte[] contents = sb.toString().getBytes(StandardCharsets.US_ASCII);
+
+    try (RandomAccessFile raf = new RandomAccessFile(file.getPath(), "r")) {
+      Bzip2Index index = Bzip2Index.build(raf);
+      assertThat(index.getUncompressedLength()).isEqualTo(contents.length);
+      assertThat(index.getNumWindows()).isEqualTo(3);
+      checkWindows(index, raf, contents);
+    }
+    checkRandomReads(file, contents);
+  }
+
+  @Test
+  public void testOpenNetcdfFile() throws IOException {
+    String filename = TestDir.cdmLocalTestDataDir + "testWrite.nc";
+    File file = tempFolder.newFile("testWrite.nc.gz");
+    byte[] contents = Files.readAllBytes(Paths.get(filename));
+    try (OutputStream out = new FileOutputStream(file)) {
+      writeGzip(out, contents, 0, contents.length, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    NetcdfFiles.useSeekableDecompression(true);
+    try {
+      for (int i = 0; i < 2; i++) { // second time uses the saved index
+        try (NetcdfFile org = NetcdfFiles.open(filename); NetcdfFile compressed = NetcdfFiles.open(file.getPath())) {
+          assertThat(compressed.sendIospMessage(NetcdfFile.IOSP_MESSAGE_RANDOM_ACCESS_FILE))
+              .isInstanceOf(CompressedRandomAccessFile.class);
+          Formatter errs = new Formatter();
+          CompareNetcdf2 compare = new CompareNetcdf2(errs, false, false, true);
+          assertWithMessage(errs.toString()).that(compare.compare(org, compressed)).isTrue();
+        }
+        assertThat(new File(file.getPath() + CompressedRandomAccessFile.SUFFIX).exists()).isTrue();
+      }
+    } finally {
+      NetcdfFiles.useSeekableDecompression(false);
+    }
+    // no uncompressed copy
+    assertThat(new File(tempFolder.getRoot(), "testWrite.nc").exists()).isFalse();
+  }
+
+  @Test
+  public void testIndexOutOfDate() throws IOException {
+    File file = tempFolder.newFile("test.gz");
+    byte[] contents = makeContents(100 * 1000);
+    try (OutputStream out = new FileOutputStream(file)) {
+      writeGzip(out, contents, 0, contents.length, Deflater.DEFAULT_COMPRESSION);
+    }
+    try (RandomAccessFile raf = CompressedRandomAccessFile.open(file.getPath(), 1000)) {
+      assertThat(raf.length()).isEqualTo(contents.length);
+    }
+
+    // rewrite the file with different contents
+    contents = makeContents(200 * 1000);
+    try (OutputStream out = new FileOutputStream(file)) {
+      writeGzip(out, contents, 0, contents.length, Deflater.BEST_SPEED);
+    }
+    assertThat(file.setLastModified(file.lastModified() + 2000)).isTrue();
+    checkRandomReads(file, contents);
+  }
+
+  private void checkWindows(CompressedIndex index, RandomAccessFile raf, byte[] contents) throws IOException {
+    // in reverse, so each window is decompressed on its own
+    for (int i = index.getNumWindows() - 1; i >= 0; i--) {
+      int start = (int) index.getWindowStart(i);
+      byte[] window = index.readWindow(raf, i);
+      assertWithMessage("window " + i).that(window)
+          .isEqualTo(Arrays.copyOfRange(contents, start, start + index.getWindowLength(i)));
+    }
+  }
+
+  private void checkRandomReads(File file, byte[] contents) throws IOException {
+    Random random = new Random(contents.length);
+    try (RandomAccessFile raf = CompressedRandomAccessFile.open(file.getPath(), 1000)) {
+      assertThat(raf.length()).isEqualTo(contents.length);
+      for (int i = 0; i < 200; i++) {
+        int len = random.nextInt(Math.min(contents.length / 2, i % 10 == 0 ? 300 * 1000 : 3000));
+        int pos = random.nextInt(contents.length - len);
+        byte[] b = new byte[len];
+        raf.seek(pos);
+        raf.readFully(b);
+        assertWithMessage("pos " + pos + " len " + len).that(b)
+            .isEqualTo(Arrays.copyOfRange(contents, pos, pos + len));
+      }
+
+      ByteArrayOutputStream bout = new ByteArrayOutputStream();
+      assertThat(raf.readToByteChannel(java.nio.channels.Channels.newChannel(bout), 0, contents.length + 10))
+          .isEqualTo(contents.length);
+      assertThat(bout.toByteArray()).isEqualTo(contents);
+    }
+  }
+
+  // somewhat compressible, with long matches
+  private byte[] makeContents(int size) {
+    Random random = new Random(size);
+    byte[] contents = new byte[size];
+    int pos = 0;
+    while (pos < size) {
+      int len = Math.min(size - pos, 1 + random.nextInt(200));
+      if (pos > 40000 && random.nextBoolean()) {
+        int from = pos - 1 - random.nextInt(32000);
+        for (int i = 0; i < len; i++) {
+          contents[pos + i] = contents[from + i];
+        }
+      } else {
+        for (int i = 0; i < len; i++) {
+          contents[pos + i] = (byte) ('a' + random.nextInt(random.nextBoolean() ? 4 : 26));
+        }
+      }
+      pos += len;
+    }
+    return contents;
+  }
+
+  private void writeGzip(OutputStream out, byte[] contents, int start, int len, int level) throws IOException {
+    GZIPOutputStream gzip = new GZIPOutputStream(out) {
+      {
+        def.setLevel(level);
+      }
+
+      @Override
+      public void close() throws IOException {
+        finish(); // leave out open, for the next member
+      }
+    };
+    gzip.write(contents, start, len);
+    gzip.close();
+  }
+
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.unidata.io;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Formatter;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.NetcdfFiles;
+import ucar.nc2.util.CompareNetcdf2;
+import ucar.unidata.util.test.TestDir;
+
+/** Test {@link MappedRandomAccessFile}, with small segments so that reads cross segment boundaries. */
+public class TestMappedRandomAccessFile {
+
+  @ClassRule
+  public static final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private static final int FILE_LENGTH = 100 * 1000 + 7;
+  private static final int SEGMENT_SIZE = 1000;
+
+  private static File file;
+  private static byte[] contents;
+
+  @BeforeClass
+  public static void makeFile() throws IOException {
+    contents = new byte[FILE_LENGTH];
+    new Random(77).nextBytes(contents);
+    file = tempFolder.newFile();
+    Files.write(file.toPath(), contents);
+  }
+
+  @Before
+  public void setSegmentSize() {
+    MappedRandomAccessFile.segmentSize = SEGMENT_SIZE;
+  }
+
+  @After
+  public void cleanup() {
+    MappedRandomAccessFile.segmentSize = MappedRandomAccessFile.DEFAULT_SEGMENT_SIZE;
+    MappedRandomAccessFile.setSizeThreshold(Long.MAX_VALUE);
+  }
+
+  @Test
+  public void testBufferedReads() throws IOException {
+    Random random = new Random(1);
+    try (RandomAccessFile raf = new MappedRandomAccessFile(file.getPath(), 97)) {
+      assertThat(raf.length()).isEqualTo(FILE_LENGTH);
+      for (ByteOrder order : new ByteOrder[] {ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+        raf.order(order);
+        for (int i = 0; i < 500; i++) {
+          long pos = random.nextInt(FILE_LENGTH - 8);
+          ByteBuffer expected = ByteBuffer.wrap(contents).order(order);
+          raf.seek(pos);
+          assertWithMessage("pos " + pos).that(raf.readLong()).isEqualTo(expected.getLong((int) pos));
+          raf.seek(pos);
+          assertWithMessage("pos " + pos).that(raf.readShort()).isEqualTo(expected.getShort((int) pos));
+
+          int nelems = random.nextInt((FILE_LENGTH - (int) pos) / 4);
+          float[] floats = new float[nelems];
+          raf.seek(pos);
+          raf.readFloat(floats, 0, nelems);
+          for (int j = 0; j < nelems; j++) {
+            assertWithMessage("pos " + pos + " index " + j).that(Float.floatToRawIntBits(floats[j]))
+                .isEqualTo(expected.getInt((int) pos + 4 * j));
+          }
+        }
+      }
+
+      raf.seek(FILE_LENGTH - 2);
+      try {
+        raf.readInt();
+        fail("read past end of file");
+      } catch (EOFException e) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void testConcurrentReads() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try (MappedRandomAccessFile raf = new MappedRandomAccessFile(file.getPath(), 100)) {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 16; t++) {
+        Random random = new Random(t);
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < 1000; i++) {
+            int len = random.nextInt(3 * SEGMENT_SIZE);
+            int pos = random.nextInt(FILE_LENGTH - len);
+            byte[] b = new byte[len];
+            raf.readFully(pos, b, 0, len);
+            assertThat(b).isEqualTo(Arrays.copyOfRange(contents, pos, pos + len));
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+      assertThat(raf.getFilePointer()).isEqualTo(0);
+
+      try {
+        raf.readFully(FILE_LENGTH - 10, new byte[11], 0, 11);
+        fail("read past end of file");
+      } catch (EOFException e) {
+        // expected
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testReadToByteChannel() throws IOException {
+    try (RandomAccessFile raf = new MappedRandomAccessFile(file.getPath(), 100)) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      WritableByteChannel channel = Channels.newChannel(out);
+      assertThat(raf.readToByteChannel(channel, 1500, 2 * SEGMENT_SIZE + 1)).isEqualTo(2 * SEGMENT_SIZE + 1);
+      assertThat(out.toByteArray()).isEqualTo(Arrays.copyOfRange(contents, 1500, 1500 + 2 * SEGMENT_SIZE + 1));
+
+      out.reset();
+      assertThat(raf.readToByteChannel(channel, FILE_LENGTH - 10, 100)).isEqualTo(10);
+      assertThat(out.toByteArray()).isEqualTo(Arrays.copyOfRange(contents, FILE_LENGTH - 10, FILE_LENGTH));
+    }
+  }
+
+  @Test
+  public void testReadAfterClose() throws IOException {
+    MappedRandomAccessFile raf = new MappedRandomAccessFile(file.getPath(), 100);
+    raf.close();
+    try {
+      raf.readFully(0, new byte[10], 0, 10);
+      fail("read after close");
+    } catch (IOException e) {
+      assertThat(e).hasMessageThat().contains("file closed");
+    }
+    try {
+      raf.read_(0, new byte[10], 0, 10);
+      fail("read after close");
+    } catch (IOException e) {
+      assertThat(e).hasMessageThat().contains("file closed");
+    }
+    try {
+      raf.readToByteChannel(Channels.newChannel(new ByteArrayOutputStream()), 0, 10);
+      fail("read after close");
+    } catch (IOException e) {
+      assertThat(e).hasMessageThat().contains("file closed");
+    }
+  }
+
+  @Test
+  public void testProvider() throws IOException {
+    MappedRandomAccessFile.Provider provider = new MappedRandomAccessFile.Provider();
+    assertThat(provider.isOwnerOf("mmap:" + file.getPath())).isTrue();
+    assertThat(provider.isOwnerOf(file.getPath())).isFalse();
+    assertThat(provider.isOwnerOf("http://localhost/file.nc")).isFalse();
+
+    MappedRandomAccessFile.setSizeThreshold(FILE_LENGTH + 1);
+    assertThat(provider.isOwnerOf(file.getPath())).isFalse();
+    MappedRandomAccessFile.setSizeThreshold(FILE_LENGTH);
+    assertThat(provider.isOwnerOf(file.getPath())).isTrue();
+    assertThat(provider.isOwnerOf("file:" + file.getPath())).isTrue();
+    assertThat(provider.isOwnerOf(file.getPath() + ".gz")).isFalse();
+
+    try (RandomAccessFile raf = provider.open("mmap:file:" + file.getPath(), 100)) {
+      assertThat(raf).isInstanceOf(MappedRandomAccessFile.class);
+      assertThat(raf.readBytes(10)).isEqualTo(Arrays.copyOf(contents, 10));
+    }
+  }
+
+  @Test
+  public void testOpenNetcdfFiles() throws IOException {
+    for (String filename : new String[] {"testWrite.nc", "chunked.h5", "testCFGridWriter.nc4"}) {
+      String location = TestDir.cdmLocalTestDataDir + filename;
+      try (NetcdfFile org = NetcdfFiles.open(location);
+          NetcdfFile mapped = NetcdfFiles.open(MappedRandomAccessFile.PREFIX + location)) {
+        assertThat(mapped.sendIospMessage(NetcdfFile.IOSP_MESSAGE_RANDOM_ACCESS_FILE))
+            .isInstanceOf(MappedRandomAccessFile.class);
+        Formatter errs = new Formatter();
+        CompareNetcdf2 compare = new CompareNetcdf2(errs, false, false, true);
+        assertWithMessage(errs.toString()).that(compare.compare(org, mapped)).isTrue();
+      }
+    }
+  }
+
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.unidata.io;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+import static org.junit.Assert.fail;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+/** Test the array reads of RandomAccessFile against decoding the file contents with a ByteBuffer. */
+@RunWith(Parameterized.class)
+public class TestRandomAccessFileArrays {
+
+  @ClassRule
+  public static final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private static final int FILE_LENGTH = 600 * 1000 + 3; // larger than the chunks that bypass the buffer
+
+  private static File file;
+  private static byte[] contents;
+
+  @BeforeClass
+  public static void makeFile() throws IOException {
+    contents = new byte[FILE_LENGTH];
+    new Random(31).nextBytes(contents);
+    file = tempFolder.newFile();
+    Files.write(file.toPath(), contents);
+  }
+
+  @Parameterized.Parameters(name = "{0} {1}")
+  public static List<Object[]> getTestParameters() {
+    List<Object[]> result = new ArrayList<>();
+    for (ByteOrder order : new ByteOrder[] {ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+      for (int bufferSize : new int[] {13, 100, 8092}) {
+        result.add(new Object[] {order, bufferSize});
+      }
+    }
+    return result;
+  }
+
+  private final ByteOrder order;
+  private final int bufferSize;
+
+  public TestRandomAccessFileArrays(ByteOrder order, int bufferSize) {
+    this.order = order;
+    this.bufferSize = bufferSize;
+  }
+
+  @Test
+  public void testReadArrays() throws IOException {
+    Random random = new Random(bufferSize);
+    try (RandomAccessFile raf = new RandomAccessFile(file.getPath(), "r", bufferSize)) {
+      raf.order(order);
+      for (int i = 0; i < 200; i++) {
+        // mostly short reads, that start and end at any place in the buffer
+        int maxBytes = i % 10 == 0 ? FILE_LENGTH : 3 * bufferSize;
+        int nbytes = random.nextInt(maxBytes / 2);
+        long pos = random.nextInt(FILE_LENGTH - nbytes);
+        checkReads(raf, pos, nbytes / 8, random.nextInt(5));
+      }
+    }
+  }
+
+  @Test
+  public void testReadAfterElements() throws IOException {
+    // the array reads continue from where the single element reads left off, in the middle of the buffer
+    try (RandomAccessFile raf = new RandomAccessFile(file.getPath(), "r", bufferSize)) {
+      raf.order(order);
+      for (long pos = 0; pos < 50; pos++) {
+        raf.seek(pos);
+        short first = raf.readShort();
+        int[] ints = new int[bufferSize];
+        raf.readInt(ints, 1, ints.length - 1);
+        assertThat(first).isEqualTo(expected(pos, 2).getShort());
+        ByteBuffer bb = expected(pos + 2, 4 * (ints.length - 1));
+        for (int j = 1; j < ints.length; j++) {
+          assertWithMessage("pos " + pos + " index " + j).that(ints[j]).isEqualTo(bb.getInt());
+        }
+        assertThat(raf.getFilePointer()).isEqualTo(pos + 2 + 4L * (ints.length - 1));
+      }
+    }
+  }
+
+  @Test
+  public void testReadPastEnd() throws IOException {
+    try (RandomAccessFile raf = new RandomAccessFile(file.getPath(), "r", bufferSize)) {
+      raf.order(order);
+      for (int nelems : new int[] {1, bufferSize / 8 + 1, FILE_LENGTH / 8}) {
+        raf.seek(FILE_LENGTH - 8L * nelems + 3);
+        try {
+          raf.readDouble(new double[nelems], 0, nelems);
+          fail("read past end of file");
+        } catch (EOFException e) {
+          // expected
+        }
+      }
+    }
+  }
+
+  private void checkReads(RandomAccessFile raf, long pos, int nelems, int type) throws IOException {
+    String what = "pos " + pos + " nelems " + nelems + " type " + type;
+    int offset = 3;
+    raf.seek(pos);
+    ByteBuffer bb = expected(pos, nelems * 8);
+    switch (type) {
+      case 0: {
+        short[] result = new short[offset + nelems];
+        raf.readShort(result, offset, nelems);
+        for (int j = 0; j < nelems; j++) {
+          assertWithMessage(what).that(result[offset + j]).isEqualTo(bb.getShort());
+        }
+        assertThat(raf.getFilePointer()).isEqualTo(pos + 2L * nelems);
+        break;
+      }
+      case 1: {
+        int[] result = new int[offset + nelems];
+        raf.readInt(result, offset, nelems);
+        for (int j = 0; j < nelems; j++) {
+          assertWithMessage(what).that(result[offset + j]).isEqualTo(bb.getInt());
+        }
+        assertThat(raf.getFilePointer()).isEqualTo(pos + 4L * nelems);
+        break;
+      }
+      case 2: {
+        long[] result = new long[offset + nelems];
+        raf.readLong(result, offset, nelems);
+        for (int j = 0; j < nelems; j++) {
+          assertWithMessage(what).that(result[offset + j]).isEqualTo(bb.getLong());
+        }
+        assertThat(raf.getFilePointer()).isEqualTo(pos + 8L * nelems);
+        break;
+      }
+      case 3: {
+        float[] result = new float[offset + nelems];
+        raf.readFloat(result, offset, nelems);
+        for (int j = 0; j < nelems; j++) {
+          assertWithMessage(what).that(Float.floatToRawIntBits(result[offset + j])).isEqualTo(bb.getInt());
+        }
+        assertThat(raf.getFilePointer()).isEqualTo(pos + 4L * nelems);
+        break;
+      }
+      default: {
+        double[] result = new double[offset + nelems];
+        raf.readDouble(result, offset, nelems);
+        for (int j = 0; j < nelems; j++) {
+          assertWithMessage(what).that(Double.doubleToRawLongBits(result[offset + j])).isEqualTo(bb.getLong());
+        }
+        assertThat(raf.getFilePointer()).isEqualTo(pos + 8L * nelems);
+      }
+    }
+  }
+
+  private ByteBuffer expected(long pos, int nbytes) {
+    return ByteBuffer.wrap(contents, (int) pos, Math.min(nbytes, FILE_LENGTH - (int) pos)).order(order);
+  }
+
+}
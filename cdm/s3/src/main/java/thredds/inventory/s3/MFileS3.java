@@ -7,6 +7,7 @@ package thredds.inventory.s3;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URISyntaxException;
+import java.util.Iterator;
 import java.util.Objects;
 import java.util.function.Supplier;
 import javax.annotation.Nullable;
@@ -21,6 +22,7 @@ import thredds.inventory.MFileProvider;
 import ucar.nc2.util.IO;
 import ucar.unidata.io.RandomAccessFile;
 import ucar.unidata.io.s3.CdmS3Client;
+import ucar.unidata.io.s3.CdmS3Listing;
 import ucar.unidata.io.s3.CdmS3Uri;
 import ucar.unidata.io.s3.S3RandomAccessFile;
 
@@ -285,8 +287,23 @@ public class MFileS3 implements MFile {
     return exists;
   }
 
-  // Update file exists by fetching from a head request
+  // Update file exists by fetching from a head request. There may not be an object for a "directory", so it
+  // exists if anything is listed under its prefix.
   private void updateExists() {
+    if (isDirectory()) {
+      exists = false;
+      try {
+        Iterator<CdmS3Listing.Page> pages = CdmS3Listing.listTop(cdmS3Uri, key, delimiter, true);
+        while (pages.hasNext() && !exists) {
+          CdmS3Listing.Page page = pages.next();
+          exists = !page.getObjects().isEmpty() || !page.getCommonPrefixes().isEmpty();
+        }
+      } catch (IOException ioe) {
+        logger.error("Could not list {}", cdmS3Uri, ioe);
+      }
+      return;
+    }
+
     try {
       headObjectResponse.get();
       exists = true;
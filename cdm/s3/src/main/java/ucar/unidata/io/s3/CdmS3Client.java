@@ -130,7 +130,7 @@ public class CdmS3Client {
     useCache = enableCache;
   }
 
-  private static CdmS3Uri makeKey(CdmS3Uri cdmS3Uri) {
+  static CdmS3Uri makeKey(CdmS3Uri cdmS3Uri) {
     CdmS3Uri bucketUri = null;
     String bucketUriString = cdmS3Uri.toString();
     if (cdmS3Uri.getKey().isPresent()) {
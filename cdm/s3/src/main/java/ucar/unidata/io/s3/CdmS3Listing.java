@@ -0,0 +1,407 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package ucar.unidata.io.s3;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CommonPrefix;
+import software.amazon.awssdk.services.s3.model.ListObjectsRequest;
+import software.amazon.awssdk.services.s3.model.ListObjectsResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+/**
+ * Lists the objects in an object store bucket, returning each page of the listing as soon as it arrives.
+ * <p>
+ * The next page of a listing is requested while the current page is being used. A listing of everything under a
+ * prefix is split into shards on the delimiter's common prefixes, which are listed at the same time, using up to
+ * ucar.unidata.io.s3.listingConcurrency requests per listing.
+ * <p>
+ * Complete listings may be kept in a cache shared by all users of {@link CdmS3Client}, for
+ * ucar.unidata.io.s3.listingCacheTtl seconds. The cache is off unless this is set to a positive value.
+ * The cache holds at most ucar.unidata.io.s3.listingCacheMaxObjects objects and common prefixes, and a listing with
+ * more than ucar.unidata.io.s3.listingCacheMaxShardObjects of them is not cached.
+ *
+ * @since 5.5.4
+ */
+public class CdmS3Listing {
+
+  /** The maximum number of list requests made at the same time by one listing, and in total. */
+  private static final int listingConcurrency =
+      Integer.parseInt(System.getProperty("ucar.unidata.io.s3.listingConcurrency", "8"));
+
+  /** How many levels of common prefixes are used to split a listing of everything under a prefix. */
+  private static final int listingShardDepth =
+      Integer.parseInt(System.getProperty("ucar.unidata.io.s3.listingShardDepth", "2"));
+
+  /** How long, in seconds, a complete listing is kept in the cache. 0, the default, disables the cache. */
+  private static final long listingCacheTtl =
+      Long.parseLong(System.getProperty("ucar.unidata.io.s3.listingCacheTtl", "0"));
+
+  /** The maximum number of objects and common prefixes kept in the cache. */
+  private static final long listingCacheMaxObjects =
+      Long.parseLong(System.getProperty("ucar.unidata.io.s3.listingCacheMaxObjects", "1000000"));
+
+  /** The maximum number of objects and common prefixes in one cached listing. Larger listings are not cached. */
+  private static final long listingCacheMaxShardObjects =
+      Long.parseLong(System.getProperty("ucar.unidata.io.s3.listingCacheMaxShardObjects", "10000"));
+
+  private static final ExecutorService listingExecutor = Executors.newFixedThreadPool(listingConcurrency,
+      new ThreadFactoryBuilder().setNameFormat("CdmS3Listing-%d").setDaemon(true).build());
+
+  @Nullable
+  private static volatile Cache<String, Page> listingCache = makeCache(listingCacheTtl);
+
+  @Nullable
+  private static Cache<String, Page> makeCache(long ttl) {
+    if (ttl <= 0) {
+      return null;
+    }
+    // a single segment, otherwise the maximum weight is divided between the segments and enforced in each one
+    return CacheBuilder.newBuilder().concurrencyLevel(1).expireAfterWrite(ttl, TimeUnit.SECONDS)
+        .maximumWeight(listingCacheMaxObjects).weigher((String key, Page page) -> page.weight()).build();
+  }
+
+  /** One page of a listing. */
+  public static class Page {
+    private final List<S3Object> objects;
+    private final List<CommonPrefix> commonPrefixes;
+    @Nullable
+    private final String nextToken;
+
+    /**
+     * Constructor.
+     *
+     * @param objects the objects in this page
+     * @param commonPrefixes the common prefixes in this page, if listed with a delimiter
+     * @param nextToken continuation token or marker of the next page, or null if this is the last page
+     */
+    public Page(List<S3Object> objects, List<CommonPrefix> commonPrefixes, @Nullable String nextToken) {
+      this.objects = objects;
+      this.commonPrefixes = commonPrefixes;
+      this.nextToken = nextToken;
+    }
+
+    public List<S3Object> getObjects() {
+      return objects;
+    }
+
+    /** The common prefixes ("subdirectories"), or an empty list if listed without a delimiter. */
+    public List<CommonPrefix> getCommonPrefixes() {
+      return commonPrefixes;
+    }
+
+    @Nullable
+    String getNextToken() {
+      return nextToken;
+    }
+
+    int weight() {
+      return 1 + objects.size() + commonPrefixes.size();
+    }
+  }
+
+  /** Makes one list request. */
+  interface PageSource {
+    Page fetch(@Nullable String prefix, @Nullable String delimiter, @Nullable String token);
+  }
+
+  /**
+   * List the objects and common prefixes directly under a prefix, using the delimiter.
+   * The pages are returned in order, as the object store lists them (by key for S3).
+   *
+   * @param uri the bucket, and the object store that has it
+   * @param prefix only list keys starting with this, may be null
+   * @param delimiter list the keys containing the delimiter after the prefix as common prefixes; if null, list
+   *        everything under the prefix.
+   * @param useCache if true, the listing may come from the cache, and is added to it. Otherwise, it is listed from
+   *        the object store. Has no effect unless the cache is enabled.
+   * @return iterator over pages
+   */
+  public static Iterator<Page> listTop(CdmS3Uri uri, @Nullable String prefix, @Nullable String delimiter,
+      boolean useCache) throws IOException {
+    return listTop(makeSource(uri), getCacheKey(uri), prefix, delimiter, useCache);
+  }
+
+  /**
+   * List all objects under a prefix. If there is a delimiter, the listing is split on its common prefixes.
+   * The pages returned have no common prefixes.
+   * <p>
+   * If there is a delimiter, the shards are listed at the same time, and their pages are returned as they arrive.
+   * The objects are then <em>not</em> in key order, unlike a single S3 listing; callers that need an order must sort
+   * them. Without a delimiter, the pages are returned in order.
+   *
+   * @param uri the bucket, and the object store that has it
+   * @param prefix only list keys starting with this, may be null
+   * @param delimiter split the listing on this, may be null
+   * @param useCache if true, the listing may come from the cache, and is added to it. Otherwise, it is listed from
+   *        the object store. Has no effect unless the cache is enabled.
+   * @return iterator over pages
+   */
+  public static Iterator<Page> listAll(CdmS3Uri uri, @Nullable String prefix, @Nullable String delimiter,
+      boolean useCache) throws IOException {
+    return listAll(makeSource(uri), getCacheKey(uri), prefix, delimiter, useCache);
+  }
+
+  // package private for testing
+  static Iterator<Page> listAll(PageSource source, String cacheKey, @Nullable String prefix,
+      @Nullable String delimiter, boolean useCache) {
+    Shard top = (delimiter == null || listingShardDepth <= 0) ? new Shard(prefix, null, 0)
+        : new Shard(prefix, delimiter, listingShardDepth);
+    return new PageIterator(source, cacheKey, useCache, false, top);
+  }
+
+  // package private for testing
+  static Iterator<Page> listTop(PageSource source, String cacheKey, @Nullable String prefix,
+      @Nullable String delimiter, boolean useCache) {
+    return new PageIterator(source, cacheKey, useCache, true, new Shard(prefix, delimiter, 0));
+  }
+
+  /** Remove all listings from the cache. */
+  public static void clearCache() {
+    Cache<String, Page> cache = listingCache;
+    if (cache != null) {
+      cache.invalidateAll();
+    }
+  }
+
+  /**
+   * Set how long, in seconds, a complete listing is kept in the cache, replacing the cache.
+   * Overrides ucar.unidata.io.s3.listingCacheTtl; 0 disables the cache.
+   */
+  public static void setListingCacheTtl(long seconds) {
+    listingCache = makeCache(seconds);
+  }
+
+  private static String getCacheKey(CdmS3Uri uri) {
+    CdmS3Uri bucketUri = CdmS3Client.makeKey(uri);
+    return (bucketUri != null) ? bucketUri.toString() : uri.toString();
+  }
+
+  private static PageSource makeSource(CdmS3Uri uri) throws IOException {
+    S3Client client = CdmS3Client.acquire(uri);
+    // Only use v2 api of aws S3 SDK on amazon resources
+    if (uri.isAws()) {
+      return (prefix, delimiter, token) -> fetchV2(client, uri, prefix, delimiter, token);
+    }
+    return (prefix, delimiter, token) -> fetchV1(client, uri, prefix, delimiter, token);
+  }
+
+  private static Page fetchV1(S3Client client, CdmS3Uri uri, @Nullable String prefix, @Nullable String delimiter,
+      @Nullable String marker) {
+    ListObjectsRequest.Builder builder = ListObjectsRequest.builder().bucket(uri.getBucket());
+    if (delimiter != null) {
+      builder.delimiter(delimiter);
+    }
+    if (prefix != null) {
+      builder.prefix(prefix);
+    }
+    if (marker != null) {
+      builder.marker(marker);
+    }
+    ListObjectsResponse response = client.listObjects(builder.build());
+
+    String nextMarker = null;
+    if (Boolean.TRUE.equals(response.isTruncated())) {
+      // NextMarker is only returned when listing with a delimiter, otherwise use the last key
+      nextMarker = response.nextMarker();
+      if (nextMarker == null && !response.contents().isEmpty()) {
+        nextMarker = response.contents().get(response.contents().size() - 1).key();
+      }
+    }
+    return new Page(response.contents(), response.commonPrefixes(), nextMarker);
+  }
+
+  private static Page fetchV2(S3Client client, CdmS3Uri uri, @Nullable String prefix, @Nullable String delimiter,
+      @Nullable String continuationToken) {
+    ListObjectsV2Request.Builder builder = ListObjectsV2Request.builder().bucket(uri.getBucket());
+    if (delimiter != null) {
+      builder.delimiter(delimiter);
+    }
+    if (prefix != null) {
+      builder.prefix(prefix);
+    }
+    if (continuationToken != null) {
+      builder.continuationToken(continuationToken);
+    }
+    ListObjectsV2Response response = client.listObjectsV2(builder.build());
+    String next = Boolean.TRUE.equals(response.isTruncated()) ? response.nextContinuationToken() : null;
+    return new Page(response.contents(), response.commonPrefixes(), next);
+  }
+
+  ////////////////////////////////////////////////////////////////////////////////////
+
+  // One listing request, continued page by page
+  private static class Shard {
+    final String prefix;
+    final String delimiter;
+    final int splitDepth; // split on the common prefixes of this listing, if > 0
+    String token;
+    boolean first = true;
+
+    // the complete listing, to be added to the cache
+    boolean cacheable = true;
+    List<S3Object> objects = new ArrayList<>();
+    List<CommonPrefix> commonPrefixes = new ArrayList<>();
+
+    Shard(String prefix, String delimiter, int splitDepth) {
+      this.prefix = prefix;
+      this.delimiter = delimiter;
+      this.splitDepth = splitDepth;
+    }
+
+    String getCacheKey(String bucketKey) {
+      return bucketKey + "?" + prefix + "#" + delimiter;
+    }
+  }
+
+  private static class Fetched {
+    final Shard shard;
+    final Page page;
+    final boolean fromCache;
+
+    Fetched(Shard shard, Page page, boolean fromCache) {
+      this.shard = shard;
+      this.page = page;
+      this.fromCache = fromCache;
+    }
+  }
+
+  // Not thread safe, used by one consumer. The requests are made on the listingExecutor, with at most
+  // listingConcurrency in flight, so an iterator that is not used to the end does not keep listing.
+  private static class PageIterator implements Iterator<Page> {
+    private final PageSource source;
+    private final String bucketKey;
+    @Nullable
+    private final Cache<String, Page> cache; // null if the cache is not used
+    private final boolean wantPrefixes;
+    private final Deque<Shard> ready = new ArrayDeque<>();
+    private final Deque<Fetched> cached = new ArrayDeque<>();
+    private final CompletionService<Fetched> completionService = new ExecutorCompletionService<>(listingExecutor);
+    private int countInFlight;
+    private Page next;
+
+    PageIterator(PageSource source, String bucketKey, boolean useCache, boolean wantPrefixes, Shard top) {
+      this.source = source;
+      this.bucketKey = bucketKey;
+      this.cache = useCache ? listingCache : null;
+      this.wantPrefixes = wantPrefixes;
+      ready.add(top);
+      submit();
+    }
+
+    // start requests for the shards that are ready, up to the concurrency limit
+    private void submit() {
+      while (countInFlight < listingConcurrency && !ready.isEmpty()) {
+        Shard shard = ready.pollFirst();
+        if (shard.first && cache != null) {
+          Page page = cache.getIfPresent(shard.getCacheKey(bucketKey));
+          if (page != null) {
+            cached.add(new Fetched(shard, page, true));
+            continue;
+          }
+        }
+        String token = shard.token;
+        completionService.submit(() -> new Fetched(shard, source.fetch(shard.prefix, shard.delimiter, token), false));
+        countInFlight++;
+      }
+    }
+
+    private Fetched take() {
+      if (!cached.isEmpty()) {
+        return cached.poll();
+      }
+      try {
+        Fetched fetched = completionService.take().get();
+        countInFlight--;
+        return fetched;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException("Interrupted while listing " + bucketKey, e);
+      } catch (ExecutionException e) {
+        countInFlight--;
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw new RuntimeException(e.getCause());
+      }
+    }
+
+    // queue the next page and the shards split from this one, remember the complete listing
+    private void accept(Fetched fetched) {
+      Shard shard = fetched.shard;
+      Page page = fetched.page;
+      shard.first = false;
+
+      if (shard.splitDepth > 0) {
+        for (CommonPrefix commonPrefix : page.getCommonPrefixes()) {
+          int splitDepth = shard.splitDepth - 1;
+          ready.add(new Shard(commonPrefix.prefix(), splitDepth > 0 ? shard.delimiter : null, splitDepth));
+        }
+      }
+
+      if (page.getNextToken() != null) {
+        shard.token = page.getNextToken();
+        ready.addFirst(shard); // finish the listings that have started first
+      }
+
+      if (cache != null && !fetched.fromCache && shard.cacheable) {
+        shard.objects.addAll(page.getObjects());
+        shard.commonPrefixes.addAll(page.getCommonPrefixes());
+        if (shard.objects.size() + shard.commonPrefixes.size() > listingCacheMaxShardObjects) {
+          shard.cacheable = false; // too big to cache, stop collecting it
+          shard.objects = null;
+          shard.commonPrefixes = null;
+        } else if (page.getNextToken() == null) {
+          cache.put(shard.getCacheKey(bucketKey), new Page(shard.objects, shard.commonPrefixes, null));
+        }
+      }
+      submit();
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (next == null) {
+        if (countInFlight == 0 && cached.isEmpty()) {
+          return false;
+        }
+        Fetched fetched = take();
+        accept(fetched);
+        Page page = fetched.page;
+        next = new Page(page.getObjects(), wantPrefixes ? page.getCommonPrefixes() : Collections.emptyList(), null);
+      }
+      return true;
+    }
+
+    @Override
+    public Page next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      Page result = next;
+      next = null;
+      return result;
+    }
+  }
+}
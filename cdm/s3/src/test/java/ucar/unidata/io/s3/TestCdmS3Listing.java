@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package ucar.unidata.io.s3;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+import software.amazon.awssdk.services.s3.model.CommonPrefix;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+/** Test {@link CdmS3Listing} against an in-memory stand-in for an object store. */
+public class TestCdmS3Listing {
+  private static final List<String> KEYS = Arrays.asList("a.nc", "dir1/b.nc", "dir1/c.nc", "dir1/sub/d.nc",
+      "dir1/sub/e.nc", "dir2/f.nc", "g.nc", "h.nc", "i.nc");
+
+  // lists the keys like an object store, PAGE_SIZE objects or common prefixes at a time
+  private static class FakeStore implements CdmS3Listing.PageSource {
+    static final int PAGE_SIZE = 3;
+    final List<String> keys;
+    final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+
+    FakeStore(List<String> keys) {
+      this.keys = keys;
+    }
+
+    @Override
+    public CdmS3Listing.Page fetch(String prefix, String delimiter, String token) {
+      requests.add(prefix + "#" + delimiter);
+      String start = (prefix == null) ? "" : prefix;
+      TreeSet<String> entries = new TreeSet<>(); // common prefixes end with the delimiter
+      for (String key : keys) {
+        if (!key.startsWith(start))
+          continue;
+        int pos = (delimiter == null) ? -1 : key.indexOf(delimiter, start.length());
+        entries.add(pos < 0 ? key : key.substring(0, pos + delimiter.length()));
+      }
+
+      List<String> page = new ArrayList<>(entries);
+      int from = (token == null) ? 0 : Integer.parseInt(token);
+      int to = Math.min(from + PAGE_SIZE, page.size());
+      List<S3Object> objects = new ArrayList<>();
+      List<CommonPrefix> commonPrefixes = new ArrayList<>();
+      for (String entry : page.subList(from, to)) {
+        if (delimiter != null && entry.endsWith(delimiter)) {
+          commonPrefixes.add(CommonPrefix.builder().prefix(entry).build());
+        } else {
+          objects.add(S3Object.builder().key(entry).size(1L).lastModified(Instant.ofEpochMilli(0)).build());
+        }
+      }
+      return new CdmS3Listing.Page(objects, commonPrefixes, to < page.size() ? String.valueOf(to) : null);
+    }
+  }
+
+  private static List<String> getKeys(Iterator<CdmS3Listing.Page> pages) {
+    List<String> result = new ArrayList<>();
+    while (pages.hasNext()) {
+      CdmS3Listing.Page page = pages.next();
+      for (S3Object object : page.getObjects()) {
+        result.add(object.key());
+      }
+      for (CommonPrefix commonPrefix : page.getCommonPrefixes()) {
+        result.add(commonPrefix.prefix());
+      }
+    }
+    return result;
+  }
+
+  @After
+  public void resetCache() {
+    CdmS3Listing.setListingCacheTtl(0);
+  }
+
+  @Test
+  public void testListTop() {
+    FakeStore store = new FakeStore(KEYS);
+    assertThat(getKeys(CdmS3Listing.listTop(store, "bucket", null, "/", false)))
+        .containsExactly("a.nc", "g.nc", "h.nc", "i.nc", "dir1/", "dir2/");
+    assertThat(getKeys(CdmS3Listing.listTop(store, "bucket", "dir1/", "/", false)))
+        .containsExactly("dir1/b.nc", "dir1/c.nc", "dir1/sub/");
+    assertThat(getKeys(CdmS3Listing.listTop(store, "bucket", "dir1/", null, false)))
+        .containsExactly("dir1/b.nc", "dir1/c.nc", "dir1/sub/d.nc", "dir1/sub/e.nc");
+  }
+
+  @Test
+  public void testListAll() {
+    FakeStore store = new FakeStore(KEYS);
+    assertThat(getKeys(CdmS3Listing.listAll(store, "bucket", null, null, false))).containsExactlyElementsIn(KEYS)
+        .inOrder();
+    assertThat(store.requests).containsExactly("null#null", "null#null", "null#null");
+  }
+
+  @Test
+  public void testListAllShards() {
+    FakeStore store = new FakeStore(KEYS);
+    assertThat(getKeys(CdmS3Listing.listAll(store, "bucket", null, "/", false))).containsExactlyElementsIn(KEYS);
+    // split on two levels of prefixes
+    assertThat(store.requests).containsExactly("null#/", "null#/", "dir1/#/", "dir2/#/", "dir1/sub/#null");
+  }
+
+  @Test
+  public void testCacheIsOffByDefault() {
+    FakeStore store = new FakeStore(KEYS);
+    getKeys(CdmS3Listing.listAll(store, "bucket1", null, "/", true));
+    int nrequests = store.requests.size();
+    getKeys(CdmS3Listing.listAll(store, "bucket1", null, "/", true));
+    assertThat(store.requests).hasSize(2 * nrequests);
+  }
+
+  @Test
+  public void testCache() {
+    CdmS3Listing.setListingCacheTtl(60);
+    FakeStore store = new FakeStore(KEYS);
+
+    // a listing that may not use the cache is not added to it
+    getKeys(CdmS3Listing.listAll(store, "bucket0", null, "/", false));
+    int nuncached = store.requests.size();
+    getKeys(CdmS3Listing.listAll(store, "bucket0", null, "/", true));
+    assertThat(store.requests).hasSize(2 * nuncached);
+    store.requests.clear();
+
+    List<String> keys = getKeys(CdmS3Listing.listAll(store, "bucket1", null, "/", true));
+    int nrequests = store.requests.size();
+
+    // the same listing, from the cache
+    assertThat(getKeys(CdmS3Listing.listAll(store, "bucket1", null, "/", true))).containsExactlyElementsIn(keys);
+    assertThat(store.requests).hasSize(nrequests);
+    assertThat(getKeys(CdmS3Listing.listTop(store, "bucket1", "dir1/", "/", true)))
+        .containsExactly("dir1/b.nc", "dir1/c.nc", "dir1/sub/");
+    assertThat(store.requests).hasSize(nrequests);
+
+    // not allowed to use the cache, or a different bucket
+    getKeys(CdmS3Listing.listAll(store, "bucket1", null, "/", false));
+    assertThat(store.requests).hasSize(2 * nrequests);
+    getKeys(CdmS3Listing.listAll(store, "bucket2", null, "/", true));
+    assertThat(store.requests).hasSize(3 * nrequests);
+  }
+
+  @Test
+  public void testReadAheadIsBounded() throws InterruptedException {
+    List<String> keys = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      keys.add(String.format("key%04d", i));
+    }
+    FakeStore store = new FakeStore(keys);
+    Iterator<CdmS3Listing.Page> pages = CdmS3Listing.listAll(store, "bucket", null, null, false);
+    assertThat(pages.next().getObjects()).hasSize(FakeStore.PAGE_SIZE);
+
+    // only the next page is requested before it is needed
+    Thread.sleep(200);
+    assertThat(store.requests.size()).isAtMost(2);
+  }
+
+  @Test
+  public void testErrors() {
+    AtomicInteger count = new AtomicInteger();
+    FakeStore store = new FakeStore(KEYS) {
+      @Override
+      public CdmS3Listing.Page fetch(String prefix, String delimiter, String token) {
+        if (count.incrementAndGet() > 1) {
+          throw new IllegalStateException("fail");
+        }
+        return super.fetch(prefix, delimiter, token);
+      }
+    };
+    Iterator<CdmS3Listing.Page> pages = CdmS3Listing.listAll(store, "bucket", null, null, false);
+    assertThat(pages.next().getObjects()).hasSize(FakeStore.PAGE_SIZE);
+    try {
+      pages.hasNext();
+      throw new AssertionError("expected an exception");
+    } catch (IllegalStateException e) {
+      assertThat(e).hasMessageThat().isEqualTo("fail");
+    }
+  }
+}
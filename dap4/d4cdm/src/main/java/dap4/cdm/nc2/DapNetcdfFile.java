@@ -196,7 +196,8 @@ public class DapNetcdfFile extends NetcdfFile {
    * Do a bulk read on a list of Variables and
    * return a corresponding list of Array that contains the results
    * of a full read on each Variable.
-   * TODO: optimize to make only a single server call and cache the results.
+   * The data of all the variables was fetched from the server in one request when the file was opened,
+   * so this makes no server calls.
    *
    * @param variables List of type Variable
    * @return List of Array, one for each Variable in the input.
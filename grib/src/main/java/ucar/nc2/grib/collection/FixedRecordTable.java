@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.nc2.grib.collection;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ucar.nc2.grib.coord.SparseArray;
+import ucar.nc2.grib.grib1.Grib1Gds;
+import ucar.nc2.grib.grib1.Grib1GdsPredefined;
+import ucar.nc2.grib.grib1.Grib1SectionGridDefinition;
+import ucar.nc2.grib.grib2.Grib2SectionGridDefinition;
+import ucar.nc2.stream.NcStream;
+import ucar.unidata.io.RandomAccessFile;
+
+/**
+ * The records of a GribCollectionImmutable.VariableIndex, stored in the ncx with a fixed width layout instead of the
+ * SparseArray protobuf message. The table is memory mapped and records are found by index, without reading the
+ * whole table into the heap.
+ * Used by ncx files with version {@link #VERSION} or later; see {@link GribCdmIndex#setWriteFixedRecordTables}.
+ *
+ * <pre>
+ * int rank
+ * int[rank] shape
+ * int ndups
+ * int nrecords
+ * int[product(shape)] track: 1-based index into records, 0 = missing
+ * nrecords * (int fileno, long startPos, int bmsOffset, int drsOffset, int scanMode)
+ * </pre>
+ *
+ * All values are big endian. The scanMode comes from the gds of the record's group.
+ *
+ * @since 5.5.4
+ */
+class FixedRecordTable {
+  private static final Logger logger = LoggerFactory.getLogger(FixedRecordTable.class);
+
+  static final int VERSION = 4; // ncx version that uses the fixed width record tables
+  static final int RECORD_SIZE = 24;
+
+  private final ByteBuffer bb;
+  private final int[] shape;
+  private final int[] stride;
+  private final int totalSize;
+  private final int ndups;
+  private final int nrecords;
+  private final int trackStart;
+  private final int recordStart;
+
+  private FixedRecordTable(ByteBuffer bb) {
+    this.bb = bb;
+    int rank = bb.getInt(0);
+    this.shape = new int[rank];
+    this.stride = new int[rank];
+    int product = 1;
+    for (int i = rank - 1; i >= 0; i--) {
+      shape[i] = bb.getInt(4 * (i + 1));
+      stride[i] = product;
+      product *= shape[i];
+    }
+    this.totalSize = product;
+    this.ndups = bb.getInt(4 * (rank + 1));
+    this.nrecords = bb.getInt(4 * (rank + 2));
+    this.trackStart = 4 * (rank + 3);
+    this.recordStart = trackStart + 4 * totalSize;
+
+    int len = recordStart + RECORD_SIZE * nrecords;
+    if (bb.limit() != len)
+      throw new IllegalStateException("record table len " + bb.limit() + " != " + len);
+  }
+
+  /**
+   * Open the table stored in an index file. Local files are memory mapped.
+   *
+   * @param indexFilename the ncx file
+   * @param pos where the table starts
+   * @param len size of the table in bytes
+   */
+  static FixedRecordTable open(String indexFilename, long pos, int len) throws IOException {
+    File file = new File(indexFilename);
+    if (file.exists()) {
+      try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+        return new FixedRecordTable(channel.map(FileChannel.MapMode.READ_ONLY, pos, len));
+      }
+    }
+
+    byte[] b = new byte[len];
+    try (RandomAccessFile indexRaf = RandomAccessFile.acquire(indexFilename)) {
+      indexRaf.seek(pos);
+      indexRaf.readFully(b);
+    }
+    return new FixedRecordTable(ByteBuffer.wrap(b));
+  }
+
+  static FixedRecordTable wrap(byte[] b) {
+    return new FixedRecordTable(ByteBuffer.wrap(b));
+  }
+
+  /** Encode the SparseArray message in the fixed width layout. */
+  static byte[] encode(GribCollectionProto.SparseArray proto, int scanMode) {
+    int rank = proto.getSizeCount();
+    int ntrack = proto.getTrackCount();
+    int nrecords = proto.getRecordsCount();
+    ByteBuffer bb = ByteBuffer.allocate(4 * (rank + 3) + 4 * ntrack + RECORD_SIZE * nrecords);
+    bb.putInt(rank);
+    for (int i = 0; i < rank; i++)
+      bb.putInt(proto.getSize(i));
+    bb.putInt(proto.getNdups());
+    bb.putInt(nrecords);
+    for (int i = 0; i < ntrack; i++)
+      bb.putInt(proto.getTrack(i));
+    for (int i = 0; i < nrecords; i++) {
+      GribCollectionProto.Record pr = proto.getRecords(i);
+      bb.putInt(pr.getFileno());
+      bb.putLong(pr.getStartPos());
+      bb.putInt(pr.getBmsOffset());
+      bb.putInt(pr.getDrsOffset());
+      bb.putInt(scanMode);
+    }
+    return bb.array();
+  }
+
+  GribCollectionImmutable.Record getContent(int idx) {
+    int contentIdx = bb.getInt(trackStart + 4 * idx) - 1;
+    if (contentIdx < 0)
+      return null; // missing
+    return getRecord(contentIdx);
+  }
+
+  GribCollectionImmutable.Record getContent(int[] index) {
+    int where = 0;
+    for (int i = 0; i < index.length; i++)
+      where += index[i] * stride[i];
+    return getContent(where);
+  }
+
+  private GribCollectionImmutable.Record getRecord(int contentIdx) {
+    int start = recordStart + RECORD_SIZE * contentIdx;
+    return new GribCollectionImmutable.Record(bb.getInt(start), bb.getLong(start + 4), bb.getInt(start + 12),
+        bb.getInt(start + 16));
+  }
+
+  int[] getShape() {
+    return shape.clone();
+  }
+
+  int getNrecords() {
+    return nrecords;
+  }
+
+  int countNotMissing() {
+    int result = 0;
+    for (int i = 0; i < totalSize; i++)
+      if (bb.getInt(trackStart + 4 * i) > 0)
+        result++;
+    return result;
+  }
+
+  /** Read the whole table into a SparseArray, for debugging and reports. */
+  SparseArray<GribCollectionImmutable.Record> toSparseArray() {
+    int[] track = new int[totalSize];
+    for (int i = 0; i < totalSize; i++)
+      track[i] = bb.getInt(trackStart + 4 * i);
+    List<GribCollectionImmutable.Record> records = new ArrayList<>(nrecords);
+    for (int i = 0; i < nrecords; i++)
+      records.add(getRecord(i));
+    return new SparseArray<>(getShape(), track, records, ndups);
+  }
+
+  //////////////////////////////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Rewrite a GRIB collection ncx file that uses SparseArray messages for its record tables, with fixed width record
+   * tables. Partition indexes have no record tables, and are not converted.
+   *
+   * @param in existing ncx file, with a version before {@link #VERSION}
+   * @param out write the converted file here; must not be the same as in
+   */
+  static void convert(File in, File out) throws IOException {
+    if (in.getCanonicalFile().equals(out.getCanonicalFile()))
+      throw new IllegalArgumentException("Cant convert " + in + " in place");
+
+    try (RandomAccessFile raf = new RandomAccessFile(in.getPath(), "r")) {
+      raf.order(RandomAccessFile.BIG_ENDIAN);
+      String magic = Grib2CollectionWriter.MAGIC_START;
+      if (!NcStream.readAndTest(raf, magic.getBytes(StandardCharsets.UTF_8))) {
+        magic = Grib1CollectionWriter.MAGIC_START;
+        raf.seek(0);
+        if (!NcStream.readAndTest(raf, magic.getBytes(StandardCharsets.UTF_8)))
+          throw new IOException("Not a GRIB collection index " + in);
+      }
+      boolean isGrib1 = magic.equals(Grib1CollectionWriter.MAGIC_START);
+
+      int version = raf.readInt();
+      if (version >= VERSION)
+        throw new IOException("Index " + in + " already has version " + version);
+      long skip = raf.readLong();
+      raf.skipBytes(skip);
+      byte[] m = new byte[NcStream.readVInt(raf)];
+      raf.readFully(m);
+      GribCollectionProto.GribCollection proto = GribCollectionProto.GribCollection.parseFrom(m);
+
+      if (out.exists()) {
+        RandomAccessFile.eject(out.getPath());
+        if (!out.delete())
+          throw new IOException("Cant delete " + out);
+      }
+
+      boolean ok = false;
+      try (RandomAccessFile outRaf = new RandomAccessFile(out.getPath(), "rw")) {
+        outRaf.order(RandomAccessFile.BIG_ENDIAN);
+        outRaf.write(magic.getBytes(StandardCharsets.UTF_8));
+        outRaf.writeInt(VERSION);
+        long lenPos = outRaf.getFilePointer();
+        outRaf.writeLong(0); // save space to write the length of the record section
+        long start = outRaf.getFilePointer();
+
+        // Best and TwoD variables may share a record table
+        Map<Long, long[]> moved = new HashMap<>();
+        GribCollectionProto.GribCollection.Builder builder = proto.toBuilder();
+        for (GribCollectionProto.Dataset.Builder ds : builder.getDatasetBuilderList()) {
+          for (GribCollectionProto.Group.Builder group : ds.getGroupsBuilderList()) {
+            int scanMode = getScanMode(group.getGds(), proto.getCenter(), isGrib1);
+            for (GribCollectionProto.Variable.Builder var : group.getVariablesBuilderList()) {
+              if (var.getRecordsLen() == 0)
+                continue;
+              long[] where = moved.get(var.getRecordsPos());
+              if (where == null) {
+                byte[] b = new byte[var.getRecordsLen()];
+                raf.seek(var.getRecordsPos());
+                raf.readFully(b);
+                byte[] fixed = encode(GribCollectionProto.SparseArray.parseFrom(b), scanMode);
+                where = new long[] {outRaf.getFilePointer(), fixed.length};
+                outRaf.write(fixed);
+                moved.put(var.getRecordsPos(), where);
+              }
+              var.setRecordsPos(where[0]);
+              var.setRecordsLen((int) where[1]);
+            }
+          }
+        }
+
+        long pos = outRaf.getFilePointer();
+        outRaf.seek(lenPos);
+        outRaf.writeLong(pos - start);
+        outRaf.seek(pos);
+
+        byte[] b = builder.build().toByteArray();
+        NcStream.writeVInt(outRaf, b.length);
+        outRaf.write(b);
+        ok = true;
+
+      } finally {
+        if (!ok && !out.delete())
+          logger.warn("Cant delete {} after failed conversion", out);
+      }
+    }
+  }
+
+  private static int getScanMode(GribCollectionProto.Gds gds, int center, boolean isGrib1) {
+    if (!isGrib1)
+      return new Grib2SectionGridDefinition(gds.getGds().toByteArray()).getGDS().getScanMode();
+
+    Grib1Gds gds1 = (gds.getPredefinedGridDefinition() > 0)
+        ? Grib1GdsPredefined.factory(center, gds.getPredefinedGridDefinition())
+        : new Grib1SectionGridDefinition(gds.getGds().toByteArray()).getGDS();
+    return gds1.getScanMode();
+  }
+}
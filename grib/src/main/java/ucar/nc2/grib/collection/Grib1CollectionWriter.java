@@ -84,7 +84,7 @@ class Grib1CollectionWriter extends GribCollectionWriter {
    * MAGIC_START
    * version
    * sizeRecords
-   * VariableRecords (sizeRecords bytes)
+   * VariableRecords (sizeRecords bytes), or FixedRecordTable's for version 4
    * sizeIndex
    * GribCollectionIndex (sizeIndex bytes)
    */
@@ -95,7 +95,12 @@ class Grib1CollectionWriter extends GribCollectionWriter {
     Grib1Record first = null; // take global metadata from here
     boolean deleteOnClose = false;
 
-    if (idxFile.exists()) {
+    // an index with fixed record tables is written to a new file, then moved over the old one
+    boolean fixedRecords = GribCdmIndex.writeFixedRecordTables;
+    File writeFile = fixedRecords ? makeTempIndex(idxFile) : idxFile;
+    boolean written = false;
+
+    if (!fixedRecords && idxFile.exists()) {
       RandomAccessFile.eject(idxFile.getPath());
       if (!idxFile.delete()) {
         logger.warn(" gc1 cant delete index file {}", idxFile.getPath());
@@ -103,12 +108,12 @@ class Grib1CollectionWriter extends GribCollectionWriter {
     }
     logger.debug(" createIndex for {}", idxFile.getPath());
 
-    try (RandomAccessFile raf = new RandomAccessFile(idxFile.getPath(), "rw")) {
+    try (RandomAccessFile raf = new RandomAccessFile(writeFile.getPath(), "rw")) {
       raf.order(RandomAccessFile.BIG_ENDIAN);
 
       //// header message
       raf.write(MAGIC_START.getBytes(StandardCharsets.UTF_8));
-      raf.writeInt(version);
+      raf.writeInt(fixedRecords ? FixedRecordTable.VERSION : version);
       long lenPos = raf.getFilePointer();
       raf.writeLong(0); // save space to write the length of the record section
       long countBytes = 0;
@@ -122,7 +127,7 @@ class Grib1CollectionWriter extends GribCollectionWriter {
             first = vb.first;
           }
           GribCollectionProto.SparseArray vr = writeSparseArray(vb, g.fileSet);
-          byte[] b = vr.toByteArray();
+          byte[] b = fixedRecords ? FixedRecordTable.encode(vr, g.gdss.getGDS().getScanMode()) : vr.toByteArray();
           vb.pos = raf.getFilePointer();
           vb.length = b.length;
           raf.write(b);
@@ -225,15 +230,19 @@ class Grib1CollectionWriter extends GribCollectionWriter {
 
       logger.debug("  write GribCollectionIndex= {} bytes", b.length);
       logger.debug("  file size =  {} bytes", raf.length());
-      return true;
+      written = true;
 
     } finally {
 
       // remove it on failure
-      if (deleteOnClose && !idxFile.delete()) {
-        logger.error(" gc1 cant deleteOnClose index file {}", idxFile.getPath());
+      if ((deleteOnClose || fixedRecords && !written) && !writeFile.delete()) {
+        logger.error(" gc1 cant deleteOnClose index file {}", writeFile.getPath());
       }
     }
+
+    if (fixedRecords)
+      moveIndex(writeFile, idxFile);
+    return true;
   }
 
   /*
@@ -85,7 +85,7 @@ class Grib2CollectionWriter extends GribCollectionWriter {
    * MAGIC_START
    * version
    * sizeRecords
-   * SparseArray's (sizeRecords bytes)
+   * SparseArray's (sizeRecords bytes), or FixedRecordTable's for version 4
    * sizeIndex
    * GribCollectionIndex (sizeIndex bytes)
    */
@@ -95,7 +95,12 @@ class Grib2CollectionWriter extends GribCollectionWriter {
     Grib2Record first = null; // take global metadata from here
     boolean deleteOnClose = false;
 
-    if (idxFile.exists()) {
+    // an index with fixed record tables is written to a new file, then moved over the old one
+    boolean fixedRecords = GribCdmIndex.writeFixedRecordTables;
+    File writeFile = fixedRecords ? makeTempIndex(idxFile) : idxFile;
+    boolean written = false;
+
+    if (!fixedRecords && idxFile.exists()) {
       RandomAccessFile.eject(idxFile.getPath());
       if (!idxFile.delete()) {
         logger.error("gc2 cant delete index file {}", idxFile.getPath());
@@ -103,11 +108,11 @@ class Grib2CollectionWriter extends GribCollectionWriter {
     }
     logger.debug(" createIndex for {}", idxFile.getPath());
 
-    try (RandomAccessFile raf = new RandomAccessFile(idxFile.getPath(), "rw")) {
+    try (RandomAccessFile raf = new RandomAccessFile(writeFile.getPath(), "rw")) {
       //// header message
       raf.order(RandomAccessFile.BIG_ENDIAN);
       raf.write(MAGIC_START.getBytes(StandardCharsets.UTF_8));
-      raf.writeInt(version);
+      raf.writeInt(fixedRecords ? FixedRecordTable.VERSION : version);
       long lenPos = raf.getFilePointer();
       raf.writeLong(0); // save space to write the length of the record section
       long countBytes = 0;
@@ -120,7 +125,7 @@ class Grib2CollectionWriter extends GribCollectionWriter {
           if (first == null)
             first = vb.first;
           GribCollectionProto.SparseArray vr = writeSparseArray(vb, g.fileSet);
-          byte[] b = vr.toByteArray();
+          byte[] b = fixedRecords ? FixedRecordTable.encode(vr, g.gdss.getGDS().getScanMode()) : vr.toByteArray();
           vb.pos = raf.getFilePointer();
           vb.length = b.length;
           raf.write(b);
@@ -222,13 +227,16 @@ class Grib2CollectionWriter extends GribCollectionWriter {
       NcStream.writeVInt(raf, b.length); // message size
       raf.write(b); // message - all in one gulp
       logger.debug("  write GribCollectionIndex= {} bytes", b.length);
+      written = true;
 
     } finally {
       // remove it on failure
-      if (deleteOnClose && !idxFile.delete())
-        logger.error(" gc2 cant deleteOnClose index file {}", idxFile.getPath());
+      if ((deleteOnClose || fixedRecords && !written) && !writeFile.delete())
+        logger.error(" gc2 cant deleteOnClose index file {}", writeFile.getPath());
     }
 
+    if (fixedRecords)
+      moveIndex(writeFile, idxFile);
     return true;
   }
 
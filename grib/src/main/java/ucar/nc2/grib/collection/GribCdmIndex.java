@@ -62,6 +62,16 @@ public class GribCdmIndex implements IndexReader {
     gribCollectionCache = new ucar.nc2.util.cache.FileCacheGuava("DefaultGribCollectionCache", maxElementsInMemory);
   }
 
+  /**
+   * Cache the partition indexes, bounded by the total size of their ncx files. A cache is also needed for
+   * PartitionCollectionImmutable to prefetch the partitions that a read will use.
+   *
+   * @param maxBytes maximum total size of the cached index files, in bytes.
+   */
+  public static void initPartitionIndexCache(long maxBytes) {
+    setGribCollectionCache(new PartitionIndexCache("PartitionIndexCache", maxBytes));
+  }
+
   public static void disableGribCollectionCache() {
     if (null != gribCollectionCache)
       gribCollectionCache.disable();
@@ -74,6 +84,28 @@ public class GribCdmIndex implements IndexReader {
     gribCollectionCache = cache;
   }
 
+  // write fixed width record tables in new ncx files
+  static boolean writeFixedRecordTables;
+
+  /**
+   * Write the record tables of new GribCollection indexes with a fixed width layout, which is memory mapped when
+   * read, instead of as protobuf messages that are read into the heap. These indexes have version 4, and can't be read
+   * by earlier versions of the library.
+   */
+  public static void setWriteFixedRecordTables(boolean fixed) {
+    writeFixedRecordTables = fixed;
+  }
+
+  /**
+   * Rewrite an existing GribCollection index with fixed width record tables.
+   *
+   * @param ncxFile existing GribCollection (not partition) ncx file
+   * @param result write the converted index here; must not be ncxFile
+   */
+  public static void convertToFixedRecordTables(File ncxFile, File result) throws IOException {
+    FixedRecordTable.convert(ncxFile, result);
+  }
+
   // open GribCollectionImmutable from an existing index file. return null on failure
   static GribCollectionImmutable acquireGribCollection(FileFactory factory, Object hashKey, String location,
       int buffer_size, CancelTask cancelTask, Object spiObject) throws IOException {
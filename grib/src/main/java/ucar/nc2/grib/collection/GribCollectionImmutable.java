@@ -462,6 +462,7 @@ public abstract class GribCollectionImmutable implements Closeable, FileCacheabl
 
     // read in on demand
     private SparseArray<Record> sa; // for GC only; lazily read; same array shape as variable, minus x and y
+    private FixedRecordTable fixedRecords; // instead of sa, when the ncx has fixed width record tables
 
     protected VariableIndex(GroupGC g, GribCollectionMutable.VariableIndex gcVar) {
       this.group = g;
@@ -478,11 +479,17 @@ public abstract class GribCollectionImmutable implements Closeable, FileCacheabl
     }
 
     public synchronized void readRecords() throws IOException {
-      if (this.sa != null)
+      if (this.sa != null || this.fixedRecords != null)
         return;
 
       if (recordsLen == 0)
         return;
+
+      if (getVersion() >= FixedRecordTable.VERSION) {
+        this.fixedRecords = FixedRecordTable.open(indexFilename, recordsPos, recordsLen);
+        return;
+      }
+
       byte[] b = new byte[recordsLen];
 
       try (RandomAccessFile indexRaf = RandomAccessFile.acquire(indexFilename)) {
@@ -526,11 +533,11 @@ public abstract class GribCollectionImmutable implements Closeable, FileCacheabl
     }
 
     synchronized Record getRecordAt(int sourceIndex) {
-      return sa.getContent(sourceIndex);
+      return (fixedRecords != null) ? fixedRecords.getContent(sourceIndex) : sa.getContent(sourceIndex);
     }
 
     synchronized Record getRecordAt(int[] sourceIndex) {
-      return sa.getContent(sourceIndex);
+      return (fixedRecords != null) ? fixedRecords.getContent(sourceIndex) : sa.getContent(sourceIndex);
     }
 
     ///////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -613,7 +620,7 @@ public abstract class GribCollectionImmutable implements Closeable, FileCacheabl
 
         want[count++] = idx;
       }
-      return sa.getContent(want);
+      return getRecordAt(want);
     }
 
     public List<Coordinate> getCoordinates() {
@@ -649,11 +656,14 @@ public abstract class GribCollectionImmutable implements Closeable, FileCacheabl
       return coordIndex;
     }
 
+    // a fixed width record table is read into a new SparseArray each time
     public SparseArray<Record> getSparseArray() {
-      return sa;
+      return (fixedRecords != null) ? fixedRecords.toSparseArray() : sa;
     }
 
     public int countNRecords() {
+      if (fixedRecords != null)
+        return fixedRecords.countNotMissing();
       return sa == null ? -1 : sa.countNotMissing();
     }
 
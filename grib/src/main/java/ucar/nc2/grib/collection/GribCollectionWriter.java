@@ -6,6 +6,11 @@
 package ucar.nc2.grib.collection;
 
 import com.google.protobuf.ByteString;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import thredds.inventory.MCollection;
 import ucar.nc2.grib.coord.Coordinate;
 import ucar.nc2.grib.coord.CoordinateEns;
@@ -17,6 +22,7 @@ import ucar.nc2.grib.coord.CoordinateVert;
 import ucar.nc2.grib.coord.EnsCoordValue;
 import ucar.nc2.grib.coord.TimeCoordIntvValue;
 import ucar.nc2.grib.coord.VertCoordValue;
+import ucar.unidata.io.RandomAccessFile;
 
 /**
  * Common superclass for writing Grib ncx files
@@ -35,6 +41,35 @@ class GribCollectionWriter {
     this.logger = logger;
   }
 
+  /**
+   * Make a new file next to the index, to write a new version of the index into.
+   * Readers memory map the record tables of an index with version {@link FixedRecordTable#VERSION}, so such an index
+   * must not be rewritten in place.
+   */
+  static File makeTempIndex(File idxFile) throws IOException {
+    return File.createTempFile(idxFile.getName(), ".tmp", idxFile.getAbsoluteFile().getParentFile());
+  }
+
+  /**
+   * Replace the index with the new file written by makeTempIndex. Readers of the old index keep their view of it.
+   * If the old index cant be replaced (on Windows, while it is mapped), it is left unchanged and the new file is
+   * deleted.
+   */
+  static void moveIndex(File tmpFile, File idxFile) throws IOException {
+    RandomAccessFile.eject(idxFile.getPath());
+    try {
+      try {
+        Files.move(tmpFile.toPath(), idxFile.toPath(), StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tmpFile.toPath(), idxFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException e) {
+      Files.deleteIfExists(tmpFile.toPath());
+      throw e;
+    }
+  }
+
   protected GribCollectionProto.Gds writeGdsProto(GribHorizCoordSystem hcs) {
     return writeGdsProto(hcs.getRawGds(), hcs.getPredefinedGridDefinition());
   }
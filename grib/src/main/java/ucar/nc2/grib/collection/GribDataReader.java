@@ -129,12 +129,13 @@ public abstract class GribDataReader {
     SectionIterable sectionWanted = section.subSection(0, rank - 2); // all but x, y
     SectionIterable.SectionIterator iterWanted = sectionWanted.getIterator(); // iterator over wanted indices in vindexP
     int[] indexWanted = new int[rank - 2]; // place to put the iterator result
-    int[] useIndex = indexWanted;
 
-    // collect all the records that need to be read
-    int resultPos = 0;
+    // find the wanted indices and the partitions they are in
+    List<int[]> useIndices = new ArrayList<>();
+    Set<Integer> partnos = new HashSet<>();
     while (iterWanted.hasNext()) {
       iterWanted.next(indexWanted); // returns the vindexP index in indexWanted array
+      int[] useIndex = indexWanted.clone();
 
       // for MRUTP, must munge the index here (not in vindexP.getDataRecord, because its recursive
       if (vindexP.getType() == GribCollectionImmutable.Type.MRUTP) {
@@ -149,7 +150,16 @@ public abstract class GribDataReader {
         System.arraycopy(indexWanted, 1, indexReallyWanted, 2, indexWanted.length - 1);
         useIndex = indexReallyWanted;
       }
+      useIndices.add(useIndex);
+      partnos.add(vindexP.getPartno(useIndex));
+    }
 
+    // open the partitions concurrently, rather than one at a time in getDataRecord
+    vindexP.prefetch(partnos);
+
+    // collect all the records that need to be read
+    int resultPos = 0;
+    for (int[] useIndex : useIndices) {
       PartitionCollectionImmutable.DataRecord record = vindexP.getDataRecord(useIndex);
       if (record == null) {
         if (Grib.debugRead)
@@ -207,6 +217,13 @@ public abstract class GribDataReader {
   private Array readDataFromPartition2(PartitionCollectionImmutable.VariableIndexPartitioned vindexP, CoordsSet want,
       RangeIterator yRange, RangeIterator xRange) throws IOException {
 
+    // open the partitions concurrently, rather than one at a time in getDataRecord
+    Set<Integer> partnos = new HashSet<>();
+    for (SubsetParams coords : want) {
+      partnos.add(vindexP.getPartno(coords));
+    }
+    vindexP.prefetch(partnos);
+
     // collect all the records that need to be read
     int resultPos = 0;
     for (SubsetParams coords : want) {
@@ -5,7 +5,14 @@
 
 package ucar.nc2.grib.collection;
 
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.slf4j.Logger;
@@ -46,6 +53,11 @@ public abstract class PartitionCollectionImmutable extends GribCollectionImmutab
   private static final Logger logger = LoggerFactory.getLogger(PartitionCollectionImmutable.class);
   public static int countPC; // debug
 
+  // number of partitions opened concurrently by VariableIndexPartitioned.prefetch(), shared by all collections
+  private static final int prefetchConcurrency = 8;
+  private static final ExecutorService prefetchExecutor = Executors.newFixedThreadPool(prefetchConcurrency,
+      new ThreadFactoryBuilder().setNameFormat("PartitionCollection-prefetch-%d").setDaemon(true).build());
+
   static final ucar.nc2.util.cache.FileFactory partitionCollectionFactory = new FileFactory() {
     public FileCacheable open(DatasetUrl durl, int buffer_size, CancelTask cancelTask, Object iospMessage)
         throws IOException {
@@ -372,6 +384,52 @@ public abstract class PartitionCollectionImmutable extends GribCollectionImmutab
             Arrays.toString(indexWanted), indexFilename, group.ds.gctype);
       }
 
+      int masterIdx = getMasterRuntimeIndex(indexWanted);
+      int partno = run2part[masterIdx];
+      if (partno < 0) {
+        return null; // LOOK is this possible?
+      }
+
+      // the 2D component variable in the partno partition
+      GribCollectionImmutable.VariableIndex vindex2Dpart = getVindex2D(partno);
+
+      if (vindex2Dpart == null) {
+        return null; // missing
+      }
+      if (Grib.debugRead) {
+        logger.debug("  compVindex2D = {}", vindex2Dpart.toStringFrom());
+      }
+
+      if (isPartitionOfPartitions) {
+        VariableIndexPartitioned compVindex2Dp = (VariableIndexPartitioned) vindex2Dpart;
+        return getDataRecordPofP(indexWanted, compVindex2Dp);
+      }
+
+      // translate to coordinates in vindex
+      int[] sourceIndex;
+      if (group.getType() == Type.Best) {
+        sourceIndex = translateIndexBest(indexWanted, vindex2Dpart);
+      } else {
+        sourceIndex = translateIndex2D(indexWanted, vindex2Dpart);
+      }
+
+      if (sourceIndex == null) {
+        return null; // missing
+      }
+      GribCollectionImmutable.Record record = vindex2Dpart.getRecordAt(sourceIndex);
+      if (record == null) {
+        return null;
+      }
+
+      if (Grib.debugRead) {
+        logger.debug("  result success: partno={} fileno={}", partno, record.fileno);
+      }
+      return new DataRecord(PartitionCollectionImmutable.this, partno, vindex2Dpart.group.getGdsHorizCoordSys(),
+          record);
+    }
+
+    // find the master runtime index for a request
+    private int getMasterRuntimeIndex(int[] indexWanted) {
       // find the runtime index
       int firstIndex = indexWanted[0];
       int masterIdx;
@@ -414,47 +472,65 @@ public abstract class PartitionCollectionImmutable extends GribCollectionImmutab
         throw new IllegalStateException("Unknown gctype= " + group.ds.gctype + " on " + indexFilename);
       }
 
-      int partno = run2part[masterIdx];
-      if (partno < 0) {
-        return null; // LOOK is this possible?
-      }
-
-      // the 2D component variable in the partno partition
-      GribCollectionImmutable.VariableIndex vindex2Dpart = getVindex2D(partno);
+      return masterIdx;
+    }
 
-      if (vindex2Dpart == null) {
-        return null; // missing
-      }
-      if (Grib.debugRead) {
-        logger.debug("  compVindex2D = {}", vindex2Dpart.toStringFrom());
-      }
+    /**
+     * Find the partition that holds the data record for a request, without opening it.
+     *
+     * @param indexWanted the source index request, excluding x and y
+     * @return index into the partitions, or -1 if none
+     */
+    int getPartno(int[] indexWanted) {
+      int masterIdx = getMasterRuntimeIndex(indexWanted);
+      return (masterIdx < 0 || masterIdx >= run2part.length) ? -1 : run2part[masterIdx];
+    }
 
-      if (isPartitionOfPartitions) {
-        VariableIndexPartitioned compVindex2Dp = (VariableIndexPartitioned) vindex2Dpart;
-        return getDataRecordPofP(indexWanted, compVindex2Dp);
-      }
+    /**
+     * Find the partition that holds the data record for a coordinate request, without opening it.
+     *
+     * @param coords the coordinate request
+     * @return index into the partitions, or -1 if none
+     */
+    int getPartno(SubsetParams coords) {
+      CalendarDate runtime = coords.getRunTime();
+      int masterIdx = runtime == null ? -1 : masterRuntime.getIndex(runtime.getMillis());
+      return (masterIdx < 0 || masterIdx >= run2part.length) ? -1 : run2part[masterIdx];
+    }
 
-      // translate to coordinates in vindex
-      int[] sourceIndex;
-      if (group.getType() == Type.Best) {
-        sourceIndex = translateIndexBest(indexWanted, vindex2Dpart);
-      } else {
-        sourceIndex = translateIndex2D(indexWanted, vindex2Dpart);
+    /**
+     * Open the given partitions and read the records of this variable from them, concurrently.
+     * Only done when GribCdmIndex.gribCollectionCache is set, otherwise they would be opened again when the data is
+     * read.
+     *
+     * @param partnos indexes into the partitions, as from getPartno(); negative values are ignored
+     */
+    void prefetch(Collection<Integer> partnos) throws IOException {
+      if (GribCdmIndex.gribCollectionCache == null || partnos.size() < 2) {
+        return;
       }
 
-      if (sourceIndex == null) {
-        return null; // missing
-      }
-      GribCollectionImmutable.Record record = vindex2Dpart.getRecordAt(sourceIndex);
-      if (record == null) {
-        return null;
+      List<Future<Void>> futures = new ArrayList<>(partnos.size());
+      for (int partno : partnos) {
+        if (partno >= 0) {
+          futures.add(prefetchExecutor.submit(() -> {
+            getVindex2D(partno);
+            return null;
+          }));
+        }
       }
-
-      if (Grib.debugRead) {
-        logger.debug("  result success: partno={} fileno={}", partno, record.fileno);
+      for (Future<Void> future : futures) {
+        try {
+          future.get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IOException("Interrupted while opening partitions of " + indexFilename, e);
+        } catch (ExecutionException e) {
+          Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+          Throwables.throwIfUnchecked(e.getCause());
+          throw new IOException("Error opening partitions of " + indexFilename, e.getCause());
+        }
       }
-      return new DataRecord(PartitionCollectionImmutable.this, partno, vindex2Dpart.group.getGdsHorizCoordSys(),
-          record);
     }
 
     /**
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.nc2.grib.collection;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Formatter;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import ucar.nc2.dataset.DatasetUrl;
+import ucar.nc2.util.CancelTask;
+import ucar.nc2.util.cache.FileCacheIF;
+import ucar.nc2.util.cache.FileCacheable;
+import ucar.nc2.util.cache.FileFactory;
+
+/**
+ * Memory bounded cache of the partition indexes of a PartitionCollectionImmutable.
+ * The parsed GribCollectionImmutable holds the header and, once read, the SparseArray record tables of its variables,
+ * so each entry is weighed by the size of its ncx index file, which bounds both.
+ * An entry is reopened when its index file has been modified.
+ * Install with {@link GribCdmIndex#initPartitionIndexCache(long)}.
+ *
+ * @since 5.5.4
+ */
+public class PartitionIndexCache implements FileCacheIF {
+
+  private final String name;
+  private final long maxBytes;
+  private Cache<String, Entry> cache;
+
+  private static class Entry {
+    final FileCacheable fc;
+    final long lastModified;
+    final int weight;
+
+    Entry(FileCacheable fc, File file) {
+      this.fc = fc;
+      this.lastModified = file.lastModified();
+      this.weight = (int) Math.min(Integer.MAX_VALUE, Math.max(1, file.length()));
+    }
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param name name of the cache, for showCache().
+   * @param maxBytes maximum total size of the cached index files, in bytes.
+   */
+  public PartitionIndexCache(String name, long maxBytes) {
+    this.name = name;
+    this.maxBytes = maxBytes;
+    // a single segment, otherwise maxBytes is divided between the segments and enforced in each one
+    this.cache = CacheBuilder.newBuilder().concurrencyLevel(1).maximumWeight(maxBytes)
+        .weigher((String key, Entry e) -> e.weight).recordStats().build();
+  }
+
+  @Override
+  public void enable() {}
+
+  @Override
+  public void disable() {
+    clearCache(true);
+    cache = null;
+  }
+
+  @Override
+  public FileCacheable acquire(FileFactory factory, DatasetUrl durl) throws IOException {
+    return acquire(factory, durl.trueurl, durl, -1, null, null);
+  }
+
+  @Override
+  public FileCacheable acquire(FileFactory factory, Object hashKey, DatasetUrl durl, int buffer_size,
+      CancelTask cancelTask, Object spiObject) throws IOException {
+    if (null == hashKey)
+      hashKey = durl.trueurl;
+    if (null == hashKey)
+      throw new IllegalArgumentException();
+    String key = (String) hashKey;
+    File file = new File(durl.trueurl);
+
+    // Map.get does not count as a hit or miss
+    Entry entry = cache.asMap().get(key);
+    if (entry != null && entry.lastModified != file.lastModified())
+      cache.asMap().remove(key, entry);
+
+    try {
+      return cache.get(key, () -> new Entry(factory.open(durl, buffer_size, cancelTask, spiObject), file)).fc;
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException)
+        throw (IOException) e.getCause();
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+  @Override
+  public boolean release(FileCacheable ncfile) {
+    return false;
+  }
+
+  @Override
+  public void eject(Object hashKey) {
+    cache.invalidate(hashKey);
+  }
+
+  @Override
+  public void clearCache(boolean force) {
+    cache.invalidateAll();
+  }
+
+  /** Hit and miss statistics. */
+  public CacheStats getStats() {
+    return cache.stats();
+  }
+
+  /** Number of cached partition indexes. */
+  public long size() {
+    return cache.size();
+  }
+
+  /** Total size of the cached index files, in bytes. */
+  public long getWeight() {
+    long total = 0;
+    for (Entry e : cache.asMap().values())
+      total += e.weight;
+    return total;
+  }
+
+  @Override
+  public void resetTracking() {}
+
+  @Override
+  public void showTracking(Formatter format) {}
+
+  @Override
+  public void showCache(Formatter f) {
+    f.format("%n%s (%d indexes, %d of %d bytes)%n%s%n", name, size(), getWeight(), maxBytes, cache.stats());
+  }
+
+  @Override
+  public void showStats(Formatter f) {
+    f.format("%s", cache.stats());
+  }
+
+  @Override
+  public List<String> showCache() {
+    List<String> result = new ArrayList<>();
+    for (Map.Entry<String, Entry> e : cache.asMap().entrySet())
+      result.add(e.getKey() + " " + e.getValue().weight);
+    return result;
+  }
+}
@@ -124,10 +124,21 @@ public class Grib1DataReader {
       }
       BitReader reader = new BitReader(raf, startPos + 11);
       values = new float[nPts];
-      for (int i = 0; i < nPts; i++) {
+      int npacked = 0;
+      if (!isConstant) {
+        for (int i = 0; i < nPts; i++) {
+          if (GribNumbers.testBitIsSet(bitmap[i / 8], i % 8)) {
+            npacked++;
+          }
+        }
+        // unpack to the front of values, then spread out from the back
+        reader.bits2UIntScaled(info.numberOfBits, npacked, ref, scale, 1.0f, values, 0);
+      }
+      int idx = npacked;
+      for (int i = nPts - 1; i >= 0; i--) {
         if (GribNumbers.testBitIsSet(bitmap[i / 8], i % 8)) {
           if (!isConstant) {
-            values[i] = ref + scale * reader.bits2UInt(info.numberOfBits);
+            values[i] = values[--idx];
           } else { // rdg - added this to handle a constant valued parameter
             values[i] = ref;
           }
@@ -148,9 +159,8 @@ public class Grib1DataReader {
           values = new float[nPts];
         }
         BitReader reader = new BitReader(raf, startPos + 11);
-        for (int i = 0; i < values.length; i++) {
-          values[i] = ref + scale * reader.bits2UInt(info.numberOfBits);
-        }
+        // ref + scale * X, the same as (ref + X * scale) / 1
+        reader.bits2UIntScaled(info.numberOfBits, values.length, ref, scale, 1.0f, values, 0);
         scanningModeCheck(values, scanMode, nxRaw);
 
       } else { // constant valued - same min and max
@@ -476,9 +486,7 @@ public class Grib1DataReader {
 
     // meta groupWidths unsigned_bits(widthOfWidths,numberOfGroups) : read_only;
     int[] groupWidth = new int[NG];
-    for (int group = 0; group < NG; group++) {
-      groupWidth[group] = (int) reader.bits2UInt(widthOfWidths);
-    }
+    reader.bits2UInt(widthOfWidths, NG, groupWidth, 0);
 
     reader.incrByte(); // assume on byte boundary
     showOffset(f, "GroupLength", raf, NL - 1, 2723);
@@ -488,8 +496,7 @@ public class Grib1DataReader {
 
     // meta groupLengths unsigned_bits(widthOfLengths,numberOfGroups) : read_only;
     int[] groupLength = new int[NG];
-    for (int group = 0; group < NG; group++)
-      groupLength[group] = (int) reader.bits2UInt(widthOfLengths);
+    reader.bits2UInt(widthOfLengths, NG, groupLength, 0);
     showOffset(f, "FirstOrderValues", raf, N1 - 1, 5774);
 
     // meta countOfGroupLengths sum(groupLengths);
@@ -508,8 +515,7 @@ public class Grib1DataReader {
     // meta firstOrderValues unsigned_bits(widthOfFirstOrderValues,numberOfGroups) : read_only;
     reader.incrByte(); // assume on byte boundary
     int[] firstOrderValues = new int[NG];
-    for (int group = 0; group < NG; group++)
-      firstOrderValues[group] = (int) reader.bits2UInt(foWidth);
+    reader.bits2UInt(foWidth, NG, firstOrderValues, 0);
     int offset3 = (int) (raf.getFilePointer() - this.startPos);
     f.format("nbytes=%d%n", (foWidth * NG + 7) / 8);
     showOffset(f, "SecondOrderValues", raf, N2 - 1, 11367);
@@ -535,9 +541,9 @@ public class Grib1DataReader {
       int val = 0;
       double log2 = Math.log(2);
       for (int group = 0; group < NG; group++) {
-        for (int i = 0; i < groupLength[group]; i++) {
-          int secVal = (int) reader.bits2UInt(groupWidth[group]);
-          secondOrderValues[val++] = secVal;
+        if (groupLength[group] > 0) {
+          reader.bits2UInt(groupWidth[group], groupLength[group], secondOrderValues, val);
+          val += groupLength[group];
         }
         countGroups++;
       }
@@ -805,9 +811,7 @@ public class Grib1DataReader {
     // *** read int values *******************************************************
     BitReader reader = new BitReader(raf, startPos + 11);
     int[] ivals = new int[nPts];
-    for (int i = 0; i < nPts; i++) {
-      ivals[i] = (int) reader.bits2UInt(numbits);
-    }
+    reader.bits2UInt(numbits, nPts, ivals, 0);
 
     return ivals;
   }
@@ -82,42 +82,43 @@ public class AfwaTables extends Grib1Customizer {
   }
 
   private static void makeGenProcessMap() {
-    genProcessMap = new HashMap<>(100);
-    genProcessMap.put(10, "Mesoscale Model 5 (MM5)");
-    genProcessMap.put(11, "Weather Research and Forecasting Model (WRF)");
-    genProcessMap.put(12, "Multivariate Optimum Interpolation Model (MVOI)");
-    genProcessMap.put(13, "Three Dimensional Variate Model (3DVAR)");
-    genProcessMap.put(14, "Weather Research and Forecasting Model Chemical & Aerosol (WRF-CHEM)");
-    genProcessMap.put(25, "Snow Depth Model (SNODEP) (Manually modified)");
-    genProcessMap.put(26, "Real Time Nephanalysis Model (RTNEPH)");
-    genProcessMap.put(27, "Surface Temperature Model (SFCTMP)");
-    genProcessMap.put(28, "Advect Cloud Model (ADVCLD)");
-    genProcessMap.put(29, "Worldwide Merged Cloud Analysis (WWMCA) (Manually modified)");
-    genProcessMap.put(30, "Short Range Cloud Forecast (SRCF)");
-    genProcessMap.put(31, "Long Range Cloud Forecast (LRCF)");
-    genProcessMap.put(32, "Worldwide Merged Cloud Analysis (WWMCA) (Not modified)");
-    genProcessMap.put(33, "Diagnostic Cloud Forecast v. 3 (DCF3) 3-layer");
-    genProcessMap.put(34, "Stochastic Cloud Forecast Model (SCFM)");
-    genProcessMap.put(35, "Snow Depth Model (SNODEP) (Not modified)");
-    genProcessMap.put(36, "Diagnostic Cloud Forecast v. 3 (DCF3) 5-layer");
-    genProcessMap.put(39, "Diagnostic Cloud Forecast v. 3 (DCF3) P-layer");
-    genProcessMap.put(40, "Diagnostic Cloud Forecast v. 4 (DCF4)");
-    genProcessMap.put(50, "Dust Transport Application (DTA)");
-    genProcessMap.put(55, "Aerosol Model (CDFS-II)");
-    genProcessMap.put(75, "Advanced Climate Modeling and Environmental Simulations (ACMES)");
-    genProcessMap.put(86, "Geostationary satellite-based precipitation model (GEO_PRECIP)");
-    genProcessMap.put(87, "Agricultural Meteorology (AGRMET)");
-    genProcessMap.put(88, "Land Information System (LIS)");
-    genProcessMap.put(96, "Array-flipped (to NOGAPS grid structure) Global Forecast System (GFS)");
-    genProcessMap.put(99, "Ensemble Post-Processor");
-    genProcessMap.put(100, "Ionospheric Forecast Model (IFM)");
-    genProcessMap.put(101, "Parameterized Real-Time Specification Model (PRISM)");
-    genProcessMap.put(125, "Snow Depth Climatology");
-    genProcessMap.put(127, "Unified Model (UM)");
-    genProcessMap.put(200, "NOGAPS post-processed by AFWA");
-    genProcessMap.put(201, "GFS post processed by AFWA");
-    genProcessMap.put(204, "FNMOC NOGAPS geographically subsected by AFWA");
-    genProcessMap.put(250, "Quality Control Display Process (SCIF only)");
+    Map<Integer, String> result = new HashMap<>(100);
+    result.put(10, "Mesoscale Model 5 (MM5)");
+    result.put(11, "Weather Research and Forecasting Model (WRF)");
+    result.put(12, "Multivariate Optimum Interpolation Model (MVOI)");
+    result.put(13, "Three Dimensional Variate Model (3DVAR)");
+    result.put(14, "Weather Research and Forecasting Model Chemical & Aerosol (WRF-CHEM)");
+    result.put(25, "Snow Depth Model (SNODEP) (Manually modified)");
+    result.put(26, "Real Time Nephanalysis Model (RTNEPH)");
+    result.put(27, "Surface Temperature Model (SFCTMP)");
+    result.put(28, "Advect Cloud Model (ADVCLD)");
+    result.put(29, "Worldwide Merged Cloud Analysis (WWMCA) (Manually modified)");
+    result.put(30, "Short Range Cloud Forecast (SRCF)");
+    result.put(31, "Long Range Cloud Forecast (LRCF)");
+    result.put(32, "Worldwide Merged Cloud Analysis (WWMCA) (Not modified)");
+    result.put(33, "Diagnostic Cloud Forecast v. 3 (DCF3) 3-layer");
+    result.put(34, "Stochastic Cloud Forecast Model (SCFM)");
+    result.put(35, "Snow Depth Model (SNODEP) (Not modified)");
+    result.put(36, "Diagnostic Cloud Forecast v. 3 (DCF3) 5-layer");
+    result.put(39, "Diagnostic Cloud Forecast v. 3 (DCF3) P-layer");
+    result.put(40, "Diagnostic Cloud Forecast v. 4 (DCF4)");
+    result.put(50, "Dust Transport Application (DTA)");
+    result.put(55, "Aerosol Model (CDFS-II)");
+    result.put(75, "Advanced Climate Modeling and Environmental Simulations (ACMES)");
+    result.put(86, "Geostationary satellite-based precipitation model (GEO_PRECIP)");
+    result.put(87, "Agricultural Meteorology (AGRMET)");
+    result.put(88, "Land Information System (LIS)");
+    result.put(96, "Array-flipped (to NOGAPS grid structure) Global Forecast System (GFS)");
+    result.put(99, "Ensemble Post-Processor");
+    result.put(100, "Ionospheric Forecast Model (IFM)");
+    result.put(101, "Parameterized Real-Time Specification Model (PRISM)");
+    result.put(125, "Snow Depth Climatology");
+    result.put(127, "Unified Model (UM)");
+    result.put(200, "NOGAPS post-processed by AFWA");
+    result.put(201, "GFS post processed by AFWA");
+    result.put(204, "FNMOC NOGAPS geographically subsected by AFWA");
+    result.put(250, "Quality Control Display Process (SCIF only)");
+    genProcessMap = Collections.unmodifiableMap(result); // all at once - thread safe
   }
 
   /// levels
@@ -152,35 +153,32 @@ public class AfwaTables extends Grib1Customizer {
   }
 
   private static void makeLevelTypesMap() {
-    levelTypesMap = new HashMap<>(100);
+    Map<Integer, VertCoordType> result = new HashMap<>(100);
     // (int code, String desc, String abbrev, String units, String datum, boolean isPositiveUp, boolean isLayer)
-    levelTypesMap.put(21, new VertCoordType(21, "RTNEPH cloud layer", "RTNEPH", "", null, true, true));
-    levelTypesMap.put(210, new VertCoordType(210, "Isobaric Surface", "ISBP", "", null, false, false));
-    levelTypesMap.put(211, new VertCoordType(211, "Boundary layer cloud bottom level", "BCBL", "", null, false, false));
-    levelTypesMap.put(212, new VertCoordType(212, "Boundary layer cloud top level", "BCTL", "", null, false, false));
-    levelTypesMap.put(213, new VertCoordType(213, "Boundary layer cloud layer", "BCY", "", null, false, true));
-    levelTypesMap.put(214, new VertCoordType(214, "Low cloud bottom level", "LCBL", "", null, false, false));
-    levelTypesMap.put(215, new VertCoordType(215, "Low cloud top level", "LCTL", "", null, false, false));
-    levelTypesMap.put(216, new VertCoordType(216, "Low cloud layer", "LCY", "", null, false, true));
-    levelTypesMap.put(217,
-        new VertCoordType(217, "Highest tropospheric freezing level", "HTFL", "K", null, false, false));
-    levelTypesMap.put(218,
-        new VertCoordType(218, "Layer between two temperature levels", "DEGY", "K", null, false, true));
-    levelTypesMap.put(222, new VertCoordType(222, "Middle cloud bottom level", "MCBL", "", null, false, false));
-    levelTypesMap.put(223, new VertCoordType(223, "Middle cloud top level", "MCTL", "", null, false, false));
-    levelTypesMap.put(224, new VertCoordType(224, "Middle cloud layer", "MCY", "", null, false, true));
-    levelTypesMap.put(232, new VertCoordType(232, "High cloud bottom level", "HCBL", "", null, false, false));
-    levelTypesMap.put(233, new VertCoordType(233, "High cloud top level", "HCTL", "", null, false, false));
-    levelTypesMap.put(234, new VertCoordType(234, "High cloud layer", "HCY", "", null, false, true));
-    levelTypesMap.put(242, new VertCoordType(242, "Convective cloud bottom level", "CCBL", "", null, false, false));
-    levelTypesMap.put(243, new VertCoordType(243, "Convective cloud top level", "CCTL", "", null, false, false));
-    levelTypesMap.put(244, new VertCoordType(244, "Convective cloud layer", "CCY", "", null, false, true));
-    levelTypesMap.put(246,
-        new VertCoordType(246, "Specified height level above MSL", "HTIO", "km", "msl", false, false));
-    levelTypesMap.put(251,
-        new VertCoordType(251, "Layer between ground and 850 hPa level", "PTLR", "", null, false, true));
-    levelTypesMap.put(252,
+    result.put(21, new VertCoordType(21, "RTNEPH cloud layer", "RTNEPH", "", null, true, true));
+    result.put(210, new VertCoordType(210, "Isobaric Surface", "ISBP", "", null, false, false));
+    result.put(211, new VertCoordType(211, "Boundary layer cloud bottom level", "BCBL", "", null, false, false));
+    result.put(212, new VertCoordType(212, "Boundary layer cloud top level", "BCTL", "", null, false, false));
+    result.put(213, new VertCoordType(213, "Boundary layer cloud layer", "BCY", "", null, false, true));
+    result.put(214, new VertCoordType(214, "Low cloud bottom level", "LCBL", "", null, false, false));
+    result.put(215, new VertCoordType(215, "Low cloud top level", "LCTL", "", null, false, false));
+    result.put(216, new VertCoordType(216, "Low cloud layer", "LCY", "", null, false, true));
+    result.put(217, new VertCoordType(217, "Highest tropospheric freezing level", "HTFL", "K", null, false, false));
+    result.put(218, new VertCoordType(218, "Layer between two temperature levels", "DEGY", "K", null, false, true));
+    result.put(222, new VertCoordType(222, "Middle cloud bottom level", "MCBL", "", null, false, false));
+    result.put(223, new VertCoordType(223, "Middle cloud top level", "MCTL", "", null, false, false));
+    result.put(224, new VertCoordType(224, "Middle cloud layer", "MCY", "", null, false, true));
+    result.put(232, new VertCoordType(232, "High cloud bottom level", "HCBL", "", null, false, false));
+    result.put(233, new VertCoordType(233, "High cloud top level", "HCTL", "", null, false, false));
+    result.put(234, new VertCoordType(234, "High cloud layer", "HCY", "", null, false, true));
+    result.put(242, new VertCoordType(242, "Convective cloud bottom level", "CCBL", "", null, false, false));
+    result.put(243, new VertCoordType(243, "Convective cloud top level", "CCTL", "", null, false, false));
+    result.put(244, new VertCoordType(244, "Convective cloud layer", "CCY", "", null, false, true));
+    result.put(246, new VertCoordType(246, "Specified height level above MSL", "HTIO", "km", "msl", false, false));
+    result.put(251, new VertCoordType(251, "Layer between ground and 850 hPa level", "PTLR", "", null, false, true));
+    result.put(252,
         new VertCoordType(252, "Layer between lowest soil layer (layer 112) and 800cm", "SBLR", "", null, false, true));
+    levelTypesMap = Collections.unmodifiableMap(result); // all at once - thread safe
   }
 
 }
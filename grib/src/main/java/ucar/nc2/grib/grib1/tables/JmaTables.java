@@ -11,6 +11,7 @@ import ucar.nc2.grib.coord.VertCoordType;
 import ucar.nc2.grib.grib1.Grib1ParamLevel;
 import ucar.nc2.grib.grib1.Grib1ParamTime;
 import ucar.nc2.grib.grib1.Grib1SectionProductDefinition;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -183,15 +184,16 @@ public class JmaTables extends Grib1Customizer {
   }
 
   private static void makeLevelTypesMap() {
-    levelTypesMap = new HashMap<>(10);
+    Map<Integer, VertCoordType> result = new HashMap<>(10);
     // (int code, String desc, String abbrev, String units, String datum, boolean isPositiveUp, boolean isLayer)
-    levelTypesMap.put(100,
+    result.put(100,
         new VertCoordType(100, "Isobaric Surface", "isobaric_surface_low", "hPa", null, false, false)); // 3D
-    levelTypesMap.put(211, new VertCoordType(211, "Entire soil", "entire_soil", "", null, false, false));
-    levelTypesMap.put(212,
+    result.put(211, new VertCoordType(211, "Entire soil", "entire_soil", "", null, false, false));
+    result.put(212,
         new VertCoordType(212, "The bottom of land surface model", "bottom_of_model", "", null, false, false));
-    levelTypesMap.put(213, new VertCoordType(213, "Underground layer number of land surface model", "underground_layer",
+    result.put(213, new VertCoordType(213, "Underground layer number of land surface model", "underground_layer",
         "layer", null, false, false)); // 3D
+    levelTypesMap = Collections.unmodifiableMap(result); // all at once - thread safe
   }
 
   //////////////////// gen process
@@ -206,34 +208,35 @@ public class JmaTables extends Grib1Customizer {
   }
 
   private static void makeGenProcessMap() {
-    genProcessMap = new HashMap<>(100);
-    genProcessMap.put(0, "Undefined (not to specify generating process)");
-    genProcessMap.put(1, "Global Spectral Model (GSM8803_T63L16)");
-    genProcessMap.put(2, "Global Spectral Model (GSM8903_T106L21)");
-    genProcessMap.put(3, "Global Spectral Model (GSM9603_T213L30)");
-    genProcessMap.put(4, "Global Spectral Model (GSM0103_T213L40) ");
-    genProcessMap.put(21, "One-week EPS (GSM0103_T106L40)");
-    genProcessMap.put(31, "Regional Spectral Model (RSM0103)");
-    genProcessMap.put(32, "Mesoscale Model (MSM0103)");
-    genProcessMap.put(51, "One-month EPS (GSM9603_T63L30)");
-    genProcessMap.put(52, "One-month EPS (GSM9603_T106L40)");
-    genProcessMap.put(53, "One-month EPS (GSM0603C_TL159L40)");
-    genProcessMap.put(70, "Seasonal EPS (GSM0103_T63L40)");
-    genProcessMap.put(71, "Seasonal EPS (GSM0502C_TL95L40)");
-    genProcessMap.put(90, "Sea surface wind correction");
-    genProcessMap.put(101, "NOAA-AVHRR analysis data");
-    genProcessMap.put(102, "VISSR grid point data (for cloudiness, TBB etc.)");
-    genProcessMap.put(103, "Long-wave radiation data");
-    genProcessMap.put(104, "GMS data (sea surface temperature)");
-    genProcessMap.put(105, "Snow/ice area data");
-    genProcessMap.put(106, "Global solar radiation");
-    genProcessMap.put(141, "Sea surface temperature analysis (average for dekad or ten days)");
-    genProcessMap.put(142, "Sea surface temperature analysis");
-    genProcessMap.put(143, "Ocean current analysis");
-    genProcessMap.put(144, "Global ocean wave model");
-    genProcessMap.put(150, "Regional ocean wave model");
-    genProcessMap.put(200, "Volcaninc ash prediction");
-    genProcessMap.put(201, "Japanese 55-year Reanalysis (JRA-55)");
+    Map<Integer, String> result = new HashMap<>(100);
+    result.put(0, "Undefined (not to specify generating process)");
+    result.put(1, "Global Spectral Model (GSM8803_T63L16)");
+    result.put(2, "Global Spectral Model (GSM8903_T106L21)");
+    result.put(3, "Global Spectral Model (GSM9603_T213L30)");
+    result.put(4, "Global Spectral Model (GSM0103_T213L40) ");
+    result.put(21, "One-week EPS (GSM0103_T106L40)");
+    result.put(31, "Regional Spectral Model (RSM0103)");
+    result.put(32, "Mesoscale Model (MSM0103)");
+    result.put(51, "One-month EPS (GSM9603_T63L30)");
+    result.put(52, "One-month EPS (GSM9603_T106L40)");
+    result.put(53, "One-month EPS (GSM0603C_TL159L40)");
+    result.put(70, "Seasonal EPS (GSM0103_T63L40)");
+    result.put(71, "Seasonal EPS (GSM0502C_TL95L40)");
+    result.put(90, "Sea surface wind correction");
+    result.put(101, "NOAA-AVHRR analysis data");
+    result.put(102, "VISSR grid point data (for cloudiness, TBB etc.)");
+    result.put(103, "Long-wave radiation data");
+    result.put(104, "GMS data (sea surface temperature)");
+    result.put(105, "Snow/ice area data");
+    result.put(106, "Global solar radiation");
+    result.put(141, "Sea surface temperature analysis (average for dekad or ten days)");
+    result.put(142, "Sea surface temperature analysis");
+    result.put(143, "Ocean current analysis");
+    result.put(144, "Global ocean wave model");
+    result.put(150, "Regional ocean wave model");
+    result.put(200, "Volcaninc ash prediction");
+    result.put(201, "Japanese 55-year Reanalysis (JRA-55)");
+    genProcessMap = Collections.unmodifiableMap(result); // all at once - thread safe
   }
 
 }
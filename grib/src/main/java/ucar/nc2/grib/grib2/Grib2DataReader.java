@@ -9,6 +9,7 @@ import javax.annotation.Nullable;
 import ucar.nc2.grib.GribNumbers;
 import ucar.nc2.grib.GribUtils;
 import ucar.nc2.iosp.BitReader;
+import ucar.unidata.io.BufferPool;
 import ucar.unidata.io.RandomAccessFile;
 import java.awt.image.DataBuffer;
 import java.io.ByteArrayInputStream;
@@ -230,14 +231,21 @@ public class Grib2DataReader {
 
     BitReader reader = new BitReader(raf, startPos + 5);
     if (bitmap == null) {
-      for (int i = 0; i < totalNPoints; i++) {
-        // data[ i ] = (R + ( X1 + X2) * EE)/DD ;
-        data[i] = (R + reader.bits2UInt(nb) * EE) / DD;
-      }
+      // data[ i ] = (R + ( X1 + X2) * EE)/DD ;
+      reader.bits2UIntScaled(nb, totalNPoints, R, EE, DD, data, 0);
     } else {
+      int npacked = 0;
       for (int i = 0; i < totalNPoints; i++) {
         if (GribNumbers.testBitIsSet(bitmap[i / 8], i % 8)) {
-          data[i] = (R + reader.bits2UInt(nb) * EE) / DD;
+          npacked++;
+        }
+      }
+      // unpack to the front of data, then spread out from the back, so a value never overwrites one not yet moved
+      reader.bits2UIntScaled(nb, npacked, R, EE, DD, data, 0);
+      int idx = npacked;
+      for (int i = totalNPoints - 1; i >= 0; i--) {
+        if (GribNumbers.testBitIsSet(bitmap[i / 8], i % 8)) {
+          data[i] = data[--idx];
         } else {
           data[i] = staticMissingValue;
           // data[i] = R / DD;
@@ -295,9 +303,7 @@ public class Grib2DataReader {
     int[] X1 = new int[NG];
     int nb = gdrs.numberOfBits;
     if (nb != 0) {
-      for (int i = 0; i < NG; i++) {
-        X1[i] = (int) reader.bits2UInt(nb);
-      }
+      reader.bits2UInt(nb, NG, X1, 0);
     }
 
     // [xx +1 ]-yy Get number of bits used to encode each group
@@ -305,9 +311,7 @@ public class Grib2DataReader {
     nb = gdrs.bitsGroupWidths;
     if (nb != 0) {
       reader.incrByte();
-      for (int i = 0; i < NG; i++) {
-        NB[i] = (int) reader.bits2UInt(nb);
-      }
+      reader.bits2UInt(nb, NG, NB, 0);
     }
 
     // [yy +1 ]-zz Get the scaled group lengths using formula
@@ -320,8 +324,9 @@ public class Grib2DataReader {
     nb = gdrs.bitsScaledGroupLength;
 
     reader.incrByte();
+    reader.bits2UInt(nb, NG, L, 0);
     for (int i = 0; i < NG; i++) {
-      L[i] = ref + (int) reader.bits2UInt(nb) * len_inc;
+      L[i] = ref + L[i] * len_inc;
     }
     L[NG - 1] = gdrs.lengthLastGroup; // enter Length of Last Group
 
@@ -339,7 +344,11 @@ public class Grib2DataReader {
     // D = THE DECIMAL SCALE FACTOR
     int count = 0;
     reader.incrByte();
+    int[] X2s = new int[maxGroupLength(L)];
     for (int i = 0; i < NG; i++) {
+      if (NB[i] != 0 && L[i] > 0) {
+        reader.bits2UInt(NB[i], L[i], X2s, 0);
+      }
       for (int j = 0; j < L[i]; j++) {
         if (NB[i] == 0) {
           if (mvm == 0) { // X2 = 0
@@ -348,7 +357,7 @@ public class Grib2DataReader {
             data[count++] = mv;
           }
         } else {
-          int X2 = (int) reader.bits2UInt(NB[i]);
+          int X2 = X2s[j];
           if (mvm == 0) {
             data[count++] = (R + (X1[i] + X2) * EE) / DD;
           } else { // if (mvm == 1) || (mvm == 2 )
@@ -380,6 +389,15 @@ public class Grib2DataReader {
   }
 
 
+  // the size of the buffer needed for the values of any group
+  private static int maxGroupLength(int[] L) {
+    int max = 0;
+    for (int len : L) {
+      max = Math.max(max, len);
+    }
+    return max;
+  }
+
   /*
    * from wgrib unpk_complex():
    * 
@@ -520,9 +538,7 @@ public class Grib2DataReader {
     int nb = gdrs.numberOfBits;
     if (nb != 0) {
       reader.incrByte();
-      for (int i = 0; i < NG; i++) {
-        X1[i] = (int) reader.bits2UInt(nb);
-      }
+      reader.bits2UInt(nb, NG, X1, 0);
     }
 
     // [xx +1 ]-yy Get number of bits used to encode each group
@@ -531,9 +547,7 @@ public class Grib2DataReader {
     nb = gdrs.bitsGroupWidths;
     if (nb != 0) {
       reader.incrByte();
-      for (int i = 0; i < NG; i++) {
-        NB[i] = (int) reader.bits2UInt(nb);
-      }
+      reader.bits2UInt(nb, NG, NB, 0);
     }
 
     int referenceGroupWidths = gdrs.referenceGroupWidths;
@@ -552,9 +566,7 @@ public class Grib2DataReader {
 
     if (nb != 0) {
       reader.incrByte();
-      for (int i = 0; i < NG; i++) {
-        L[i] = (int) reader.bits2UInt(nb);
-      }
+      reader.bits2UInt(nb, NG, L, 0);
     }
 
     int totalL = 0;
@@ -606,11 +618,15 @@ public class Grib2DataReader {
     reader.incrByte();
     int dataSize = 0;
     boolean[] dataBitMap = null;
+    int[] X2s = new int[maxGroupLength(L)];
     if (mvm == 0) {
       for (int i = 0; i < NG; i++) {
         if (NB[i] != 0) {
+          if (L[i] > 0) {
+            reader.bits2UInt(NB[i], L[i], X2s, 0);
+          }
           for (int j = 0; j < L[i]; j++) {
-            data[count++] = (int) reader.bits2UInt(NB[i]) + X1[i];
+            data[count++] = X2s[j] + X1[i];
           }
         } else {
           for (int j = 0; j < L[i]; j++) {
@@ -627,8 +643,11 @@ public class Grib2DataReader {
         if (NB[i] != 0) {
           int msng1 = bitsmv1[NB[i]];
           int msng2 = msng1 - 1;
+          if (L[i] > 0) {
+            reader.bits2UInt(NB[i], L[i], X2s, 0);
+          }
           for (int j = 0; j < L[i]; j++) {
-            data[count] = (int) reader.bits2UInt(NB[i]);
+            data[count] = X2s[j];
             if (data[count] == msng1 || mvm == 2 && data[count] == msng2) {
               dataBitMap[count] = false;
             } else {
@@ -895,10 +914,17 @@ public class Grib2DataReader {
     // X2 = scaled encoded value
     // data[ i ] = (R + ( X1 + X2) * EE)/DD ;
 
-    byte[] buf = new byte[dataLength - 5];
-    raf.readFully(buf);
-    InputStream in = new ByteArrayInputStream(buf);
-    BufferedImage image = ImageIO.read(in);
+    int nbytes = dataLength - 5;
+    BufferPool pool = BufferPool.getDefault();
+    byte[] buf = pool.getBytes(nbytes);
+    BufferedImage image;
+    try {
+      raf.readFully(buf, 0, nbytes);
+      InputStream in = new ByteArrayInputStream(buf, 0, nbytes);
+      image = ImageIO.read(in);
+    } finally {
+      pool.release(buf);
+    }
 
     if (nb != image.getColorModel().getPixelSize()) {
       logger.debug("PNG pixel size {} disagrees with grib number of bits {}", image.getColorModel().getPixelSize(), nb);
@@ -975,21 +1001,15 @@ public class Grib2DataReader {
 
     reader = new BitReader(raf, startPos + 5);
     int[] groupWidth = new int[gdrs.p1];
-    for (int i = 0; i < gdrs.p1; i++) {
-      groupWidth[i] = (int) reader.bits2UInt(gdrs.widthOfWidth);
-    }
+    reader.bits2UInt(gdrs.widthOfWidth, gdrs.p1, groupWidth, 0);
 
     reader = new BitReader(raf, raf.getFilePointer());
     int[] groupLength = new int[gdrs.p1];
-    for (int i = 0; i < gdrs.p1; i++) {
-      groupLength[i] = (int) reader.bits2UInt(gdrs.widthOfLength);
-    }
+    reader.bits2UInt(gdrs.widthOfLength, gdrs.p1, groupLength, 0);
 
     reader = new BitReader(raf, raf.getFilePointer());
     int[] firstOrderValues = new int[gdrs.p1];
-    for (int i = 0; i < gdrs.p1; i++) {
-      firstOrderValues[i] = (int) reader.bits2UInt(gdrs.widthOfFirstOrderValues);
-    }
+    reader.bits2UInt(gdrs.widthOfFirstOrderValues, gdrs.p1, firstOrderValues, 0);
 
     int bias = 0;
     if (gdrs.orderOfSPD > 0) {
@@ -1002,8 +1022,10 @@ public class Grib2DataReader {
     for (int i = 0; i < gdrs.p1; i++) {
       if (groupWidth[i] > 0) {
 
+        if (groupLength[i] > 0) {
+          reader.bits2UInt(groupWidth[i], groupLength[i], data, cnt);
+        }
         for (int j = 0; j < groupLength[i]; j++) {
-          data[cnt] = (int) reader.bits2UInt(groupWidth[i]);
           data[cnt] += firstOrderValues[i];
           cnt++;
         }
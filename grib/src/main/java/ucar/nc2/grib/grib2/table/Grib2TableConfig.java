@@ -87,11 +87,8 @@ class Grib2TableConfig {
   }
 
   static Grib2TableConfig matchTable(Grib2TablesId id) {
-    if (tables == null)
-      tables = init();
-
     // first match wins
-    for (Grib2TableConfig table : tables) {
+    for (Grib2TableConfig table : getTables()) {
       if (table.id.match(id))
         return table;
     }
@@ -100,7 +97,8 @@ class Grib2TableConfig {
     return standardTable;
   }
 
-  static ImmutableList<Grib2TableConfig> getTables() {
+  // synchronized so that tables and standardTable are seen together
+  static synchronized ImmutableList<Grib2TableConfig> getTables() {
     if (tables == null)
       tables = init();
 
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.nc2.grib.collection;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ucar.ma2.Array;
+import ucar.ma2.IndexIterator;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.NetcdfFiles;
+import ucar.nc2.Variable;
+import ucar.nc2.grib.coord.SparseArray;
+import ucar.unidata.io.RandomAccessFile;
+
+/** Test {@link FixedRecordTable} and ncx files that use it. */
+public class TestFixedRecordTable {
+  private static final String[] FILES = {"HLYA10.grib2", "ds.sky.grib2", "afwa.grib1", "ECMWF.grib1"};
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @After
+  public void reset() {
+    GribCdmIndex.setWriteFixedRecordTables(false);
+  }
+
+  private File copyDataFile(String name) throws IOException {
+    File dir = tempFolder.newFolder();
+    File file = new File(dir, name);
+    Files.copy(new File("../grib/src/test/data/" + name).toPath(), file.toPath());
+    return file;
+  }
+
+  private static File getIndexFile(File dataFile) {
+    return new File(dataFile.getPath() + GribCdmIndex.NCX_SUFFIX);
+  }
+
+  private static int getVersion(File ncxFile) throws IOException {
+    try (DataInputStream in = new DataInputStream(new FileInputStream(ncxFile))) {
+      in.skipBytes(Grib2CollectionWriter.MAGIC_START.length());
+      return in.readInt();
+    }
+  }
+
+  // summarize all of the data in the file
+  private static List<String> readAll(File dataFile) throws IOException {
+    try (NetcdfFile ncfile = NetcdfFiles.open(dataFile.getPath())) {
+      return readAll(ncfile);
+    }
+  }
+
+  private static List<String> readAll(NetcdfFile ncfile) throws IOException {
+    List<String> result = new ArrayList<>();
+    for (Variable v : ncfile.getVariables()) {
+      if (v.getRank() < 3) {
+        continue;
+      }
+      Array data = v.read();
+      double sum = 0;
+      int nmissing = 0;
+      IndexIterator iter = data.getIndexIterator();
+      while (iter.hasNext()) {
+        double val = iter.getDoubleNext();
+        if (Double.isNaN(val)) {
+          nmissing++;
+        } else {
+          sum += val;
+        }
+      }
+      result.add(v.getShortName() + " " + sum + " " + nmissing);
+    }
+    return result;
+  }
+
+  @Test
+  public void testEncode() {
+    GribCollectionProto.SparseArray.Builder b = GribCollectionProto.SparseArray.newBuilder();
+    b.addSize(2).addSize(3);
+    for (int track : new int[] {1, 0, 2, 0, 0, 3}) {
+      b.addTrack(track);
+    }
+    for (int i = 0; i < 3; i++) {
+      b.addRecords(GribCollectionProto.Record.newBuilder().setFileno(i).setStartPos(10_000_000_000L + i)
+          .setBmsOffset(100 + i).setDrsOffset(200 + i));
+    }
+    b.setNdups(7);
+
+    byte[] bytes = FixedRecordTable.encode(b.build(), 64);
+    assertThat(bytes).hasLength(4 * 5 + 4 * 6 + FixedRecordTable.RECORD_SIZE * 3);
+    FixedRecordTable table = FixedRecordTable.wrap(bytes);
+    assertThat(table.getShape()).isEqualTo(new int[] {2, 3});
+    assertThat(table.getNrecords()).isEqualTo(3);
+    assertThat(table.countNotMissing()).isEqualTo(3);
+    assertThat(table.getContent(1)).isNull();
+    assertThat(table.getContent(new int[] {1, 0})).isNull();
+
+    GribCollectionImmutable.Record record = table.getContent(new int[] {1, 2});
+    assertThat(record.fileno).isEqualTo(2);
+    assertThat(record.pos).isEqualTo(10_000_000_002L);
+    assertThat(record.bmsOffset).isEqualTo(102);
+    assertThat(record.drsOffset).isEqualTo(202);
+    // the scanMode is the last int of each record
+    assertThat(ByteBuffer.wrap(bytes).getInt(bytes.length - 4)).isEqualTo(64);
+
+    SparseArray<GribCollectionImmutable.Record> sa = table.toSparseArray();
+    assertThat(sa.getNdups()).isEqualTo(7);
+    assertThat(sa.getTrack()).isEqualTo(new int[] {1, 0, 2, 0, 0, 3});
+    assertThat(sa.getContent(2).pos).isEqualTo(10_000_000_001L);
+  }
+
+  @Test
+  public void testWriteFixed() throws IOException {
+    for (String name : FILES) {
+      List<String> expected = readAll(copyDataFile(name));
+      assertThat(expected).isNotEmpty();
+
+      GribCdmIndex.setWriteFixedRecordTables(true);
+      File dataFile = copyDataFile(name);
+      assertThat(readAll(dataFile)).containsExactlyElementsIn(expected).inOrder();
+      assertThat(getVersion(getIndexFile(dataFile))).isEqualTo(FixedRecordTable.VERSION);
+      GribCdmIndex.setWriteFixedRecordTables(false);
+    }
+  }
+
+  @Test
+  public void testRebuildWhileOpen() throws IOException {
+    GribCdmIndex.setWriteFixedRecordTables(true);
+    for (String name : FILES) {
+      File dataFile = copyDataFile(name);
+      File ncxFile = getIndexFile(dataFile);
+      try (NetcdfFile ncfile = NetcdfFiles.open(dataFile.getPath())) {
+        List<String> expected = readAll(ncfile);
+        long lastModified = ncxFile.lastModified();
+
+        // the data file is newer than the index, so opening it again rebuilds the index
+        assertThat(dataFile.setLastModified(lastModified + 60 * 1000)).isTrue();
+        assertThat(readAll(dataFile)).containsExactlyElementsIn(expected).inOrder();
+        assertThat(ncxFile.lastModified()).isNotEqualTo(lastModified);
+
+        // the open file still reads its own copy of the record tables
+        assertThat(readAll(ncfile)).containsExactlyElementsIn(expected).inOrder();
+      }
+      for (String filename : dataFile.getParentFile().list()) {
+        assertThat(filename).doesNotContain(".tmp");
+      }
+    }
+  }
+
+  @Test
+  public void testConvert() throws IOException {
+    for (String name : FILES) {
+      File dataFile = copyDataFile(name);
+      List<String> expected = readAll(dataFile);
+      File ncxFile = getIndexFile(dataFile);
+      assertThat(getVersion(ncxFile)).isLessThan(FixedRecordTable.VERSION);
+
+      File converted = new File(dataFile.getParentFile(), "converted.ncx4");
+      GribCdmIndex.convertToFixedRecordTables(ncxFile, converted);
+      assertThat(getVersion(converted)).isEqualTo(FixedRecordTable.VERSION);
+
+      RandomAccessFile.eject(ncxFile.getPath());
+      assertThat(ncxFile.delete()).isTrue();
+      assertThat(converted.renameTo(ncxFile)).isTrue();
+      long lastModified = ncxFile.lastModified();
+      assertThat(readAll(dataFile)).containsExactlyElementsIn(expected).inOrder();
+      assertThat(ncxFile.lastModified()).isEqualTo(lastModified); // was not rebuilt
+      assertThat(getVersion(ncxFile)).isEqualTo(FixedRecordTable.VERSION);
+    }
+  }
+}
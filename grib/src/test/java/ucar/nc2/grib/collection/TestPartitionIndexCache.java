@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.nc2.grib.collection;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ucar.nc2.dataset.DatasetUrl;
+import ucar.nc2.util.cache.FileCacheIF;
+import ucar.nc2.util.cache.FileCacheable;
+import ucar.nc2.util.cache.FileFactory;
+
+/** Test {@link PartitionIndexCache}. */
+public class TestPartitionIndexCache {
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private static class Opened implements FileCacheable {
+    private final String location;
+
+    Opened(String location) {
+      this.location = location;
+    }
+
+    @Override
+    public String getLocation() {
+      return location;
+    }
+
+    @Override
+    public void close() {}
+
+    @Override
+    public long getLastModified() {
+      return new File(location).lastModified();
+    }
+
+    @Override
+    public void setFileCache(FileCacheIF fileCache) {}
+
+    @Override
+    public void release() {}
+
+    @Override
+    public void reacquire() {}
+  }
+
+  private final AtomicInteger opens = new AtomicInteger();
+
+  private final FileFactory factory = (durl, bufferSize, cancelTask, iospMessage) -> {
+    opens.incrementAndGet();
+    return new Opened(durl.trueurl);
+  };
+
+  private File makeIndex(String name, int size) throws IOException {
+    File file = tempFolder.newFile(name);
+    Files.write(file.toPath(), new byte[size]);
+    return file;
+  }
+
+  private FileCacheable acquire(PartitionIndexCache cache, File file) throws IOException {
+    return cache.acquire(factory, file.getPath(), DatasetUrl.create(null, file.getPath()), -1, null, null);
+  }
+
+  @Test
+  public void testHitsAndMisses() throws IOException {
+    PartitionIndexCache cache = new PartitionIndexCache("test", 10000);
+    File index1 = makeIndex("part1.ncx4", 1000);
+    File index2 = makeIndex("part2.ncx4", 1000);
+
+    FileCacheable fc = acquire(cache, index1);
+    assertThat(acquire(cache, index1)).isSameInstanceAs(fc);
+    acquire(cache, index2);
+    assertThat(opens.get()).isEqualTo(2);
+    assertThat(cache.getStats().hitCount()).isEqualTo(1);
+    assertThat(cache.getStats().missCount()).isEqualTo(2);
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.getWeight()).isEqualTo(2000);
+
+    cache.eject(index1.getPath());
+    assertThat(acquire(cache, index1)).isNotSameInstanceAs(fc);
+    assertThat(opens.get()).isEqualTo(3);
+  }
+
+  @Test
+  public void testBoundedBySize() throws IOException {
+    PartitionIndexCache cache = new PartitionIndexCache("test", 2500);
+    List<File> indexes = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      File index = makeIndex("part" + i + ".ncx4", 1000);
+      indexes.add(index);
+      acquire(cache, index);
+    }
+    assertThat(opens.get()).isEqualTo(5);
+    assertThat(cache.getWeight()).isEqualTo(2000L);
+    assertThat(cache.size()).isEqualTo(2L);
+
+    // the most recently used indexes are kept
+    acquire(cache, indexes.get(3));
+    acquire(cache, indexes.get(4));
+    assertThat(opens.get()).isEqualTo(5);
+    acquire(cache, indexes.get(0));
+    assertThat(opens.get()).isEqualTo(6);
+  }
+
+  @Test
+  public void testReopensModifiedIndex() throws IOException {
+    PartitionIndexCache cache = new PartitionIndexCache("test", 10000);
+    File index = makeIndex("part.ncx4", 1000);
+    FileCacheable fc = acquire(cache, index);
+
+    assertThat(index.setLastModified(index.lastModified() - 60 * 1000)).isTrue();
+    assertThat(acquire(cache, index)).isNotSameInstanceAs(fc);
+    assertThat(opens.get()).isEqualTo(2);
+    assertThat(cache.size()).isEqualTo(1);
+  }
+}
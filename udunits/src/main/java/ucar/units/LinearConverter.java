@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.units;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Converts between units that differ only by a scale factor and an offset, such as "km" and "m", or "Cel" and "K".
+ * The slope and intercept of the conversion are computed once, so converting an array does a single multiply and add
+ * for each value, instead of walking down and back up the definitions of the two units.
+ *
+ * @since 5.5.4
+ */
+@Immutable
+public final class LinearConverter extends ConverterImpl {
+  private final double slope;
+  private final double intercept;
+
+  /**
+   * Make a LinearConverter if the conversion is linear.
+   *
+   * @param fromUnit The unit from which to convert.
+   * @param toUnit The unit to which to convert.
+   * @return the converter, or null if one of the units is not made of scaled and offset derived units.
+   * @throws ConversionException The units are not convertible.
+   */
+  static LinearConverter createLinear(Unit fromUnit, Unit toUnit) throws ConversionException {
+    double[] from = toDerivedUnit(fromUnit);
+    double[] to = toDerivedUnit(toUnit);
+    if (from == null || to == null || to[0] == 0) {
+      return null;
+    }
+    // derived = from[0] * x + from[1] = to[0] * y + to[1]
+    return new LinearConverter(fromUnit, toUnit, from[0] / to[0], (from[1] - to[1]) / to[0]);
+  }
+
+  /** The slope and intercept of unit.toDerivedUnit(), or null if its not linear. */
+  private static double[] toDerivedUnit(Unit unit) {
+    if (unit instanceof DerivedUnitImpl) {
+      return new double[] {1, 0};
+    }
+    if (unit instanceof ScaledUnit) {
+      ScaledUnit scaled = (ScaledUnit) unit;
+      double[] result = toDerivedUnit(scaled.getUnit());
+      if (result != null) {
+        result[0] *= scaled.getScale();
+      }
+      return result;
+    }
+    if (unit instanceof OffsetUnit) {
+      OffsetUnit offset = (OffsetUnit) unit;
+      double[] result = toDerivedUnit(offset.getUnit());
+      if (result != null) {
+        result[1] += result[0] * offset.getOffset();
+      }
+      return result;
+    }
+    return null;
+  }
+
+  private LinearConverter(Unit fromUnit, Unit toUnit, double slope, double intercept) throws ConversionException {
+    super(fromUnit, toUnit);
+    this.slope = slope;
+    this.intercept = intercept;
+  }
+
+  /** The output value is getSlope() * input + getIntercept(). */
+  public double getSlope() {
+    return slope;
+  }
+
+  /** The output value is getSlope() * input + getIntercept(). */
+  public double getIntercept() {
+    return intercept;
+  }
+
+  public double convert(double amount) {
+    return slope * amount + intercept;
+  }
+
+  public float[] convert(float[] input, float[] output) {
+    for (int i = 0; i < input.length; i++) {
+      output[i] = (float) (slope * input[i] + intercept);
+    }
+    return output;
+  }
+
+  public double[] convert(double[] input, double[] output) {
+    for (int i = 0; i < input.length; i++) {
+      output[i] = slope * input[i] + intercept;
+    }
+    return output;
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.units;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caches units parsed with the default unit database, and converters between them, keyed by unit specification.
+ * Parsing a specification is slow and is done under a global lock, while datasets use the same few unit strings
+ * over and over. Units and converters are immutable, so they can be shared between threads.
+ * <p>
+ * The cache is bounded: when it holds {@link #setMaxSize maxSize} entries it is emptied. It is also emptied whenever
+ * the default unit database changes, since that can change what a specification means.
+ *
+ * @since 5.5.4
+ */
+public final class UnitCache {
+  private static final Map<String, Unit> units = new ConcurrentHashMap<>();
+  private static final Map<String, Converter> converters = new ConcurrentHashMap<>();
+  private static final AtomicInteger generation = new AtomicInteger();
+  private static volatile int maxSize = 1000;
+
+  private UnitCache() {}
+
+  /**
+   * Set the maximum number of units, and separately of converters, to cache. 0 turns off caching.
+   *
+   * @param size maximum number of entries, default 1000.
+   */
+  public static void setMaxSize(int size) {
+    maxSize = Math.max(0, size);
+    clear();
+  }
+
+  /** Empty the cache. */
+  public static void clear() {
+    generation.incrementAndGet();
+    units.clear();
+    converters.clear();
+  }
+
+  /**
+   * Get a Converter between two unit specifications, parsed with the default UnitFormat.
+   *
+   * @param fromSpec the unit from which to convert.
+   * @param toSpec the unit to which to convert.
+   * @return the converter, which may be shared.
+   * @throws UnitException if either specification can't be parsed, or the units aren't convertible.
+   */
+  public static Converter getConverter(String fromSpec, String toSpec) throws UnitException {
+    String key = fromSpec + '\u0000' + toSpec;
+    Converter converter = converters.get(key);
+    if (converter == null) {
+      int gen = generation.get();
+      UnitFormat format = UnitFormatManager.instance();
+      converter = format.parse(fromSpec).getConverterTo(format.parse(toSpec));
+      put(converters, key, converter, gen);
+    }
+    return converter;
+  }
+
+  /** Get a cached unit, or null if not cached. */
+  static Unit getUnit(String spec) {
+    return units.get(spec);
+  }
+
+  /** Get the current generation, to pass to putUnit() once the unit has been parsed. */
+  static int getGeneration() {
+    return generation.get();
+  }
+
+  /**
+   * Cache a parsed unit.
+   *
+   * @param spec the specification.
+   * @param unit the unit it was parsed to.
+   * @param gen value of getGeneration() before it was parsed. If the cache has been cleared since then, the unit may be
+   *        stale and it is not cached.
+   */
+  static void putUnit(String spec, Unit unit, int gen) {
+    put(units, spec, unit, gen);
+  }
+
+  private static <T> void put(Map<String, T> map, String key, T value, int gen) {
+    int max = maxSize;
+    if (max == 0) {
+      return;
+    }
+    if (map.size() >= max) {
+      map.clear();
+    }
+    map.put(key, value);
+    if (generation.get() != gen) {
+      map.remove(key);
+    }
+  }
+}
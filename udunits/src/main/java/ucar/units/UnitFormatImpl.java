@@ -19,6 +19,7 @@ public abstract class UnitFormatImpl implements UnitFormat {
 
   /**
    * Parses a unit specification. This method is thread-safe.
+   * Units parsed with the default unit database are cached by specification, see {@link UnitCache}.
    * 
    * @param spec
    *        The unit specification (e.g. "m/s");
@@ -39,9 +40,18 @@ public abstract class UnitFormatImpl implements UnitFormat {
    */
   public final Unit parse(final String spec) throws NoSuchUnitException, UnitParseException, SpecificationException,
       UnitDBException, PrefixDBException, UnitSystemException {
+    Unit unit = (spec == null) ? null : UnitCache.getUnit(spec);
+    if (unit != null) {
+      return unit;
+    }
+    int gen = UnitCache.getGeneration();
     synchronized (MUTEX) {
-      return parse(spec, UnitDBManager.instance());
+      unit = parse(spec, UnitDBManager.instance());
+    }
+    if (spec != null && unit != null) {
+      UnitCache.putUnit(spec, unit, gen);
     }
+    return unit;
   }
 
   /**
@@ -40,5 +40,6 @@ public final class UnitFormatManager implements Serializable {
    */
   public static synchronized void setInstance(final UnitFormat instance) {
     UnitFormatManager.instance = instance;
+    UnitCache.clear();
   }
 }
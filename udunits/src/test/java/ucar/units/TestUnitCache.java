@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2022 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+package ucar.units;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+
+/** Test {@link UnitCache} and {@link LinearConverter}. */
+public class TestUnitCache {
+  private static final String[][] convertible = {{"m", "km"}, {"km", "m"}, {"ft", "cm"}, {"Cel", "K"}, {"K", "Cel"},
+      {"degF", "Cel"}, {"Cel", "degF"}, {"hPa", "mbar"}, {"knot", "m/s"}, {"3 days", "h"}, {"mm/day", "m/s"},
+      {"percent", "1"}, {"m2 s-2", "J/kg"}};
+
+  @Test
+  public void testParseIsCached() throws Exception {
+    UnitFormat format = UnitFormatManager.instance();
+    Unit first = format.parse("kg m-2 s-1");
+    assertSame(first, format.parse("kg m-2 s-1"));
+
+    UnitCache.clear();
+    Unit again = format.parse("kg m-2 s-1");
+    assertNotSame(first, again);
+    assertEquals(first, again);
+  }
+
+  @Test
+  public void testNotCachedWhenDisabled() throws Exception {
+    UnitFormat format = UnitFormatManager.instance();
+    try {
+      UnitCache.setMaxSize(0);
+      Unit first = format.parse("m/s");
+      assertNotSame(first, format.parse("m/s"));
+    } finally {
+      UnitCache.setMaxSize(1000);
+    }
+  }
+
+  @Test
+  public void testBounded() throws Exception {
+    UnitFormat format = UnitFormatManager.instance();
+    try {
+      UnitCache.setMaxSize(10);
+      for (int i = 1; i <= 100; i++) {
+        assertEquals(format.parse("m").multiplyBy(i), format.parse(i + " m"));
+      }
+    } finally {
+      UnitCache.setMaxSize(1000);
+    }
+  }
+
+  @Test
+  public void testDatabaseChangeClearsCache() throws Exception {
+    UnitFormat format = UnitFormatManager.instance();
+    UnitDBImpl unitDB = (UnitDBImpl) UnitDBManager.instance();
+    String name = "testUnitCacheFurlong";
+    try {
+      format.parse(name);
+    } catch (NoSuchUnitException | UnitParseException e) {
+      // expected
+    }
+    Unit first = format.parse("ft");
+    unitDB.addUnit(format.parse("660 ft").clone(UnitName.newUnitName(name)));
+    assertEquals(660, format.parse(name).convertTo(1.0, format.parse("ft")), 1e-9);
+    assertNotSame(first, format.parse("ft"));
+  }
+
+  @Test
+  public void testGetConverter() throws Exception {
+    Converter converter = UnitCache.getConverter("km", "m");
+    assertTrue(converter instanceof LinearConverter);
+    assertEquals(1500.0, converter.convert(1.5), 0);
+    assertSame(converter, UnitCache.getConverter("km", "m"));
+
+    try {
+      UnitCache.getConverter("km", "s");
+      fail("ConversionException expected");
+    } catch (ConversionException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testLinearConverter() throws Exception {
+    UnitFormat format = UnitFormatManager.instance();
+    double[] values = {0, 1, -1, 0.5, 273.15, -40, 1.0e-6, 123456.789, Double.NaN};
+    float[] fvalues = new float[values.length];
+    for (int i = 0; i < values.length; i++) {
+      fvalues[i] = (float) values[i];
+    }
+
+    for (String[] pair : convertible) {
+      String what = pair[0] + " -> " + pair[1];
+      Unit from = format.parse(pair[0]);
+      Unit to = format.parse(pair[1]);
+      Converter converter = from.getConverterTo(to);
+      assertTrue(what, converter instanceof LinearConverter);
+      Converter chain = new UnitImpl.MyConverter(from, to);
+
+      double[] expected = chain.convert(values);
+      double[] result = converter.convert(values);
+      float[] fexpected = chain.convert(fvalues);
+      float[] fresult = converter.convert(fvalues);
+      for (int i = 0; i < values.length; i++) {
+        assertEquals(what, expected[i], result[i], 1.0e-12 * Math.max(1, Math.abs(expected[i])));
+        assertEquals(what, result[i], converter.convert(values[i]), 0);
+        assertEquals(what, fexpected[i], fresult[i], 1.0e-5f * Math.max(1, Math.abs(fexpected[i])));
+      }
+
+      // in place
+      double[] inPlace = values.clone();
+      assertArrayEquals(result, converter.convert(inPlace, inPlace), 0);
+    }
+  }
+
+  @Test
+  public void testNonLinear() throws Exception {
+    UnitFormat format = UnitFormatManager.instance();
+    Converter converter = format.parse("lg(re mW)").getConverterTo(format.parse("mW"));
+    assertFalse(converter instanceof LinearConverter);
+    assertEquals(10, converter.convert(1.0), 1e-9);
+
+    Converter time = format.parse("hours since 2000-01-01").getConverterTo(format.parse("days since 2000-01-01"));
+    assertFalse(time instanceof LinearConverter);
+    assertEquals(1.5, time.convert(36.0), 1e-9);
+  }
+
+  @Test
+  public void testConcurrentParse() throws Exception {
+    UnitFormat format = UnitFormatManager.instance();
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Unit>> futures = new ArrayList<>();
+      for (int i = 0; i < 1000; i++) {
+        String spec = convertible[i % convertible.length][i % 2];
+        futures.add(executor.submit(() -> format.parse(spec)));
+      }
+      for (int i = 0; i < futures.size(); i++) {
+        String spec = convertible[i % convertible.length][i % 2];
+        assertEquals(spec, format.parse(spec), futures.get(i).get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
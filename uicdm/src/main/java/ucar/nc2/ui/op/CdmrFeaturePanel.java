@@ -124,7 +124,7 @@ public class CdmrFeaturePanel extends JPanel {
         total += mess.vlen;
 
         // Start, Header, Data, End, Error,
-        // StationList, PointFeatureCollection, PointFeature
+        // StationList, PointFeatureCollection, PointFeature, PointFeatureBatch
 
         switch (mess.magic) {
           case Header:
@@ -147,6 +147,9 @@ public class CdmrFeaturePanel extends JPanel {
           case PointFeature:
             mess.obj = PointStreamProto.PointFeature.parseFrom(m);
             break;
+          case PointFeatureBatch:
+            mess.obj = PointStreamProto.PointFeatureBatch.parseFrom(m);
+            break;
           default:
             mess.obj = "unknown";
         }